@@ -2,13 +2,26 @@ package ca.mcgillcssa.cssabackend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ApplicationListener;
 
 @SpringBootApplication
 public class CssaBackendApplication {
 
+  // enough for every startup step of this application, read by StartupTimingReport
+  private static final int STARTUP_STEPS = 4096;
+
   public static void main(String[] args) {
     try {
       SpringApplication app = new SpringApplication(CssaBackendApplication.class);
+      app.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+      if (Boolean.getBoolean("cssa.cds.training")) {
+        // training run of the cdsArchive Gradle task: stop once the context has
+        // started, the JVM writes the AppCDS archive on exit
+        app.addListeners((ApplicationListener<ApplicationStartedEvent>) event -> System
+            .exit(SpringApplication.exit(event.getApplicationContext())));
+      }
       app.run(args);
       System.out.println("Backend now running on port 8080!");
     } catch (Exception e) {
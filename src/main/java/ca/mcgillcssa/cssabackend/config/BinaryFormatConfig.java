@@ -0,0 +1,61 @@
+package ca.mcgillcssa.cssabackend.config;
+
+import java.util.List;
+
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Lets clients ask for CBOR, Smile or MessagePack instead of JSON with the
+ * Accept header, and send request bodies in those formats with Content-Type.
+ * The converters are appended after the JSON one, so clients that send no
+ * Accept header, or accept any type, still get JSON. They are built from Spring
+ * Boot's Jackson2ObjectMapperBuilder, so they serialize the same response maps
+ * and DTOs with the same settings as the JSON converter. The builder bean is a
+ * prototype, each converter gets its own.
+ */
+@Configuration
+public class BinaryFormatConfig implements WebMvcConfigurer {
+
+  public static final MediaType APPLICATION_MSGPACK = new MediaType("application", "msgpack");
+  public static final MediaType APPLICATION_X_MSGPACK = new MediaType("application", "x-msgpack");
+
+  public static class MessagePackHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+    public MessagePackHttpMessageConverter(ObjectMapper objectMapper) {
+      super(objectMapper, APPLICATION_MSGPACK, APPLICATION_X_MSGPACK);
+    }
+  }
+
+  private final ObjectProvider<Jackson2ObjectMapperBuilder> builders;
+
+  public BinaryFormatConfig(ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+    this.builders = builders;
+  }
+
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    int json = -1;
+    for (int i = 0; i < converters.size(); i++) {
+      if (converters.get(i) instanceof MappingJackson2HttpMessageConverter) {
+        json = i;
+      }
+    }
+    converters.addAll(json + 1, List.of(
+        new MappingJackson2CborHttpMessageConverter(builders.getObject().factory(new CBORFactory()).build()),
+        new MappingJackson2SmileHttpMessageConverter(builders.getObject().factory(new SmileFactory()).build()),
+        new MessagePackHttpMessageConverter(builders.getObject().factory(new MessagePackFactory()).build())));
+  }
+}
@@ -3,7 +3,9 @@ package ca.mcgillcssa.cssabackend.config;
 import java.util.Collection;
 import java.util.Collections;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
 
 import com.mongodb.ConnectionString;
@@ -12,19 +14,31 @@ import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 
 @Configuration
+@Profile("!inmemory")
 public class MongoConfig extends AbstractMongoClientConfiguration {
 
   private String uri = "mongodb+srv://itmcgillcssa:" + System.getenv("DB_PASSWORD")
       + "@cssa-backend.dex7vrz.mongodb.net/?retryWrites=true&w=majority";
 
+  // set to use another server, e.g. a local one for the benchmarks
+  @Value("${cssa.mongo.uri}")
+  private String configuredUri;
+
+  @Value("${cssa.mongo.database}")
+  private String databaseName;
+
+  // when false, MongoIndexInitializer builds the indexes after startup instead
+  @Value("${cssa.mongo.auto-index-creation}")
+  private boolean autoIndexCreation;
+
   @Override
   protected String getDatabaseName() {
-    return "cssa";
+    return databaseName;
   }
 
   @Override
   public MongoClient mongoClient() {
-    ConnectionString connectionString = new ConnectionString(uri);
+    ConnectionString connectionString = new ConnectionString(configuredUri.isBlank() ? uri : configuredUri);
     MongoClientSettings mongoClientSettings = MongoClientSettings.builder()
         .applyConnectionString(connectionString)
         .build();
@@ -34,11 +48,12 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
 
   @Override
   public Collection<String> getMappingBasePackages() {
-    return Collections.singleton("ca.mcgillcssa");
+    // all @Document classes live here, scanning less of the classpath speeds up startup
+    return Collections.singleton("ca.mcgillcssa.cssabackend.model");
   }
 
   @Override
   protected boolean autoIndexCreation() {
-    return true;
+    return autoIndexCreation;
   }
 }
@@ -0,0 +1,62 @@
+package ca.mcgillcssa.cssabackend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the indexes declared on the @Document classes once the application is
+ * ready, on a background thread. Used instead of Spring Data's automatic index
+ * creation, which runs while the context starts and waits on the database.
+ */
+@Component
+@Profile("!inmemory")
+@ConditionalOnProperty(name = "cssa.mongo.auto-index-creation", havingValue = "false")
+public class MongoIndexInitializer {
+
+  private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+  private final MongoTemplate mongoTemplate;
+  private final MongoMappingContext mappingContext;
+
+  public MongoIndexInitializer(MongoTemplate mongoTemplate, MongoMappingContext mappingContext) {
+    this.mongoTemplate = mongoTemplate;
+    this.mappingContext = mappingContext;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void createIndexesInBackground() {
+    Thread thread = new Thread(this::createIndexes, "mongo-index-initializer");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public void createIndexes() {
+    MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+    for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+      if (!entity.isAnnotationPresent(Document.class)) {
+        continue;
+      }
+      try {
+        IndexOperations indexOperations = mongoTemplate.indexOps(entity.getType());
+        for (IndexDefinition index : resolver.resolveIndexFor(entity.getType())) {
+          indexOperations.ensureIndex(index);
+        }
+      } catch (RuntimeException e) {
+        logger.error("Could not create the indexes of {}", entity.getCollection(), e);
+      }
+    }
+    logger.info("Mongo indexes created");
+  }
+}
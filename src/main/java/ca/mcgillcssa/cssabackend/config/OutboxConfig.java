@@ -0,0 +1,35 @@
+package ca.mcgillcssa.cssabackend.config;
+
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ca.mcgillcssa.cssabackend.event.WebhookEventHandler;
+import ca.mcgillcssa.cssabackend.service.DomainEventBus;
+
+/**
+ * The webhooks notified of new members, each enabled by setting its URL.
+ */
+@Configuration
+public class OutboxConfig {
+
+  @Bean
+  @ConditionalOnProperty(name = "cssa.outbox.wechat-roster-url")
+  public WebhookEventHandler wechatRosterWebhook(@Value("${cssa.outbox.wechat-roster-url}") String url,
+      ObjectMapper objectMapper) {
+    return new WebhookEventHandler("wechat-roster", url, Set.of(DomainEventBus.MEMBER_REGISTERED), objectMapper);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "cssa.outbox.department-heads-url")
+  public WebhookEventHandler departmentHeadsWebhook(@Value("${cssa.outbox.department-heads-url}") String url,
+      ObjectMapper objectMapper) {
+    return new WebhookEventHandler("department-heads", url, Set.of(DomainEventBus.MEMBER_REGISTERED),
+        objectMapper);
+  }
+}
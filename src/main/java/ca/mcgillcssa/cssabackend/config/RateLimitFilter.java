@@ -0,0 +1,116 @@
+package ca.mcgillcssa.cssabackend.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ca.mcgillcssa.cssabackend.util.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Rate limits clients, by address, on the routes that are expensive to serve,
+ * such as the sponsor writes that probe the sponsor's image and website URLs.
+ * Each route is configured as "METHOD /path/pattern capacity/periodSeconds",
+ * e.g. "POST /sponsors/ 20/60": bursts of up to 20 requests, refilled at 20
+ * per minute. Limited requests get 429 with a Retry-After header.
+ *
+ * Clients are keyed on the remote address, which Tomcat takes from
+ * X-Forwarded-For when the request comes through a trusted proxy
+ * (server.forward-headers-strategy=native), so clients behind the load
+ * balancer are not limited as one.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+  private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+  private static class Route {
+    private final String method;
+    private final String pattern;
+    private final RateLimiter limiter;
+
+    Route(String method, String pattern, RateLimiter limiter) {
+      this.method = method;
+      this.pattern = pattern;
+      this.limiter = limiter;
+    }
+  }
+
+  private final AntPathMatcher pathMatcher = new AntPathMatcher();
+  private final List<Route> routes = new ArrayList<>();
+  private final ObjectMapper objectMapper;
+
+  public RateLimitFilter(@Value("${cssa.rate-limit.routes}") List<String> routeSpecs,
+      @Value("${cssa.rate-limit.max-clients}") int maxClients, ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+    for (String spec : routeSpecs) {
+      if (spec.isBlank()) {
+        continue;
+      }
+      String[] parts = spec.trim().split("\\s+");
+      String[] rate = parts.length == 3 ? parts[2].split("/") : new String[0];
+      if (rate.length != 2) {
+        throw new IllegalArgumentException("Invalid rate limit route \"" + spec
+            + "\", expected \"METHOD /path capacity/periodSeconds\"");
+      }
+      RateLimiter limiter = new RateLimiter(Long.parseLong(rate[0]), Duration.ofSeconds(Long.parseLong(rate[1])),
+          maxClients);
+      routes.add(new Route(parts[0].toUpperCase(), parts[1], limiter));
+    }
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return route(request) == null;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    Route route = route(request);
+    long waitNanos = route.limiter.tryAcquire(request.getRemoteAddr());
+    if (waitNanos == 0) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    logger.debug("Rate limited {} {} from {}", request.getMethod(), request.getRequestURI(), request.getRemoteAddr());
+    Map<String, Object> body = new HashMap<>();
+    body.put("message", "Too many requests, please retry later");
+    body.put("errorDetails", "Rate limit of " + route.method + " " + route.pattern + " exceeded");
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    objectMapper.writeValue(response.getOutputStream(), body);
+  }
+
+  private Route route(HttpServletRequest request) {
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    for (Route route : routes) {
+      if (route.method.equals(request.getMethod()) && pathMatcher.match(route.pattern, path)) {
+        return route;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,116 @@
+package ca.mcgillcssa.cssabackend.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+
+import ca.mcgillcssa.cssabackend.repository.RepositoryOverloadedException;
+import ca.mcgillcssa.cssabackend.repository.RepositoryUnavailableException;
+import ca.mcgillcssa.cssabackend.util.AdaptiveConcurrencyLimit;
+import ca.mcgillcssa.cssabackend.util.CircuitBreaker;
+
+/**
+ * Puts an adaptive concurrency limit in front of every repository, one for
+ * reads (find, count, exists and get methods) and one for writes, so that slow
+ * writes do not starve cheap reads. When MongoDB slows down the limits shrink
+ * and the calls over them fail at once with RepositoryOverloadedException,
+ * instead of piling up on blocked request threads.
+ *
+ * In front of both limits, a circuit breaker opens after consecutive
+ * connection failures or timeouts. While it is open every call fails at once
+ * with RepositoryUnavailableException, until a trial call gets through.
+ *
+ * Only the outermost repository call of a thread is limited: a repository
+ * calling another one, e.g. for a change sequence, already holds a slot.
+ */
+@Aspect
+@Component
+public class RepositoryLoadShedder {
+
+  private static final ThreadLocal<Boolean> IN_REPOSITORY = new ThreadLocal<>();
+
+  private final AdaptiveConcurrencyLimit reads;
+  private final AdaptiveConcurrencyLimit writes;
+  private final CircuitBreaker breaker;
+
+  public RepositoryLoadShedder(
+      @Value("${cssa.repository.reads.initial-limit}") int readInitialLimit,
+      @Value("${cssa.repository.reads.min-limit}") int readMinLimit,
+      @Value("${cssa.repository.reads.max-limit}") int readMaxLimit,
+      @Value("${cssa.repository.reads.latency-threshold-millis}") long readLatencyThresholdMillis,
+      @Value("${cssa.repository.writes.initial-limit}") int writeInitialLimit,
+      @Value("${cssa.repository.writes.min-limit}") int writeMinLimit,
+      @Value("${cssa.repository.writes.max-limit}") int writeMaxLimit,
+      @Value("${cssa.repository.writes.latency-threshold-millis}") long writeLatencyThresholdMillis,
+      @Value("${cssa.repository.backoff-ratio}") double backoffRatio,
+      @Value("${cssa.repository.breaker.failure-threshold}") int breakerFailureThreshold,
+      @Value("${cssa.repository.breaker.open-millis}") long breakerOpenMillis) {
+    this.reads = new AdaptiveConcurrencyLimit(readInitialLimit, readMinLimit, readMaxLimit,
+        readLatencyThresholdMillis * 1_000_000, backoffRatio);
+    this.writes = new AdaptiveConcurrencyLimit(writeInitialLimit, writeMinLimit, writeMaxLimit,
+        writeLatencyThresholdMillis * 1_000_000, backoffRatio);
+    this.breaker = new CircuitBreaker(breakerFailureThreshold, breakerOpenMillis * 1_000_000);
+  }
+
+  @Around("within(ca.mcgillcssa.cssabackend.repository..*) "
+      + "&& @within(org.springframework.stereotype.Repository)")
+  public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+    if (IN_REPOSITORY.get() != null) {
+      return joinPoint.proceed();
+    }
+    String method = joinPoint.getSignature().getName();
+    boolean read = isRead(method);
+    AdaptiveConcurrencyLimit limit = read ? reads : writes;
+    if (!breaker.tryAcquire()) {
+      throw new RepositoryUnavailableException("Database unavailable, "
+          + joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + method + " was not attempted");
+    }
+    if (limit.tryAcquire() < 0) {
+      breaker.cancel();
+      throw new RepositoryOverloadedException("Database busy, " + (read ? "read " : "write ")
+          + joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + method + " was shed");
+    }
+
+    IN_REPOSITORY.set(Boolean.TRUE);
+    long start = System.nanoTime();
+    boolean overloaded = false;
+    try {
+      return joinPoint.proceed();
+    } catch (QueryTimeoutException | DataAccessResourceFailureException | MongoSocketException
+        | MongoTimeoutException e) {
+      overloaded = true;
+      throw e;
+    } finally {
+      IN_REPOSITORY.remove();
+      limit.release(System.nanoTime() - start, overloaded);
+      if (overloaded) {
+        breaker.onFailure();
+      } else {
+        breaker.onSuccess();
+      }
+    }
+  }
+
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("reads", reads.getStats());
+    stats.put("writes", writes.getStats());
+    stats.put("breaker", breaker.getStats());
+    return stats;
+  }
+
+  static boolean isRead(String method) {
+    return method.startsWith("find") || method.startsWith("count") || method.startsWith("exists")
+        || method.startsWith("get");
+  }
+}
@@ -0,0 +1,29 @@
+package ca.mcgillcssa.cssabackend.config;
+
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the @Scheduled jobs, unless the process was started to export or
+ * restore a snapshot: the outbox relay, link crawl and reconciliations would
+ * otherwise write into the database while SnapshotRunner copies it.
+ */
+@Configuration
+@EnableScheduling
+@Conditional(SchedulingConfig.NotSnapshotting.class)
+public class SchedulingConfig {
+
+  static class NotSnapshotting implements Condition {
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+      Environment environment = context.getEnvironment();
+      return !environment.containsProperty(SnapshotRunner.EXPORT)
+          && !environment.containsProperty(SnapshotRunner.RESTORE);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package ca.mcgillcssa.cssabackend.config;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import ca.mcgillcssa.cssabackend.service.SnapshotService;
+
+/**
+ * Runs a snapshot export or restore instead of serving requests, then exits:
+ *
+ * <pre>
+ * java -jar cssa-backend.jar --spring.main.web-application-type=none --snapshot.export=/backups/2026-10-18
+ * java -jar cssa-backend.jar --spring.main.web-application-type=none --snapshot.restore=/backups/2026-10-18 \
+ *     --snapshot.collections=members,sponsors --snapshot.replace
+ * </pre>
+ *
+ * Without --snapshot.collections every collection is exported, or every
+ * collection of the snapshot restored, except the operational ones (outbox,
+ * resume tokens, counters, tombstones, link checks) unless
+ * --snapshot.include-operational is given. A restore refuses to write into a
+ * collection that is not empty unless --snapshot.replace is given.
+ *
+ * The scheduled jobs do not run in a process started with either option, see
+ * SchedulingConfig.
+ */
+@Component
+@Profile("!inmemory")
+public class SnapshotRunner implements ApplicationRunner {
+
+  private static final Logger logger = LoggerFactory.getLogger(SnapshotRunner.class);
+
+  static final String EXPORT = "snapshot.export";
+  static final String RESTORE = "snapshot.restore";
+
+  private final SnapshotService snapshotService;
+  private final ApplicationContext context;
+
+  public SnapshotRunner(SnapshotService snapshotService, ApplicationContext context) {
+    this.snapshotService = snapshotService;
+    this.context = context;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    boolean export = args.containsOption(EXPORT);
+    boolean restore = args.containsOption(RESTORE);
+    if (!export && !restore) {
+      return;
+    }
+
+    int exitCode = 0;
+    try {
+      if (export && restore) {
+        throw new IllegalArgumentException("Give either --snapshot.export or --snapshot.restore, not both");
+      }
+      List<String> collections = new ArrayList<>();
+      if (args.containsOption("snapshot.collections")) {
+        for (String value : args.getOptionValues("snapshot.collections")) {
+          for (String name : value.split(",")) {
+            if (!name.isBlank()) {
+              collections.add(name.trim());
+            }
+          }
+        }
+      }
+      boolean includeOperational = args.containsOption("snapshot.include-operational");
+      if (export) {
+        snapshotService.export(Path.of(option(args, EXPORT)), collections, includeOperational);
+      } else {
+        logger.info("Restored {}", snapshotService.restore(Path.of(option(args, RESTORE)), collections,
+            args.containsOption("snapshot.replace"), includeOperational));
+      }
+    } catch (Exception e) {
+      logger.error("Snapshot {} failed", export ? "export" : "restore", e);
+      exitCode = 1;
+    }
+    int code = exitCode;
+    System.exit(SpringApplication.exit(context, () -> code));
+  }
+
+  private static String option(ApplicationArguments args, String name) {
+    List<String> values = args.getOptionValues(name);
+    if (values.size() != 1 || values.get(0).isBlank()) {
+      throw new IllegalArgumentException("--" + name + " needs one directory");
+    }
+    return values.get(0);
+  }
+}
@@ -0,0 +1,43 @@
+package ca.mcgillcssa.cssabackend.config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import ca.mcgillcssa.cssabackend.util.StaleResponse;
+
+/**
+ * Tells clients when a response was served from memory instead of the
+ * database: the Age header gives how old the data is in seconds, and
+ * X-Served-Stale why it was not read again, "revalidating" or "unavailable".
+ */
+@ControllerAdvice
+public class StaleResponseAdvice implements ResponseBodyAdvice<Object> {
+
+  public static final String SERVED_STALE = "X-Served-Stale";
+
+  @Override
+  public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+    return true;
+  }
+
+  @Override
+  public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+      Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+      ServerHttpResponse response) {
+    if (request instanceof ServletServerHttpRequest) {
+      Object stale = ((ServletServerHttpRequest) request).getServletRequest().getAttribute(StaleResponse.ATTRIBUTE);
+      if (stale instanceof StaleResponse) {
+        response.getHeaders().set(HttpHeaders.AGE, Long.toString(((StaleResponse) stale).getAgeSeconds()));
+        response.getHeaders().set(SERVED_STALE, ((StaleResponse) stale).getReason());
+      }
+    }
+    return body;
+  }
+}
@@ -0,0 +1,83 @@
+package ca.mcgillcssa.cssabackend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import ca.mcgillcssa.cssabackend.service.CheckInService;
+import ca.mcgillcssa.cssabackend.service.CollectionWatchService;
+import ca.mcgillcssa.cssabackend.service.MemberStatsService;
+import ca.mcgillcssa.cssabackend.service.SyncService;
+
+/**
+ * Runs the tasks that read MongoDB once the application is ready: loading the
+ * member emails for check-in, counting members, stamping documents without a
+ * change sequence and following changes to cached collections.
+ *
+ * They run on the ready event, unless cssa.startup.ready-tasks-delay-millis is
+ * set, as under the faststart profile. They then run on a background thread
+ * after that delay, so the Mongo client and the services are only created once
+ * the first requests have been answered.
+ */
+@Component
+public class StartupTasks {
+
+  private static final Logger logger = LoggerFactory.getLogger(StartupTasks.class);
+
+  private final ObjectProvider<CheckInService> checkInService;
+  private final ObjectProvider<MemberStatsService> memberStatsService;
+  private final ObjectProvider<SyncService> syncService;
+  private final ObjectProvider<CollectionWatchService> collectionWatchService;
+  private final long delayMillis;
+
+  public StartupTasks(ObjectProvider<CheckInService> checkInService,
+      ObjectProvider<MemberStatsService> memberStatsService, ObjectProvider<SyncService> syncService,
+      ObjectProvider<CollectionWatchService> collectionWatchService,
+      @Value("${cssa.startup.ready-tasks-delay-millis}") long delayMillis) {
+    this.checkInService = checkInService;
+    this.memberStatsService = memberStatsService;
+    this.syncService = syncService;
+    this.collectionWatchService = collectionWatchService;
+    this.delayMillis = delayMillis;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onReady() {
+    if (delayMillis <= 0) {
+      runAll();
+      return;
+    }
+    Thread thread = new Thread(() -> {
+      try {
+        Thread.sleep(delayMillis);
+      } catch (InterruptedException e) {
+        return;
+      }
+      runAll();
+    }, "startup-tasks");
+    thread.setDaemon(true);
+    thread.start();
+    logger.info("Startup tasks deferred by {} ms", delayMillis);
+  }
+
+  private void runAll() {
+    long start = System.nanoTime();
+    run("check-in member emails", () -> checkInService.ifAvailable(CheckInService::loadOnStartup));
+    run("member statistics", () -> memberStatsService.ifAvailable(MemberStatsService::loadOnStartup));
+    run("missing change sequences", () -> syncService.ifAvailable(SyncService::assignMissingSequences));
+    run("collection watch", () -> collectionWatchService.ifAvailable(CollectionWatchService::start));
+    logger.info("Startup tasks done in {} ms", (System.nanoTime() - start) / 1_000_000);
+  }
+
+  private static void run(String name, Runnable task) {
+    try {
+      task.run();
+    } catch (RuntimeException e) {
+      logger.error("Startup task {} failed", name, e);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package ca.mcgillcssa.cssabackend.config;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Measures how long the application takes to become useful: the time from JVM
+ * start until the context is ready and until the first HTTP request has been
+ * answered, and the time spent creating each bean. Bean timings come from the
+ * BufferingApplicationStartup set up in CssaBackendApplication and include the
+ * beans each one depends on.
+ */
+@Component
+public class StartupTimingReport extends OncePerRequestFilter {
+
+  private static final Logger logger = LoggerFactory.getLogger(StartupTimingReport.class);
+  private static final int SLOWEST_BEANS = 20;
+
+  private final ApplicationStartup applicationStartup;
+
+  private volatile long jvmToReadyMillis = -1;
+  private volatile long jvmToFirstRequestMillis = -1;
+  private volatile int beanCount;
+  private volatile List<Map<String, Object>> slowestBeans = List.of();
+
+  public StartupTimingReport(ApplicationStartup applicationStartup) {
+    this.applicationStartup = applicationStartup;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onReady() {
+    jvmToReadyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+    if (applicationStartup instanceof BufferingApplicationStartup buffering) {
+      List<Map<String, Object>> beans = new ArrayList<>();
+      // drained so the recorded steps do not stay in memory for the life of the app
+      for (StartupTimeline.TimelineEvent event : buffering.drainBufferedTimeline().getEvents()) {
+        StartupStep step = event.getStartupStep();
+        if (!"spring.beans.instantiate".equals(step.getName())) {
+          continue;
+        }
+        for (StartupStep.Tag tag : step.getTags()) {
+          if ("beanName".equals(tag.getKey())) {
+            Map<String, Object> bean = new HashMap<>();
+            bean.put("bean", tag.getValue());
+            bean.put("millis", event.getDuration().toMillis());
+            beans.add(bean);
+          }
+        }
+      }
+      beanCount = beans.size();
+      beans.sort(Comparator.comparing((Map<String, Object> bean) -> (Long) bean.get("millis")).reversed());
+      slowestBeans = List.copyOf(beans.subList(0, Math.min(SLOWEST_BEANS, beans.size())));
+    }
+    logger.info("Ready {} ms after JVM start, {} beans created eagerly, slowest: {}", jvmToReadyMillis, beanCount,
+        slowestBeans);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      if (jvmToFirstRequestMillis < 0) {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        synchronized (this) {
+          if (jvmToFirstRequestMillis < 0) {
+            jvmToFirstRequestMillis = uptime;
+            logger.info("First request answered {} ms after JVM start", uptime);
+          }
+        }
+      }
+    }
+  }
+
+  public Map<String, Object> getReport() {
+    Map<String, Object> report = new HashMap<>();
+    report.put("jvmToReadyMillis", jvmToReadyMillis);
+    report.put("jvmToFirstRequestMillis", jvmToFirstRequestMillis);
+    report.put("eagerBeanCount", beanCount);
+    report.put("slowestBeans", slowestBeans);
+    return report;
+  }
+}
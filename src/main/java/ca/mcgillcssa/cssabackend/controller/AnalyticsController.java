@@ -0,0 +1,87 @@
+package ca.mcgillcssa.cssabackend.controller;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import ca.mcgillcssa.cssabackend.repository.RepositoryOverloadedException;
+import ca.mcgillcssa.cssabackend.service.AnalyticsService;
+import lombok.Data;
+import lombok.ToString;
+
+@RestController
+@RequestMapping("/analytics")
+public class AnalyticsController {
+
+  @Data
+  @ToString
+  public static class AnalyticsEventBody {
+    private String eventType;
+    private String targetId;
+    private long count = 1;
+  }
+
+  private final AnalyticsService analyticsService;
+
+  public AnalyticsController(AnalyticsService analyticsService) {
+    this.analyticsService = analyticsService;
+  }
+
+  /**
+   * Records a batch of analytics events. Events are counted in memory and
+   * written to the database by the next flush.
+   *
+   * @param events impressions, clicks or redemptions, each with a target id
+   * @return 202 once every event has been counted
+   */
+  @PostMapping("/events")
+  public ResponseEntity<?> recordEvents(@RequestBody List<AnalyticsEventBody> events) {
+    Map<String, Object> response = new HashMap<>();
+    int recorded = 0;
+    try {
+      for (AnalyticsEventBody event : events) {
+        analyticsService.record(event.getEventType(), event.getTargetId(), event.getCount());
+        recorded++;
+      }
+      response.put("message", "Events recorded");
+      response.put("recorded", recorded);
+      return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    } catch (IllegalArgumentException e) {
+      response.put("message", "Failed to record event " + recorded + ": " + e.getMessage());
+      response.put("recorded", recorded);
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    } catch (IllegalStateException e) {
+      response.put("message", e.getMessage());
+      response.put("recorded", recorded);
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+  }
+
+  @GetMapping("/{eventType}/{targetId}")
+  public ResponseEntity<?> getHourlyCounts(@PathVariable String eventType, @PathVariable String targetId,
+      @RequestParam(defaultValue = "24") int hours) {
+    Map<String, Object> response = new HashMap<>();
+    try {
+      response.put("message", eventType + " counts for " + targetId);
+      response.put("counts", analyticsService.getHourlyCounts(eventType, targetId, hours));
+      return ResponseEntity.status(HttpStatus.OK).body(response);
+    } catch (IllegalArgumentException e) {
+      response.put("message", e.getMessage());
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    } catch (DataAccessException e) {
+      response.put("message", "An error occurred: " + e.getMessage());
+      return ResponseEntity.status(RepositoryOverloadedException.statusFor(e)).body(response);
+    }
+  }
+}
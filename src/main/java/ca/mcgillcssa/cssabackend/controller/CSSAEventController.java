@@ -0,0 +1,81 @@
+package ca.mcgillcssa.cssabackend.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import ca.mcgillcssa.cssabackend.repository.RepositoryOverloadedException;
+import ca.mcgillcssa.cssabackend.service.RsvpService;
+import ca.mcgillcssa.cssabackend.service.RsvpService.RsvpResult;
+
+@RestController
+@RequestMapping("/events")
+public class CSSAEventController {
+
+  private final RsvpService rsvpService;
+
+  public CSSAEventController(RsvpService rsvpService) {
+    this.rsvpService = rsvpService;
+  }
+
+  @PostMapping("/{eventId}/rsvps/{schoolEmail}")
+  public ResponseEntity<?> rsvp(@PathVariable String eventId, @PathVariable String schoolEmail) {
+    Map<String, Object> response = new HashMap<>();
+    try {
+      RsvpResult result = rsvpService.rsvp(eventId, schoolEmail);
+      response.put("result", result.name());
+      switch (result) {
+        case CONFIRMED:
+          response.put("message", "RSVP confirmed for " + schoolEmail);
+          return ResponseEntity.status(HttpStatus.OK).body(response);
+        case ALREADY_REGISTERED:
+          response.put("message", schoolEmail + " has already RSVPed to " + eventId);
+          return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        default:
+          response.put("message", "Event " + eventId + " is full");
+          return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+      }
+    } catch (IllegalArgumentException e) {
+      response.put("message", "Failed to RSVP.");
+      response.put("errorDetails", e.getMessage());
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    } catch (DataAccessException e) {
+      response.put("message", "Failed to RSVP.");
+      response.put("errorDetails", e.getMessage());
+      return ResponseEntity.status(RepositoryOverloadedException.statusFor(e)).body(response);
+    }
+  }
+
+  @DeleteMapping("/{eventId}/rsvps/{schoolEmail}")
+  public ResponseEntity<?> cancelRsvp(@PathVariable String eventId, @PathVariable String schoolEmail) {
+    Map<String, Object> response = new HashMap<>();
+    if (rsvpService.cancelRsvp(eventId, schoolEmail)) {
+      response.put("message", "RSVP cancelled for " + schoolEmail);
+      return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+    response.put("message", "No RSVP for " + schoolEmail + " to " + eventId);
+    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+  }
+
+  @GetMapping("/{eventId}/rsvps")
+  public ResponseEntity<?> getRsvpSummary(@PathVariable String eventId) {
+    Map<String, Object> response = new HashMap<>();
+    try {
+      response.put("message", "RSVP summary for " + eventId);
+      response.put("rsvps", rsvpService.getRsvpSummary(eventId));
+      return ResponseEntity.status(HttpStatus.OK).body(response);
+    } catch (IllegalArgumentException e) {
+      response.put("message", e.getMessage());
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package ca.mcgillcssa.cssabackend.controller;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import ca.mcgillcssa.cssabackend.service.ChangeNotificationService;
+
+@RestController
+@RequestMapping("/changes")
+public class ChangeStreamController {
+
+  private final ChangeNotificationService changeNotificationService;
+
+  public ChangeStreamController(ChangeNotificationService changeNotificationService) {
+    this.changeNotificationService = changeNotificationService;
+  }
+
+  /**
+   * Streams change notifications as Server-Sent Events. Each event is named
+   * after its topic and carries the ids that changed since the previous one, for
+   * the client to refetch.
+   *
+   * @param topics comma separated topics among sponsors, events and benefits
+   * @return the event stream, 400 for an unknown topic, 503 if the server has
+   *         too many subscribers
+   */
+  @GetMapping(value = "/", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter subscribe(
+      @RequestParam(defaultValue = "sponsors,events,benefits") String topics) {
+    Set<String> requested = new LinkedHashSet<>();
+    Arrays.stream(topics.split(",")).map(String::trim).filter(topic -> !topic.isEmpty()).forEach(requested::add);
+    return changeNotificationService.subscribe(requested);
+  }
+
+  @GetMapping("/stats")
+  public ResponseEntity<?> getStats() {
+    Map<String, Object> response = new HashMap<>();
+    response.put("message", "Change stream subscribers");
+    response.put("stats", changeNotificationService.getStats());
+    return ResponseEntity.status(HttpStatus.OK).body(response);
+  }
+
+  @ExceptionHandler(IllegalArgumentException.class)
+  public ResponseEntity<?> handleInvalidTopics(IllegalArgumentException e) {
+    Map<String, Object> response = new HashMap<>();
+    response.put("message", "Invalid topics");
+    response.put("errorDetails", e.getMessage());
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON).body(response);
+  }
+
+  @ExceptionHandler(IllegalStateException.class)
+  public ResponseEntity<?> handleTooManySubscribers(IllegalStateException e) {
+    Map<String, Object> response = new HashMap<>();
+    response.put("message", "Change stream unavailable");
+    response.put("errorDetails", e.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).contentType(MediaType.APPLICATION_JSON)
+        .body(response);
+  }
+}
@@ -0,0 +1,78 @@
+package ca.mcgillcssa.cssabackend.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import ca.mcgillcssa.cssabackend.service.CheckInService;
+import ca.mcgillcssa.cssabackend.service.CheckInService.CheckInResult;
+
+@RestController
+@RequestMapping("/checkins")
+public class CheckInController {
+
+  private final CheckInService checkInService;
+
+  public CheckInController(CheckInService checkInService) {
+    this.checkInService = checkInService;
+  }
+
+  @GetMapping("/members/{schoolEmail}")
+  public ResponseEntity<?> verifyMember(@PathVariable String schoolEmail) {
+    Map<String, Object> response = new HashMap<>();
+    try {
+      boolean member = checkInService.isMember(schoolEmail);
+      response.put("member", member);
+      if (member) {
+        response.put("message", schoolEmail + " is a member");
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+      }
+      response.put("message", schoolEmail + " is not a member");
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    } catch (IllegalStateException e) {
+      response.put("message", e.getMessage());
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+  }
+
+  @PostMapping("/{eventId}/{schoolEmail}")
+  public ResponseEntity<?> checkIn(@PathVariable String eventId, @PathVariable String schoolEmail) {
+    Map<String, Object> response = new HashMap<>();
+    try {
+      CheckInResult result = checkInService.checkIn(eventId, schoolEmail);
+      response.put("result", result.name());
+      switch (result) {
+        case CHECKED_IN:
+          response.put("message", schoolEmail + " checked in to " + eventId);
+          return ResponseEntity.status(HttpStatus.OK).body(response);
+        case ALREADY_CHECKED_IN:
+          response.put("message", schoolEmail + " is already checked in to " + eventId);
+          return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        default:
+          response.put("message", schoolEmail + " is not a member");
+          return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+      }
+    } catch (IllegalArgumentException e) {
+      response.put("message", e.getMessage());
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    } catch (IllegalStateException e) {
+      response.put("message", e.getMessage());
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+  }
+
+  @GetMapping("/stats")
+  public ResponseEntity<?> getStats() {
+    Map<String, Object> response = new HashMap<>();
+    response.put("message", "Check-in statistics");
+    response.put("stats", checkInService.getStats());
+    return ResponseEntity.status(HttpStatus.OK).body(response);
+  }
+}
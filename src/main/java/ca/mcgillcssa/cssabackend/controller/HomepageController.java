@@ -0,0 +1,42 @@
+package ca.mcgillcssa.cssabackend.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import ca.mcgillcssa.cssabackend.service.HomepageService;
+
+@RestController
+@RequestMapping("/homepage")
+public class HomepageController {
+
+  private final HomepageService homepageService;
+
+  public HomepageController(HomepageService homepageService) {
+    this.homepageService = homepageService;
+  }
+
+  /**
+   * Returns the sponsors by class, upcoming events and membership benefits in
+   * one payload. Sections that could not be loaded in time are missing from
+   * "sections" and marked in "status".
+   *
+   * @return 200 if at least one section loaded, 503 otherwise
+   */
+  @GetMapping("/")
+  public ResponseEntity<?> getHomepage() {
+    Map<String, Object> response = new HashMap<>(homepageService.getHomepage());
+    Map<?, ?> sections = (Map<?, ?>) response.get("sections");
+    if (sections.isEmpty()) {
+      response.put("message", "The homepage is unavailable, please retry shortly");
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+    response.put("message", "Homepage");
+    return ResponseEntity.status(HttpStatus.OK).body(response);
+  }
+}
@@ -0,0 +1,101 @@
+package ca.mcgillcssa.cssabackend.controller;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import ca.mcgillcssa.cssabackend.service.ImageProxyService;
+import ca.mcgillcssa.cssabackend.service.ImageProxyService.CachedImage;
+import ca.mcgillcssa.cssabackend.service.ImageProxyService.ThumbnailSize;
+import jakarta.servlet.http.HttpServletResponse;
+
+@RestController
+@RequestMapping("/images")
+public class ImageProxyController {
+
+  // the image at a url can be replaced, so caches keep it briefly and then
+  // revalidate with the etag, which is the hash of the content served
+  private static final String CACHE_CONTROL = "public, max-age=300";
+
+  private final ImageProxyService imageProxyService;
+
+  public ImageProxyController(ImageProxyService imageProxyService) {
+    this.imageProxyService = imageProxyService;
+  }
+
+  /**
+   * Serves a cached copy of a remote image, optionally as a thumbnail. The file
+   * is written with FileChannel.transferTo so it is never read into the heap.
+   *
+   * @param url  the url of the original image
+   * @param size one of ORIGINAL, SMALL or MEDIUM
+   * @return an error response, or null once the image has been written
+   */
+  @GetMapping("/")
+  public ResponseEntity<?> getImage(@RequestParam String url,
+      @RequestParam(defaultValue = "ORIGINAL") String size,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      HttpServletResponse servletResponse) {
+    Map<String, Object> response = new HashMap<>();
+    ThumbnailSize thumbnailSize;
+    try {
+      thumbnailSize = ThumbnailSize.valueOf(size.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      response.put("message", size + " is not a valid image size.");
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
+    CachedImage image;
+    try {
+      image = imageProxyService.getImage(url, thumbnailSize);
+    } catch (IllegalArgumentException e) {
+      response.put("message", "Failed to load image.");
+      response.put("errorDetails", e.getMessage());
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    } catch (IOException e) {
+      response.put("message", "Failed to load image.");
+      response.put("errorDetails", e.getMessage());
+      return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(response);
+    }
+
+    String etag = "\"" + image.getEtag() + "\"";
+    if (etag.equals(ifNoneMatch)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+          .header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL).build();
+    }
+
+    try (FileChannel file = FileChannel.open(image.getPath(), StandardOpenOption.READ)) {
+      long length = file.size();
+      servletResponse.setStatus(HttpStatus.OK.value());
+      servletResponse.setContentType(image.getContentType());
+      servletResponse.setContentLengthLong(length);
+      servletResponse.setHeader(HttpHeaders.ETAG, etag);
+      servletResponse.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+      WritableByteChannel out = Channels.newChannel(servletResponse.getOutputStream());
+      long position = 0;
+      while (position < length) {
+        position += file.transferTo(position, length - position, out);
+      }
+      servletResponse.flushBuffer();
+    } catch (IOException e) {
+      if (!servletResponse.isCommitted()) {
+        response.put("message", "Failed to read cached image.");
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,50 @@
+package ca.mcgillcssa.cssabackend.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import ca.mcgillcssa.cssabackend.repository.RepositoryOverloadedException;
+import ca.mcgillcssa.cssabackend.service.LinkHealthService;
+
+@RestController
+@Profile("!inmemory")
+@RequestMapping("/links")
+public class LinkHealthController {
+
+  private final LinkHealthService linkHealthService;
+
+  public LinkHealthController(LinkHealthService linkHealthService) {
+    this.linkHealthService = linkHealthService;
+  }
+
+  @PostMapping("/crawl")
+  public ResponseEntity<?> startCrawl() {
+    Map<String, Object> response = new HashMap<>();
+    boolean started = linkHealthService.start();
+    response.put("message", started ? "Link crawl started" : "Link crawl already running");
+    return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(response);
+  }
+
+  @GetMapping("/broken")
+  public ResponseEntity<?> getBrokenLinks() {
+    Map<String, Object> response = new HashMap<>();
+    try {
+      response.put("message", "Broken links");
+      response.put("report", linkHealthService.getBrokenLinksReport());
+      return ResponseEntity.status(HttpStatus.OK).body(response);
+    } catch (DataAccessException e) {
+      response.put("message", "Failed to read broken links.");
+      response.put("errorDetails", e.getMessage());
+      return ResponseEntity.status(RepositoryOverloadedException.statusFor(e)).body(response);
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package ca.mcgillcssa.cssabackend.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import ca.mcgillcssa.cssabackend.config.RepositoryLoadShedder;
+import ca.mcgillcssa.cssabackend.service.StaleReadService;
+
+@RestController
+@RequestMapping("/load")
+public class LoadController {
+
+  private final RepositoryLoadShedder repositoryLoadShedder;
+  private final StaleReadService staleReadService;
+
+  public LoadController(RepositoryLoadShedder repositoryLoadShedder, StaleReadService staleReadService) {
+    this.repositoryLoadShedder = repositoryLoadShedder;
+    this.staleReadService = staleReadService;
+  }
+
+  /**
+   * Returns the current database concurrency limits, the calls in flight and
+   * how many were shed, the state of the circuit breaker, and how often reads
+   * were served stale.
+   */
+  @GetMapping("/")
+  public ResponseEntity<?> getLoad() {
+    Map<String, Object> response = new HashMap<>();
+    response.put("message", "Database load");
+    response.put("repositories", repositoryLoadShedder.getStats());
+    response.put("staleReads", staleReadService.getStats());
+    return ResponseEntity.status(HttpStatus.OK).body(response);
+  }
+}
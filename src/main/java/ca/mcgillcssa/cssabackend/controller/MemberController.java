@@ -3,10 +3,12 @@ package ca.mcgillcssa.cssabackend.controller;
 import java.time.Month;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,8 +21,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import ca.mcgillcssa.cssabackend.dto.MemberDTO;
+import ca.mcgillcssa.cssabackend.dto.MemberSummaryDTO;
 import ca.mcgillcssa.cssabackend.model.Member;
+import ca.mcgillcssa.cssabackend.repository.RepositoryOverloadedException;
+import ca.mcgillcssa.cssabackend.service.MemberMigrationService;
 import ca.mcgillcssa.cssabackend.service.MemberService;
+import ca.mcgillcssa.cssabackend.service.MemberStatsService;
 import lombok.Data;
 import lombok.ToString;
 
@@ -29,9 +35,15 @@ import lombok.ToString;
 public class MemberController {
 
   private final MemberService memberService;
+  private final MemberStatsService memberStatsService;
+  // absent under the inmemory profile
+  private final ObjectProvider<MemberMigrationService> memberMigrationService;
 
-  public MemberController(MemberService memberService) {
+  public MemberController(MemberService memberService, MemberStatsService memberStatsService,
+      ObjectProvider<MemberMigrationService> memberMigrationService) {
     this.memberService = memberService;
+    this.memberStatsService = memberStatsService;
+    this.memberMigrationService = memberMigrationService;
   }
 
   @PostMapping("/")
@@ -55,7 +67,7 @@ public class MemberController {
     } catch (DataAccessException e) {
       response.put("message", "Failed to create member.");
       response.put("errorDetails", e.getMessage());
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+      return ResponseEntity.status(RepositoryOverloadedException.statusFor(e)).body(response);
     }
   }
 
@@ -89,6 +101,44 @@ public class MemberController {
     }
   }
 
+  /**
+   * Looks up a list of school emails in one request.
+   *
+   * @param requestBody the school emails, at most MemberService.MAX_BATCH_LOOKUP
+   * @return the members found and the emails that are not members
+   */
+  @PostMapping("/school/batch")
+  public ResponseEntity<?> getMembersBySchoolEmails(@RequestBody BatchLookupRequestBody requestBody) {
+    Map<String, Object> response = new HashMap<>();
+    try {
+      Map<String, Member> members = memberService.findBySchoolEmails(requestBody.getSchoolEmails());
+      List<MemberSummaryDTO> found = new ArrayList<>();
+      LinkedHashSet<String> missing = new LinkedHashSet<>();
+      for (String schoolEmail : new LinkedHashSet<>(requestBody.getSchoolEmails())) {
+        Member member = members.get(schoolEmail);
+        if (member != null) {
+          found.add(new MemberSummaryDTO(member));
+        } else if (schoolEmail != null) {
+          missing.add(schoolEmail);
+        }
+      }
+      response.put("message", found.size() + " members found, " + missing.size() + " missing");
+      response.put("found", found);
+      response.put("missing", missing);
+      return ResponseEntity.status(HttpStatus.OK).body(response);
+
+    } catch (IllegalArgumentException e) {
+      response.put("message", "Failed to look up members.");
+      response.put("errorDetails", e.getMessage());
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+
+    } catch (DataAccessException e) {
+      response.put("message", "Failed to look up members.");
+      response.put("errorDetails", e.getMessage());
+      return ResponseEntity.status(RepositoryOverloadedException.statusFor(e)).body(response);
+    }
+  }
+
   @GetMapping("/birthdayMonth/{birthdayMonth}")
   public ResponseEntity<?> getMembersByBirthMonth(@PathVariable int birthdayMonth) {
     Map<String, Object> response = new HashMap<>();
@@ -107,6 +157,54 @@ public class MemberController {
     return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
   }
 
+  @GetMapping("/cache/stats")
+  public ResponseEntity<?> getLookupCacheStats() {
+    Map<String, Object> response = new HashMap<>();
+    response.put("message", "Member lookup cache statistics");
+    response.put("stats", memberService.getLookupCacheStats());
+    return ResponseEntity.status(HttpStatus.OK).body(response);
+  }
+
+  @GetMapping("/stats")
+  public ResponseEntity<?> getMemberStats() {
+    Map<String, Object> response = new HashMap<>();
+    try {
+      response.put("stats", memberStatsService.getStats());
+      response.put("message", "Member counts by department, position and cloth size");
+      return ResponseEntity.status(HttpStatus.OK).body(response);
+    } catch (IllegalStateException e) {
+      response.put("message", e.getMessage());
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+  }
+
+  @PostMapping("/migration")
+  public ResponseEntity<?> startMigration() {
+    Map<String, Object> response = new HashMap<>();
+    MemberMigrationService migration = memberMigrationService.getIfAvailable();
+    if (migration == null) {
+      response.put("message", "Member migration only runs on MongoDB");
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+    boolean started = migration.start();
+    response.put("message", started ? "Member migration started" : "Member migration already running");
+    response.put("status", migration.getStatus());
+    return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(response);
+  }
+
+  @GetMapping("/migration")
+  public ResponseEntity<?> getMigrationStatus() {
+    Map<String, Object> response = new HashMap<>();
+    MemberMigrationService migration = memberMigrationService.getIfAvailable();
+    if (migration == null) {
+      response.put("message", "Member migration only runs on MongoDB");
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+    response.put("message", "Member migration status");
+    response.put("status", migration.getStatus());
+    return ResponseEntity.status(HttpStatus.OK).body(response);
+  }
+
   @DeleteMapping("/personal/{personalEmail}")
   public ResponseEntity<?> deleteMemberByPersonalEmail(@PathVariable String personalEmail) {
     Map<String, Object> response = new HashMap<>();
@@ -146,4 +244,10 @@ public class MemberController {
     private String position;
     private String clothSize = "M";
   }
+
+  @Data
+  @ToString
+  public static class BatchLookupRequestBody {
+    private List<String> schoolEmails;
+  }
 }
@@ -0,0 +1,82 @@
+package ca.mcgillcssa.cssabackend.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import ca.mcgillcssa.cssabackend.model.MembershipBenefit;
+import ca.mcgillcssa.cssabackend.repository.RepositoryOverloadedException;
+import ca.mcgillcssa.cssabackend.service.MembershipBenefitService;
+import lombok.Data;
+import lombok.ToString;
+
+@RestController
+@RequestMapping("/benefits")
+public class MembershipBenefitController {
+
+  private final MembershipBenefitService membershipBenefitService;
+
+  public MembershipBenefitController(MembershipBenefitService membershipBenefitService) {
+    this.membershipBenefitService = membershipBenefitService;
+  }
+
+  @GetMapping("/")
+  public ResponseEntity<?> getAllBenefits() {
+    Map<String, Object> response = new HashMap<>();
+    response.put("message", "Membership benefits");
+    response.put("benefits", membershipBenefitService.findAllBenefits());
+    return ResponseEntity.status(HttpStatus.OK).body(response);
+  }
+
+  @PutMapping("/{merchantName}")
+  public ResponseEntity<?> saveBenefit(@PathVariable String merchantName,
+      @RequestBody BenefitRequestBody requestBody) {
+    Map<String, Object> response = new HashMap<>();
+    try {
+      MembershipBenefit benefit = membershipBenefitService.saveBenefit(merchantName,
+          requestBody.getMerchantBackgroundImageUrl(), requestBody.getMerchantDiscount(),
+          requestBody.getMerchantLogoUrl(), requestBody.getMerchantType());
+      response.put("message", "Benefit saved");
+      response.put("benefit", benefit);
+      return ResponseEntity.status(HttpStatus.OK).body(response);
+    } catch (IllegalArgumentException e) {
+      response.put("message", "Failed to save benefit.");
+      response.put("errorDetails", e.getMessage());
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    } catch (DataAccessException e) {
+      response.put("message", "Failed to save benefit.");
+      response.put("errorDetails", e.getMessage());
+      return ResponseEntity.status(RepositoryOverloadedException.statusFor(e)).body(response);
+    }
+  }
+
+  @DeleteMapping("/{merchantName}")
+  public ResponseEntity<?> deleteBenefit(@PathVariable String merchantName) {
+    Map<String, Object> response = new HashMap<>();
+    if (membershipBenefitService.deleteBenefit(merchantName)) {
+      response.put("message", "Benefit of " + merchantName + " successfully deleted");
+      return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+    response.put("message", "No benefit from " + merchantName);
+    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+  }
+
+  @Data
+  @ToString
+  public static class BenefitRequestBody {
+    private String merchantBackgroundImageUrl = "";
+    private String merchantDiscount;
+    private String merchantLogoUrl = "";
+    private String merchantType;
+  }
+}
@@ -22,6 +22,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 
 import ca.mcgillcssa.cssabackend.dto.SponsorDTO;
 import ca.mcgillcssa.cssabackend.model.Sponsor;
+import ca.mcgillcssa.cssabackend.repository.RepositoryOverloadedException;
 import ca.mcgillcssa.cssabackend.service.SponsorService;
 import lombok.Data;
 import lombok.ToString;
@@ -73,7 +74,7 @@ public class SponsorController {
         } catch (DataAccessException | IOException e) {
             // TODO: remove exception message from response after debugging
             response.put(msgStr, "An error occurred: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(RepositoryOverloadedException.statusFor(e)).body(response);
         }
     }
 
@@ -91,7 +92,8 @@ public class SponsorController {
             return ResponseEntity.status(HttpStatus.OK).body(sponsors);
         } catch (Exception e) {
             // TODO: remove exception message from response after debugging
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred: " + e.getMessage());
+            return ResponseEntity.status(RepositoryOverloadedException.statusFor(e))
+                    .body("An error occurred: " + e.getMessage());
         }
     }
 
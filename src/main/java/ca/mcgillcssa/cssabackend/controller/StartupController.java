@@ -0,0 +1,31 @@
+package ca.mcgillcssa.cssabackend.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import ca.mcgillcssa.cssabackend.config.StartupTimingReport;
+
+@RestController
+@RequestMapping("/startup")
+public class StartupController {
+
+  private final StartupTimingReport startupTimingReport;
+
+  public StartupController(StartupTimingReport startupTimingReport) {
+    this.startupTimingReport = startupTimingReport;
+  }
+
+  @GetMapping("/")
+  public ResponseEntity<?> getStartupReport() {
+    Map<String, Object> response = new HashMap<>();
+    response.put("message", "Startup timing");
+    response.put("report", startupTimingReport.getReport());
+    return ResponseEntity.status(HttpStatus.OK).body(response);
+  }
+}
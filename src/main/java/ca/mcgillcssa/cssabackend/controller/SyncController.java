@@ -0,0 +1,53 @@
+package ca.mcgillcssa.cssabackend.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import ca.mcgillcssa.cssabackend.repository.RepositoryOverloadedException;
+import ca.mcgillcssa.cssabackend.service.SyncService;
+
+@RestController
+@RequestMapping("/sync")
+public class SyncController {
+
+  private final SyncService syncService;
+
+  public SyncController(SyncService syncService) {
+    this.syncService = syncService;
+  }
+
+  /**
+   * Returns the sponsors, events and benefits written or deleted after a change
+   * sequence.
+   *
+   * @param since the "nextSince" of the previous response, 0 for everything
+   * @param limit the maximum number of changes per collection
+   * @return 200 with the changes, 400 if since or limit is out of range
+   */
+  @GetMapping("/")
+  public ResponseEntity<?> getChangesSince(@RequestParam(defaultValue = "0") long since,
+      @RequestParam(defaultValue = "200") int limit) {
+    Map<String, Object> response = new HashMap<>();
+    try {
+      response.putAll(syncService.getChangesSince(since, limit));
+      response.put("message", "Changes since " + since);
+      return ResponseEntity.status(HttpStatus.OK).body(response);
+    } catch (IllegalArgumentException e) {
+      response.put("message", "Invalid sync request");
+      response.put("errorDetails", e.getMessage());
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    } catch (DataAccessException e) {
+      response.put("message", "Failed to load changes");
+      response.put("errorDetails", e.getMessage());
+      return ResponseEntity.status(RepositoryOverloadedException.statusFor(e)).body(response);
+    }
+  }
+}
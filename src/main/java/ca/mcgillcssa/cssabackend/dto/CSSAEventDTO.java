@@ -0,0 +1,37 @@
+package ca.mcgillcssa.cssabackend.dto;
+
+import java.time.LocalDate;
+
+import ca.mcgillcssa.cssabackend.model.CSSAEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The fields of an event shown to visitors, without its RSVP count and change
+ * sequence.
+ */
+@Data
+@AllArgsConstructor
+public class CSSAEventDTO {
+  private String id;
+  private String eventName;
+  private LocalDate eventStartDate;
+  private LocalDate eventEndDate;
+  private String eventLocation;
+  private String eventImageUrl;
+  private String eventDescription;
+  private String eventLinkUrl;
+  private int capacity;
+
+  public CSSAEventDTO(CSSAEvent event) {
+    this.id = event.getId();
+    this.eventName = event.getEventName();
+    this.eventStartDate = event.getEventStartDate();
+    this.eventEndDate = event.getEventEndDate();
+    this.eventLocation = event.getEventLocation();
+    this.eventImageUrl = event.getEventImageUrl();
+    this.eventDescription = event.getEventDescription();
+    this.eventLinkUrl = event.getEventLinkUrl();
+    this.capacity = event.getCapacity();
+  }
+}
@@ -0,0 +1,29 @@
+package ca.mcgillcssa.cssabackend.dto;
+
+import ca.mcgillcssa.cssabackend.model.Member;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The fields of a member that event tooling needs, read with a projection by
+ * batch lookups.
+ */
+@Data
+@AllArgsConstructor
+public class MemberSummaryDTO {
+  public static final String[] FIELDS = { "name", "pseudo", "department", "position" };
+
+  private String schoolEmail;
+  private String name;
+  private String pseudo;
+  private String department;
+  private String position;
+
+  public MemberSummaryDTO(Member member) {
+    this.schoolEmail = member.getSchoolEmail();
+    this.name = member.getName();
+    this.pseudo = member.getPseudo();
+    this.department = member.getDepartment() == null ? null : member.getDepartment().toString();
+    this.position = member.getPosition() == null ? null : member.getPosition().toString();
+  }
+}
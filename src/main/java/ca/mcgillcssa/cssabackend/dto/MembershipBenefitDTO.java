@@ -0,0 +1,26 @@
+package ca.mcgillcssa.cssabackend.dto;
+
+import ca.mcgillcssa.cssabackend.model.MembershipBenefit;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The fields of a benefit shown to visitors, without its change sequence.
+ */
+@Data
+@AllArgsConstructor
+public class MembershipBenefitDTO {
+  private String merchantName;
+  private String merchantBackgroundImageUrl;
+  private String merchantDiscount;
+  private String merchantLogoUrl;
+  private String merchantType;
+
+  public MembershipBenefitDTO(MembershipBenefit benefit) {
+    this.merchantName = benefit.getMerchantName();
+    this.merchantBackgroundImageUrl = benefit.getMerchantBackgroundImageUrl();
+    this.merchantDiscount = benefit.getMerchantDiscount();
+    this.merchantLogoUrl = benefit.getMerchantLogoUrl();
+    this.merchantType = benefit.getMerchantType() == null ? null : benefit.getMerchantType().name();
+  }
+}
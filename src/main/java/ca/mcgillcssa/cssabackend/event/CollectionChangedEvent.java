@@ -0,0 +1,19 @@
+package ca.mcgillcssa.cssabackend.event;
+
+import org.bson.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by CollectionWatchService when a document of a followed collection
+ * changed, whichever instance wrote it, so components caching documents locally
+ * can drop their copy.
+ */
+@Data
+@AllArgsConstructor
+public class CollectionChangedEvent {
+  private String collection;
+  private String documentId; // null if unknown: anything in the collection may have changed
+  private Document document; // the document after the change, null for deletes or if unknown
+}
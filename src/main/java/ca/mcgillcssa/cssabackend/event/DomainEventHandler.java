@@ -0,0 +1,23 @@
+package ca.mcgillcssa.cssabackend.event;
+
+import java.util.List;
+
+import ca.mcgillcssa.cssabackend.model.OutboxEvent;
+
+/**
+ * Side work run after a domain event, e.g. sending an email or calling a
+ * webhook. DomainEventBus delivers events at least once, in batches; a handler
+ * that throws gets the whole batch again later, so deliveries should be safe to
+ * repeat.
+ */
+public interface DomainEventHandler {
+
+  /**
+   * @return a unique, stable name, recorded in the outbox
+   */
+  String getName();
+
+  boolean handles(String eventType);
+
+  void deliver(List<OutboxEvent> events) throws Exception;
+}
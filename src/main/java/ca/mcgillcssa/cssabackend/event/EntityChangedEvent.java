@@ -0,0 +1,26 @@
+package ca.mcgillcssa.cssabackend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by the sponsor, event and benefit repositories after a write, so
+ * that subscribers can be told about the change instead of polling.
+ */
+@Data
+@AllArgsConstructor
+public class EntityChangedEvent {
+  public static final String SPONSORS = "sponsors";
+  public static final String EVENTS = "events";
+  public static final String BENEFITS = "benefits";
+
+  private String topic;
+  private String entityId;
+  private ChangeType changeType;
+
+  public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+}
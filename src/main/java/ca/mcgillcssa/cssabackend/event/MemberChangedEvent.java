@@ -0,0 +1,23 @@
+package ca.mcgillcssa.cssabackend.event;
+
+import ca.mcgillcssa.cssabackend.model.Member;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by MemberService after a member has been written, so components
+ * holding derived member state can update it without querying the database.
+ */
+@Data
+@AllArgsConstructor
+public class MemberChangedEvent {
+  private ChangeType changeType;
+  private Member member;
+  // System.nanoTime() when the event was created, right after the write returned
+  private final long writtenAtNanos = System.nanoTime();
+
+  public enum ChangeType {
+    CREATED,
+    DELETED
+  }
+}
@@ -0,0 +1,21 @@
+package ca.mcgillcssa.cssabackend.event;
+
+import java.util.Set;
+
+/**
+ * Thrown by a DomainEventHandler when only some events of a batch could not be
+ * delivered, so that only those are retried.
+ */
+public class PartialDeliveryException extends Exception {
+
+  private final Set<String> failedEventIds;
+
+  public PartialDeliveryException(Set<String> failedEventIds, Throwable cause) {
+    super(failedEventIds.size() + " events were not delivered", cause);
+    this.failedEventIds = failedEventIds;
+  }
+
+  public Set<String> getFailedEventIds() {
+    return failedEventIds;
+  }
+}
@@ -0,0 +1,71 @@
+package ca.mcgillcssa.cssabackend.event;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ca.mcgillcssa.cssabackend.model.OutboxEvent;
+
+/**
+ * Posts batches of events to a webhook as a JSON array of {id, type, createdAt,
+ * payload}. A batch may be posted again after a failure, receivers can use the
+ * event ids to ignore repeats.
+ */
+public class WebhookEventHandler implements DomainEventHandler {
+
+  private final String name;
+  private final URI url;
+  private final Set<String> eventTypes;
+  private final HttpClient httpClient;
+  private final ObjectMapper objectMapper;
+
+  public WebhookEventHandler(String name, String url, Set<String> eventTypes, ObjectMapper objectMapper) {
+    this.name = name;
+    this.url = URI.create(url);
+    this.eventTypes = eventTypes;
+    this.objectMapper = objectMapper;
+    this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public boolean handles(String eventType) {
+    return eventTypes.contains(eventType);
+  }
+
+  @Override
+  public void deliver(List<OutboxEvent> events) throws IOException, InterruptedException {
+    List<Map<String, Object>> body = new ArrayList<>(events.size());
+    for (OutboxEvent event : events) {
+      Map<String, Object> item = new HashMap<>();
+      item.put("id", event.getId());
+      item.put("type", event.getType());
+      item.put("createdAt", event.getCreatedAt().toString());
+      item.put("payload", event.getPayload());
+      body.add(item);
+    }
+    HttpRequest request = HttpRequest.newBuilder(url)
+        .timeout(Duration.ofSeconds(10))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+        .build();
+    HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+    if (response.statusCode() / 100 != 2) {
+      throw new IOException(name + " webhook answered " + response.statusCode());
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package ca.mcgillcssa.cssabackend.event;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import ca.mcgillcssa.cssabackend.model.OutboxEvent;
+import ca.mcgillcssa.cssabackend.service.DomainEventBus;
+
+/**
+ * Emails new members a welcome message. A batch is sent over a single SMTP
+ * connection. Enabled when spring.mail.host is set, the sender must then be
+ * set as well.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.mail.host")
+public class WelcomeEmailHandler implements DomainEventHandler {
+
+  private final JavaMailSender mailSender;
+  private final String from;
+
+  public WelcomeEmailHandler(JavaMailSender mailSender, @Value("${cssa.outbox.welcome-email.from}") String from) {
+    if (from == null || from.isBlank()) {
+      // the server would refuse every message and the outbox retry them in vain
+      throw new IllegalArgumentException("Set cssa.outbox.welcome-email.from or spring.mail.username to send "
+          + "welcome emails");
+    }
+    this.mailSender = mailSender;
+    this.from = from;
+  }
+
+  @Override
+  public String getName() {
+    return "welcome-email";
+  }
+
+  @Override
+  public boolean handles(String eventType) {
+    return DomainEventBus.MEMBER_REGISTERED.equals(eventType);
+  }
+
+  @Override
+  public void deliver(List<OutboxEvent> events) throws PartialDeliveryException {
+    List<SimpleMailMessage> messages = new ArrayList<>(events.size());
+    for (OutboxEvent event : events) {
+      SimpleMailMessage message = new SimpleMailMessage();
+      message.setFrom(from);
+      message.setTo((String) event.getPayload().get("personalEmail"));
+      message.setSubject("Welcome to CSSA McGill!");
+      message.setText("Hi " + event.getPayload().get("name") + ",\n\n"
+          + "Welcome to the McGill Chinese Students and Scholars Association. Your membership is now active, "
+          + "show your McGill email at our events to check in and enjoy our partners' benefits.\n\n"
+          + "CSSA McGill");
+      messages.add(message);
+    }
+    try {
+      mailSender.send(messages.toArray(new SimpleMailMessage[0]));
+    } catch (MailSendException e) {
+      // failed messages are keyed by the message objects passed in
+      Set<String> failedIds = new HashSet<>();
+      for (int i = 0; i < messages.size(); i++) {
+        if (e.getFailedMessages().containsKey(messages.get(i))) {
+          failedIds.add(events.get(i).getId());
+        }
+      }
+      if (failedIds.isEmpty()) {
+        throw e;
+      }
+      throw new PartialDeliveryException(failedIds, e);
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package ca.mcgillcssa.cssabackend.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * The number of analytics events of one type for one sponsor or merchant
+ * during one hour.
+ */
+@Document(collection = "analytics")
+@CompoundIndex(name = "type_target_hour", def = "{'eventType': 1, 'targetId': 1, 'hour': 1}")
+@Data
+@AllArgsConstructor
+@ToString
+public class AnalyticsCounter {
+  @Id
+  private String id;
+  private EventType eventType;
+  private String targetId; // sponsorName or merchantName
+  private Date hour;
+  private long count;
+
+  public enum EventType {
+    SPONSOR_IMPRESSION,
+    SPONSOR_CLICK,
+    BENEFIT_REDEMPTION;
+
+    @Override
+    public String toString() {
+      return name();
+    }
+  }
+}
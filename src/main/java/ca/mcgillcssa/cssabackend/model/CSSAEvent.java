@@ -2,6 +2,7 @@ package ca.mcgillcssa.cssabackend.model;
 
 import java.time.LocalDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.Data;
@@ -21,6 +22,10 @@ public class CSSAEvent {
   private String eventImageUrl;
   private String eventDescription;
   private String eventLinkUrl;
+  private int capacity; // 0 if the event does not take RSVPs
+  private int rsvpCount;
+  @Indexed
+  private long changeSeq; // order of the last write, for delta sync
 
   public CSSAEvent(String eventName, LocalDate eventStartDate, LocalDate eventEndDate, String eventLocation,
       String eventImageUrl, String eventDescription, String eventLinkUrl) {
@@ -0,0 +1,26 @@
+package ca.mcgillcssa.cssabackend.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * A job that only one instance at a time may run, such as the link crawl, and
+ * which instance runs it until when.
+ */
+@Document(collection = "leases")
+@Data
+@AllArgsConstructor
+@ToString
+public class Lease {
+  @Id
+  private String name;
+  private String holder;
+  private Instant expiresAt;
+  private Instant completedAt; // when the job last ran to the end, null if never
+}
@@ -0,0 +1,33 @@
+package ca.mcgillcssa.cssabackend.model;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * The last probe of a URL stored on a sponsor, event or benefit, written by
+ * the link-health crawler.
+ */
+@Document(collection = "link-checks")
+@Data
+@AllArgsConstructor
+@ToString
+public class LinkCheck {
+  @Id
+  private String url;
+  private List<String> sources; // collection/id/field of every document linking to it
+  private boolean ok;
+  private int httpStatus; // 0 if there was no response
+  private String error;
+  private Instant checkedAt;
+  private Instant lastOkAt; // null if never reachable
+  @Indexed
+  private int consecutiveFailures;
+}
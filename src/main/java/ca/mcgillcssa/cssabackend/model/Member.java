@@ -27,15 +27,35 @@ public class Member {
   private Position position;
   private ClothSize clothSize;
 
+  // enum codes are what compact member documents store, never reuse one
   public enum ClothSize {
-    NA,
-    XS,
-    S,
-    M,
-    L,
-    XL,
-    XXL,
-    XXXL;
+    NA(1),
+    XS(2),
+    S(3),
+    M(4),
+    L(5),
+    XL(6),
+    XXL(7),
+    XXXL(8);
+
+    private final int code;
+
+    ClothSize(int code) {
+      this.code = code;
+    }
+
+    public int getCode() {
+      return code;
+    }
+
+    public static ClothSize fromCode(int code) {
+      for (ClothSize value : values()) {
+        if (value.code == code) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("No ClothSize with code " + code);
+    }
 
     @Override
     public String toString() {
@@ -44,15 +64,34 @@ public class Member {
   }
 
   public enum Department {
-    ACADEMIC,
-    COMMU,
-    EVENT,
-    EXTERNAL,
-    FINANCE,
-    INTERNAL,
-    IT,
-    MEDIA,
-    OTHER;
+    ACADEMIC(1),
+    COMMU(2),
+    EVENT(3),
+    EXTERNAL(4),
+    FINANCE(5),
+    INTERNAL(6),
+    IT(7),
+    MEDIA(8),
+    OTHER(9);
+
+    private final int code;
+
+    Department(int code) {
+      this.code = code;
+    }
+
+    public int getCode() {
+      return code;
+    }
+
+    public static Department fromCode(int code) {
+      for (Department value : values()) {
+        if (value.code == code) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("No Department with code " + code);
+    }
 
     @Override
     public String toString() {
@@ -61,11 +100,30 @@ public class Member {
   }
 
   public enum Position {
-    PRESIDENT,
-    VICEPRESIDENT,
-    DIRECTOR,
-    EXECUTIVE,
-    ADVISOR;
+    PRESIDENT(1),
+    VICEPRESIDENT(2),
+    DIRECTOR(3),
+    EXECUTIVE(4),
+    ADVISOR(5);
+
+    private final int code;
+
+    Position(int code) {
+      this.code = code;
+    }
+
+    public int getCode() {
+      return code;
+    }
+
+    public static Position fromCode(int code) {
+      for (Position value : values()) {
+        if (value.code == code) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("No Position with code " + code);
+    }
 
     @Override
     public String toString() {
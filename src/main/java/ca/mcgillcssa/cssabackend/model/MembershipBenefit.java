@@ -1,6 +1,7 @@
 package ca.mcgillcssa.cssabackend.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.AllArgsConstructor;
@@ -18,6 +19,8 @@ public class MembershipBenefit {
   private String merchantDiscount;
   private String merchantLogoUrl;
   private MerchantType merchantType;
+  @Indexed
+  private long changeSeq; // order of the last write, for delta sync
 
   public enum MerchantType {
     RESTAURANT("主食"),
@@ -0,0 +1,39 @@
+package ca.mcgillcssa.cssabackend.model;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * A domain event waiting to be delivered to the handlers listed in
+ * pendingHandlers. The document is deleted once every handler has taken it.
+ */
+@Document(collection = "outbox")
+@CompoundIndex(name = "pending_due", def = "{'pendingHandlers': 1, 'nextAttemptAt': 1}")
+@Data
+@AllArgsConstructor
+@ToString
+public class OutboxEvent {
+  @Id
+  private String id;
+  private String type;
+  private Map<String, Object> payload;
+  private Instant createdAt;
+  private Instant nextAttemptAt; // also the lease of the instance delivering it
+  private List<String> pendingHandlers;
+  private List<String> failedHandlers;
+  private Map<String, Integer> attempts; // failed deliveries, by handler
+  private String lastError;
+
+  public int attemptsFor(String handler) {
+    return attempts == null ? 0 : attempts.getOrDefault(handler, 0);
+  }
+}
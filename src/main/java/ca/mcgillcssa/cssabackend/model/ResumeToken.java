@@ -0,0 +1,25 @@
+package ca.mcgillcssa.cssabackend.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * Where an instance is in the change stream, so that it can resume after a
+ * restart or a dropped connection without missing changes.
+ */
+@Document(collection = "resume_tokens")
+@Data
+@AllArgsConstructor
+@ToString
+public class ResumeToken {
+  @Id
+  private String instanceId;
+  private String data; // the _data of the change stream resume token
+  private Date updatedAt;
+}
@@ -0,0 +1,24 @@
+package ca.mcgillcssa.cssabackend.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.ToString;
+
+@Document(collection = "rsvps")
+@Data
+@AllArgsConstructor
+@ToString
+public class Rsvp {
+  @Id
+  private String id; // eventId:schoolEmail, so a member holds at most one seat per event
+  @Indexed
+  private String eventId;
+  private String schoolEmail;
+  private Instant createdAt;
+}
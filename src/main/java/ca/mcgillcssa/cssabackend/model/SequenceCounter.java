@@ -0,0 +1,18 @@
+package ca.mcgillcssa.cssabackend.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.ToString;
+
+@Document(collection = "counters")
+@Data
+@AllArgsConstructor
+@ToString
+public class SequenceCounter {
+  @Id
+  private String name;
+  private long value;
+}
@@ -1,6 +1,7 @@
 package ca.mcgillcssa.cssabackend.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.AllArgsConstructor;
@@ -19,6 +20,8 @@ public class Sponsor {
   private String sponsorImageUrl;
   private String sponsorWebsiteUrl;
   private SponsorClass sponsorClass;
+  @Indexed
+  private long changeSeq; // order of the last write, for delta sync
 
   public enum CoopDuration {
     QUARTER_YEAR,
@@ -0,0 +1,33 @@
+package ca.mcgillcssa.cssabackend.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * Records the deletion of a sponsor, event or benefit, so that clients syncing
+ * changes learn about it.
+ */
+@Document(collection = "tombstones")
+@Data
+@AllArgsConstructor
+@ToString
+public class Tombstone {
+  @Id
+  private String id; // topic:entityId
+  private String topic;
+  private String entityId;
+  @Indexed
+  private long changeSeq;
+  private Date deletedAt;
+
+  public static String idOf(String topic, String entityId) {
+    return topic + ":" + entityId;
+  }
+}
@@ -0,0 +1,25 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import ca.mcgillcssa.cssabackend.model.AnalyticsCounter;
+import ca.mcgillcssa.cssabackend.model.AnalyticsCounter.EventType;
+
+/**
+ * Stores the hourly analytics counters, keyed by type, target and hour.
+ */
+public interface AnalyticsRepository {
+
+  /**
+   * Adds counts to their hourly counters, creating the counters missing.
+   *
+   * @param increments one entry per counter, whose count is the amount to add
+   */
+  void incrementCounters(List<AnalyticsCounter> increments);
+
+  /**
+   * @return the counters of a type and target from an hour on
+   */
+  List<AnalyticsCounter> findCounters(EventType eventType, String targetId, Date since);
+}
@@ -1,26 +1,44 @@
 package ca.mcgillcssa.cssabackend.repository;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.stereotype.Repository;
-
 import ca.mcgillcssa.cssabackend.model.CSSAEvent;
 
-@Repository
-public class CSSAEventRepository {
-  private final MongoTemplate mongoTemplate;
+/**
+ * Stores the events. Every write is stamped with a change sequence and
+ * published as an EntityChangedEvent.
+ */
+public interface CSSAEventRepository {
+
+  /**
+   * Saves an event, assigning it an id if it has none.
+   */
+  CSSAEvent saveEvent(CSSAEvent event);
+
+  Optional<CSSAEvent> findEventById(String id);
+
+  /**
+   * Finds the events that have not ended yet, soonest first.
+   *
+   * @param today the current date
+   * @param limit the maximum number of events to return
+   * @return the upcoming and ongoing events
+   */
+  List<CSSAEvent> findUpcomingEvents(LocalDate today, int limit);
 
-  public CSSAEventRepository(MongoTemplate mongoTemplate) {
-    this.mongoTemplate = mongoTemplate;
-  }
+  List<CSSAEvent> findEventsChangedSince(long since, long until, int limit);
 
-  public CSSAEvent saveEvent(CSSAEvent event) {
-    return mongoTemplate.save(event);
-  }
+  /**
+   * Takes one seat, only while the event still has room, so concurrent RSVPs
+   * cannot oversell it.
+   *
+   * @param id       the id of the event
+   * @param capacity the capacity the caller saw, the update fails if it changed
+   * @return true if a seat was taken
+   */
+  boolean incrementRsvpCount(String id, int capacity);
 
-  public Optional<CSSAEvent> findEventById(String id) {
-    CSSAEvent event = mongoTemplate.findById(id, CSSAEvent.class);
-    return Optional.ofNullable(event);
-  }
+  boolean decrementRsvpCount(String id);
 }
@@ -0,0 +1,90 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+import ca.mcgillcssa.cssabackend.model.Tombstone;
+
+/**
+ * Hands out the change sequence stamped on every write to sponsors, events and
+ * benefits, keeps the tombstones of deleted ones, and counts the writes to
+ * each collection in version counters.
+ *
+ * A sequence is taken before the write it stamps, so writes can land out of
+ * order. The sequences whose write has not finished, on any instance, are
+ * tracked, and readers stop below the lowest of them, so that a client never
+ * moves past a change that is still being written.
+ */
+public interface ChangeLogRepository {
+
+  String CHANGES = "changes";
+
+  /**
+   * Runs a write with a new change sequence.
+   *
+   * @param write the write, given the sequence to stamp
+   * @return what the write returned
+   */
+  <T> T withSequence(LongFunction<T> write);
+
+  /**
+   * @return the highest sequence that is safe to read up to
+   */
+  long safeWatermark();
+
+  Tombstone recordDeletion(String topic, String entityId, long seq);
+
+  /**
+   * Forgets the deletion of an entity that was created again.
+   */
+  void clearDeletion(String topic, String entityId);
+
+  List<Tombstone> findDeletionsSince(long since, long until, int limit);
+
+  /**
+   * Deletes the tombstones older than a date. Clients that last synced before
+   * the newest of them must start over, see {@link #getPurgedThrough()}.
+   *
+   * @return the number of tombstones deleted
+   */
+  long purgeDeletionsBefore(Date cutoff);
+
+  /**
+   * @return the sequence of the newest purged tombstone, 0 if none was purged
+   */
+  long getPurgedThrough();
+
+  /**
+   * Moves the change sequence up to at least a value, so the next write is
+   * stamped after documents restored from another database.
+   */
+  void advanceSequence(long atLeast);
+
+  /**
+   * Counts a write to a collection that has no change sequence, for instances
+   * that poll for changes.
+   */
+  void bumpVersion(String collection);
+
+  /**
+   * @return the current value of each counter, missing if never written
+   */
+  Map<String, Long> findVersions(Collection<String> names);
+
+  /**
+   * @return the current value of a counter, 0 if never written
+   */
+  default long findVersion(String name) {
+    return findVersions(List.of(name)).getOrDefault(name, 0L);
+  }
+
+  /**
+   * Stamps the documents written before change sequences existed.
+   *
+   * @return the number of documents stamped
+   */
+  long assignMissingSequences(Class<?> entityClass);
+}
@@ -0,0 +1,69 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+
+import ca.mcgillcssa.cssabackend.model.ResumeToken;
+
+@Repository
+@Profile("!inmemory")
+public class ChangeStreamRepository {
+
+  private final MongoTemplate mongoTemplate;
+
+  public ChangeStreamRepository(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Opens a change stream over some collections of the database. Inserts,
+   * updates and replaces come with the current version of the document.
+   *
+   * @param collections    the collections to follow
+   * @param resumeAfter    the token of the last change seen, null to start now
+   * @param maxAwaitMillis how long tryNext waits for a change
+   * @return the cursor, to be closed by the caller
+   */
+  public MongoChangeStreamCursor<ChangeStreamDocument<Document>> openChangeStream(List<String> collections,
+      BsonDocument resumeAfter, long maxAwaitMillis) {
+    ChangeStreamIterable<Document> stream = mongoTemplate.getDb()
+        .watch(List.of(Aggregates.match(Filters.in("ns.coll", collections))))
+        .fullDocument(FullDocument.UPDATE_LOOKUP)
+        .maxAwaitTime(maxAwaitMillis, TimeUnit.MILLISECONDS);
+    if (resumeAfter != null) {
+      stream = stream.resumeAfter(resumeAfter);
+    }
+    return stream.cursor();
+  }
+
+  public void saveResumeToken(String instanceId, BsonDocument token) {
+    mongoTemplate.save(new ResumeToken(instanceId, token.getString("_data").getValue(), new Date()));
+  }
+
+  public Optional<BsonDocument> findResumeToken(String instanceId) {
+    return Optional.ofNullable(mongoTemplate.findById(instanceId, ResumeToken.class))
+        .map(token -> new BsonDocument("_data", new BsonString(token.getData())));
+  }
+
+  public void deleteResumeToken(String instanceId) {
+    mongoTemplate.remove(new Query(Criteria.where("_id").is(instanceId)), ResumeToken.class);
+  }
+}
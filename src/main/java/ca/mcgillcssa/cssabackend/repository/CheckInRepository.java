@@ -0,0 +1,25 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.List;
+
+import ca.mcgillcssa.cssabackend.model.CheckIn;
+
+/**
+ * Stores the check-ins, keyed by eventId:schoolEmail.
+ */
+public interface CheckInRepository {
+
+  /**
+   * Appends check-ins. Check-ins that were already recorded are skipped.
+   *
+   * @param checkIns the check-ins to append
+   */
+  void appendCheckIns(List<CheckIn> checkIns);
+
+  /**
+   * @return the school emails checked in to an event
+   */
+  List<String> findSchoolEmailsByEventId(String eventId);
+
+  long countByEventId(String eventId);
+}
@@ -0,0 +1,69 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A secondary index of the in-memory repositories, from a field value to the
+ * ids of the entities having it. Null values are not indexed.
+ *
+ * Each id set is changed inside compute, so concurrent writers to the same
+ * value do not lose each other's ids, and readers iterate a concurrent set
+ * without locking.
+ */
+final class HashIndex<K> {
+
+  private final ConcurrentHashMap<K, Set<String>> ids = new ConcurrentHashMap<>();
+
+  void add(K value, String id) {
+    if (value != null) {
+      ids.compute(value, (key, set) -> {
+        Set<String> updated = set == null ? ConcurrentHashMap.newKeySet() : set;
+        updated.add(id);
+        return updated;
+      });
+    }
+  }
+
+  void remove(K value, String id) {
+    if (value != null) {
+      ids.computeIfPresent(value, (key, set) -> {
+        set.remove(id);
+        return set.isEmpty() ? null : set;
+      });
+    }
+  }
+
+  /**
+   * Moves an id from its old value to its new one, if they differ.
+   */
+  void replace(K oldValue, K newValue, String id) {
+    if (oldValue == null ? newValue != null : !oldValue.equals(newValue)) {
+      remove(oldValue, id);
+      add(newValue, id);
+    }
+  }
+
+  /**
+   * @return a live view of the ids with a value, empty if none
+   */
+  Set<String> get(K value) {
+    Set<String> found = value == null ? null : ids.get(value);
+    return found == null ? Set.of() : found;
+  }
+
+  /**
+   * @return the number of ids per value
+   */
+  Map<K, Long> counts() {
+    Map<K, Long> counts = new HashMap<>();
+    ids.forEach((value, set) -> {
+      if (!set.isEmpty()) {
+        counts.put(value, (long) set.size());
+      }
+    });
+    return counts;
+  }
+}
@@ -0,0 +1,13 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+/**
+ * Tells the image proxy which urls it may fetch: the images stored on
+ * sponsors, events and benefits.
+ */
+public interface ImageSourceRepository {
+
+  /**
+   * @return true if the url is the image of a sponsor, an event or a benefit
+   */
+  boolean isStoredImageUrl(String url);
+}
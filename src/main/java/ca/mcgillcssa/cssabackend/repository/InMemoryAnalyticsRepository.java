@@ -0,0 +1,53 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import ca.mcgillcssa.cssabackend.model.AnalyticsCounter;
+import ca.mcgillcssa.cssabackend.model.AnalyticsCounter.EventType;
+
+/**
+ * Keeps the analytics counters in memory, for the inmemory profile, with a
+ * hash index on target. Counters are copied in and out.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryAnalyticsRepository implements AnalyticsRepository {
+
+  private final ConcurrentHashMap<String, AnalyticsCounter> counters = new ConcurrentHashMap<>();
+  private final HashIndex<String> byTargetId = new HashIndex<>();
+
+  @Override
+  public void incrementCounters(List<AnalyticsCounter> increments) {
+    for (AnalyticsCounter increment : increments) {
+      counters.merge(increment.getId(), copy(increment), (current, added) -> {
+        AnalyticsCounter sum = copy(current);
+        sum.setCount(current.getCount() + added.getCount());
+        return sum;
+      });
+      byTargetId.add(increment.getTargetId(), increment.getId());
+    }
+  }
+
+  @Override
+  public List<AnalyticsCounter> findCounters(EventType eventType, String targetId, Date since) {
+    List<AnalyticsCounter> found = new ArrayList<>();
+    for (String id : byTargetId.get(targetId)) {
+      AnalyticsCounter counter = counters.get(id);
+      if (counter != null && counter.getEventType() == eventType && !counter.getHour().before(since)) {
+        found.add(copy(counter));
+      }
+    }
+    return found;
+  }
+
+  private static AnalyticsCounter copy(AnalyticsCounter counter) {
+    return new AnalyticsCounter(counter.getId(), counter.getEventType(), counter.getTargetId(),
+        new Date(counter.getHour().getTime()), counter.getCount());
+  }
+}
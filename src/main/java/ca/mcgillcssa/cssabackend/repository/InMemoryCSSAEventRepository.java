@@ -0,0 +1,162 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent.ChangeType;
+import ca.mcgillcssa.cssabackend.model.CSSAEvent;
+
+/**
+ * Keeps the events in memory, for the inmemory profile. Events are stored by
+ * id, with ordered indexes on start date and on change sequence.
+ *
+ * Writes are serialized, so an RSVP checks and takes a seat atomically. Reads
+ * take no lock and check each index hit against the event it points to. Events
+ * are copied in and out.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryCSSAEventRepository implements CSSAEventRepository {
+  private final ApplicationEventPublisher eventPublisher;
+  private final ChangeLogRepository changeLog;
+  private final ConcurrentHashMap<String, CSSAEvent> events = new ConcurrentHashMap<>();
+  // keyed by start date then id, so that events starting the same day do not collide
+  private final ConcurrentSkipListMap<String, String> byStartDate = new ConcurrentSkipListMap<>();
+  private final ConcurrentSkipListMap<Long, String> byChangeSeq = new ConcurrentSkipListMap<>();
+
+  public InMemoryCSSAEventRepository(ApplicationEventPublisher eventPublisher, ChangeLogRepository changeLog) {
+    this.eventPublisher = eventPublisher;
+    this.changeLog = changeLog;
+  }
+
+  @Override
+  public CSSAEvent saveEvent(CSSAEvent event) {
+    boolean created = event.getId() == null;
+    CSSAEvent saved = changeLog.withSequence(seq -> {
+      if (created) {
+        event.setId(new ObjectId().toHexString());
+      }
+      event.setChangeSeq(seq);
+      synchronized (this) {
+        put(copy(event));
+      }
+      return event;
+    });
+    eventChanged(saved.getId(), created ? ChangeType.CREATED : ChangeType.UPDATED);
+    return saved;
+  }
+
+  @Override
+  public Optional<CSSAEvent> findEventById(String id) {
+    return Optional.ofNullable(events.get(id)).map(InMemoryCSSAEventRepository::copy);
+  }
+
+  @Override
+  public List<CSSAEvent> findUpcomingEvents(LocalDate today, int limit) {
+    List<CSSAEvent> found = new ArrayList<>();
+    for (String id : byStartDate.values()) {
+      if (found.size() == limit) {
+        break;
+      }
+      CSSAEvent event = events.get(id);
+      if (event != null && event.getEventEndDate() != null && !event.getEventEndDate().isBefore(today)) {
+        found.add(copy(event));
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public List<CSSAEvent> findEventsChangedSince(long since, long until, int limit) {
+    List<CSSAEvent> found = new ArrayList<>();
+    for (String id : byChangeSeq.subMap(since, false, until, true).values()) {
+      if (found.size() == limit) {
+        break;
+      }
+      CSSAEvent event = events.get(id);
+      // moved past since while read, it is picked up again by its new sequence
+      if (event != null && event.getChangeSeq() > since && event.getChangeSeq() <= until) {
+        found.add(copy(event));
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public boolean incrementRsvpCount(String id, int capacity) {
+    return changeRsvpCount(id, event -> event.getCapacity() == capacity && event.getRsvpCount() < capacity, 1);
+  }
+
+  @Override
+  public boolean decrementRsvpCount(String id) {
+    return changeRsvpCount(id, event -> event.getRsvpCount() > 0, -1);
+  }
+
+  // like the Mongo repository, a sequence is only taken once the count changed
+  private boolean changeRsvpCount(String id, Predicate<CSSAEvent> allowed, int delta) {
+    synchronized (this) {
+      CSSAEvent current = events.get(id);
+      if (current == null || !allowed.test(current)) {
+        return false;
+      }
+      CSSAEvent event = copy(current);
+      event.setRsvpCount(event.getRsvpCount() + delta);
+      put(event);
+    }
+    changeLog.withSequence(seq -> {
+      synchronized (this) {
+        CSSAEvent current = events.get(id);
+        if (current != null && current.getChangeSeq() < seq) {
+          CSSAEvent event = copy(current);
+          event.setChangeSeq(seq);
+          put(event);
+        }
+        return null;
+      }
+    });
+    eventChanged(id, ChangeType.UPDATED);
+    return true;
+  }
+
+  // callers hold the lock on this
+  private void put(CSSAEvent event) {
+    CSSAEvent previous = events.put(event.getId(), event);
+    if (previous != null) {
+      byStartDate.remove(startKey(previous));
+      byChangeSeq.remove(previous.getChangeSeq(), previous.getId());
+    }
+    byStartDate.put(startKey(event), event.getId());
+    byChangeSeq.put(event.getChangeSeq(), event.getId());
+  }
+
+  // ISO dates sort in date order, events without a start date come first as in Mongo
+  private static String startKey(CSSAEvent event) {
+    LocalDate start = event.getEventStartDate();
+    return (start == null ? "" : start.toString()) + '\0' + event.getId();
+  }
+
+  private static CSSAEvent copy(CSSAEvent event) {
+    CSSAEvent copy = new CSSAEvent(event.getEventName(), event.getEventStartDate(), event.getEventEndDate(),
+        event.getEventLocation(), event.getEventImageUrl(), event.getEventDescription(), event.getEventLinkUrl());
+    copy.setId(event.getId());
+    copy.setCapacity(event.getCapacity());
+    copy.setRsvpCount(event.getRsvpCount());
+    copy.setChangeSeq(event.getChangeSeq());
+    return copy;
+  }
+
+  private void eventChanged(String id, ChangeType changeType) {
+    eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.EVENTS, id, changeType));
+  }
+}
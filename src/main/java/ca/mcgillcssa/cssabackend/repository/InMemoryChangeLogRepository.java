@@ -0,0 +1,142 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import ca.mcgillcssa.cssabackend.model.Tombstone;
+
+/**
+ * Keeps the change log in memory, for the inmemory profile. Tombstones are
+ * indexed by id and by change sequence.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryChangeLogRepository implements ChangeLogRepository {
+
+  private final AtomicLong sequence = new AtomicLong();
+  private final NavigableSet<Long> inFlight = new ConcurrentSkipListSet<>();
+  private final ConcurrentHashMap<String, Long> versions = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Tombstone> tombstones = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListMap<Long, Tombstone> tombstonesBySeq = new ConcurrentSkipListMap<>();
+  private final AtomicLong purgedThrough = new AtomicLong();
+
+  @Override
+  public <T> T withSequence(LongFunction<T> write) {
+    long seq;
+    // taken and tracked together, so that no reader sees a sequence before it is in flight
+    synchronized (inFlight) {
+      seq = sequence.incrementAndGet();
+      inFlight.add(seq);
+    }
+    try {
+      return write.apply(seq);
+    } finally {
+      inFlight.remove(seq);
+    }
+  }
+
+  @Override
+  public long safeWatermark() {
+    synchronized (inFlight) {
+      Long lowest = inFlight.ceiling(Long.MIN_VALUE);
+      return lowest == null ? sequence.get() : lowest - 1;
+    }
+  }
+
+  @Override
+  public synchronized Tombstone recordDeletion(String topic, String entityId, long seq) {
+    Tombstone tombstone = new Tombstone(Tombstone.idOf(topic, entityId), topic, entityId, seq, new Date());
+    Tombstone previous = tombstones.put(tombstone.getId(), tombstone);
+    if (previous != null) {
+      tombstonesBySeq.remove(previous.getChangeSeq());
+    }
+    tombstonesBySeq.put(seq, tombstone);
+    return tombstone;
+  }
+
+  @Override
+  public synchronized void clearDeletion(String topic, String entityId) {
+    Tombstone removed = tombstones.remove(Tombstone.idOf(topic, entityId));
+    if (removed != null) {
+      tombstonesBySeq.remove(removed.getChangeSeq());
+    }
+  }
+
+  @Override
+  public List<Tombstone> findDeletionsSince(long since, long until, int limit) {
+    List<Tombstone> deletions = new ArrayList<>();
+    for (Tombstone tombstone : tombstonesBySeq.subMap(since, false, until, true).values()) {
+      if (deletions.size() == limit) {
+        break;
+      }
+      deletions.add(tombstone);
+    }
+    return deletions;
+  }
+
+  @Override
+  public synchronized long purgeDeletionsBefore(Date cutoff) {
+    List<Tombstone> purged = new ArrayList<>();
+    for (Tombstone tombstone : tombstonesBySeq.values()) {
+      if (tombstone.getDeletedAt().before(cutoff)) {
+        purged.add(tombstone);
+      }
+    }
+    for (Tombstone tombstone : purged) {
+      tombstones.remove(tombstone.getId());
+      tombstonesBySeq.remove(tombstone.getChangeSeq());
+      purgedThrough.accumulateAndGet(tombstone.getChangeSeq(), Math::max);
+    }
+    return purged.size();
+  }
+
+  @Override
+  public long getPurgedThrough() {
+    return purgedThrough.get();
+  }
+
+  @Override
+  public void advanceSequence(long atLeast) {
+    synchronized (inFlight) {
+      sequence.accumulateAndGet(atLeast, Math::max);
+    }
+  }
+
+  @Override
+  public void bumpVersion(String collection) {
+    versions.merge(collection, 1L, Long::sum);
+  }
+
+  @Override
+  public Map<String, Long> findVersions(Collection<String> names) {
+    Map<String, Long> found = new HashMap<>();
+    for (String name : names) {
+      Long version = name.equals(CHANGES) ? Long.valueOf(sequence.get()) : versions.get(name);
+      if (version != null && version > 0) {
+        found.put(name, version);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * @return 0, every write is stamped
+   */
+  @Override
+  public long assignMissingSequences(Class<?> entityClass) {
+    return 0;
+  }
+}
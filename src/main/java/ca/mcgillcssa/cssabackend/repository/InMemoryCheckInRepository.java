@@ -0,0 +1,51 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import ca.mcgillcssa.cssabackend.model.CheckIn;
+
+/**
+ * Keeps the check-ins in memory, for the inmemory profile, with a hash index
+ * on event id.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryCheckInRepository implements CheckInRepository {
+
+  private final ConcurrentHashMap<String, CheckIn> checkIns = new ConcurrentHashMap<>();
+  private final HashIndex<String> byEventId = new HashIndex<>();
+
+  @Override
+  public void appendCheckIns(List<CheckIn> batch) {
+    for (CheckIn checkIn : batch) {
+      CheckIn copy = new CheckIn(checkIn.getId(), checkIn.getEventId(), checkIn.getSchoolEmail(),
+          checkIn.getCheckedInAt());
+      // the first check-in recorded is kept, as by the unique _id index in Mongo
+      if (checkIns.putIfAbsent(copy.getId(), copy) == null) {
+        byEventId.add(copy.getEventId(), copy.getId());
+      }
+    }
+  }
+
+  @Override
+  public List<String> findSchoolEmailsByEventId(String eventId) {
+    List<String> schoolEmails = new ArrayList<>();
+    for (String id : byEventId.get(eventId)) {
+      CheckIn checkIn = checkIns.get(id);
+      if (checkIn != null) {
+        schoolEmails.add(checkIn.getSchoolEmail());
+      }
+    }
+    return schoolEmails;
+  }
+
+  @Override
+  public long countByEventId(String eventId) {
+    return byEventId.get(eventId).size();
+  }
+}
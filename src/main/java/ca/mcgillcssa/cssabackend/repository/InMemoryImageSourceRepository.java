@@ -0,0 +1,50 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import ca.mcgillcssa.cssabackend.model.CSSAEvent;
+import ca.mcgillcssa.cssabackend.model.MembershipBenefit;
+import ca.mcgillcssa.cssabackend.model.Sponsor;
+
+/**
+ * Looks the url up in the in-memory sponsors, events and benefits, for the
+ * inmemory profile. Each lookup scans them, the proxy only asks about urls
+ * missing from its cache.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryImageSourceRepository implements ImageSourceRepository {
+
+  private final SponsorRepository sponsorRepository;
+  private final CSSAEventRepository eventRepository;
+  private final MembershipBenefitRepository benefitRepository;
+
+  public InMemoryImageSourceRepository(SponsorRepository sponsorRepository, CSSAEventRepository eventRepository,
+      MembershipBenefitRepository benefitRepository) {
+    this.sponsorRepository = sponsorRepository;
+    this.eventRepository = eventRepository;
+    this.benefitRepository = benefitRepository;
+  }
+
+  @Override
+  public boolean isStoredImageUrl(String url) {
+    for (Sponsor sponsor : sponsorRepository.findAllSponsors()) {
+      if (url.equals(sponsor.getSponsorImageUrl())) {
+        return true;
+      }
+    }
+    // every event written has a change sequence above 0
+    for (CSSAEvent event : eventRepository.findEventsChangedSince(0, Long.MAX_VALUE, Integer.MAX_VALUE)) {
+      if (url.equals(event.getEventImageUrl())) {
+        return true;
+      }
+    }
+    for (MembershipBenefit benefit : benefitRepository.findAllBenefits()) {
+      if (url.equals(benefit.getMerchantLogoUrl()) || url.equals(benefit.getMerchantBackgroundImageUrl())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,222 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import ca.mcgillcssa.cssabackend.model.Member;
+
+/**
+ * Keeps the members in memory, for the inmemory profile. Members are stored by
+ * school email, with a hash index on every other field they are looked up or
+ * counted by.
+ *
+ * Writes are serialized, so a member and its index entries always change
+ * together. Reads take no lock: an index hit is checked against the member it
+ * points to, so a read racing a write sees either the old or the new member.
+ * Members are copied in and out, callers never share the stored instances.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryMemberRepository implements MemberRepository {
+
+  private static final Map<String, Function<Member, Enum<?>>> CATEGORIES = Map.of(
+      "department", Member::getDepartment,
+      "position", Member::getPosition,
+      "clothSize", Member::getClothSize);
+
+  private final ChangeLogRepository changeLog;
+  private final ConcurrentHashMap<String, Member> members = new ConcurrentHashMap<>();
+  private final HashIndex<String> byPersonalEmail = new HashIndex<>();
+  private final HashIndex<Integer> byBirthdayMonth = new HashIndex<>();
+  private final Map<String, HashIndex<String>> byCategory = Map.of(
+      "department", new HashIndex<>(),
+      "position", new HashIndex<>(),
+      "clothSize", new HashIndex<>());
+  // registration event id to school email, until the event is recorded
+  private final Map<String, String> unannounced = new ConcurrentHashMap<>();
+
+  public InMemoryMemberRepository(ChangeLogRepository changeLog) {
+    this.changeLog = changeLog;
+  }
+
+  @Override
+  public Member createMember(Member member) {
+    synchronized (this) {
+      put(copy(member));
+    }
+    changeLog.bumpVersion(VERSION);
+    return member;
+  }
+
+  @Override
+  public Map<Integer, DataAccessException> insertMembers(List<Member> batch) {
+    Map<Integer, DataAccessException> failures = new HashMap<>();
+    synchronized (this) {
+      for (int i = 0; i < batch.size(); i++) {
+        Member member = batch.get(i);
+        if (members.containsKey(member.getSchoolEmail())) {
+          failures.put(i, new DuplicateKeyException("Duplicate school email " + member.getSchoolEmail()));
+        } else {
+          put(copy(member));
+          unannounced.put(UUID.randomUUID().toString(), member.getSchoolEmail());
+        }
+      }
+    }
+    changeLog.bumpVersion(VERSION);
+    return failures;
+  }
+
+  @Override
+  public Map<String, Member> findUnannouncedRegistrations(int limit) {
+    Map<String, Member> registrations = new LinkedHashMap<>();
+    for (Map.Entry<String, String> registration : unannounced.entrySet()) {
+      if (registrations.size() == limit) {
+        break;
+      }
+      Member member = members.get(registration.getValue());
+      if (member != null) {
+        registrations.put(registration.getKey(), copy(member));
+      }
+    }
+    return registrations;
+  }
+
+  @Override
+  public void markRegistrationsAnnounced(Collection<String> eventIds) {
+    unannounced.keySet().removeAll(eventIds);
+  }
+
+  @Override
+  public Optional<Member> findByPersonalEmail(String personalEmail) {
+    for (String schoolEmail : byPersonalEmail.get(personalEmail)) {
+      Member member = members.get(schoolEmail);
+      if (member != null && personalEmail.equals(member.getPersonalEmail())) {
+        return Optional.of(copy(member));
+      }
+    }
+    return Optional.empty();
+  }
+
+  @Override
+  public Optional<Member> findBySchoolEmail(String schoolEmail) {
+    return Optional.ofNullable(members.get(schoolEmail)).map(InMemoryMemberRepository::copy);
+  }
+
+  /**
+   * Finds the members with any of the given school emails. Whole members are
+   * returned, the chunk size and fields only matter to a remote store.
+   */
+  @Override
+  public List<Member> findBySchoolEmails(Collection<String> schoolEmails, int chunkSize, String... fields) {
+    List<Member> found = new ArrayList<>(schoolEmails.size());
+    for (String schoolEmail : MemberRepository.lookupIds(schoolEmails)) {
+      Member member = members.get(schoolEmail);
+      if (member != null) {
+        found.add(copy(member));
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public List<Member> findByBirthdayMonth(int month) {
+    List<Member> found = new ArrayList<>();
+    for (String schoolEmail : byBirthdayMonth.get(month)) {
+      Member member = members.get(schoolEmail);
+      if (member != null && member.getBirthday() != null && member.getBirthday().getMonthValue() == month) {
+        found.add(copy(member));
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public List<String> findAllSchoolEmails() {
+    return new ArrayList<>(members.keySet());
+  }
+
+  @Override
+  public long findVersion() {
+    return changeLog.findVersion(VERSION);
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> countByDepartmentPositionAndClothSize() {
+    Map<String, Map<String, Long>> counts = new HashMap<>();
+    byCategory.forEach((field, index) -> counts.put(field, index.counts()));
+    return counts;
+  }
+
+  @Override
+  public Optional<Member> deleteByPersonalEmail(String personalEmail) {
+    Optional<Member> removed;
+    synchronized (this) {
+      removed = byPersonalEmail.get(personalEmail).stream().findFirst().map(this::remove);
+    }
+    return memberRemoved(removed);
+  }
+
+  @Override
+  public Optional<Member> deleteBySchoolEmail(String schoolEmail) {
+    Optional<Member> removed;
+    synchronized (this) {
+      removed = Optional.ofNullable(remove(schoolEmail));
+    }
+    return memberRemoved(removed);
+  }
+
+  private Optional<Member> memberRemoved(Optional<Member> removed) {
+    removed.ifPresent(member -> changeLog.bumpVersion(VERSION));
+    return removed;
+  }
+
+  // callers hold the lock on this
+  private void put(Member member) {
+    Member previous = members.put(member.getSchoolEmail(), member);
+    String id = member.getSchoolEmail();
+    byPersonalEmail.replace(previous == null ? null : previous.getPersonalEmail(), member.getPersonalEmail(), id);
+    byBirthdayMonth.replace(previous == null ? null : birthdayMonth(previous), birthdayMonth(member), id);
+    byCategory.forEach((field, index) -> index.replace(previous == null ? null : category(previous, field),
+        category(member, field), id));
+  }
+
+  // callers hold the lock on this
+  private Member remove(String schoolEmail) {
+    Member removed = members.remove(schoolEmail);
+    if (removed != null) {
+      byPersonalEmail.remove(removed.getPersonalEmail(), schoolEmail);
+      byBirthdayMonth.remove(birthdayMonth(removed), schoolEmail);
+      byCategory.forEach((field, index) -> index.remove(category(removed, field), schoolEmail));
+      unannounced.values().remove(schoolEmail);
+    }
+    return removed;
+  }
+
+  private static Integer birthdayMonth(Member member) {
+    return member.getBirthday() == null ? null : member.getBirthday().getMonthValue();
+  }
+
+  private static String category(Member member, String field) {
+    Enum<?> value = CATEGORIES.get(field).apply(member);
+    return value == null ? null : value.name();
+  }
+
+  private static Member copy(Member member) {
+    return new Member(member.getName(), member.getPseudo(), member.getPersonalEmail(), member.getSchoolEmail(),
+        member.getWechatId(), member.getCaPhoneNum(), member.getCnPhoneNum(), member.getBirthday(),
+        member.getDepartment(), member.getPosition(), member.getClothSize());
+  }
+}
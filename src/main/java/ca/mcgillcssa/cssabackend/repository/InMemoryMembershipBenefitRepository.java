@@ -0,0 +1,114 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent.ChangeType;
+import ca.mcgillcssa.cssabackend.model.MembershipBenefit;
+
+/**
+ * Keeps the membership benefits in memory, for the inmemory profile. Benefits
+ * are stored by merchant name, with an ordered index on change sequence for
+ * delta sync, and copied in and out. Writes are serialized, reads take no lock.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryMembershipBenefitRepository implements MembershipBenefitRepository {
+
+  private final ApplicationEventPublisher eventPublisher;
+  private final ChangeLogRepository changeLog;
+  private final ConcurrentSkipListMap<String, MembershipBenefit> benefits = new ConcurrentSkipListMap<>();
+  private final ConcurrentSkipListMap<Long, String> byChangeSeq = new ConcurrentSkipListMap<>();
+
+  public InMemoryMembershipBenefitRepository(ApplicationEventPublisher eventPublisher,
+      ChangeLogRepository changeLog) {
+    this.eventPublisher = eventPublisher;
+    this.changeLog = changeLog;
+  }
+
+  @Override
+  public MembershipBenefit saveBenefit(MembershipBenefit benefit) {
+    MembershipBenefit saved = changeLog.withSequence(seq -> {
+      benefit.setChangeSeq(seq);
+      synchronized (this) {
+        MembershipBenefit previous = benefits.put(benefit.getMerchantName(), copy(benefit));
+        if (previous != null) {
+          byChangeSeq.remove(previous.getChangeSeq(), previous.getMerchantName());
+        }
+        byChangeSeq.put(seq, benefit.getMerchantName());
+      }
+      return benefit;
+    });
+    changeLog.clearDeletion(EntityChangedEvent.BENEFITS, saved.getMerchantName());
+    changeLog.bumpVersion(VERSION);
+    benefitChanged(saved.getMerchantName(), ChangeType.UPDATED);
+    return saved;
+  }
+
+  @Override
+  public List<MembershipBenefit> findAllBenefits() {
+    List<MembershipBenefit> found = new ArrayList<>(benefits.size());
+    for (MembershipBenefit benefit : benefits.values()) {
+      found.add(copy(benefit));
+    }
+    return found;
+  }
+
+  @Override
+  public long findVersion() {
+    return changeLog.findVersion(VERSION);
+  }
+
+  @Override
+  public List<MembershipBenefit> findBenefitsChangedSince(long since, long until, int limit) {
+    List<MembershipBenefit> found = new ArrayList<>();
+    for (String merchantName : byChangeSeq.subMap(since, false, until, true).values()) {
+      if (found.size() == limit) {
+        break;
+      }
+      MembershipBenefit benefit = benefits.get(merchantName);
+      // moved past since while read, it is picked up again by its new sequence
+      if (benefit != null && benefit.getChangeSeq() > since && benefit.getChangeSeq() <= until) {
+        found.add(copy(benefit));
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public boolean deleteBenefitByMerchantName(String merchantName) {
+    boolean deleted = changeLog.withSequence(seq -> {
+      synchronized (this) {
+        MembershipBenefit removed = benefits.remove(merchantName);
+        if (removed == null) {
+          return false;
+        }
+        byChangeSeq.remove(removed.getChangeSeq(), merchantName);
+      }
+      changeLog.recordDeletion(EntityChangedEvent.BENEFITS, merchantName, seq);
+      return true;
+    });
+    if (!deleted) {
+      return false;
+    }
+    changeLog.bumpVersion(VERSION);
+    benefitChanged(merchantName, ChangeType.DELETED);
+    return true;
+  }
+
+  private static MembershipBenefit copy(MembershipBenefit benefit) {
+    return new MembershipBenefit(benefit.getMerchantName(), benefit.getMerchantBackgroundImageUrl(),
+        benefit.getMerchantDiscount(), benefit.getMerchantLogoUrl(), benefit.getMerchantType(),
+        benefit.getChangeSeq());
+  }
+
+  private void benefitChanged(String merchantName, ChangeType changeType) {
+    eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.BENEFITS, merchantName, changeType));
+  }
+}
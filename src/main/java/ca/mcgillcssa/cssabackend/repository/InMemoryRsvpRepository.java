@@ -0,0 +1,37 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import ca.mcgillcssa.cssabackend.model.Rsvp;
+
+/**
+ * Keeps the RSVPs in memory, for the inmemory profile. A second RSVP with the
+ * same id is refused as the unique _id index refuses it in Mongo.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryRsvpRepository implements RsvpRepository {
+
+  private final ConcurrentHashMap<String, Rsvp> rsvps = new ConcurrentHashMap<>();
+
+  @Override
+  public Rsvp createRsvp(Rsvp rsvp) {
+    if (rsvps.putIfAbsent(rsvp.getId(), copy(rsvp)) != null) {
+      throw new DuplicateKeyException("Duplicate RSVP " + rsvp.getId());
+    }
+    return rsvp;
+  }
+
+  @Override
+  public boolean deleteRsvp(String id) {
+    return rsvps.remove(id) != null;
+  }
+
+  private static Rsvp copy(Rsvp rsvp) {
+    return new Rsvp(rsvp.getId(), rsvp.getEventId(), rsvp.getSchoolEmail(), rsvp.getCreatedAt());
+  }
+}
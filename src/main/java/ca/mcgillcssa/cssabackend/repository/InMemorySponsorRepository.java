@@ -0,0 +1,213 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent.ChangeType;
+import ca.mcgillcssa.cssabackend.model.Sponsor;
+
+/**
+ * Keeps the sponsors in memory, for the inmemory profile. Sponsors are stored
+ * by name, with hash indexes on class and coop duration and an ordered index on
+ * change sequence for delta sync.
+ *
+ * Writes are serialized, reads take no lock and check each index hit against
+ * the sponsor it points to. Sponsors are copied in and out.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemorySponsorRepository implements SponsorRepository {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChangeLogRepository changeLog;
+    private final ConcurrentSkipListMap<String, Sponsor> sponsors = new ConcurrentSkipListMap<>();
+    private final HashIndex<String> byClass = new HashIndex<>();
+    private final HashIndex<String> byCoopDuration = new HashIndex<>();
+    private final ConcurrentSkipListMap<Long, String> byChangeSeq = new ConcurrentSkipListMap<>();
+
+    public InMemorySponsorRepository(ApplicationEventPublisher eventPublisher, ChangeLogRepository changeLog) {
+        this.eventPublisher = eventPublisher;
+        this.changeLog = changeLog;
+    }
+
+    @Override
+    public Sponsor createSponsor(Sponsor sponsor) {
+        Sponsor saved = changeLog.withSequence(seq -> {
+            sponsor.setChangeSeq(seq);
+            synchronized (this) {
+                put(copy(sponsor));
+            }
+            return sponsor;
+        });
+        changeLog.clearDeletion(EntityChangedEvent.SPONSORS, saved.getSponsorName());
+        changeLog.bumpVersion(VERSION);
+        sponsorChanged(saved.getSponsorName(), ChangeType.CREATED);
+        return saved;
+    }
+
+    @Override
+    public Optional<Sponsor> findSponsorByName(String sponsorName) {
+        return Optional.ofNullable(sponsors.get(sponsorName)).map(InMemorySponsorRepository::copy);
+    }
+
+    @Override
+    public List<Sponsor> findAllSponsors() {
+        List<Sponsor> found = new ArrayList<>(sponsors.size());
+        for (Sponsor sponsor : sponsors.values()) {
+            found.add(copy(sponsor));
+        }
+        return found;
+    }
+
+    @Override
+    public long findVersion() {
+        return changeLog.findVersion(VERSION);
+    }
+
+    @Override
+    public List<Sponsor> findSponsorsByClass(String sponsorClass) {
+        List<Sponsor> found = new ArrayList<>();
+        for (Sponsor sponsor : copies(byClass.get(sponsorClass))) {
+            if (sponsorClass.equals(name(sponsor.getSponsorClass()))) {
+                found.add(sponsor);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<Sponsor> findSponsorsByCoopDuration(String coopDuration) {
+        List<Sponsor> found = new ArrayList<>();
+        for (Sponsor sponsor : copies(byCoopDuration.get(coopDuration))) {
+            if (coopDuration.equals(name(sponsor.getCoopDuration()))) {
+                found.add(sponsor);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<Sponsor> findSponsorsChangedSince(long since, long until, int limit) {
+        List<Sponsor> found = new ArrayList<>();
+        for (String sponsorName : byChangeSeq.subMap(since, false, until, true).values()) {
+            if (found.size() == limit) {
+                break;
+            }
+            Sponsor sponsor = sponsors.get(sponsorName);
+            // moved past since while read, it is picked up again by its new sequence
+            if (sponsor != null && sponsor.getChangeSeq() > since && sponsor.getChangeSeq() <= until) {
+                found.add(copy(sponsor));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public boolean deleteSponsorByName(String sponsorName) {
+        boolean deleted = changeLog.withSequence(seq -> {
+            synchronized (this) {
+                if (remove(sponsorName) == null) {
+                    return false;
+                }
+            }
+            changeLog.recordDeletion(EntityChangedEvent.SPONSORS, sponsorName, seq);
+            return true;
+        });
+        if (deleted) {
+            changeLog.bumpVersion(VERSION);
+            sponsorChanged(sponsorName, ChangeType.DELETED);
+        }
+        return deleted;
+    }
+
+    @Override
+    public boolean updateSponsor(String name, String coopDuration, String sponsorImageUrl, String sponsorWebsiteUrl,
+            String sponsorClass) {
+        boolean updated = changeLog.withSequence(seq -> {
+            synchronized (this) {
+                Sponsor current = sponsors.get(name);
+                if (current == null) {
+                    return false;
+                }
+                Sponsor sponsor = copy(current);
+                if (coopDuration != null && !coopDuration.isEmpty()) {
+                    sponsor.setCoopDuration(Sponsor.CoopDuration.valueOf(coopDuration));
+                }
+                if (sponsorImageUrl != null && !sponsorImageUrl.isEmpty()) {
+                    sponsor.setSponsorImageUrl(sponsorImageUrl);
+                }
+                if (sponsorWebsiteUrl != null && !sponsorWebsiteUrl.isEmpty()) {
+                    sponsor.setSponsorWebsiteUrl(sponsorWebsiteUrl);
+                }
+                if (sponsorClass != null && !sponsorClass.isEmpty()) {
+                    sponsor.setSponsorClass(Sponsor.SponsorClass.valueOf(sponsorClass));
+                }
+                sponsor.setChangeSeq(seq);
+                put(sponsor);
+                return true;
+            }
+        });
+        if (updated) {
+            changeLog.bumpVersion(VERSION);
+            sponsorChanged(name, ChangeType.UPDATED);
+        }
+        return updated;
+    }
+
+    // callers hold the lock on this
+    private void put(Sponsor sponsor) {
+        String id = sponsor.getSponsorName();
+        Sponsor previous = sponsors.put(id, sponsor);
+        if (previous != null) {
+            byChangeSeq.remove(previous.getChangeSeq(), id);
+        }
+        byChangeSeq.put(sponsor.getChangeSeq(), id);
+        byClass.replace(previous == null ? null : name(previous.getSponsorClass()), name(sponsor.getSponsorClass()),
+                id);
+        byCoopDuration.replace(previous == null ? null : name(previous.getCoopDuration()),
+                name(sponsor.getCoopDuration()), id);
+    }
+
+    // callers hold the lock on this
+    private Sponsor remove(String sponsorName) {
+        Sponsor removed = sponsors.remove(sponsorName);
+        if (removed != null) {
+            byChangeSeq.remove(removed.getChangeSeq(), sponsorName);
+            byClass.remove(name(removed.getSponsorClass()), sponsorName);
+            byCoopDuration.remove(name(removed.getCoopDuration()), sponsorName);
+        }
+        return removed;
+    }
+
+    private List<Sponsor> copies(Collection<String> sponsorNames) {
+        List<Sponsor> found = new ArrayList<>(sponsorNames.size());
+        for (String sponsorName : sponsorNames) {
+            Sponsor sponsor = sponsors.get(sponsorName);
+            if (sponsor != null) {
+                found.add(copy(sponsor));
+            }
+        }
+        return found;
+    }
+
+    private static String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+
+    private static Sponsor copy(Sponsor sponsor) {
+        return new Sponsor(sponsor.getSponsorName(), sponsor.getCoopDuration(), sponsor.getSponsorImageUrl(),
+                sponsor.getSponsorWebsiteUrl(), sponsor.getSponsorClass(), sponsor.getChangeSeq());
+    }
+
+    private void sponsorChanged(String sponsorName, ChangeType changeType) {
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.SPONSORS, sponsorName, changeType));
+    }
+}
@@ -0,0 +1,64 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import ca.mcgillcssa.cssabackend.model.Lease;
+
+@Repository
+@Profile("!inmemory")
+public class LeaseRepository {
+
+  private final MongoTemplate mongoTemplate;
+
+  public LeaseRepository(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Takes a lease, or extends it if the holder already has it, in one
+   * findAndModify. A lease held by another instance matches nothing, and the
+   * upsert then fails on its id.
+   *
+   * @param until when the lease expires if not extended or released
+   * @return false if another holder has the lease and it has not expired
+   */
+  public boolean tryAcquire(String name, String holder, Instant now, Instant until) {
+    Query query = new Query(Criteria.where("_id").is(name)
+        .orOperator(Criteria.where("holder").is(holder), Criteria.where("expiresAt").lte(now)));
+    try {
+      mongoTemplate.findAndModify(query, new Update().set("holder", holder).set("expiresAt", until),
+          FindAndModifyOptions.options().upsert(true).returnNew(true), Lease.class);
+      return true;
+    } catch (DuplicateKeyException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Gives a lease back, if the holder still has it.
+   *
+   * @param completed true if the job ran to the end, which is recorded
+   */
+  public void release(String name, String holder, Instant now, boolean completed) {
+    Update update = new Update().set("expiresAt", now);
+    if (completed) {
+      update.set("completedAt", now);
+    }
+    mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(name).and("holder").is(holder)), update,
+        Lease.class);
+  }
+
+  public Optional<Lease> findLease(String name) {
+    return Optional.ofNullable(mongoTemplate.findById(name, Lease.class));
+  }
+}
@@ -0,0 +1,96 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.bson.Document;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import ca.mcgillcssa.cssabackend.model.LinkCheck;
+
+@Repository
+@Profile("!inmemory")
+public class LinkCheckRepository {
+
+  // the URL fields of each collection
+  private static final Map<String, List<String>> LINKED_FIELDS = Map.of(
+      "sponsors", List.of("sponsorImageUrl", "sponsorWebsiteUrl"),
+      "events", List.of("eventImageUrl", "eventLinkUrl"),
+      "benefits", List.of("merchantLogoUrl", "merchantBackgroundImageUrl"));
+
+  private final MongoTemplate mongoTemplate;
+
+  public LinkCheckRepository(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Reads every URL stored on a sponsor, event or benefit, projecting only the
+   * URL fields.
+   *
+   * @return the sources linking to each URL, as collection/id/field
+   */
+  public Map<String, Set<String>> findLinkedUrls() {
+    Map<String, Set<String>> urls = new LinkedHashMap<>();
+    for (Map.Entry<String, List<String>> collection : LINKED_FIELDS.entrySet()) {
+      Query query = new Query();
+      query.fields().include(collection.getValue().toArray(new String[0]));
+      for (Document document : mongoTemplate.find(query, Document.class, collection.getKey())) {
+        for (String field : collection.getValue()) {
+          String url = document.getString(field);
+          if (url != null && !url.isBlank()) {
+            urls.computeIfAbsent(url.trim(), key -> new TreeSet<>())
+                .add(collection.getKey() + "/" + document.get("_id") + "/" + field);
+          }
+        }
+      }
+    }
+    return urls;
+  }
+
+  public List<LinkCheck> findAllLinkChecks() {
+    return mongoTemplate.findAll(LinkCheck.class);
+  }
+
+  /**
+   * @return the URLs that failed at least this many probes in a row, most
+   *         failures first
+   */
+  public List<LinkCheck> findFailingLinks(int minConsecutiveFailures) {
+    Query query = new Query(Criteria.where("consecutiveFailures").gte(minConsecutiveFailures))
+        .with(Sort.by(Sort.Direction.DESC, "consecutiveFailures").and(Sort.by("url")));
+    return mongoTemplate.find(query, LinkCheck.class);
+  }
+
+  /**
+   * Writes the results of a crawl in one unordered bulk write, and deletes the
+   * results of URLs no longer stored anywhere.
+   */
+  public void replaceLinkChecks(Collection<LinkCheck> checks) {
+    if (!checks.isEmpty()) {
+      BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LinkCheck.class);
+      for (LinkCheck check : checks) {
+        bulk.replaceOne(new Query(Criteria.where("_id").is(check.getUrl())), check,
+            FindAndReplaceOptions.options().upsert());
+      }
+      bulk.execute();
+    }
+    List<String> urls = new ArrayList<>(checks.size());
+    for (LinkCheck check : checks) {
+      urls.add(check.getUrl());
+    }
+    mongoTemplate.remove(new Query(Criteria.where("_id").nin(urls)), LinkCheck.class);
+  }
+}
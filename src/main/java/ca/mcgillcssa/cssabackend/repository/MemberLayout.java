@@ -0,0 +1,175 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import ca.mcgillcssa.cssabackend.model.Member;
+
+/**
+ * How members are stored. Members used to be written by Spring Data's mapping,
+ * with the full property names, enum names and the birthday as a date. They are
+ * now written compact: short field names, enum codes, the birthday packed as
+ * month * 100 + day, and no null fields. Reads accept both layouts, field by
+ * field, so documents can be rewritten while the application runs.
+ */
+public final class MemberLayout {
+
+  public static final String COLLECTION = "members";
+  // only compact documents have it
+  public static final String VERSION_FIELD = "v";
+  public static final int COMPACT = 2;
+  // the id of the registration event still to be recorded in the outbox
+  public static final String REGISTRATION_EVENT = "re";
+
+  public static final String ID = "_id";
+  private static final Map<String, String> COMPACT_FIELDS = Map.ofEntries(
+      Map.entry("name", "n"),
+      Map.entry("pseudo", "ps"),
+      Map.entry("personalEmail", "pe"),
+      Map.entry("schoolEmail", ID),
+      Map.entry("wechatId", "wx"),
+      Map.entry("caPhoneNum", "ca"),
+      Map.entry("cnPhoneNum", "cn"),
+      Map.entry("birthday", "b"),
+      Map.entry("department", "d"),
+      Map.entry("position", "p"),
+      Map.entry("clothSize", "cs"));
+
+  private MemberLayout() {
+  }
+
+  /**
+   * @param property a property of Member
+   * @return the field it is stored in by compact documents
+   */
+  public static String field(String property) {
+    String field = COMPACT_FIELDS.get(property);
+    if (field == null) {
+      throw new IllegalArgumentException("Member has no property " + property);
+    }
+    return field;
+  }
+
+  /**
+   * @return the fields the properties are stored in, in either layout, e.g. for
+   *         a projection
+   */
+  public static String[] storedFields(String... properties) {
+    List<String> fields = new ArrayList<>();
+    for (String property : properties) {
+      fields.add(field(property));
+      fields.add(property);
+    }
+    return fields.toArray(new String[0]);
+  }
+
+  /**
+   * Matches a string property in either layout. The school email is the id in
+   * both.
+   */
+  public static Criteria is(String property, String value) {
+    String field = field(property);
+    if (field.equals(ID)) {
+      return Criteria.where(ID).is(value);
+    }
+    return new Criteria().orOperator(Criteria.where(field).is(value), Criteria.where(property).is(value));
+  }
+
+  public static Document toDocument(Member member) {
+    Document document = new Document(ID, member.getSchoolEmail());
+    document.append(VERSION_FIELD, COMPACT);
+    putIfPresent(document, field("name"), member.getName());
+    putIfPresent(document, field("pseudo"), member.getPseudo());
+    putIfPresent(document, field("personalEmail"), member.getPersonalEmail());
+    putIfPresent(document, field("wechatId"), member.getWechatId());
+    putIfPresent(document, field("caPhoneNum"), member.getCaPhoneNum());
+    putIfPresent(document, field("cnPhoneNum"), member.getCnPhoneNum());
+    if (member.getBirthday() != null) {
+      document.append(field("birthday"), packBirthday(member.getBirthday()));
+    }
+    if (member.getDepartment() != null) {
+      document.append(field("department"), member.getDepartment().getCode());
+    }
+    if (member.getPosition() != null) {
+      document.append(field("position"), member.getPosition().getCode());
+    }
+    if (member.getClothSize() != null) {
+      document.append(field("clothSize"), member.getClothSize().getCode());
+    }
+    return document;
+  }
+
+  /**
+   * Reads a member from a document in either layout, or a projection of one.
+   *
+   * @throws IllegalArgumentException if an enum field holds an unknown value
+   */
+  public static Member fromDocument(Document document) {
+    return new Member(
+        string(document, "name"),
+        string(document, "pseudo"),
+        string(document, "personalEmail"),
+        document.getString(ID),
+        string(document, "wechatId"),
+        string(document, "caPhoneNum"),
+        string(document, "cnPhoneNum"),
+        birthday(document),
+        value(document, "department", Member.Department::fromCode, Member.Department::valueOf),
+        value(document, "position", Member.Position::fromCode, Member.Position::valueOf),
+        value(document, "clothSize", Member.ClothSize::fromCode, Member.ClothSize::valueOf));
+  }
+
+  public static boolean isCompact(Document document) {
+    return document.get(VERSION_FIELD) != null;
+  }
+
+  public static String personalEmailOf(Document document) {
+    return string(document, "personalEmail");
+  }
+
+  public static int packBirthday(LocalDate birthday) {
+    return birthday.getMonthValue() * 100 + birthday.getDayOfMonth();
+  }
+
+  private static void putIfPresent(Document document, String field, String value) {
+    if (value != null) {
+      document.append(field, value);
+    }
+  }
+
+  private static String string(Document document, String property) {
+    Object value = document.get(field(property));
+    return (String) (value != null ? value : document.get(property));
+  }
+
+  private static LocalDate birthday(Document document) {
+    Object packed = document.get(field("birthday"));
+    if (packed instanceof Number) {
+      int monthDay = ((Number) packed).intValue();
+      // every birthday is stored in 2000, a leap year
+      return LocalDate.of(2000, monthDay / 100, monthDay % 100);
+    }
+    // written by Spring Data from a LocalDate, at the start of the day
+    Date legacy = (Date) document.get("birthday");
+    return legacy == null ? null : legacy.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+  }
+
+  private static <E extends Enum<E>> E value(Document document, String property, IntFunction<E> fromCode,
+      Function<String, E> fromName) {
+    Object code = document.get(field(property));
+    if (code instanceof Number) {
+      return fromCode.apply(((Number) code).intValue());
+    }
+    Object name = document.get(property);
+    return name == null ? null : fromName.apply(name.toString());
+  }
+}
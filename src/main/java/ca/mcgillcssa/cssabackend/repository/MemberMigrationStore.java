@@ -0,0 +1,147 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.bson.Document;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import ca.mcgillcssa.cssabackend.model.Member;
+import ca.mcgillcssa.cssabackend.util.EmailAddressChecker;
+
+/**
+ * Reads and rewrites the member documents still in the legacy layout, or whose
+ * id, the school email, is not in the normalized form it is looked up by, for
+ * MemberMigrationService. Only MongoDB has such documents, the in-memory
+ * members are always in the current layout.
+ */
+@Repository
+@Profile("!inmemory")
+public class MemberMigrationStore {
+
+  // an upper case letter, or surrounding whitespace, that EmailAddressChecker.normalize removes
+  private static final Pattern NOT_NORMALIZED = Pattern.compile("[A-Z]|^\\s|\\s$");
+
+  private final MongoTemplate mongoTemplate;
+
+  public MemberMigrationStore(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Reads the next documents still in the legacy layout, in id order.
+   *
+   * @param afterId the id of the last document of the previous batch, null for
+   *                the first batch
+   * @param limit   the maximum number of documents to read
+   */
+  public List<Document> findLegacyMembers(String afterId, int limit) {
+    Query query = new Query(Criteria.where(MemberLayout.VERSION_FIELD).exists(false));
+    if (afterId != null) {
+      query.addCriteria(Criteria.where(MemberLayout.ID).gt(afterId));
+    }
+    query.with(Sort.by(MemberLayout.ID)).limit(limit);
+    return mongoTemplate.find(query, Document.class, MemberLayout.COLLECTION);
+  }
+
+  /**
+   * Reads those of the given documents still in the legacy layout, to retry the
+   * ones written in between their read and their rewrite.
+   */
+  public List<Document> findLegacyMembers(Collection<String> ids) {
+    Query query = new Query(Criteria.where(MemberLayout.ID).in(ids).and(MemberLayout.VERSION_FIELD).exists(false));
+    return mongoTemplate.find(query, Document.class, MemberLayout.COLLECTION);
+  }
+
+  public long countLegacyMembers() {
+    return mongoTemplate.count(new Query(Criteria.where(MemberLayout.VERSION_FIELD).exists(false)),
+        MemberLayout.COLLECTION);
+  }
+
+  /**
+   * Rewrites legacy documents in the compact layout with one unordered bulk
+   * write. Each document is only replaced if it is still exactly as it was read,
+   * so a member written in between is left for the next pass rather than
+   * overwritten with stale values.
+   *
+   * @param legacy documents read by findLegacyMembers, all convertible
+   * @return the number of documents rewritten
+   */
+  public int rewriteLegacyMembers(List<Document> legacy) {
+    if (legacy.isEmpty()) {
+      return 0;
+    }
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MemberLayout.COLLECTION);
+    for (Document document : legacy) {
+      Query unchanged = unchanged(document).addCriteria(Criteria.where(MemberLayout.VERSION_FIELD).exists(false));
+      bulk.replaceOne(unchanged, MemberLayout.toDocument(MemberLayout.fromDocument(document)));
+    }
+    return bulk.execute().getModifiedCount();
+  }
+
+  /**
+   * Reads the next documents whose school email is not normalized, in id order.
+   *
+   * @param afterId the id of the last document of the previous batch, null for
+   *                the first batch
+   * @param limit   the maximum number of documents to read
+   */
+  public List<Document> findUnnormalizedMembers(String afterId, int limit) {
+    Criteria criteria = Criteria.where(MemberLayout.ID).regex(NOT_NORMALIZED);
+    if (afterId != null) {
+      criteria.gt(afterId);
+    }
+    Query query = new Query(criteria).with(Sort.by(MemberLayout.ID)).limit(limit);
+    return mongoTemplate.find(query, Document.class, MemberLayout.COLLECTION);
+  }
+
+  public long countUnnormalizedMembers() {
+    return mongoTemplate.count(new Query(Criteria.where(MemberLayout.ID).regex(NOT_NORMALIZED)),
+        MemberLayout.COLLECTION);
+  }
+
+  /**
+   * Moves a member to its normalized school email, in the compact layout. The id
+   * of a document cannot change, so a copy is inserted under the new id and the
+   * document is then deleted, only if it is still exactly as it was read. If it
+   * was written in between, the copy is deleted again and the member is left for
+   * the next pass.
+   *
+   * @param document a document read by findUnnormalizedMembers, convertible
+   * @return false if the document was written in between
+   * @throws org.springframework.dao.DuplicateKeyException if another member
+   *                                                       already has the
+   *                                                       normalized email
+   */
+  public boolean moveToNormalizedId(Document document) {
+    Member member = MemberLayout.fromDocument(document);
+    member.setSchoolEmail(EmailAddressChecker.normalize(member.getSchoolEmail()));
+    Document normalized = MemberLayout.toDocument(member);
+    if (document.get(MemberLayout.REGISTRATION_EVENT) != null) {
+      normalized.append(MemberLayout.REGISTRATION_EVENT, document.get(MemberLayout.REGISTRATION_EVENT));
+    }
+    mongoTemplate.insert(normalized, MemberLayout.COLLECTION);
+    if (mongoTemplate.remove(unchanged(document), MemberLayout.COLLECTION).getDeletedCount() == 1) {
+      return true;
+    }
+    mongoTemplate.remove(new Query(Criteria.where(MemberLayout.ID).is(member.getSchoolEmail())),
+        MemberLayout.COLLECTION);
+    return false;
+  }
+
+  private static Query unchanged(Document document) {
+    Query query = new Query();
+    for (Map.Entry<String, Object> field : document.entrySet()) {
+      query.addCriteria(Criteria.where(field.getKey()).is(field.getValue()));
+    }
+    return query;
+  }
+}
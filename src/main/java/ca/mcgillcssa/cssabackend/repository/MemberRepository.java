@@ -1,85 +1,110 @@
 package ca.mcgillcssa.cssabackend.repository;
 
-import java.util.Calendar;
-import java.util.Date;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.stereotype.Repository;
-
-import com.mongodb.client.result.DeleteResult;
+import org.springframework.dao.DataAccessException;
 
 import ca.mcgillcssa.cssabackend.model.Member;
-
-@Repository
-public class MemberRepository {
-
-  private final MongoTemplate mongoTemplate;
-
-  public MemberRepository(MongoTemplate mongoTemplate) {
-    this.mongoTemplate = mongoTemplate;
-  }
-
-  public Member createMember(Member member) {
-    return mongoTemplate.save(member);
-  }
-
-  public Optional<Member> findByPersonalEmail(String personalEmail) {
-    Query query = new Query(Criteria.where("personalEmail").is(personalEmail));
-    return Optional.ofNullable(mongoTemplate.findOne(query, Member.class));
+import ca.mcgillcssa.cssabackend.util.EmailAddressChecker;
+
+/**
+ * Stores the members, keyed by school email. MongoMemberRepository is the
+ * production store, InMemoryMemberRepository replaces it under the inmemory
+ * profile.
+ */
+public interface MemberRepository {
+
+  String VERSION = "members";
+
+  /**
+   * Saves a member, replacing the member with the same school email if any.
+   */
+  Member createMember(Member member);
+
+  /**
+   * Inserts several members. A failed member does not stop the others from
+   * being written.
+   *
+   * @param members the members to insert
+   * @return the write error of each failed member, keyed by its index in the list
+   * @throws DataAccessException if the batch as a whole could not be written
+   */
+  Map<Integer, DataAccessException> insertMembers(List<Member> members);
+
+  /**
+   * Finds members whose registration has not been announced yet. insertMembers
+   * gives each member it writes the id of its registration event, in the same
+   * write as the member, so that no registration is lost before it is recorded
+   * in the outbox.
+   *
+   * @param limit the maximum number of members to return
+   * @return the members, keyed by the id of their registration event
+   */
+  Map<String, Member> findUnannouncedRegistrations(int limit);
+
+  /**
+   * @param eventIds ids returned by findUnannouncedRegistrations, whose events
+   *                 are now recorded
+   */
+  void markRegistrationsAnnounced(Collection<String> eventIds);
+
+  Optional<Member> findByPersonalEmail(String personalEmail);
+
+  Optional<Member> findBySchoolEmail(String schoolEmail);
+
+  /**
+   * Finds the members with any of the given school emails, compared
+   * normalized. Only the fields listed need to be read.
+   *
+   * @param schoolEmails the school emails to look up
+   * @param chunkSize    the maximum number of emails per query
+   * @param fields       the properties to read, the school email is always
+   *                     included
+   * @return the members found, in no particular order
+   */
+  List<Member> findBySchoolEmails(Collection<String> schoolEmails, int chunkSize, String... fields);
+
+  /**
+   * @return the ids to look school emails up by: each email normalized, and
+   *         trimmed as given, for members stored before registration
+   *         normalized them. Null emails are skipped.
+   */
+  static Set<String> lookupIds(Collection<String> schoolEmails) {
+    Set<String> ids = new LinkedHashSet<>();
+    for (String schoolEmail : schoolEmails) {
+      if (schoolEmail != null) {
+        ids.add(EmailAddressChecker.normalize(schoolEmail));
+        ids.add(schoolEmail.trim());
+      }
+    }
+    return ids;
   }
 
-  public Optional<Member> findBySchoolEmail(String schoolEmail) {
-    Query query = new Query(Criteria.where("schoolEmail").is(schoolEmail));
-    return Optional.ofNullable(mongoTemplate.findOne(query, Member.class));
-  }
-
-  public List<Member> findByBirthdayMonth(int month) {
-    Date start = getMonthStart(month);
-    Date end = getMonthEnd(month);
+  List<Member> findByBirthdayMonth(int month);
 
-    Query query = new Query();
-    query.addCriteria(Criteria.where("birthday").gte(start).lt(end));
-
-    return mongoTemplate.find(query, Member.class);
-  }
+  /**
+   * @return all member school emails
+   */
+  List<String> findAllSchoolEmails();
 
-  private Date getMonthStart(int month) {
-    Calendar calendar = Calendar.getInstance();
-    calendar.set(Calendar.YEAR, 2000);
-    calendar.set(Calendar.MONTH, month - 1);
-    calendar.set(Calendar.DAY_OF_MONTH, 1);
-    calendar.set(Calendar.HOUR_OF_DAY, 0);
-    calendar.set(Calendar.MINUTE, 0);
-    calendar.set(Calendar.SECOND, 0);
-    calendar.set(Calendar.MILLISECOND, 0);
-    return calendar.getTime();
-  }
+  /**
+   * @return the version counter bumped after every write to members, read it
+   *         before the members it describes
+   */
+  long findVersion();
 
-  private Date getMonthEnd(int month) {
-    Calendar calendar = Calendar.getInstance();
-    calendar.set(Calendar.YEAR, 2000);
-    calendar.set(Calendar.MONTH, month - 1);
-    calendar.set(Calendar.DAY_OF_MONTH, calendar.getActualMaximum(Calendar.DAY_OF_MONTH));
-    calendar.set(Calendar.HOUR_OF_DAY, 23);
-    calendar.set(Calendar.MINUTE, 59);
-    calendar.set(Calendar.SECOND, 59);
-    calendar.set(Calendar.MILLISECOND, 999);
-    return calendar.getTime();
-  }
+  /**
+   * @return for each of "department", "position" and "clothSize", the number of
+   *         members per value; members without a value are left out
+   */
+  Map<String, Map<String, Long>> countByDepartmentPositionAndClothSize();
 
-  public boolean deleteByPersonalEmail(String personalEmail) {
-    Query query = new Query(Criteria.where("personalEmail").is(personalEmail));
-    DeleteResult result = mongoTemplate.remove(query, Member.class);
-    return result.wasAcknowledged() && result.getDeletedCount() > 0;
-  }
+  Optional<Member> deleteByPersonalEmail(String personalEmail);
 
-  public boolean deleteBySchoolEmail(String schoolEmail) {
-    Query query = new Query(Criteria.where("schoolEmail").is(schoolEmail));
-    DeleteResult result = mongoTemplate.remove(query, Member.class);
-    return result.wasAcknowledged() && result.getDeletedCount() > 0;
-  }
+  Optional<Member> deleteBySchoolEmail(String schoolEmail);
 }
@@ -0,0 +1,43 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.List;
+
+import ca.mcgillcssa.cssabackend.model.MembershipBenefit;
+
+/**
+ * Stores the membership benefits, one per merchant. Every write is stamped
+ * with a change sequence and published as an EntityChangedEvent.
+ */
+public interface MembershipBenefitRepository {
+
+  String VERSION = "benefits";
+
+  /**
+   * Creates the benefit of a merchant, or replaces it if the merchant already
+   * has one.
+   */
+  MembershipBenefit saveBenefit(MembershipBenefit benefit);
+
+  List<MembershipBenefit> findAllBenefits();
+
+  /**
+   * @return the version counter bumped after every write to benefits, read it
+   *         before the benefits it describes
+   */
+  long findVersion();
+
+  /**
+   * Finds the benefits written after a change sequence.
+   *
+   * @param since the change sequence the caller is up to
+   * @param until the highest change sequence to return
+   * @param limit the maximum number of benefits to return
+   * @return the benefits, oldest change first
+   */
+  List<MembershipBenefit> findBenefitsChangedSince(long since, long until, int limit);
+
+  /**
+   * Deletes the benefit of a merchant, leaving a tombstone for delta sync.
+   */
+  boolean deleteBenefitByMerchantName(String merchantName);
+}
@@ -0,0 +1,52 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import ca.mcgillcssa.cssabackend.model.AnalyticsCounter;
+import ca.mcgillcssa.cssabackend.model.AnalyticsCounter.EventType;
+
+@Repository
+@Profile("!inmemory")
+public class MongoAnalyticsRepository implements AnalyticsRepository {
+
+  private final MongoTemplate mongoTemplate;
+
+  public MongoAnalyticsRepository(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Adds the counts with a single unordered bulkWrite of $inc upserts.
+   */
+  @Override
+  public void incrementCounters(List<AnalyticsCounter> increments) {
+    if (increments.isEmpty()) {
+      return;
+    }
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AnalyticsCounter.class);
+    for (AnalyticsCounter counter : increments) {
+      Update update = new Update().inc("count", counter.getCount())
+          .setOnInsert("eventType", counter.getEventType())
+          .setOnInsert("targetId", counter.getTargetId())
+          .setOnInsert("hour", counter.getHour());
+      bulk.upsert(new Query(Criteria.where("_id").is(counter.getId())), update);
+    }
+    bulk.execute();
+  }
+
+  @Override
+  public List<AnalyticsCounter> findCounters(EventType eventType, String targetId, Date since) {
+    Query query = new Query(Criteria.where("eventType").is(eventType).and("targetId").is(targetId)
+        .and("hour").gte(since));
+    return mongoTemplate.find(query, AnalyticsCounter.class);
+  }
+}
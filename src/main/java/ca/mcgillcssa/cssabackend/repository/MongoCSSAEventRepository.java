@@ -0,0 +1,118 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import com.mongodb.client.result.UpdateResult;
+
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent.ChangeType;
+import ca.mcgillcssa.cssabackend.model.CSSAEvent;
+
+/**
+ * Stores the events in MongoDB.
+ */
+@Repository
+@Profile("!inmemory")
+public class MongoCSSAEventRepository implements CSSAEventRepository {
+  private final MongoTemplate mongoTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final ChangeLogRepository changeLog;
+
+  public MongoCSSAEventRepository(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+      ChangeLogRepository changeLog) {
+    this.mongoTemplate = mongoTemplate;
+    this.eventPublisher = eventPublisher;
+    this.changeLog = changeLog;
+  }
+
+  @Override
+  public CSSAEvent saveEvent(CSSAEvent event) {
+    boolean created = event.getId() == null;
+    CSSAEvent saved = changeLog.withSequence(seq -> {
+      event.setChangeSeq(seq);
+      return mongoTemplate.save(event);
+    });
+    eventChanged(saved.getId(), created ? ChangeType.CREATED : ChangeType.UPDATED);
+    return saved;
+  }
+
+  @Override
+  public Optional<CSSAEvent> findEventById(String id) {
+    CSSAEvent event = mongoTemplate.findById(id, CSSAEvent.class);
+    return Optional.ofNullable(event);
+  }
+
+  /**
+   * Finds the events that have not ended yet, soonest first.
+   *
+   * @param today the current date
+   * @param limit the maximum number of events to return
+   * @return the upcoming and ongoing events
+   */
+  @Override
+  public List<CSSAEvent> findUpcomingEvents(LocalDate today, int limit) {
+    Query query = new Query(Criteria.where("eventEndDate").gte(today))
+        .with(Sort.by(Sort.Direction.ASC, "eventStartDate"))
+        .limit(limit);
+    return mongoTemplate.find(query, CSSAEvent.class);
+  }
+
+  @Override
+  public List<CSSAEvent> findEventsChangedSince(long since, long until, int limit) {
+    return mongoTemplate.find(MongoChangeLogRepository.changedSince(since, until, limit), CSSAEvent.class);
+  }
+
+  /**
+   * Takes one seat with a conditional $inc that only matches while the event
+   * still has room, so concurrent RSVPs on any instance cannot oversell it.
+   *
+   * @param id       the id of the event
+   * @param capacity the capacity the caller saw, the update fails if it changed
+   * @return true if a seat was taken
+   */
+  @Override
+  public boolean incrementRsvpCount(String id, int capacity) {
+    Query query = new Query(Criteria.where("_id").is(id).and("capacity").is(capacity)
+        .and("rsvpCount").lt(capacity));
+    return changeRsvpCount(id, query, 1);
+  }
+
+  @Override
+  public boolean decrementRsvpCount(String id) {
+    Query query = new Query(Criteria.where("_id").is(id).and("rsvpCount").gt(0));
+    return changeRsvpCount(id, query, -1);
+  }
+
+  /**
+   * Changes the count first and only then takes a change sequence to stamp it
+   * with, so that the RSVPs refused because the event is full or the capacity
+   * moved never touch the shared counter. The sequence is taken after the
+   * change is visible, so it is above any watermark a client could have synced
+   * to without it, and the stamp only ever moves the event's sequence up.
+   */
+  private boolean changeRsvpCount(String id, Query query, int delta) {
+    UpdateResult result = mongoTemplate.updateFirst(query, new Update().inc("rsvpCount", delta), CSSAEvent.class);
+    if (!result.wasAcknowledged() || result.getModifiedCount() == 0) {
+      return false;
+    }
+    changeLog.withSequence(seq -> mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id)),
+        new Update().max("changeSeq", seq), CSSAEvent.class));
+    eventChanged(id, ChangeType.UPDATED);
+    return true;
+  }
+
+  private void eventChanged(String id, ChangeType changeType) {
+    eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.EVENTS, id, changeType));
+  }
+}
@@ -0,0 +1,202 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+
+import ca.mcgillcssa.cssabackend.model.SequenceCounter;
+import ca.mcgillcssa.cssabackend.model.Tombstone;
+
+/**
+ * Keeps the change log in MongoDB: the sequence and version counters in the
+ * counters collection, shared by every instance, and the tombstones in theirs.
+ *
+ * The sequences whose write has not finished are listed on the changes counter
+ * itself, each added by the same update that takes it and pulled once its
+ * write is done, so every instance sees the writes in progress on all of them.
+ * A sequence still listed after PENDING_TIMEOUT belongs to an instance that
+ * stopped mid-write, and is no longer waited for.
+ */
+@Repository
+@Profile("!inmemory")
+public class MongoChangeLogRepository implements ChangeLogRepository {
+
+  private static final Logger logger = LoggerFactory.getLogger(MongoChangeLogRepository.class);
+  private static final String PURGED = "tombstones-purged";
+  static final String PENDING = "pending";
+  static final Duration PENDING_TIMEOUT = Duration.ofMinutes(1);
+
+  private final MongoTemplate mongoTemplate;
+
+  public MongoChangeLogRepository(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public <T> T withSequence(LongFunction<T> write) {
+    long seq = nextSequence();
+    try {
+      return write.apply(seq);
+    } finally {
+      counters().updateOne(Filters.eq("_id", CHANGES),
+          new Document("$pull", new Document(PENDING, new Document("seq", seq))));
+    }
+  }
+
+  @Override
+  public long safeWatermark() {
+    Document counter = counters().find(Filters.eq("_id", CHANGES)).first();
+    Date abandonedBefore = new Date(System.currentTimeMillis() - PENDING_TIMEOUT.toMillis());
+    long watermark = watermark(counter, abandonedBefore);
+    if (counter != null && watermark(counter, new Date(0)) != watermark) {
+      logger.warn("Giving up on change sequences taken before {} whose write never finished", abandonedBefore);
+      counters().updateOne(Filters.eq("_id", CHANGES), new Document("$pull",
+          new Document(PENDING, new Document("at", new Document("$lt", abandonedBefore)))));
+    }
+    return watermark;
+  }
+
+  /**
+   * @param counter         the changes counter, null if no sequence was taken
+   * @param abandonedBefore when the oldest write still waited for started
+   * @return the latest sequence taken, or just below the lowest one whose
+   *         write is in progress
+   */
+  static long watermark(Document counter, Date abandonedBefore) {
+    if (counter == null) {
+      return 0;
+    }
+    long watermark = ((Number) counter.get("value")).longValue();
+    for (Document pending : counter.getList(PENDING, Document.class, List.of())) {
+      if (!pending.getDate("at").before(abandonedBefore)) {
+        watermark = Math.min(watermark, ((Number) pending.get("seq")).longValue() - 1);
+      }
+    }
+    return watermark;
+  }
+
+  @Override
+  public Tombstone recordDeletion(String topic, String entityId, long seq) {
+    return mongoTemplate.save(new Tombstone(Tombstone.idOf(topic, entityId), topic, entityId, seq, new Date()));
+  }
+
+  @Override
+  public void clearDeletion(String topic, String entityId) {
+    mongoTemplate.remove(new Query(Criteria.where("_id").is(Tombstone.idOf(topic, entityId))), Tombstone.class);
+  }
+
+  @Override
+  public List<Tombstone> findDeletionsSince(long since, long until, int limit) {
+    return mongoTemplate.find(changedSince(since, until, limit), Tombstone.class);
+  }
+
+  @Override
+  public long purgeDeletionsBefore(Date cutoff) {
+    Query newestQuery = new Query(Criteria.where("deletedAt").lt(cutoff))
+        .with(Sort.by(Sort.Direction.DESC, "changeSeq"));
+    Tombstone newest = mongoTemplate.findOne(newestQuery, Tombstone.class);
+    if (newest == null) {
+      return 0;
+    }
+    mongoTemplate.upsert(new Query(Criteria.where("_id").is(PURGED)), new Update().max("value", newest.getChangeSeq()),
+        SequenceCounter.class);
+    Query purged = new Query(Criteria.where("deletedAt").lt(cutoff).and("changeSeq").lte(newest.getChangeSeq()));
+    return mongoTemplate.remove(purged, Tombstone.class).getDeletedCount();
+  }
+
+  @Override
+  public long getPurgedThrough() {
+    SequenceCounter purged = mongoTemplate.findById(PURGED, SequenceCounter.class);
+    return purged == null ? 0 : purged.getValue();
+  }
+
+  @Override
+  public void advanceSequence(long atLeast) {
+    mongoTemplate.upsert(new Query(Criteria.where("_id").is(CHANGES)), new Update().max("value", atLeast),
+        SequenceCounter.class);
+  }
+
+  @Override
+  public void bumpVersion(String collection) {
+    mongoTemplate.upsert(new Query(Criteria.where("_id").is(collection)), new Update().inc("value", 1),
+        SequenceCounter.class);
+  }
+
+  @Override
+  public Map<String, Long> findVersions(Collection<String> names) {
+    Map<String, Long> versions = new HashMap<>();
+    for (SequenceCounter counter : mongoTemplate.find(new Query(Criteria.where("_id").in(names)),
+        SequenceCounter.class)) {
+      versions.put(counter.getName(), counter.getValue());
+    }
+    return versions;
+  }
+
+  /**
+   * Stamps the documents written before change sequences existed, one at a
+   * time so that each gets its own sequence.
+   *
+   * @return the number of documents stamped
+   */
+  @Override
+  public long assignMissingSequences(Class<?> entityClass) {
+    Query missing = new Query(Criteria.where("changeSeq").exists(false));
+    missing.fields().include("_id");
+    long stamped = 0;
+    for (Document document : mongoTemplate.find(missing, Document.class,
+        mongoTemplate.getCollectionName(entityClass))) {
+      Object id = document.get("_id");
+      stamped += withSequence(seq -> mongoTemplate.updateFirst(
+          new Query(Criteria.where("_id").is(id).and("changeSeq").exists(false)), new Update().set("changeSeq", seq),
+          entityClass).getModifiedCount());
+    }
+    return stamped;
+  }
+
+  /**
+   * The query for documents changed after one sequence and up to another,
+   * oldest change first.
+   */
+  static Query changedSince(long since, long until, int limit) {
+    return new Query(Criteria.where("changeSeq").gt(since).lte(until))
+        .with(Sort.by(Sort.Direction.ASC, "changeSeq"))
+        .limit(limit);
+  }
+
+  /**
+   * Takes the next sequence and lists it as pending, in one update pipeline.
+   */
+  private long nextSequence() {
+    Document next = new Document("$add", List.of(new Document("$ifNull", List.of("$value", 0L)), 1L));
+    Document pending = new Document("$concatArrays", List.of(new Document("$ifNull", List.of("$" + PENDING, List.of())),
+        List.of(new Document("seq", next).append("at", new Date()))));
+    Document counter = counters().findOneAndUpdate(Filters.eq("_id", CHANGES),
+        List.of(new Document("$set", new Document(PENDING, pending).append("value", next))),
+        new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+    return ((Number) counter.get("value")).longValue();
+  }
+
+  private MongoCollection<Document> counters() {
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(SequenceCounter.class));
+  }
+}
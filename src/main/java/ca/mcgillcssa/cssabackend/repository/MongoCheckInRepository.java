@@ -0,0 +1,63 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import com.mongodb.bulk.BulkWriteError;
+
+import ca.mcgillcssa.cssabackend.model.CheckIn;
+
+@Repository
+@Profile("!inmemory")
+public class MongoCheckInRepository implements CheckInRepository {
+
+  private final MongoTemplate mongoTemplate;
+
+  public MongoCheckInRepository(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Appends check-ins with one unordered insertMany, skipping the duplicate key
+   * errors of check-ins already recorded.
+   */
+  @Override
+  public void appendCheckIns(List<CheckIn> checkIns) {
+    try {
+      mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CheckIn.class).insert(checkIns).execute();
+    } catch (BulkOperationException e) {
+      for (BulkWriteError error : e.getErrors()) {
+        if (error.getCode() != 11000) {
+          throw e;
+        }
+      }
+      if (e.getErrors().isEmpty()) {
+        throw e;
+      }
+    }
+  }
+
+  @Override
+  public List<String> findSchoolEmailsByEventId(String eventId) {
+    Query query = new Query(Criteria.where("eventId").is(eventId));
+    query.fields().include("schoolEmail");
+    List<String> schoolEmails = new ArrayList<>();
+    for (CheckIn checkIn : mongoTemplate.find(query, CheckIn.class)) {
+      schoolEmails.add(checkIn.getSchoolEmail());
+    }
+    return schoolEmails;
+  }
+
+  @Override
+  public long countByEventId(String eventId) {
+    return mongoTemplate.count(new Query(Criteria.where("eventId").is(eventId)), CheckIn.class);
+  }
+}
@@ -0,0 +1,43 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@Profile("!inmemory")
+public class MongoImageSourceRepository implements ImageSourceRepository {
+
+  // the image fields of each collection
+  private static final Map<String, List<String>> IMAGE_FIELDS = Map.of(
+      "sponsors", List.of("sponsorImageUrl"),
+      "events", List.of("eventImageUrl"),
+      "benefits", List.of("merchantLogoUrl", "merchantBackgroundImageUrl"));
+
+  private final MongoTemplate mongoTemplate;
+
+  public MongoImageSourceRepository(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public boolean isStoredImageUrl(String url) {
+    for (Map.Entry<String, List<String>> collection : IMAGE_FIELDS.entrySet()) {
+      List<Criteria> fields = new ArrayList<>();
+      for (String field : collection.getValue()) {
+        fields.add(Criteria.where(field).is(url));
+      }
+      Query query = new Query(new Criteria().orOperator(fields.toArray(new Criteria[0])));
+      if (mongoTemplate.exists(query, collection.getKey())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,291 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import com.mongodb.bulk.BulkWriteError;
+
+import ca.mcgillcssa.cssabackend.model.Member;
+
+/**
+ * Stores the members in MongoDB, in the compact layout of MemberLayout.
+ */
+@Repository
+@Profile("!inmemory")
+public class MongoMemberRepository implements MemberRepository {
+
+  private final MongoTemplate mongoTemplate;
+  private final ChangeLogRepository changeLog;
+  private volatile boolean registrationIndexCreated;
+
+  public MongoMemberRepository(MongoTemplate mongoTemplate, ChangeLogRepository changeLog) {
+    this.mongoTemplate = mongoTemplate;
+    this.changeLog = changeLog;
+  }
+
+  @Override
+  public Member createMember(Member member) {
+    mongoTemplate.save(MemberLayout.toDocument(member), MemberLayout.COLLECTION);
+    changeLog.bumpVersion(VERSION);
+    return member;
+  }
+
+  /**
+   * Inserts several members with one unordered insertMany. A failed document
+   * does not stop the others from being written.
+   *
+   * @param members the members to insert
+   * @return the write error of each failed member, keyed by its index in the list
+   * @throws DataAccessException if the batch as a whole could not be written
+   */
+  @Override
+  public Map<Integer, DataAccessException> insertMembers(List<Member> members) {
+    Map<Integer, DataAccessException> failures = new HashMap<>();
+    try {
+      List<Document> documents = new ArrayList<>(members.size());
+      for (Member member : members) {
+        documents.add(MemberLayout.toDocument(member)
+            .append(MemberLayout.REGISTRATION_EVENT, UUID.randomUUID().toString()));
+      }
+      mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MemberLayout.COLLECTION).insert(documents).execute();
+      changeLog.bumpVersion(VERSION);
+    } catch (BulkOperationException e) {
+      changeLog.bumpVersion(VERSION);
+      if (e.getErrors().isEmpty()) {
+        // e.g. a write concern error, nothing can be assumed about durability
+        throw new DataIntegrityViolationException(e.getMessage(), e);
+      }
+      for (BulkWriteError error : e.getErrors()) {
+        failures.put(error.getIndex(), error.getCode() == 11000
+            ? new DuplicateKeyException(error.getMessage())
+            : new DataIntegrityViolationException(error.getMessage()));
+      }
+    }
+    return failures;
+  }
+
+  /**
+   * Finds the members still holding the id of their registration event. The
+   * field is only present until the event is recorded, so a sparse index on it
+   * stays small; it is created on first use.
+   */
+  @Override
+  public Map<String, Member> findUnannouncedRegistrations(int limit) {
+    if (!registrationIndexCreated) {
+      mongoTemplate.indexOps(MemberLayout.COLLECTION)
+          .ensureIndex(new Index(MemberLayout.REGISTRATION_EVENT, Sort.Direction.ASC).sparse());
+      registrationIndexCreated = true;
+    }
+    Query query = new Query(Criteria.where(MemberLayout.REGISTRATION_EVENT).exists(true)).limit(limit);
+    Map<String, Member> registrations = new LinkedHashMap<>();
+    for (Document document : mongoTemplate.find(query, Document.class, MemberLayout.COLLECTION)) {
+      registrations.put(document.getString(MemberLayout.REGISTRATION_EVENT), MemberLayout.fromDocument(document));
+    }
+    return registrations;
+  }
+
+  @Override
+  public void markRegistrationsAnnounced(Collection<String> eventIds) {
+    if (eventIds.isEmpty()) {
+      return;
+    }
+    mongoTemplate.updateMulti(new Query(Criteria.where(MemberLayout.REGISTRATION_EVENT).in(eventIds)),
+        new Update().unset(MemberLayout.REGISTRATION_EVENT), MemberLayout.COLLECTION);
+  }
+
+  @Override
+  public Optional<Member> findByPersonalEmail(String personalEmail) {
+    Query query = new Query(MemberLayout.is("personalEmail", personalEmail));
+    return Optional.ofNullable(mongoTemplate.findOne(query, Document.class, MemberLayout.COLLECTION))
+        .map(MemberLayout::fromDocument);
+  }
+
+  @Override
+  public Optional<Member> findBySchoolEmail(String schoolEmail) {
+    Query query = new Query(MemberLayout.is("schoolEmail", schoolEmail));
+    return Optional.ofNullable(mongoTemplate.findOne(query, Document.class, MemberLayout.COLLECTION))
+        .map(MemberLayout::fromDocument);
+  }
+
+  /**
+   * Finds the members with any of the given school emails, with one $in query on
+   * the document id per chunk of the ids from {@link MemberRepository#lookupIds}.
+   * Only the fields listed are read.
+   *
+   * @param schoolEmails the school emails to look up
+   * @param chunkSize    the maximum number of emails per query
+   * @param fields       the properties to read, the school email is always
+   *                     included
+   * @return the members found, in no particular order
+   */
+  @Override
+  public List<Member> findBySchoolEmails(Collection<String> schoolEmails, int chunkSize, String... fields) {
+    List<String> emails = new ArrayList<>(MemberRepository.lookupIds(schoolEmails));
+    List<Member> members = new ArrayList<>(emails.size());
+    for (int from = 0; from < emails.size(); from += chunkSize) {
+      List<String> chunk = emails.subList(from, Math.min(from + chunkSize, emails.size()));
+      Query query = new Query(Criteria.where("_id").in(chunk));
+      query.fields().include(MemberLayout.storedFields(fields));
+      for (Document document : mongoTemplate.find(query, Document.class, MemberLayout.COLLECTION)) {
+        members.add(MemberLayout.fromDocument(document));
+      }
+    }
+    return members;
+  }
+
+  @Override
+  public List<Member> findByBirthdayMonth(int month) {
+    Date start = getMonthStart(month);
+    Date end = getMonthEnd(month);
+
+    Query query = new Query();
+    query.addCriteria(new Criteria().orOperator(
+        Criteria.where(MemberLayout.field("birthday")).gte(month * 100).lt((month + 1) * 100),
+        Criteria.where("birthday").gte(start).lt(end)));
+
+    List<Member> members = new ArrayList<>();
+    for (Document document : mongoTemplate.find(query, Document.class, MemberLayout.COLLECTION)) {
+      members.add(MemberLayout.fromDocument(document));
+    }
+    return members;
+  }
+
+  private Date getMonthStart(int month) {
+    Calendar calendar = Calendar.getInstance();
+    calendar.set(Calendar.YEAR, 2000);
+    calendar.set(Calendar.MONTH, month - 1);
+    calendar.set(Calendar.DAY_OF_MONTH, 1);
+    calendar.set(Calendar.HOUR_OF_DAY, 0);
+    calendar.set(Calendar.MINUTE, 0);
+    calendar.set(Calendar.SECOND, 0);
+    calendar.set(Calendar.MILLISECOND, 0);
+    return calendar.getTime();
+  }
+
+  private Date getMonthEnd(int month) {
+    Calendar calendar = Calendar.getInstance();
+    calendar.set(Calendar.YEAR, 2000);
+    calendar.set(Calendar.MONTH, month - 1);
+    calendar.set(Calendar.DAY_OF_MONTH, calendar.getActualMaximum(Calendar.DAY_OF_MONTH));
+    calendar.set(Calendar.HOUR_OF_DAY, 23);
+    calendar.set(Calendar.MINUTE, 59);
+    calendar.set(Calendar.SECOND, 59);
+    calendar.set(Calendar.MILLISECOND, 999);
+    return calendar.getTime();
+  }
+
+  @Override
+  public List<String> findAllSchoolEmails() {
+    Query query = new Query();
+    query.fields().include("_id");
+    query.cursorBatchSize(5000);
+    List<String> emails = new ArrayList<>();
+    try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, MemberLayout.COLLECTION)) {
+      documents.forEach(document -> emails.add(document.getString("_id")));
+    }
+    return emails;
+  }
+
+  @Override
+  public long findVersion() {
+    return changeLog.findVersion(VERSION);
+  }
+
+  /**
+   * Counts members by department, position and cloth size with a single $facet
+   * aggregation, so the collection is scanned once for all three groupings.
+   * Each is grouped in both layouts, then the codes are turned back into names.
+   *
+   * @return for each of "department", "position" and "clothSize", the number of
+   *         members per value; members without a value are left out
+   */
+  @Override
+  public Map<String, Map<String, Long>> countByDepartmentPositionAndClothSize() {
+    Map<String, IntFunction<Enum<?>>> codes = Map.of(
+        "department", Member.Department::fromCode,
+        "position", Member.Position::fromCode,
+        "clothSize", Member.ClothSize::fromCode);
+    FacetOperation facets = null;
+    for (String field : MemberLayout.storedFields(codes.keySet().toArray(new String[0]))) {
+      facets = (facets == null ? Aggregation.facet(Aggregation.sortByCount(field))
+          : facets.and(Aggregation.sortByCount(field))).as(field);
+    }
+    Document result = mongoTemplate.aggregate(Aggregation.newAggregation(facets), MemberLayout.COLLECTION,
+        Document.class).getUniqueMappedResult();
+
+    Map<String, Map<String, Long>> counts = new HashMap<>();
+    for (Map.Entry<String, IntFunction<Enum<?>>> property : codes.entrySet()) {
+      Map<String, Long> fieldCounts = new HashMap<>();
+      if (result != null) {
+        for (Document group : result.getList(MemberLayout.field(property.getKey()), Document.class, List.of())) {
+          Object code = group.get("_id");
+          if (code instanceof Number) {
+            String name;
+            try {
+              name = property.getValue().apply(((Number) code).intValue()).name();
+            } catch (IllegalArgumentException e) {
+              name = code.toString();
+            }
+            fieldCounts.merge(name, ((Number) group.get("count")).longValue(), Long::sum);
+          }
+        }
+        for (Document group : result.getList(property.getKey(), Document.class, List.of())) {
+          Object value = group.get("_id");
+          if (value != null) {
+            fieldCounts.merge(value.toString(), ((Number) group.get("count")).longValue(), Long::sum);
+          }
+        }
+      }
+      counts.put(property.getKey(), fieldCounts);
+    }
+    return counts;
+  }
+
+  @Override
+  public Optional<Member> deleteByPersonalEmail(String personalEmail) {
+    Query query = new Query(MemberLayout.is("personalEmail", personalEmail));
+    return memberRemoved(mongoTemplate.findAndRemove(query, Document.class, MemberLayout.COLLECTION));
+  }
+
+  @Override
+  public Optional<Member> deleteBySchoolEmail(String schoolEmail) {
+    Query query = new Query(MemberLayout.is("schoolEmail", schoolEmail));
+    return memberRemoved(mongoTemplate.findAndRemove(query, Document.class, MemberLayout.COLLECTION));
+  }
+
+  private Optional<Member> memberRemoved(Document removed) {
+    if (removed == null) {
+      return Optional.empty();
+    }
+    changeLog.bumpVersion(VERSION);
+    return Optional.of(MemberLayout.fromDocument(removed));
+  }
+}
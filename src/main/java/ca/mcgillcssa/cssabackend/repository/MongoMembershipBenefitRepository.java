@@ -0,0 +1,79 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.List;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent.ChangeType;
+import ca.mcgillcssa.cssabackend.model.MembershipBenefit;
+
+@Repository
+@Profile("!inmemory")
+public class MongoMembershipBenefitRepository implements MembershipBenefitRepository {
+
+  private final MongoTemplate mongoTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final ChangeLogRepository changeLog;
+
+  public MongoMembershipBenefitRepository(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+      ChangeLogRepository changeLog) {
+    this.mongoTemplate = mongoTemplate;
+    this.eventPublisher = eventPublisher;
+    this.changeLog = changeLog;
+  }
+
+  @Override
+  public MembershipBenefit saveBenefit(MembershipBenefit benefit) {
+    MembershipBenefit saved = changeLog.withSequence(seq -> {
+      benefit.setChangeSeq(seq);
+      return mongoTemplate.save(benefit);
+    });
+    changeLog.clearDeletion(EntityChangedEvent.BENEFITS, saved.getMerchantName());
+    changeLog.bumpVersion(VERSION);
+    benefitChanged(saved.getMerchantName(), ChangeType.UPDATED);
+    return saved;
+  }
+
+  @Override
+  public List<MembershipBenefit> findAllBenefits() {
+    return mongoTemplate.findAll(MembershipBenefit.class);
+  }
+
+  @Override
+  public long findVersion() {
+    return changeLog.findVersion(VERSION);
+  }
+
+  @Override
+  public List<MembershipBenefit> findBenefitsChangedSince(long since, long until, int limit) {
+    return mongoTemplate.find(MongoChangeLogRepository.changedSince(since, until, limit), MembershipBenefit.class);
+  }
+
+  @Override
+  public boolean deleteBenefitByMerchantName(String merchantName) {
+    Query query = new Query(Criteria.where("merchantName").is(merchantName));
+    boolean deleted = changeLog.withSequence(seq -> {
+      if (mongoTemplate.findAndRemove(query, MembershipBenefit.class) == null) {
+        return false;
+      }
+      changeLog.recordDeletion(EntityChangedEvent.BENEFITS, merchantName, seq);
+      return true;
+    });
+    if (!deleted) {
+      return false;
+    }
+    changeLog.bumpVersion(VERSION);
+    benefitChanged(merchantName, ChangeType.DELETED);
+    return true;
+  }
+
+  private void benefitChanged(String merchantName, ChangeType changeType) {
+    eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.BENEFITS, merchantName, changeType));
+  }
+}
@@ -0,0 +1,33 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import com.mongodb.client.result.DeleteResult;
+
+import ca.mcgillcssa.cssabackend.model.Rsvp;
+
+@Repository
+@Profile("!inmemory")
+public class MongoRsvpRepository implements RsvpRepository {
+
+  private final MongoTemplate mongoTemplate;
+
+  public MongoRsvpRepository(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public Rsvp createRsvp(Rsvp rsvp) {
+    return mongoTemplate.insert(rsvp);
+  }
+
+  @Override
+  public boolean deleteRsvp(String id) {
+    DeleteResult result = mongoTemplate.remove(new Query(Criteria.where("_id").is(id)), Rsvp.class);
+    return result.wasAcknowledged() && result.getDeletedCount() > 0;
+  }
+}
@@ -0,0 +1,190 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent.ChangeType;
+import ca.mcgillcssa.cssabackend.model.Sponsor;
+
+@Repository
+@Profile("!inmemory")
+public class MongoSponsorRepository implements SponsorRepository {
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChangeLogRepository changeLog;
+
+    public MongoSponsorRepository(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+            ChangeLogRepository changeLog) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.changeLog = changeLog;
+    }
+
+    /**
+     * Saves a new sponsor in the database.
+     * @Author Zihan Zhang
+     * @param sponsor the sponsor object to be saved
+     * @return the saved sponsor object
+     */
+    @Override
+    public Sponsor createSponsor(Sponsor sponsor) {
+        Sponsor saved = changeLog.withSequence(seq -> {
+            sponsor.setChangeSeq(seq);
+            return mongoTemplate.save(sponsor);
+        });
+        changeLog.clearDeletion(EntityChangedEvent.SPONSORS, saved.getSponsorName());
+        changeLog.bumpVersion(VERSION);
+        sponsorChanged(saved.getSponsorName(), ChangeType.CREATED);
+        return saved;
+    }
+
+    /**
+     * Finds a Sponsor in the database by its name.
+     * @Author Zihan Zhang
+     * @param sponsorName the name of the Sponsor to search for
+     * @return Optional containing the Sponsor if found, otherwise empty
+     */
+    @Override
+    public Optional<Sponsor> findSponsorByName(String sponsorName) {
+        Query query = new Query(Criteria.where("sponsorName").is(sponsorName));
+        return Optional.ofNullable(mongoTemplate.findOne(query, Sponsor.class));
+    }
+
+    /**
+     * Retrieves all sponsors using the mongoTemplate.
+     * @Author Zihan Zhang
+     * @return a list of Sponsor objects
+     */
+    @Override
+    public List<Sponsor> findAllSponsors() {
+        return mongoTemplate.findAll(Sponsor.class);
+    }
+
+    /**
+     * Reads the version counter bumped after every write to sponsors. Read it
+     * before the sponsors it describes, so that it is never newer than them.
+     * @return the version, 0 if sponsors were never written
+     */
+    @Override
+    public long findVersion() {
+        return changeLog.findVersion(VERSION);
+    }
+
+    /**
+     * Finds sponsors by sponsor class using the mongoTemplate.
+     * @Author Zihan Zhang
+     * @param sponsorClass the class of the sponsor to search for
+     * @return a list of Sponsor objects matching the sponsor class
+     */
+    @Override
+    public List<Sponsor> findSponsorsByClass(String sponsorClass) {
+        return mongoTemplate.find(new Query(Criteria.where("sponsorClass").is(sponsorClass)), Sponsor.class);
+    }
+
+    /**
+     * Finds sponsors by coop duration using the mongoTemplate.'
+     * @Author Zihan Zhang
+     * @param coopDuration the coop duration of the sponsor to search for
+     * @return a list of Sponsor objects matching the coop duration
+     * */
+    @Override
+    public List<Sponsor> findSponsorsByCoopDuration(String coopDuration) {
+        return mongoTemplate.find(new Query(Criteria.where("coopDuration").is(coopDuration)), Sponsor.class);
+    }
+
+    /**
+     * Finds the sponsors written after a change sequence.
+     * @param since the change sequence the caller is up to
+     * @param until the highest change sequence to return
+     * @param limit the maximum number of sponsors to return
+     * @return the sponsors, oldest change first
+     */
+    @Override
+    public List<Sponsor> findSponsorsChangedSince(long since, long until, int limit) {
+        return mongoTemplate.find(MongoChangeLogRepository.changedSince(since, until, limit), Sponsor.class);
+    }
+
+    /**
+     * Deletes a sponsor from the database, leaving a tombstone for delta sync.
+     * @Author Zihan Zhang
+     * @param sponsorName the name of the sponsor to delete
+     * @return true if the sponsor was deleted, false otherwise
+     * */
+    @Override
+    public boolean deleteSponsorByName(String sponsorName) {
+        Query query = new Query(Criteria.where("sponsorName").is(sponsorName));
+        boolean deleted = changeLog.withSequence(seq -> {
+            DeleteResult deleteResult = mongoTemplate.remove(query, Sponsor.class);
+            if (deleteResult.wasAcknowledged() && deleteResult.getDeletedCount() > 0) {
+                changeLog.recordDeletion(EntityChangedEvent.SPONSORS, sponsorName, seq);
+                return true;
+            }
+            return false;
+        });
+        if (deleted) {
+            changeLog.bumpVersion(VERSION);
+            sponsorChanged(sponsorName, ChangeType.DELETED);
+        }
+        return deleted;
+    }
+
+    /**
+     * Updates a sponsor in the database.
+     * @Author Zihan Zhang
+     * @param name the name of the sponsor to update
+     * @param coopDuration the coop duration of the sponsor to update
+     * @param sponsorImageUrl the image url of the sponsor to update
+     * @param sponsorWebsiteUrl the website url of the sponsor to update
+     * @param sponsorClass the class of the sponsor to update
+     * @return true if the sponsor was updated, false otherwise
+     * */
+    @Override
+    public boolean updateSponsor(String name, String coopDuration, String sponsorImageUrl, String sponsorWebsiteUrl,
+            String sponsorClass) {
+        Query query = new Query(Criteria.where("sponsorName").is(name));
+        Update update = new Update();
+
+        if (coopDuration != null && !coopDuration.isEmpty()) {
+            update.set("coopDuration", coopDuration);
+        }
+
+        if (sponsorImageUrl != null && !sponsorImageUrl.isEmpty()) {
+            update.set("sponsorImageUrl", sponsorImageUrl);
+        }
+
+        if (sponsorWebsiteUrl != null && !sponsorWebsiteUrl.isEmpty()) {
+            update.set("sponsorWebsiteUrl", sponsorWebsiteUrl);
+        }
+
+        if (sponsorClass != null && !sponsorClass.isEmpty()) {
+            update.set("sponsorClass", sponsorClass);
+        }
+
+        boolean updated = changeLog.withSequence(seq -> {
+            UpdateResult updateResult = mongoTemplate.updateFirst(query, update.set("changeSeq", seq), Sponsor.class);
+            return updateResult.wasAcknowledged() && updateResult.getModifiedCount() > 0;
+        });
+        if (updated) {
+            changeLog.bumpVersion(VERSION);
+            sponsorChanged(name, ChangeType.UPDATED);
+        }
+        return updated;
+    }
+
+    private void sponsorChanged(String sponsorName, ChangeType changeType) {
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.SPONSORS, sponsorName, changeType));
+    }
+}
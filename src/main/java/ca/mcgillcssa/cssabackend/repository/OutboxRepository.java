@@ -0,0 +1,93 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import ca.mcgillcssa.cssabackend.model.OutboxEvent;
+
+@Repository
+@Profile("!inmemory")
+public class OutboxRepository {
+
+  private final MongoTemplate mongoTemplate;
+
+  public OutboxRepository(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  public OutboxEvent insertEvent(OutboxEvent event) {
+    return mongoTemplate.insert(event);
+  }
+
+  /**
+   * Claims events that are due for delivery by pushing their nextAttemptAt to
+   * the end of a lease, one findAndModify each, so that no other instance picks
+   * them up while they are being delivered.
+   *
+   * @param now        the current time
+   * @param leaseUntil when the claimed events become due again if not delivered
+   * @param limit      the maximum number of events to claim
+   * @return the claimed events, oldest first
+   */
+  public List<OutboxEvent> claimDueEvents(Instant now, Instant leaseUntil, int limit) {
+    Query query = new Query(Criteria.where("pendingHandlers.0").exists(true).and("nextAttemptAt").lte(now))
+        .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+    Update lease = new Update().set("nextAttemptAt", leaseUntil);
+    List<OutboxEvent> claimed = new ArrayList<>();
+    while (claimed.size() < limit) {
+      OutboxEvent event = mongoTemplate.findAndModify(query, lease, FindAndModifyOptions.options().returnNew(true),
+          OutboxEvent.class);
+      if (event == null) {
+        break;
+      }
+      claimed.add(event);
+    }
+    return claimed;
+  }
+
+  public void markDelivered(Collection<String> ids, String handler) {
+    mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(ids)), new Update().pull("pendingHandlers", handler),
+        OutboxEvent.class);
+  }
+
+  public void scheduleRetry(String id, String handler, Instant nextAttemptAt, String error) {
+    Update update = new Update().inc("attempts." + handler, 1).set("nextAttemptAt", nextAttemptAt)
+        .set("lastError", error);
+    mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id)), update, OutboxEvent.class);
+  }
+
+  /**
+   * Stops retrying an event for a handler. The event is kept with the handler in
+   * failedHandlers, for someone to look into.
+   */
+  public void markFailed(String id, String handler, String error) {
+    Update update = new Update().inc("attempts." + handler, 1).pull("pendingHandlers", handler)
+        .addToSet("failedHandlers", handler).set("lastError", error);
+    mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id)), update, OutboxEvent.class);
+  }
+
+  /**
+   * Deletes the events every handler has taken.
+   *
+   * @return the number of events deleted
+   */
+  public long deleteDelivered() {
+    Query query = new Query(Criteria.where("pendingHandlers").size(0).and("failedHandlers").size(0));
+    return mongoTemplate.remove(query, OutboxEvent.class).getDeletedCount();
+  }
+
+  public long countPending() {
+    return mongoTemplate.count(new Query(Criteria.where("pendingHandlers.0").exists(true)), OutboxEvent.class);
+  }
+}
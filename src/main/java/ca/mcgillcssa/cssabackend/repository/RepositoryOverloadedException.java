@@ -0,0 +1,26 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown instead of calling the database when too many calls are already
+ * waiting on it. Being a DataAccessException, it is handled wherever database
+ * failures are; controllers answer it with 503.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class RepositoryOverloadedException extends TransientDataAccessResourceException {
+
+  public RepositoryOverloadedException(String message) {
+    super(message);
+  }
+
+  /**
+   * @return the status to answer a failed database call with
+   */
+  public static HttpStatus statusFor(Exception e) {
+    return e instanceof RepositoryOverloadedException ? HttpStatus.SERVICE_UNAVAILABLE
+        : HttpStatus.INTERNAL_SERVER_ERROR;
+  }
+}
@@ -0,0 +1,13 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+/**
+ * Thrown instead of calling the database while the circuit breaker in front
+ * of it is open, after repeated connection failures or timeouts. It is
+ * answered with 503 like any other shed call.
+ */
+public class RepositoryUnavailableException extends RepositoryOverloadedException {
+
+  public RepositoryUnavailableException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,26 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import ca.mcgillcssa.cssabackend.model.Rsvp;
+
+/**
+ * Stores the RSVPs, keyed by eventId:schoolEmail. The seat count lives on the
+ * event, see CSSAEventRepository.
+ */
+public interface RsvpRepository {
+
+  /**
+   * Inserts an RSVP.
+   *
+   * @param rsvp the RSVP to insert
+   * @return the inserted RSVP
+   * @throws org.springframework.dao.DuplicateKeyException if the member already
+   *                                                       has an RSVP for the
+   *                                                       event
+   */
+  Rsvp createRsvp(Rsvp rsvp);
+
+  /**
+   * @return true if the RSVP was deleted, false if there was none
+   */
+  boolean deleteRsvp(String id);
+}
@@ -3,121 +3,52 @@ package ca.mcgillcssa.cssabackend.repository;
 import java.util.List;
 import java.util.Optional;
 
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.data.mongodb.core.query.Update;
-import org.springframework.stereotype.Repository;
+import ca.mcgillcssa.cssabackend.model.Sponsor;
 
-import com.mongodb.client.result.DeleteResult;
-import com.mongodb.client.result.UpdateResult;
+/**
+ * Stores the sponsors, keyed by name. Every write is stamped with a change
+ * sequence and published as an EntityChangedEvent.
+ */
+public interface SponsorRepository {
 
-import ca.mcgillcssa.cssabackend.model.Sponsor;
+    String VERSION = "sponsors";
 
-@Repository
-public class SponsorRepository {
+    Sponsor createSponsor(Sponsor sponsor);
 
-    private final MongoTemplate mongoTemplate;
+    Optional<Sponsor> findSponsorByName(String sponsorName);
 
-    public SponsorRepository(MongoTemplate mongoTemplate) {
-        this.mongoTemplate = mongoTemplate;
-    }
+    List<Sponsor> findAllSponsors();
 
     /**
-     * Saves a new sponsor in the database.
-     * @Author Zihan Zhang
-     * @param sponsor the sponsor object to be saved
-     * @return the saved sponsor object
+     * Reads the version counter bumped after every write to sponsors. Read it
+     * before the sponsors it describes, so that it is never newer than them.
+     * @return the version, 0 if sponsors were never written
      */
-    public Sponsor createSponsor(Sponsor sponsor) {
-        return mongoTemplate.save(sponsor);
-    }
+    long findVersion();
 
-    /**
-     * Finds a Sponsor in the database by its name.
-     * @Author Zihan Zhang
-     * @param sponsorName the name of the Sponsor to search for
-     * @return Optional containing the Sponsor if found, otherwise empty
-     */
-    public Optional<Sponsor> findSponsorByName(String sponsorName) {
-        Query query = new Query(Criteria.where("sponsorName").is(sponsorName));
-        return Optional.ofNullable(mongoTemplate.findOne(query, Sponsor.class));
-    }
+    List<Sponsor> findSponsorsByClass(String sponsorClass);
 
-    /**
-     * Retrieves all sponsors using the mongoTemplate.
-     * @Author Zihan Zhang
-     * @return a list of Sponsor objects
-     */
-    public List<Sponsor> findAllSponsors() {
-        return mongoTemplate.findAll(Sponsor.class);
-    }
+    List<Sponsor> findSponsorsByCoopDuration(String coopDuration);
 
     /**
-     * Finds sponsors by sponsor class using the mongoTemplate.
-     * @Author Zihan Zhang
-     * @param sponsorClass the class of the sponsor to search for
-     * @return a list of Sponsor objects matching the sponsor class
+     * Finds the sponsors written after a change sequence.
+     * @param since the change sequence the caller is up to
+     * @param until the highest change sequence to return
+     * @param limit the maximum number of sponsors to return
+     * @return the sponsors, oldest change first
      */
-    public List<Sponsor> findSponsorsByClass(String sponsorClass) {
-        return mongoTemplate.find(new Query(Criteria.where("sponsorClass").is(sponsorClass)), Sponsor.class);
-    }
-
-    /**
-     * Finds sponsors by coop duration using the mongoTemplate.'
-     * @Author Zihan Zhang
-     * @param coopDuration the coop duration of the sponsor to search for
-     * @return a list of Sponsor objects matching the coop duration
-     * */
-    public List<Sponsor> findSponsorsByCoopDuration(String coopDuration) {
-        return mongoTemplate.find(new Query(Criteria.where("coopDuration").is(coopDuration)), Sponsor.class);
-    }
+    List<Sponsor> findSponsorsChangedSince(long since, long until, int limit);
 
     /**
-     * Deletes a sponsor from the database.
-     * @Author Zihan Zhang
-     * @param sponsorName the name of the sponsor to delete
+     * Deletes a sponsor, leaving a tombstone for delta sync.
      * @return true if the sponsor was deleted, false otherwise
-     * */
-    public boolean deleteSponsorByName(String sponsorName) {
-        Query query = new Query(Criteria.where("sponsorName").is(sponsorName));
-        DeleteResult deleteResult = mongoTemplate.remove(query, Sponsor.class);
-        return deleteResult.wasAcknowledged() && deleteResult.getDeletedCount() > 0;
-    }
+     */
+    boolean deleteSponsorByName(String sponsorName);
 
     /**
-     * Updates a sponsor in the database.
-     * @Author Zihan Zhang
-     * @param name the name of the sponsor to update
-     * @param coopDuration the coop duration of the sponsor to update
-     * @param sponsorImageUrl the image url of the sponsor to update
-     * @param sponsorWebsiteUrl the website url of the sponsor to update
-     * @param sponsorClass the class of the sponsor to update
+     * Sets the non-empty values given on a sponsor.
      * @return true if the sponsor was updated, false otherwise
-     * */
-    public boolean updateSponsor(String name, String coopDuration, String sponsorImageUrl, String sponsorWebsiteUrl,
-            String sponsorClass) {
-        Query query = new Query(Criteria.where("sponsorName").is(name));
-        Update update = new Update();
-
-        if (coopDuration != null && !coopDuration.isEmpty()) {
-            update.set("coopDuration", coopDuration);
-        }
-
-        if (sponsorImageUrl != null && !sponsorImageUrl.isEmpty()) {
-            update.set("sponsorImageUrl", sponsorImageUrl);
-        }
-
-        if (sponsorWebsiteUrl != null && !sponsorWebsiteUrl.isEmpty()) {
-            update.set("sponsorWebsiteUrl", sponsorWebsiteUrl);
-        }
-
-        if (sponsorClass != null && !sponsorClass.isEmpty()) {
-            update.set("sponsorClass", sponsorClass);
-        }
-
-        UpdateResult updateResult = mongoTemplate.updateFirst(query, update, Sponsor.class);
-        return updateResult.wasAcknowledged() && updateResult.getModifiedCount() > 0;
-    }
-
+     */
+    boolean updateSponsor(String name, String coopDuration, String sponsorImageUrl, String sponsorWebsiteUrl,
+            String sponsorClass);
 }
@@ -0,0 +1,179 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.bulk.BulkWriteError;
+
+import ca.mcgillcssa.cssabackend.model.AnalyticsCounter;
+import ca.mcgillcssa.cssabackend.model.AnalyticsCounter.EventType;
+import ca.mcgillcssa.cssabackend.repository.AnalyticsRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+
+/**
+ * Counts sponsor impressions, clicks and benefit redemptions in memory and
+ * periodically adds them to hourly counters in Mongo. Each counter is a
+ * LongAdder, which spreads concurrent increments over striped cells, so the
+ * ingestion path never contends on a lock or touches the database.
+ */
+@Service
+public class AnalyticsService {
+
+  private static final Logger logger = LoggerFactory.getLogger(AnalyticsService.class);
+  private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  @Data
+  private static class CounterKey {
+    private final EventType eventType;
+    private final String targetId;
+    private final long epochHour;
+  }
+
+  private final AnalyticsRepository analyticsRepository;
+  private final int maxPendingKeys;
+  private final ConcurrentHashMap<CounterKey, LongAdder> counters = new ConcurrentHashMap<>();
+
+  public AnalyticsService(AnalyticsRepository analyticsRepository,
+      @Value("${cssa.analytics.max-pending-keys}") int maxPendingKeys) {
+    this.analyticsRepository = analyticsRepository;
+    this.maxPendingKeys = maxPendingKeys;
+  }
+
+  /**
+   * Adds occurrences of an event to the current hour's counter.
+   *
+   * @param eventTypeStr the event type, e.g. "SPONSOR_CLICK"
+   * @param targetId     the sponsor or merchant name
+   * @param count        the number of occurrences, between 1 and 1000
+   * @throws IllegalArgumentException if any argument is invalid
+   * @throws IllegalStateException    if too many distinct counters are waiting
+   *                                  to be flushed
+   */
+  public void record(String eventTypeStr, String targetId, long count) {
+    EventType eventType;
+    try {
+      eventType = EventType.valueOf(eventTypeStr);
+    } catch (IllegalArgumentException | NullPointerException e) {
+      throw new IllegalArgumentException("Event type is not valid: " + eventTypeStr);
+    }
+    if (targetId == null || targetId.isEmpty() || targetId.length() > 200) {
+      throw new IllegalArgumentException("Target id must be between 1 and 200 characters");
+    }
+    if (count < 1 || count > 1000) {
+      throw new IllegalArgumentException("Count must be between 1 and 1000");
+    }
+
+    CounterKey key = new CounterKey(eventType, targetId, System.currentTimeMillis() / HOUR_MILLIS);
+    LongAdder counter = counters.get(key);
+    if (counter == null) {
+      if (counters.size() >= maxPendingKeys) {
+        throw new IllegalStateException("Too many distinct counters pending, please retry");
+      }
+      counter = counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+    counter.add(count);
+  }
+
+  /**
+   * Writes the counts gathered since the last flush with one bulkWrite. Counts
+   * whose upsert failed are added back and retried on the next flush.
+   */
+  @Scheduled(fixedDelayString = "${cssa.analytics.flush-interval-millis}")
+  @PreDestroy
+  public void flush() {
+    long currentHour = System.currentTimeMillis() / HOUR_MILLIS;
+    List<CounterKey> keys = new ArrayList<>();
+    List<AnalyticsCounter> increments = new ArrayList<>();
+    for (Map.Entry<CounterKey, LongAdder> entry : counters.entrySet()) {
+      CounterKey key = entry.getKey();
+      long count = entry.getValue().sumThenReset();
+      if (count > 0) {
+        keys.add(key);
+        increments.add(new AnalyticsCounter(counterId(key), key.getEventType(), key.getTargetId(),
+            new Date(key.getEpochHour() * HOUR_MILLIS), count));
+      } else if (key.getEpochHour() < currentHour - 1) {
+        // nothing records into hours that are long over
+        counters.remove(key, entry.getValue());
+      }
+    }
+    if (increments.isEmpty()) {
+      return;
+    }
+
+    try {
+      analyticsRepository.incrementCounters(increments);
+    } catch (BulkOperationException e) {
+      // an unordered bulk applies every upsert that did not fail
+      for (BulkWriteError error : e.getErrors()) {
+        restore(keys.get(error.getIndex()), increments.get(error.getIndex()).getCount());
+      }
+      logger.error("Could not write {} analytics counters", e.getErrors().size(), e);
+    } catch (DataAccessException e) {
+      for (int i = 0; i < keys.size(); i++) {
+        restore(keys.get(i), increments.get(i).getCount());
+      }
+      logger.error("Could not write analytics counters, retrying on the next flush", e);
+    }
+  }
+
+  private void restore(CounterKey key, long count) {
+    counters.computeIfAbsent(key, k -> new LongAdder()).add(count);
+  }
+
+  /**
+   * Returns hourly counts for the last hours, including counts not flushed yet.
+   *
+   * @param eventTypeStr the event type
+   * @param targetId     the sponsor or merchant name
+   * @param hours        how many hours to look back, between 1 and 24 * 90
+   * @return counts keyed by the start of each hour, oldest first
+   */
+  public Map<String, Long> getHourlyCounts(String eventTypeStr, String targetId, int hours) {
+    EventType eventType;
+    try {
+      eventType = EventType.valueOf(eventTypeStr);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Event type is not valid: " + eventTypeStr);
+    }
+    if (hours < 1 || hours > 24 * 90) {
+      throw new IllegalArgumentException("Hours must be between 1 and " + 24 * 90);
+    }
+    long firstHour = System.currentTimeMillis() / HOUR_MILLIS - hours + 1;
+
+    Map<String, Long> counts = new TreeMap<>();
+    for (AnalyticsCounter counter : analyticsRepository.findCounters(eventType, targetId,
+        new Date(firstHour * HOUR_MILLIS))) {
+      counts.merge(counter.getHour().toInstant().toString(), counter.getCount(), Long::sum);
+    }
+    for (Map.Entry<CounterKey, LongAdder> entry : counters.entrySet()) {
+      CounterKey key = entry.getKey();
+      long pending = entry.getValue().sum();
+      if (pending > 0 && key.getEventType() == eventType && key.getTargetId().equals(targetId)
+          && key.getEpochHour() >= firstHour) {
+        counts.merge(Instant.ofEpochMilli(key.getEpochHour() * HOUR_MILLIS).toString(), pending, Long::sum);
+      }
+    }
+    return counts;
+  }
+
+  private static String counterId(CounterKey key) {
+    Instant hour = Instant.ofEpochMilli(key.getEpochHour() * HOUR_MILLIS);
+    return key.getEventType() + "|" + key.getTargetId() + "|" + hour;
+  }
+}
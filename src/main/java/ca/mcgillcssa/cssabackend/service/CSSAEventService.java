@@ -1,25 +1,50 @@
 package ca.mcgillcssa.cssabackend.service;
 
 import java.time.LocalDate;
+import java.util.List;
 
+import org.springframework.context.event.EventListener;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
 
+import ca.mcgillcssa.cssabackend.event.CollectionChangedEvent;
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
 import ca.mcgillcssa.cssabackend.model.CSSAEvent;
 import ca.mcgillcssa.cssabackend.repository.CSSAEventRepository;
 
 @Service
 public class CSSAEventService {
   private final CSSAEventRepository cssaEventRepository;
+  private final StaleReadService staleReads;
 
-  public CSSAEventService(CSSAEventRepository cssaEventRepository) {
+  public CSSAEventService(CSSAEventRepository cssaEventRepository, StaleReadService staleReads) {
     this.cssaEventRepository = cssaEventRepository;
+    this.staleReads = staleReads;
   }
 
   public CSSAEvent createEvent(String eventName, LocalDate eventStartDate, LocalDate eventEndDate, String eventLocation,
-      String eventImageUrl, String eventDescription, String eventLinkUrl) {
+      String eventImageUrl, String eventDescription, String eventLinkUrl, int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity cannot be negative");
+    }
     CSSAEvent newEvent = new CSSAEvent(eventName, eventStartDate, eventEndDate, eventLocation, eventImageUrl,
         eventDescription, eventLinkUrl);
+    newEvent.setCapacity(capacity);
     return cssaEventRepository.saveEvent(newEvent);
   }
+
+  public List<CSSAEvent> findUpcomingEvents(int limit) {
+    return staleReads.read("events/upcoming/" + limit,
+        () -> cssaEventRepository.findUpcomingEvents(LocalDate.now(), limit));
+  }
+
+  @EventListener(condition = "#event.topic == 'events'")
+  public void onEventChanged(EntityChangedEvent event) {
+    staleReads.invalidate(EntityChangedEvent.EVENTS);
+  }
+
+  @EventListener(condition = "#event.collection == 'events'")
+  public void onEventsChanged(CollectionChangedEvent event) {
+    staleReads.invalidate(EntityChangedEvent.EVENTS);
+  }
 }
@@ -0,0 +1,295 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes sponsor, event and benefit changes to clients over Server-Sent Events.
+ * Idle subscriptions are async requests parked by the servlet container and
+ * cost no thread. Changes are collected per topic and sent at most once per
+ * dispatch interval, so a burst of writes becomes one message. Heartbeat
+ * comments keep idle connections open through proxies.
+ *
+ * Each subscriber has its own bounded queue, drained by a small pool of sender
+ * threads, so writes never wait on subscribers and a slow client only delays
+ * itself. A subscriber whose queue fills up, or whose send has been blocked for
+ * longer than the send timeout, is dropped; its EventSource reconnects and
+ * refetches.
+ *
+ * Only writes made by this instance are seen.
+ */
+@Service
+public class ChangeNotificationService {
+
+  private static final Logger logger = LoggerFactory.getLogger(ChangeNotificationService.class);
+
+  public static final Set<String> TOPICS = Set.of(EntityChangedEvent.SPONSORS, EntityChangedEvent.EVENTS,
+      EntityChangedEvent.BENEFITS);
+
+  private final int maxSubscribers;
+  private final int queueCapacity;
+  private final long sendTimeoutNanos;
+  private final Supplier<SseEmitter> newEmitter;
+  private final LongSupplier nanoClock;
+  private final Map<String, Set<Subscriber>> subscribers = new HashMap<>();
+  private final AtomicInteger subscriberCount = new AtomicInteger();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong sequence = new AtomicLong();
+  // topic -> entity id -> latest change since the last dispatch
+  private Map<String, Map<String, EntityChangedEvent.ChangeType>> pending = new HashMap<>();
+  private final ExecutorService sender;
+
+  @Autowired
+  public ChangeNotificationService(@Value("${cssa.changes.emitter-timeout-millis}") long emitterTimeoutMillis,
+      @Value("${cssa.changes.max-subscribers}") int maxSubscribers,
+      @Value("${cssa.changes.sender-threads}") int senderThreads,
+      @Value("${cssa.changes.subscriber-queue-capacity}") int queueCapacity,
+      @Value("${cssa.changes.send-timeout-millis}") long sendTimeoutMillis) {
+    this(() -> new SseEmitter(emitterTimeoutMillis), maxSubscribers, senderThreads, queueCapacity,
+        sendTimeoutMillis, System::nanoTime);
+  }
+
+  ChangeNotificationService(Supplier<SseEmitter> newEmitter, int maxSubscribers, int senderThreads,
+      int queueCapacity, long sendTimeoutMillis, LongSupplier nanoClock) {
+    this.newEmitter = newEmitter;
+    this.maxSubscribers = maxSubscribers;
+    this.queueCapacity = queueCapacity;
+    this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+    this.nanoClock = nanoClock;
+    for (String topic : TOPICS) {
+      subscribers.put(topic, ConcurrentHashMap.newKeySet());
+    }
+    AtomicInteger threads = new AtomicInteger();
+    this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+      Thread thread = new Thread(runnable, "change-notifications-" + threads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Opens a stream of change notifications for the given topics. The stream
+   * ends after the emitter timeout, EventSource clients reconnect by
+   * themselves.
+   *
+   * @param topics the topics to follow
+   * @return the emitter to return from the controller
+   * @throws IllegalArgumentException if a topic does not exist
+   * @throws IllegalStateException    if there are too many subscribers
+   */
+  public SseEmitter subscribe(Set<String> topics) {
+    if (topics.isEmpty() || !TOPICS.containsAll(topics)) {
+      throw new IllegalArgumentException("Topics must be among " + TOPICS);
+    }
+    if (subscriberCount.incrementAndGet() > maxSubscribers) {
+      subscriberCount.decrementAndGet();
+      throw new IllegalStateException("Too many subscribers, please poll instead");
+    }
+
+    Subscriber subscriber = new Subscriber(newEmitter.get(), Set.copyOf(topics));
+    SseEmitter emitter = subscriber.emitter;
+    emitter.onCompletion(subscriber::unsubscribe);
+    emitter.onTimeout(subscriber::unsubscribe);
+    emitter.onError(error -> subscriber.unsubscribe());
+    for (String topic : topics) {
+      subscribers.get(topic).add(subscriber);
+    }
+
+    Map<String, Object> ready = new HashMap<>();
+    ready.put("topics", topics);
+    ready.put("sequence", sequence.get());
+    subscriber.enqueue(SseEmitter.event().name("ready").data(ready));
+    return emitter;
+  }
+
+  @EventListener
+  public void onEntityChanged(EntityChangedEvent event) {
+    synchronized (this) {
+      pending.computeIfAbsent(event.getTopic(), topic -> new LinkedHashMap<>())
+          .put(event.getEntityId(), event.getChangeType());
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${cssa.changes.dispatch-interval-millis}")
+  public void dispatch() {
+    Map<String, Map<String, EntityChangedEvent.ChangeType>> changes;
+    synchronized (this) {
+      if (pending.isEmpty()) {
+        return;
+      }
+      changes = pending;
+      pending = new HashMap<>();
+    }
+    for (Map.Entry<String, Map<String, EntityChangedEvent.ChangeType>> topicChanges : changes.entrySet()) {
+      Set<Subscriber> topicSubscribers = subscribers.get(topicChanges.getKey());
+      if (topicSubscribers == null) {
+        continue;
+      }
+      List<Map<String, String>> entities = new ArrayList<>();
+      for (Map.Entry<String, EntityChangedEvent.ChangeType> change : topicChanges.getValue().entrySet()) {
+        Map<String, String> entity = new HashMap<>();
+        entity.put("id", change.getKey());
+        entity.put("changeType", change.getValue().name());
+        entities.add(entity);
+      }
+      long id = sequence.incrementAndGet();
+      Map<String, Object> data = new HashMap<>();
+      data.put("topic", topicChanges.getKey());
+      data.put("changes", entities);
+      for (Subscriber subscriber : topicSubscribers) {
+        subscriber.enqueue(SseEmitter.event().id(Long.toString(id)).name(topicChanges.getKey()).data(data));
+      }
+    }
+  }
+
+  /**
+   * Queues a heartbeat for every subscriber, and drops those whose current send
+   * has been blocked for longer than the send timeout, e.g. on a half-open
+   * connection.
+   */
+  @Scheduled(fixedRateString = "${cssa.changes.heartbeat-interval-millis}")
+  public void heartbeat() {
+    Set<Subscriber> all = new HashSet<>();
+    subscribers.values().forEach(all::addAll);
+    long now = nanoClock.getAsLong();
+    for (Subscriber subscriber : all) {
+      if (subscriber.sending && now - subscriber.sendStartedAt > sendTimeoutNanos) {
+        subscriber.drop("its send has been blocked for over " + TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos)
+            + " ms");
+      } else {
+        subscriber.enqueue(SseEmitter.event().comment("heartbeat"));
+      }
+    }
+  }
+
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("subscribers", subscriberCount.get());
+    Map<String, Integer> byTopic = new HashMap<>();
+    subscribers.forEach((topic, topicSubscribers) -> byTopic.put(topic, topicSubscribers.size()));
+    stats.put("byTopic", byTopic);
+    stats.put("sequence", sequence.get());
+    stats.put("dropped", dropped.get());
+    return stats;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    sender.shutdownNow();
+    Set<Subscriber> all = new HashSet<>();
+    subscribers.values().forEach(all::addAll);
+    all.forEach(subscriber -> subscriber.emitter.complete());
+  }
+
+  private final class Subscriber {
+    private final SseEmitter emitter;
+    private final Set<String> topics;
+    private final BlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(queueCapacity);
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean subscribed = new AtomicBoolean(true);
+    private volatile boolean sending;
+    private volatile long sendStartedAt;
+
+    Subscriber(SseEmitter emitter, Set<String> topics) {
+      this.emitter = emitter;
+      this.topics = topics;
+    }
+
+    void enqueue(SseEmitter.SseEventBuilder event) {
+      if (!subscribed.get()) {
+        return;
+      }
+      if (!queue.offer(event)) {
+        drop("its queue is full");
+        return;
+      }
+      scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+      if (draining.compareAndSet(false, true)) {
+        try {
+          sender.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+          // shutting down
+          draining.set(false);
+        }
+      }
+    }
+
+    private void drain() {
+      SseEmitter.SseEventBuilder event;
+      while (subscribed.get() && (event = queue.poll()) != null) {
+        sendStartedAt = nanoClock.getAsLong();
+        sending = true;
+        try {
+          emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+          // the client went away
+          unsubscribe();
+          emitter.completeWithError(e);
+        } finally {
+          sending = false;
+        }
+      }
+      draining.set(false);
+      // an event queued after the last poll but before draining was cleared
+      if (subscribed.get() && !queue.isEmpty()) {
+        scheduleDrain();
+      }
+    }
+
+    void drop(String reason) {
+      if (unsubscribe()) {
+        dropped.incrementAndGet();
+        logger.debug("Dropped a change stream subscriber, {}", reason);
+        emitter.completeWithError(new IOException("Change stream subscriber dropped, " + reason));
+      }
+    }
+
+    /**
+     * @return true if this call removed the subscriber
+     */
+    boolean unsubscribe() {
+      if (!subscribed.compareAndSet(true, false)) {
+        return false;
+      }
+      for (String topic : topics) {
+        subscribers.get(topic).remove(this);
+      }
+      subscriberCount.decrementAndGet();
+      queue.clear();
+      return true;
+    }
+  }
+}
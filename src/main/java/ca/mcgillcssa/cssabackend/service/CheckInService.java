@@ -0,0 +1,463 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import ca.mcgillcssa.cssabackend.event.CollectionChangedEvent;
+import ca.mcgillcssa.cssabackend.event.MemberChangedEvent;
+import ca.mcgillcssa.cssabackend.model.CSSAEvent;
+import ca.mcgillcssa.cssabackend.model.CheckIn;
+import ca.mcgillcssa.cssabackend.repository.CSSAEventRepository;
+import ca.mcgillcssa.cssabackend.repository.CheckInRepository;
+import ca.mcgillcssa.cssabackend.repository.MemberRepository;
+import ca.mcgillcssa.cssabackend.util.BloomFilter;
+import ca.mcgillcssa.cssabackend.util.EmailAddressChecker;
+import ca.mcgillcssa.cssabackend.util.SingleFlight;
+import ca.mcgillcssa.cssabackend.util.VersionedCache;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Verifies membership at event check-in from an in-memory copy of all member
+ * school emails, so scanning a QR code never waits on the database. The copy
+ * is loaded at startup, or restored from the warm-cache snapshot, kept current
+ * from MemberChangedEvents for this instance's writes and CollectionChangedEvents
+ * for every instance's, and reloaded periodically. Check-ins are queued and
+ * appended to Mongo in batches.
+ *
+ * The attendees of each event are kept to answer repeated scans. They are
+ * loaded from the checkins collection for the events open at startup, and on
+ * the first scan for any other, once per event however many scans arrive
+ * together, and dropped once an event has had no check-in for a while or too
+ * many events are held. A scan for an event that does not exist is refused.
+ */
+@Service
+public class CheckInService {
+
+  private static final Logger logger = LoggerFactory.getLogger(CheckInService.class);
+
+  public enum CheckInResult {
+    CHECKED_IN,
+    ALREADY_CHECKED_IN,
+    NOT_A_MEMBER
+  }
+
+  private static class Membership {
+    private final Set<String> emails;
+    private final BloomFilter bloomFilter;
+    private final Instant loadedAt;
+    // the members version read before the emails were
+    private final long version;
+
+    Membership(Collection<String> schoolEmails, long version) {
+      this.emails = ConcurrentHashMap.newKeySet(schoolEmails.size() * 2);
+      // leave room for the members registering until the next reload
+      this.bloomFilter = new BloomFilter(Math.max(10000, schoolEmails.size() * 2L), 0.01);
+      for (String schoolEmail : schoolEmails) {
+        String email = normalize(schoolEmail);
+        emails.add(email);
+        bloomFilter.put(email);
+      }
+      this.loadedAt = Instant.now();
+      this.version = version;
+    }
+
+    boolean contains(String email) {
+      // the Bloom filter rejects most non-members without hashing into the set
+      return bloomFilter.mightContain(email) && emails.contains(email);
+    }
+
+    void apply(MemberChange change) {
+      if (change.member) {
+        emails.add(change.email);
+        bloomFilter.put(change.email);
+      } else {
+        emails.remove(change.email);
+      }
+    }
+  }
+
+  private static class MemberChange {
+    private final String email;
+    private final boolean member;
+
+    MemberChange(String schoolEmail, boolean member) {
+      this.email = normalize(schoolEmail);
+      this.member = member;
+    }
+  }
+
+  private static class Attendees {
+    private final Set<String> emails;
+    private volatile long lastUsedNanos;
+
+    Attendees(Collection<String> schoolEmails, long now) {
+      this.emails = ConcurrentHashMap.newKeySet(Math.max(16, schoolEmails.size() * 2));
+      for (String schoolEmail : schoolEmails) {
+        emails.add(normalize(schoolEmail));
+      }
+      this.lastUsedNanos = now;
+    }
+  }
+
+  private final MemberRepository memberRepository;
+  private final CheckInRepository checkInRepository;
+  private final CSSAEventRepository eventRepository;
+  private final int flushBatchSize;
+  private final int maxEvents;
+  private final long attendeesIdleNanos;
+  private final LongSupplier nanoClock;
+
+  private volatile Membership membership;
+  // guards membership updates and the journal of changes made during a reload
+  private final Object writeLock = new Object();
+  private final Object reloadLock = new Object();
+  private List<MemberChange> journal;
+  // counts member changes, guarded by writeLock
+  private long changeCount;
+
+  private final ConcurrentHashMap<String, Attendees> checkedIn = new ConcurrentHashMap<>();
+  private final SingleFlight<String, Attendees> attendeeLoads = new SingleFlight<>();
+  private final BlockingQueue<CheckIn> pendingCheckIns;
+
+  @Autowired
+  public CheckInService(MemberRepository memberRepository, CheckInRepository checkInRepository,
+      CSSAEventRepository eventRepository,
+      @Value("${cssa.checkin.queue-capacity}") int queueCapacity,
+      @Value("${cssa.checkin.flush-batch-size}") int flushBatchSize,
+      @Value("${cssa.checkin.max-events}") int maxEvents,
+      @Value("${cssa.checkin.attendees-idle-minutes}") long attendeesIdleMinutes) {
+    this(memberRepository, checkInRepository, eventRepository, queueCapacity, flushBatchSize, maxEvents,
+        Duration.ofMinutes(attendeesIdleMinutes), System::nanoTime);
+  }
+
+  CheckInService(MemberRepository memberRepository, CheckInRepository checkInRepository,
+      CSSAEventRepository eventRepository, int queueCapacity, int flushBatchSize, int maxEvents,
+      Duration attendeesIdle, LongSupplier nanoClock) {
+    this.memberRepository = memberRepository;
+    this.checkInRepository = checkInRepository;
+    this.eventRepository = eventRepository;
+    this.flushBatchSize = flushBatchSize;
+    this.maxEvents = maxEvents;
+    this.attendeesIdleNanos = attendeesIdle.toNanos();
+    this.nanoClock = nanoClock;
+    this.pendingCheckIns = new ArrayBlockingQueue<>(queueCapacity);
+  }
+
+  // run by StartupTasks once the application is ready
+  public void loadOnStartup() {
+    if (membership != null) {
+      logger.info("Member emails for check-in restored from the warm-cache snapshot");
+    } else {
+      loadLogged();
+    }
+    try {
+      loadOpenEvents(LocalDate.now());
+    } catch (DataAccessException e) {
+      logger.error("Could not load the attendees of open events, loading them on their first check-in", e);
+    }
+  }
+
+  /**
+   * Loads the attendees of the events running on a date, so a student who
+   * checked in before a restart is not checked in again.
+   *
+   * @return the number of events loaded
+   */
+  public int loadOpenEvents(LocalDate today) {
+    int loaded = 0;
+    for (CSSAEvent event : eventRepository.findUpcomingEvents(today, maxEvents)) {
+      if (event.getEventStartDate() != null && event.getEventStartDate().isAfter(today)) {
+        continue;
+      }
+      List<String> schoolEmails = checkInRepository.findSchoolEmailsByEventId(event.getId());
+      if (checkedIn.putIfAbsent(event.getId(), new Attendees(schoolEmails, nanoClock.getAsLong())) == null) {
+        loaded++;
+      }
+    }
+    return loaded;
+  }
+
+  @Scheduled(initialDelayString = "${cssa.checkin.reload-interval-millis}",
+      fixedDelayString = "${cssa.checkin.reload-interval-millis}")
+  public void scheduledReload() {
+    loadLogged();
+  }
+
+  private void loadLogged() {
+    try {
+      reload();
+    } catch (DataAccessException e) {
+      logger.error("Could not load member emails for check-in, retrying on the next reload", e);
+    }
+  }
+
+  /**
+   * Rebuilds the membership set and Bloom filter from the database. Member
+   * changes that happen while the emails are being read are replayed onto the
+   * new set before it replaces the old one.
+   */
+  public void reload() {
+    synchronized (reloadLock) {
+      synchronized (writeLock) {
+        journal = new ArrayList<>();
+      }
+      long version;
+      List<String> schoolEmails;
+      try {
+        version = memberRepository.findVersion();
+        schoolEmails = memberRepository.findAllSchoolEmails();
+      } catch (RuntimeException e) {
+        synchronized (writeLock) {
+          journal = null;
+        }
+        throw e;
+      }
+
+      Membership loaded = new Membership(schoolEmails, version);
+      synchronized (writeLock) {
+        for (MemberChange change : journal) {
+          loaded.apply(change);
+        }
+        membership = loaded;
+        journal = null;
+      }
+    }
+  }
+
+  /**
+   * @return the member emails and the version they were loaded at, null if not
+   *         loaded. Emails added or removed since by this instance are
+   *         included, but the version is then older than the database's, so
+   *         the copy will not pass validation.
+   */
+  public VersionedCache.Entry<Set<String>> getMembership() {
+    synchronized (writeLock) {
+      Membership current = membership;
+      return current == null ? null : new VersionedCache.Entry<>(current.version, Set.copyOf(current.emails));
+    }
+  }
+
+  /**
+   * Read before validating emails to {@link #warmMembership}, so that a member
+   * change in between is noticed.
+   */
+  public long getChangeCount() {
+    synchronized (writeLock) {
+      return changeCount;
+    }
+  }
+
+  /**
+   * Serves check-ins from emails restored from elsewhere until the next reload,
+   * unless the emails were loaded, or a member changed, since the change count
+   * was read.
+   *
+   * @return true if the emails were installed
+   */
+  public boolean warmMembership(long version, Collection<String> schoolEmails, long expectedChangeCount) {
+    Membership warmed = new Membership(schoolEmails, version);
+    synchronized (writeLock) {
+      if (membership != null || journal != null || changeCount != expectedChangeCount) {
+        return false;
+      }
+      membership = warmed;
+      return true;
+    }
+  }
+
+  @EventListener
+  public void onMemberChanged(MemberChangedEvent event) {
+    apply(new MemberChange(event.getMember().getSchoolEmail(),
+        event.getChangeType() == MemberChangedEvent.ChangeType.CREATED));
+  }
+
+  /**
+   * Follows the members written by any instance, whose id is their school
+   * email. A change without the member's document is a delete. A change of an
+   * unknown member reloads every email.
+   */
+  @EventListener(condition = "#event.collection == 'members'")
+  public void onMembersChanged(CollectionChangedEvent event) {
+    if (event.getDocumentId() == null) {
+      loadLogged();
+      return;
+    }
+    apply(new MemberChange(event.getDocumentId(), event.getDocument() != null));
+  }
+
+  private void apply(MemberChange change) {
+    synchronized (writeLock) {
+      changeCount++;
+      if (membership != null) {
+        membership.apply(change);
+      }
+      if (journal != null) {
+        journal.add(change);
+      }
+    }
+  }
+
+  /**
+   * Checks whether a school email belongs to a member, from memory only.
+   *
+   * @param schoolEmail the McGill email of the student
+   * @return true if the student is a member
+   * @throws IllegalStateException if the member list has not been loaded yet
+   */
+  public boolean isMember(String schoolEmail) {
+    Membership current = membership;
+    if (current == null) {
+      throw new IllegalStateException("Member list is still loading, please retry shortly");
+    }
+    return current.contains(normalize(schoolEmail));
+  }
+
+  /**
+   * Verifies a student and records their check-in to an event. The check-in is
+   * written to the database by the next batched flush.
+   *
+   * @param eventId     the id of the event
+   * @param schoolEmail the McGill email of the student
+   * @return whether the student was checked in, already was, or is not a member
+   * @throws IllegalArgumentException if there is no event with this id
+   * @throws IllegalStateException    if the member list is not loaded, the
+   *                                  event could not be looked up or too many
+   *                                  check-ins are waiting to be written
+   */
+  public CheckInResult checkIn(String eventId, String schoolEmail) {
+    String email = normalize(schoolEmail);
+    Set<String> attendees = attendees(eventId);
+    if (!isMember(email)) {
+      return CheckInResult.NOT_A_MEMBER;
+    }
+    if (!attendees.add(email)) {
+      return CheckInResult.ALREADY_CHECKED_IN;
+    }
+    if (!pendingCheckIns.offer(new CheckIn(eventId + ":" + email, eventId, email, Instant.now()))) {
+      attendees.remove(email);
+      throw new IllegalStateException("Too many check-ins waiting to be saved, please retry");
+    }
+    return CheckInResult.CHECKED_IN;
+  }
+
+  private Set<String> attendees(String eventId) {
+    long now = nanoClock.getAsLong();
+    Attendees attendees = checkedIn.get(eventId);
+    if (attendees == null) {
+      attendees = attendeeLoads.execute(eventId, () -> loadAttendees(eventId, now));
+    }
+    attendees.lastUsedNanos = now;
+    return attendees.emails;
+  }
+
+  private Attendees loadAttendees(String eventId, long now) {
+    // held since the caller looked, by a load that just finished
+    Attendees held = checkedIn.get(eventId);
+    if (held != null) {
+      return held;
+    }
+    try {
+      if (eventRepository.findEventById(eventId).isEmpty()) {
+        throw new IllegalArgumentException("No event with id " + eventId);
+      }
+    } catch (DataAccessException e) {
+      throw new IllegalStateException("Could not look up event " + eventId + ", please retry", e);
+    }
+    List<String> schoolEmails;
+    try {
+      schoolEmails = checkInRepository.findSchoolEmailsByEventId(eventId);
+    } catch (DataAccessException e) {
+      // duplicates accepted meanwhile are skipped when the check-ins are saved
+      logger.error("Could not load the attendees of event {}, counting from empty", eventId, e);
+      schoolEmails = List.of();
+    }
+    Attendees loaded = new Attendees(schoolEmails, now);
+    Attendees raced = checkedIn.putIfAbsent(eventId, loaded);
+    return raced == null ? loaded : raced;
+  }
+
+  /**
+   * Drops the attendees of events that have had no check-in for the idle time,
+   * then of the least recently used events while more than the maximum are
+   * held. A dropped event is loaded again on its next check-in.
+   */
+  void evictIdleEvents() {
+    long now = nanoClock.getAsLong();
+    checkedIn.values().removeIf(attendees -> now - attendees.lastUsedNanos > attendeesIdleNanos);
+    int excess = checkedIn.size() - maxEvents;
+    if (excess > 0) {
+      // sort a snapshot of the use times, they move while check-ins continue
+      List<Map.Entry<String, Long>> lastUsed = new ArrayList<>();
+      checkedIn.forEach((eventId, attendees) -> lastUsed.add(Map.entry(eventId, attendees.lastUsedNanos)));
+      lastUsed.sort(Map.Entry.comparingByValue());
+      for (int i = 0; i < excess && i < lastUsed.size(); i++) {
+        checkedIn.remove(lastUsed.get(i).getKey());
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${cssa.checkin.flush-interval-millis}")
+  @PreDestroy
+  public void flush() {
+    evictIdleEvents();
+    List<CheckIn> batch = new ArrayList<>(flushBatchSize);
+    while (pendingCheckIns.drainTo(batch, flushBatchSize) > 0) {
+      try {
+        checkInRepository.appendCheckIns(batch);
+      } catch (DataAccessException e) {
+        logger.error("Could not save {} check-ins, retrying on the next flush", batch.size(), e);
+        int dropped = 0;
+        for (CheckIn checkIn : batch) {
+          if (!pendingCheckIns.offer(checkIn)) {
+            dropped++;
+          }
+        }
+        if (dropped > 0) {
+          logger.error("Dropped {} check-ins because the queue is full", dropped);
+        }
+        return;
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new HashMap<>();
+    Membership current = membership;
+    stats.put("loaded", current != null);
+    if (current != null) {
+      stats.put("memberCount", current.emails.size());
+      stats.put("bloomFilterBits", current.bloomFilter.bitSize());
+      stats.put("loadedAt", current.loadedAt.toString());
+      stats.put("version", current.version);
+    }
+    stats.put("pendingCheckIns", pendingCheckIns.size());
+    stats.put("eventsHeld", checkedIn.size());
+    return stats;
+  }
+
+  private static String normalize(String email) {
+    return EmailAddressChecker.normalize(email);
+  }
+}
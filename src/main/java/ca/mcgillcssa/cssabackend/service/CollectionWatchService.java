@@ -0,0 +1,248 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+
+import ca.mcgillcssa.cssabackend.event.CollectionChangedEvent;
+import ca.mcgillcssa.cssabackend.repository.ChangeLogRepository;
+import ca.mcgillcssa.cssabackend.repository.ChangeStreamRepository;
+import ca.mcgillcssa.cssabackend.repository.MemberRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps the caches of every instance coherent. A MongoDB change stream over
+ * the sponsors, members, events and benefits collections is followed on a
+ * background thread, and each change is published as a CollectionChangedEvent,
+ * whichever instance made it. The resume token is saved regularly, so a
+ * dropped stream, or a restart, picks up where it left off.
+ *
+ * Change streams need a replica set. While the stream is down, the version
+ * counters bumped by every write are polled instead, and a collection whose
+ * version moved is invalidated as a whole.
+ *
+ * Not run under the inmemory profile, whose stores are local to one process.
+ */
+@Service
+@Profile("!inmemory")
+public class CollectionWatchService {
+
+  private static final Logger logger = LoggerFactory.getLogger(CollectionWatchService.class);
+  // the resume token is no longer in the oplog
+  private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+  static final List<String> COLLECTIONS = List.of("sponsors", "members", "events", "benefits");
+  // sponsors, events and benefits share the change sequence counter
+  private static final Map<String, List<String>> VERSIONED = Map.of(
+      ChangeLogRepository.CHANGES, List.of("sponsors", "events", "benefits"),
+      MemberRepository.VERSION, List.of("members"));
+
+  private final ChangeStreamRepository changeStreamRepository;
+  private final ChangeLogRepository changeLog;
+  private final ApplicationEventPublisher eventPublisher;
+  private final String instanceId;
+  private final long maxAwaitMillis;
+  private final long tokenSaveIntervalMillis;
+  private final long retryIntervalMillis;
+
+  private volatile boolean running;
+  private volatile boolean streaming;
+  private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+  private Thread watcher;
+  private Map<String, Long> lastVersions;
+  // written before their version is bumped, so invalidated once more on the next poll
+  private Set<String> invalidateAgain = new HashSet<>();
+
+  public CollectionWatchService(ChangeStreamRepository changeStreamRepository, ChangeLogRepository changeLog,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${cssa.watch.instance-id}") String instanceId,
+      @Value("${cssa.watch.max-await-millis}") long maxAwaitMillis,
+      @Value("${cssa.watch.token-save-interval-millis}") long tokenSaveIntervalMillis,
+      @Value("${cssa.watch.retry-interval-millis}") long retryIntervalMillis) {
+    this.changeStreamRepository = changeStreamRepository;
+    this.changeLog = changeLog;
+    this.eventPublisher = eventPublisher;
+    this.instanceId = instanceId;
+    this.maxAwaitMillis = maxAwaitMillis;
+    this.tokenSaveIntervalMillis = tokenSaveIntervalMillis;
+    this.retryIntervalMillis = retryIntervalMillis;
+  }
+
+  // run by StartupTasks once the application is ready
+  public void start() {
+    running = true;
+    watcher = new Thread(this::watch, "collection-watch");
+    watcher.setDaemon(true);
+    watcher.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    MongoChangeStreamCursor<ChangeStreamDocument<Document>> open = cursor;
+    if (open != null) {
+      open.close();
+    }
+    if (watcher != null) {
+      watcher.join(maxAwaitMillis + 1000);
+    }
+  }
+
+  public boolean isStreaming() {
+    return streaming;
+  }
+
+  private void watch() {
+    BsonDocument token = null;
+    try {
+      token = changeStreamRepository.findResumeToken(instanceId).orElse(null);
+    } catch (DataAccessException e) {
+      logger.warn("Could not load the change stream resume token, starting from now", e);
+    }
+    while (running) {
+      BsonDocument saved = token;
+      long savedAt = System.currentTimeMillis();
+      try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> open = changeStreamRepository
+          .openChangeStream(COLLECTIONS, token, maxAwaitMillis)) {
+        cursor = open;
+        streaming = true;
+        logger.info("Following changes to {}", COLLECTIONS);
+        while (running) {
+          ChangeStreamDocument<Document> change = open.tryNext();
+          if (change != null) {
+            publish(change);
+          }
+          // also moves forward while nothing changes, so resuming stays cheap
+          BsonDocument current = open.getResumeToken();
+          if (current != null) {
+            token = current;
+          }
+          if (token != null && token != saved && System.currentTimeMillis() - savedAt >= tokenSaveIntervalMillis) {
+            changeStreamRepository.saveResumeToken(instanceId, token);
+            saved = token;
+            savedAt = System.currentTimeMillis();
+          }
+        }
+      } catch (MongoCommandException e) {
+        streaming = false;
+        if (e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+          logger.warn("Change stream history lost, invalidating all caches and starting from now");
+          token = null;
+          try {
+            changeStreamRepository.deleteResumeToken(instanceId);
+          } catch (DataAccessException deleteFailed) {
+            logger.warn("Could not delete the change stream resume token", deleteFailed);
+          }
+          invalidateAll();
+          continue;
+        }
+        logger.warn("Change streams unavailable ({}), polling versions instead", e.getErrorMessage());
+        pause();
+      } catch (MongoException | DataAccessException | IllegalStateException e) {
+        // IllegalStateException: the cursor was closed by stop()
+        streaming = false;
+        if (running) {
+          logger.warn("Change stream interrupted, polling versions until it is back", e);
+          pause();
+        }
+      } finally {
+        cursor = null;
+      }
+    }
+    if (token != null) {
+      try {
+        changeStreamRepository.saveResumeToken(instanceId, token);
+      } catch (DataAccessException e) {
+        logger.warn("Could not save the change stream resume token", e);
+      }
+    }
+  }
+
+  private void publish(ChangeStreamDocument<Document> change) {
+    String collection = change.getNamespace() == null ? null : change.getNamespace().getCollectionName();
+    OperationType operation = change.getOperationType();
+    if (operation == OperationType.DROP || operation == OperationType.RENAME
+        || operation == OperationType.INVALIDATE || operation == OperationType.DROP_DATABASE) {
+      if (collection == null) {
+        invalidateAll();
+      } else {
+        eventPublisher.publishEvent(new CollectionChangedEvent(collection, null, null));
+      }
+      return;
+    }
+    BsonValue id = change.getDocumentKey() == null ? null : change.getDocumentKey().get("_id");
+    String documentId = id == null ? null
+        : id.isString() ? id.asString().getValue()
+            : id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.toString();
+    eventPublisher.publishEvent(new CollectionChangedEvent(collection, documentId, change.getFullDocument()));
+  }
+
+  /**
+   * Reads the version counters. While the change stream is down, publishes an
+   * invalidation for every collection whose version moved since the last poll.
+   */
+  @Scheduled(fixedDelayString = "${cssa.watch.poll-interval-millis}")
+  public void pollVersions() {
+    Map<String, Long> versions;
+    try {
+      versions = changeLog.findVersions(VERSIONED.keySet());
+    } catch (DataAccessException e) {
+      logger.warn("Could not poll collection versions", e);
+      return;
+    }
+    Set<String> changed = new HashSet<>();
+    Set<String> moved = new HashSet<>();
+    if (!streaming && lastVersions != null) {
+      changed.addAll(invalidateAgain);
+      for (Map.Entry<String, List<String>> counter : VERSIONED.entrySet()) {
+        if (!versions.getOrDefault(counter.getKey(), 0L).equals(lastVersions.getOrDefault(counter.getKey(), 0L))) {
+          changed.addAll(counter.getValue());
+          // sponsors, events and benefits take their sequence before writing
+          if (counter.getKey().equals(ChangeLogRepository.CHANGES)) {
+            moved.addAll(counter.getValue());
+          }
+        }
+      }
+    }
+    for (String collection : changed) {
+      eventPublisher.publishEvent(new CollectionChangedEvent(collection, null, null));
+    }
+    invalidateAgain = moved;
+    lastVersions = new HashMap<>(versions);
+  }
+
+  private void invalidateAll() {
+    for (String collection : COLLECTIONS) {
+      eventPublisher.publishEvent(new CollectionChangedEvent(collection, null, null));
+    }
+  }
+
+  private void pause() {
+    try {
+      Thread.sleep(retryIntervalMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+}
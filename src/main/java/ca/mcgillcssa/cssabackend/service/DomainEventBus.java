@@ -0,0 +1,330 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import ca.mcgillcssa.cssabackend.event.DomainEventHandler;
+import ca.mcgillcssa.cssabackend.event.MemberChangedEvent;
+import ca.mcgillcssa.cssabackend.event.PartialDeliveryException;
+import ca.mcgillcssa.cssabackend.model.Member;
+import ca.mcgillcssa.cssabackend.model.OutboxEvent;
+import ca.mcgillcssa.cssabackend.repository.MemberRepository;
+import ca.mcgillcssa.cssabackend.repository.OutboxRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs side work, such as welcome emails and webhooks, after domain events
+ * without slowing down the request that caused them. An event is first written
+ * to the outbox collection, then handed to a pool of workers through a bounded
+ * queue. Workers deliver events to each handler in batches.
+ *
+ * The outbox is the source of truth: a published event holds a lease, and if
+ * it is not delivered before the lease ends (queue full, handler failure,
+ * restart) the outbox poller claims it again. Failed deliveries are retried
+ * with exponential backoff, up to a maximum number of attempts per handler.
+ *
+ * Registrations are not published by the request that registers the member.
+ * The member is written along with the id of its registration event, and a
+ * relay thread records that event in the outbox afterwards, so a registration
+ * is announced even if the outbox write fails or the instance stops in between.
+ *
+ * Not run under the inmemory profile, which has no outbox: registrations are
+ * not announced there.
+ */
+@Service
+@Profile("!inmemory")
+public class DomainEventBus {
+
+  private static final Logger logger = LoggerFactory.getLogger(DomainEventBus.class);
+  private static final Duration MAX_RETRY_DELAY = Duration.ofHours(1);
+
+  public static final String MEMBER_REGISTERED = "MEMBER_REGISTERED";
+
+  private final OutboxRepository outboxRepository;
+  private final MemberRepository memberRepository;
+  private final List<DomainEventHandler> handlers;
+  private final BlockingQueue<OutboxEvent> queue;
+  private final int workerCount;
+  private final int batchSize;
+  private final long publishTimeoutMillis;
+  private final Duration lease;
+  private final Duration retryBaseDelay;
+  private final int maxAttempts;
+  private final List<Thread> workers = new ArrayList<>();
+  private final ExecutorService relay = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "domain-events-relay");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final AtomicBoolean relayQueued = new AtomicBoolean();
+  private volatile boolean running;
+
+  public DomainEventBus(OutboxRepository outboxRepository, MemberRepository memberRepository,
+      List<DomainEventHandler> handlers,
+      @Value("${cssa.outbox.queue-capacity}") int queueCapacity,
+      @Value("${cssa.outbox.workers}") int workerCount,
+      @Value("${cssa.outbox.batch-size}") int batchSize,
+      @Value("${cssa.outbox.publish-timeout-millis}") long publishTimeoutMillis,
+      @Value("${cssa.outbox.lease-millis}") long leaseMillis,
+      @Value("${cssa.outbox.retry-base-millis}") long retryBaseMillis,
+      @Value("${cssa.outbox.max-attempts}") int maxAttempts) {
+    this.outboxRepository = outboxRepository;
+    this.memberRepository = memberRepository;
+    this.handlers = List.copyOf(handlers);
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.workerCount = workerCount;
+    this.batchSize = batchSize;
+    this.publishTimeoutMillis = publishTimeoutMillis;
+    this.lease = Duration.ofMillis(leaseMillis);
+    this.retryBaseDelay = Duration.ofMillis(retryBaseMillis);
+    this.maxAttempts = maxAttempts;
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    for (int i = 0; i < workerCount; i++) {
+      Thread worker = new Thread(this::work, "domain-events-" + (i + 1));
+      worker.setDaemon(true);
+      worker.start();
+      workers.add(worker);
+    }
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    // queued events keep their lease and are claimed again after a restart
+    running = false;
+    relay.shutdown();
+    for (Thread worker : workers) {
+      worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+  }
+
+  @EventListener
+  public void onMemberChanged(MemberChangedEvent event) {
+    if (event.getChangeType() == MemberChangedEvent.ChangeType.CREATED) {
+      relayRegistrationsSoon();
+    }
+  }
+
+  /**
+   * Runs relayRegistrations on the relay thread, unless a run is already
+   * waiting there.
+   */
+  private void relayRegistrationsSoon() {
+    if (!relayQueued.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      relay.execute(() -> {
+        relayQueued.set(false);
+        relayRegistrations();
+      });
+    } catch (RejectedExecutionException e) {
+      // shutting down, the registrations are relayed after the restart
+      relayQueued.set(false);
+    }
+  }
+
+  /**
+   * Records in the outbox the registration events of the members that still
+   * hold one, then clears them from the members. An event is recorded under the
+   * id the member holds, so recording it twice, from two instances or after a
+   * failure between the two steps, keeps the first outbox document.
+   */
+  public synchronized void relayRegistrations() {
+    try {
+      Map<String, Member> registrations;
+      do {
+        registrations = memberRepository.findUnannouncedRegistrations(batchSize);
+        for (Map.Entry<String, Member> registration : registrations.entrySet()) {
+          try {
+            publish(registration.getKey(), MEMBER_REGISTERED, registrationPayload(registration.getValue()));
+          } catch (DuplicateKeyException e) {
+            logger.debug("Registration event {} is already in the outbox", registration.getKey());
+          }
+        }
+        memberRepository.markRegistrationsAnnounced(registrations.keySet());
+      } while (registrations.size() == batchSize);
+    } catch (DataAccessException e) {
+      // the members keep their event ids, the next poll tries again
+      logger.error("Could not record registrations in the outbox", e);
+    }
+  }
+
+  private static Map<String, Object> registrationPayload(Member member) {
+    Map<String, Object> payload = new HashMap<>();
+    payload.put("name", member.getName());
+    payload.put("schoolEmail", member.getSchoolEmail());
+    payload.put("personalEmail", member.getPersonalEmail());
+    payload.put("wechatId", member.getWechatId());
+    payload.put("department", member.getDepartment() == null ? null : member.getDepartment().toString());
+    payload.put("position", member.getPosition() == null ? null : member.getPosition().toString());
+    return payload;
+  }
+
+  /**
+   * Records an event in the outbox and queues it for delivery. If the queue
+   * stays full for the publish timeout, the event is left to the outbox poller.
+   *
+   * @param type    the type of the event
+   * @param payload the data handlers need, stored as is
+   * @return the recorded event, or null if no handler takes this type
+   * @throws DataAccessException if the event could not be written to the outbox
+   */
+  public OutboxEvent publish(String type, Map<String, Object> payload) {
+    return publish(UUID.randomUUID().toString(), type, payload);
+  }
+
+  private OutboxEvent publish(String id, String type, Map<String, Object> payload) {
+    List<String> handlerNames = new ArrayList<>();
+    for (DomainEventHandler handler : handlers) {
+      if (handler.handles(type)) {
+        handlerNames.add(handler.getName());
+      }
+    }
+    if (handlerNames.isEmpty()) {
+      return null;
+    }
+    Instant now = Instant.now();
+    OutboxEvent event = new OutboxEvent(id, type, payload, now, now.plus(lease),
+        handlerNames, new ArrayList<>(), new HashMap<>(), null);
+    outboxRepository.insertEvent(event);
+    try {
+      if (!running || !queue.offer(event, publishTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        logger.warn("Domain event queue is full, {} {} will be delivered from the outbox", type, event.getId());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return event;
+  }
+
+  /**
+   * Relays the registrations not recorded yet, then claims the outbox events
+   * that are due, i.e. whose lease or retry delay has ended, and queues as many
+   * as there is room for. Also deletes the events that every handler has taken.
+   */
+  @Scheduled(fixedDelayString = "${cssa.outbox.poll-interval-millis}")
+  public void pollOutbox() {
+    relayRegistrationsSoon();
+    try {
+      // claimed one findAndModify at a time, so take no more than the workers need
+      int room = Math.min(queue.remainingCapacity(), batchSize * workerCount);
+      if (room > 0) {
+        Instant now = Instant.now();
+        for (OutboxEvent event : outboxRepository.claimDueEvents(now, now.plus(lease), room)) {
+          if (!queue.offer(event)) {
+            break;
+          }
+        }
+      }
+      outboxRepository.deleteDelivered();
+    } catch (DataAccessException e) {
+      logger.error("Could not poll the outbox", e);
+    }
+  }
+
+  private void work() {
+    List<OutboxEvent> batch = new ArrayList<>(batchSize);
+    while (running && !Thread.currentThread().isInterrupted()) {
+      try {
+        OutboxEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        deliver(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (RuntimeException e) {
+        // the events are claimed again once their lease ends
+        logger.error("Unexpected error while delivering {} domain events", batch.size(), e);
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void deliver(List<OutboxEvent> batch) {
+    for (DomainEventHandler handler : handlers) {
+      List<OutboxEvent> events = new ArrayList<>();
+      for (OutboxEvent event : batch) {
+        if (event.getPendingHandlers().contains(handler.getName())) {
+          events.add(event);
+        }
+      }
+      if (events.isEmpty()) {
+        continue;
+      }
+
+      Set<String> failedIds = Set.of();
+      Exception failure = null;
+      try {
+        handler.deliver(events);
+      } catch (PartialDeliveryException e) {
+        failedIds = e.getFailedEventIds();
+        failure = e;
+      } catch (Exception e) {
+        failedIds = null;
+        failure = e;
+      }
+
+      List<String> deliveredIds = new ArrayList<>();
+      for (OutboxEvent event : events) {
+        if (failedIds == null || failedIds.contains(event.getId())) {
+          retryLater(event, handler.getName(), failure);
+        } else {
+          deliveredIds.add(event.getId());
+        }
+      }
+      if (!deliveredIds.isEmpty()) {
+        outboxRepository.markDelivered(deliveredIds, handler.getName());
+      }
+    }
+  }
+
+  private void retryLater(OutboxEvent event, String handler, Exception failure) {
+    int attempts = event.attemptsFor(handler) + 1;
+    String error = failure.getClass().getSimpleName() + ": " + failure.getMessage();
+    if (attempts >= maxAttempts) {
+      logger.error("Giving up on {} {} for {} after {} attempts", event.getType(), event.getId(), handler, attempts,
+          failure);
+      outboxRepository.markFailed(event.getId(), handler, error);
+      return;
+    }
+    Duration delay = retryBaseDelay.multipliedBy(1L << Math.min(attempts - 1, 20));
+    if (delay.compareTo(MAX_RETRY_DELAY) > 0) {
+      delay = MAX_RETRY_DELAY;
+    }
+    logger.warn("Could not deliver {} {} to {}, retrying in {}", event.getType(), event.getId(), handler, delay,
+        failure);
+    outboxRepository.scheduleRetry(event.getId(), handler, Instant.now().plus(delay), error);
+  }
+}
@@ -0,0 +1,180 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import ca.mcgillcssa.cssabackend.dto.CSSAEventDTO;
+import ca.mcgillcssa.cssabackend.dto.MembershipBenefitDTO;
+import ca.mcgillcssa.cssabackend.dto.SponsorDTO;
+import ca.mcgillcssa.cssabackend.model.CSSAEvent;
+import ca.mcgillcssa.cssabackend.model.MembershipBenefit;
+import ca.mcgillcssa.cssabackend.model.Sponsor;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Builds the landing page in one request. The sponsors, upcoming events and
+ * membership benefits are read concurrently on a small, bounded pool. Each
+ * section has its own timeout, counted from when the page was requested. A
+ * section that fails or is not ready in time is left out and reported as such,
+ * the other sections are still returned.
+ */
+@Service
+public class HomepageService {
+
+  private static final Logger logger = LoggerFactory.getLogger(HomepageService.class);
+
+  public enum SectionStatus {
+    OK,
+    TIMED_OUT,
+    FAILED,
+    REJECTED
+  }
+
+  private final SponsorService sponsorService;
+  private final CSSAEventService cssaEventService;
+  private final MembershipBenefitService membershipBenefitService;
+  private final ThreadPoolExecutor executor;
+  private final Map<String, Long> sectionTimeoutMillis = new LinkedHashMap<>();
+  private final int upcomingEventLimit;
+
+  public HomepageService(SponsorService sponsorService, CSSAEventService cssaEventService,
+      MembershipBenefitService membershipBenefitService,
+      @Value("${cssa.homepage.threads}") int threads,
+      @Value("${cssa.homepage.queue-capacity}") int queueCapacity,
+      @Value("${cssa.homepage.sponsors-timeout-millis}") long sponsorsTimeoutMillis,
+      @Value("${cssa.homepage.events-timeout-millis}") long eventsTimeoutMillis,
+      @Value("${cssa.homepage.benefits-timeout-millis}") long benefitsTimeoutMillis,
+      @Value("${cssa.homepage.upcoming-event-limit}") int upcomingEventLimit) {
+    this.sponsorService = sponsorService;
+    this.cssaEventService = cssaEventService;
+    this.membershipBenefitService = membershipBenefitService;
+    this.sectionTimeoutMillis.put("sponsors", sponsorsTimeoutMillis);
+    this.sectionTimeoutMillis.put("events", eventsTimeoutMillis);
+    this.sectionTimeoutMillis.put("benefits", benefitsTimeoutMillis);
+    this.upcomingEventLimit = upcomingEventLimit;
+    AtomicInteger threadCount = new AtomicInteger();
+    // a full queue rejects new sections instead of letting requests pile up
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+          Thread thread = new Thread(runnable, "homepage-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * Reads all sections of the landing page concurrently.
+   *
+   * @return a map with the "sections" that loaded and the "status" of every
+   *         section
+   */
+  public Map<String, Object> getHomepage() {
+    Map<String, Callable<Object>> tasks = new LinkedHashMap<>();
+    tasks.put("sponsors", this::sponsorsByClass);
+    tasks.put("events", this::upcomingEvents);
+    tasks.put("benefits", this::benefits);
+
+    long start = System.nanoTime();
+    Map<String, Future<Object>> futures = new LinkedHashMap<>();
+    Map<String, SectionStatus> status = new LinkedHashMap<>();
+    // so that a section served stale marks the response as such
+    RequestAttributes request = RequestContextHolder.getRequestAttributes();
+    for (Map.Entry<String, Callable<Object>> task : tasks.entrySet()) {
+      try {
+        futures.put(task.getKey(), executor.submit(() -> {
+          RequestContextHolder.setRequestAttributes(request);
+          try {
+            return task.getValue().call();
+          } finally {
+            RequestContextHolder.resetRequestAttributes();
+          }
+        }));
+      } catch (RejectedExecutionException e) {
+        status.put(task.getKey(), SectionStatus.REJECTED);
+      }
+    }
+
+    Map<String, Object> sections = new HashMap<>();
+    for (Map.Entry<String, Future<Object>> future : futures.entrySet()) {
+      String section = future.getKey();
+      long deadline = start + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMillis.get(section));
+      try {
+        sections.put(section, future.getValue().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+        status.put(section, SectionStatus.OK);
+      } catch (TimeoutException e) {
+        future.getValue().cancel(true);
+        status.put(section, SectionStatus.TIMED_OUT);
+      } catch (ExecutionException e) {
+        logger.error("Could not load the {} section of the homepage", section, e.getCause());
+        status.put(section, SectionStatus.FAILED);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        futures.values().forEach(pending -> pending.cancel(true));
+        status.putIfAbsent(section, SectionStatus.TIMED_OUT);
+        break;
+      }
+    }
+    for (String section : tasks.keySet()) {
+      status.putIfAbsent(section, SectionStatus.TIMED_OUT);
+    }
+
+    Map<String, Object> homepage = new HashMap<>();
+    homepage.put("sections", sections);
+    homepage.put("status", status);
+    return homepage;
+  }
+
+  private Map<Sponsor.SponsorClass, List<SponsorDTO>> sponsorsByClass() {
+    Map<Sponsor.SponsorClass, List<SponsorDTO>> sponsors = new EnumMap<>(Sponsor.SponsorClass.class);
+    for (Sponsor.SponsorClass sponsorClass : Sponsor.SponsorClass.values()) {
+      sponsors.put(sponsorClass, new ArrayList<>());
+    }
+    for (Sponsor sponsor : sponsorService.findAllSponsors()) {
+      if (sponsor.getSponsorClass() != null) {
+        sponsors.get(sponsor.getSponsorClass()).add(new SponsorDTO(sponsor));
+      }
+    }
+    return sponsors;
+  }
+
+  private List<CSSAEventDTO> upcomingEvents() {
+    List<CSSAEventDTO> events = new ArrayList<>();
+    for (CSSAEvent event : cssaEventService.findUpcomingEvents(upcomingEventLimit)) {
+      events.add(new CSSAEventDTO(event));
+    }
+    return events;
+  }
+
+  private List<MembershipBenefitDTO> benefits() {
+    List<MembershipBenefitDTO> benefits = new ArrayList<>();
+    for (MembershipBenefit benefit : membershipBenefitService.findAllBenefits()) {
+      benefits.add(new MembershipBenefitDTO(benefit));
+    }
+    return benefits;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
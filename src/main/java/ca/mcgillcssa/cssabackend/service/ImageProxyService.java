@@ -0,0 +1,447 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import ca.mcgillcssa.cssabackend.repository.ImageSourceRepository;
+import ca.mcgillcssa.cssabackend.util.DiskLruCache;
+import ca.mcgillcssa.cssabackend.util.PinnedHttpClient;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Fetches images referenced by sponsors, events and benefits once, and keeps
+ * the originals and their thumbnails in a content-addressed on-disk cache.
+ *
+ * Only urls stored as the image of a sponsor, event or benefit are fetched, and
+ * only from public addresses: the host is resolved and checked before every
+ * request, redirects included, so the proxy cannot be pointed at loopback,
+ * link-local or private hosts. The request is sent to the address checked, the
+ * host is not resolved again where a rebinding DNS server could answer
+ * differently. The url to content mapping is refetched once it
+ * is older than the ref ttl, so an image replaced at the same url is picked up.
+ * Thumbnails are only made of images within the pixel cap, read from their
+ * header, since a small file can decode to a huge bitmap.
+ */
+@Service
+public class ImageProxyService {
+
+  public enum ThumbnailSize {
+    ORIGINAL(0),
+    SMALL(128),
+    MEDIUM(512);
+
+    private final int pixels;
+
+    ThumbnailSize(int pixels) {
+      this.pixels = pixels;
+    }
+
+    public int getPixels() {
+      return pixels;
+    }
+  }
+
+  @Data
+  @AllArgsConstructor
+  public static class CachedImage {
+    private Path path;
+    private String contentType;
+    private String etag;
+  }
+
+  private static final int MAX_REDIRECTS = 5;
+  private static final Set<Integer> REDIRECT_STATUSES = Set.of(301, 302, 303, 307, 308);
+
+  private final DiskLruCache blobs;
+  private final Path refsDirectory;
+  private final long maxSourceBytes;
+  private final long maxSourcePixels;
+  private final Duration refTtl;
+  private final Predicate<String> storedImageUrl;
+  private final Predicate<InetAddress> allowedAddress;
+  private final HostResolver resolver;
+  private final PinnedHttpClient httpClient;
+  private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+  @Autowired
+  public ImageProxyService(ImageSourceRepository imageSourceRepository,
+      @Value("${cssa.images.cache-dir}") String cacheDir,
+      @Value("${cssa.images.max-cache-bytes}") long maxCacheBytes,
+      @Value("${cssa.images.max-source-bytes}") long maxSourceBytes,
+      @Value("${cssa.images.max-source-pixels}") long maxSourcePixels,
+      @Value("${cssa.images.ref-ttl-seconds}") long refTtlSeconds) throws IOException {
+    this(cacheDir, maxCacheBytes, maxSourceBytes, maxSourcePixels, Duration.ofSeconds(refTtlSeconds),
+        imageSourceRepository::isStoredImageUrl, ImageProxyService::isPublicAddress);
+  }
+
+  ImageProxyService(String cacheDir, long maxCacheBytes, long maxSourceBytes, long maxSourcePixels,
+      Duration refTtl, Predicate<String> storedImageUrl, Predicate<InetAddress> allowedAddress) throws IOException {
+    this(cacheDir, maxCacheBytes, maxSourceBytes, maxSourcePixels, refTtl, storedImageUrl, allowedAddress,
+        InetAddress::getAllByName);
+  }
+
+  ImageProxyService(String cacheDir, long maxCacheBytes, long maxSourceBytes, long maxSourcePixels,
+      Duration refTtl, Predicate<String> storedImageUrl, Predicate<InetAddress> allowedAddress,
+      HostResolver resolver) throws IOException {
+    Path root = Paths.get(cacheDir);
+    this.blobs = new DiskLruCache(root.resolve("blobs"), maxCacheBytes);
+    this.refsDirectory = Files.createDirectories(root.resolve("refs"));
+    this.maxSourceBytes = maxSourceBytes;
+    this.maxSourcePixels = maxSourcePixels;
+    this.refTtl = refTtl;
+    this.storedImageUrl = storedImageUrl;
+    this.allowedAddress = allowedAddress;
+    this.resolver = resolver;
+    // redirects are followed by fetch, which checks the address of every hop
+    this.httpClient = new PinnedHttpClient(Duration.ofSeconds(5), Duration.ofSeconds(10));
+  }
+
+  interface HostResolver {
+    InetAddress[] resolve(String host) throws UnknownHostException;
+  }
+
+  /**
+   * Returns a cached copy of the image at the given url, fetching it from the
+   * origin only if it has not been fetched before or was evicted.
+   *
+   * @param url  the absolute http(s) url of the image
+   * @param size the thumbnail size, or ORIGINAL for the unmodified image
+   * @return the cached file together with its content type and etag
+   * @throws IllegalArgumentException if the url is invalid, is not stored on a
+   *                                  sponsor, event or benefit, resolves to a
+   *                                  non-public address, or does not point to
+   *                                  an image, or a thumbnail is asked of an
+   *                                  image above the pixel cap
+   * @throws IOException              if the origin cannot be reached
+   */
+  public CachedImage getImage(String url, ThumbnailSize size) throws IOException {
+    URI uri = parseUrl(url);
+    String hash = resolveContentHash(uri);
+    String extension = blobExtension(hash);
+    if (extension == null) {
+      // the ref survived but the blob was evicted
+      Files.deleteIfExists(refsDirectory.resolve(sha256(uri.toString())));
+      hash = resolveContentHash(uri);
+      extension = blobExtension(hash);
+      if (extension == null) {
+        throw new IOException("Image was evicted while being served");
+      }
+    }
+    if (size == ThumbnailSize.ORIGINAL) {
+      return cachedImage(hash, extension);
+    }
+
+    String thumbnailKey = hash + "-" + size.getPixels();
+    for (String thumbnailExtension : new String[] { "png", "jpeg" }) {
+      Path thumbnail = blobs.get(thumbnailKey + "." + thumbnailExtension);
+      if (thumbnail != null) {
+        return new CachedImage(thumbnail, "image/" + thumbnailExtension, thumbnailKey);
+      }
+    }
+
+    Path original = blobs.get(hash + "." + extension);
+    BufferedImage source = original == null ? null : decode(original);
+    if (source == null) {
+      // formats ImageIO cannot decode (webp) are served as they are
+      return cachedImage(hash, extension);
+    }
+    boolean alpha = source.getColorModel().hasAlpha();
+    String thumbnailExtension = alpha ? "png" : "jpeg";
+    byte[] encoded = encode(scale(source, size.getPixels(), alpha), thumbnailExtension);
+    Path stored = blobs.put(thumbnailKey + "." + thumbnailExtension, encoded);
+    return new CachedImage(stored, "image/" + thumbnailExtension, thumbnailKey);
+  }
+
+  private CachedImage cachedImage(String hash, String extension) throws IOException {
+    Path path = blobs.get(hash + "." + extension);
+    if (path == null) {
+      throw new IOException("Image was evicted while being served");
+    }
+    return new CachedImage(path, contentTypeOf(extension), hash);
+  }
+
+  private URI parseUrl(String url) {
+    if (url == null || url.isEmpty()) {
+      throw new IllegalArgumentException("Image url cannot be null or empty");
+    }
+    URI uri;
+    try {
+      uri = URI.create(url);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Image url format error");
+    }
+    if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme())) {
+      throw new IllegalArgumentException("Image url must use http or https");
+    }
+    if (uri.getHost() == null) {
+      throw new IllegalArgumentException("Image url has no host");
+    }
+    return uri;
+  }
+
+  /**
+   * Maps a url to the hash of its content, downloading it at most once even if
+   * several requests for the same url arrive together. A mapping older than the
+   * ref ttl is refetched; if the origin cannot be reached, the last content is
+   * served until it can.
+   */
+  private String resolveContentHash(URI uri) throws IOException {
+    Path ref = refsDirectory.resolve(sha256(uri.toString()));
+    String previous = null;
+    if (Files.exists(ref)) {
+      previous = Files.readString(ref, StandardCharsets.US_ASCII).trim();
+      if (Files.getLastModifiedTime(ref).toInstant().plus(refTtl).isAfter(Instant.now())) {
+        return previous;
+      }
+    }
+    CompletableFuture<String> future = new CompletableFuture<>();
+    CompletableFuture<String> existing = inFlight.putIfAbsent(uri.toString(), future);
+    if (existing != null) {
+      return join(existing);
+    }
+    try {
+      String hash;
+      try {
+        hash = fetch(uri);
+      } catch (IOException e) {
+        if (previous == null) {
+          throw e;
+        }
+        hash = previous;
+      }
+      Path tmp = Files.createTempFile(refsDirectory, ref.getFileName().toString(), ".tmp");
+      Files.writeString(tmp, hash, StandardCharsets.US_ASCII);
+      Files.move(tmp, ref, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      future.complete(hash);
+      return hash;
+    } catch (IOException | RuntimeException e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(uri.toString(), future);
+    }
+  }
+
+  private static String join(CompletableFuture<String> future) throws IOException {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private String fetch(URI uri) throws IOException {
+    if (!storedImageUrl.test(uri.toString())) {
+      throw new IllegalArgumentException("Url is not the image of a sponsor, event or benefit");
+    }
+    PinnedHttpClient.Response response = send(uri);
+    for (int redirects = 0; REDIRECT_STATUSES.contains(response.statusCode()); redirects++) {
+      response.close();
+      if (redirects == MAX_REDIRECTS) {
+        throw new IOException("Origin redirected more than " + MAX_REDIRECTS + " times");
+      }
+      String location = response.header("Location")
+          .orElseThrow(() -> new IOException("Origin redirected without a location"));
+      URI target;
+      try {
+        target = response.uri().resolve(location);
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Origin redirected to an invalid url", e);
+      }
+      response = send(parseUrl(target.toString()));
+    }
+    try (InputStream body = response.body()) {
+      if (response.statusCode() != 200) {
+        throw new IOException("Origin responded with status " + response.statusCode());
+      }
+      String contentType = response.header("Content-Type").orElse("").toLowerCase();
+      String extension = extensionOf(contentType);
+      if (extension == null) {
+        throw new IllegalArgumentException("Url does not point to a supported image: " + contentType);
+      }
+      byte[] data = body.readNBytes((int) Math.min(maxSourceBytes + 1, Integer.MAX_VALUE - 8));
+      if (data.length > maxSourceBytes) {
+        throw new IllegalArgumentException("Image is larger than " + maxSourceBytes + " bytes");
+      }
+      String hash = sha256(data);
+      if (blobs.get(hash + "." + extension) == null) {
+        blobs.put(hash + "." + extension, data);
+      }
+      return hash;
+    }
+  }
+
+  /**
+   * Resolves the host once, checks every address, then sends the request to
+   * the first address that accepts a connection.
+   */
+  private PinnedHttpClient.Response send(URI uri) throws IOException {
+    InetAddress[] addresses;
+    try {
+      addresses = resolver.resolve(uri.getHost());
+    } catch (UnknownHostException e) {
+      throw new IOException("Unknown host " + uri.getHost(), e);
+    }
+    for (InetAddress address : addresses) {
+      if (!allowedAddress.test(address)) {
+        throw new IllegalArgumentException("Image url does not resolve to a public address");
+      }
+    }
+    IOException failure = new IOException("No address for " + uri.getHost());
+    for (InetAddress address : addresses) {
+      try {
+        return httpClient.get(uri, address);
+      } catch (IOException e) {
+        failure = e;
+      }
+    }
+    throw failure;
+  }
+
+  /**
+   * @return false for loopback, link-local (cloud metadata), private, shared
+   *         (100.64.0.0/10), unique local (fc00::/7), wildcard and multicast
+   *         addresses
+   */
+  static boolean isPublicAddress(InetAddress address) {
+    if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+        || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+      return false;
+    }
+    byte[] bytes = address.getAddress();
+    if (bytes.length == 4) {
+      int first = bytes[0] & 0xff;
+      int second = bytes[1] & 0xff;
+      return first != 0 && !(first == 100 && (second & 0xc0) == 64);
+    }
+    return (bytes[0] & 0xfe) != 0xfc;
+  }
+
+  private String blobExtension(String hash) {
+    // svg blobs cached before it was refused are not served, they are left to eviction
+    for (String extension : new String[] { "png", "jpeg", "gif", "webp" }) {
+      if (blobs.get(hash + "." + extension) != null) {
+        return extension;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Decodes an image once its header shows it is within the pixel cap.
+   *
+   * @return null if no reader knows the format
+   */
+  private BufferedImage decode(Path path) throws IOException {
+    try (ImageInputStream in = ImageIO.createImageInputStream(path.toFile())) {
+      Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+      if (readers == null || !readers.hasNext()) {
+        return null;
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, true, true);
+        long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+        if (pixels > maxSourcePixels) {
+          throw new IllegalArgumentException("Image is larger than " + maxSourcePixels + " pixels");
+        }
+        return reader.read(0);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  private static BufferedImage scale(BufferedImage source, int maxPixels, boolean alpha) {
+    double ratio = Math.min(1.0, (double) maxPixels / Math.max(source.getWidth(), source.getHeight()));
+    int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+    int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+    BufferedImage target = new BufferedImage(width, height,
+        alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = target.createGraphics();
+    try {
+      graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      graphics.drawImage(source, 0, 0, width, height, null);
+    } finally {
+      graphics.dispose();
+    }
+    return target;
+  }
+
+  private static byte[] encode(BufferedImage image, String format) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    if (!ImageIO.write(image, format, out)) {
+      throw new IOException("No image writer for " + format);
+    }
+    return out.toByteArray();
+  }
+
+  private static String extensionOf(String contentType) {
+    if (contentType.startsWith("image/png")) {
+      return "png";
+    } else if (contentType.startsWith("image/jpeg") || contentType.startsWith("image/jpg")) {
+      return "jpeg";
+    } else if (contentType.startsWith("image/gif")) {
+      return "gif";
+    } else if (contentType.startsWith("image/webp")) {
+      return "webp";
+    }
+    // svg is refused: it can carry scripts, which would run on this origin
+    return null;
+  }
+
+  private static String contentTypeOf(String extension) {
+    return "image/" + extension;
+  }
+
+  private static String sha256(String value) {
+    return sha256(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String sha256(byte[] data) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,336 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import ca.mcgillcssa.cssabackend.model.Lease;
+import ca.mcgillcssa.cssabackend.model.LinkCheck;
+import ca.mcgillcssa.cssabackend.repository.LeaseRepository;
+import ca.mcgillcssa.cssabackend.repository.LinkCheckRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Probes every URL stored on sponsors, events and benefits on a schedule, so
+ * that links which broke after they were saved show up in a report. URLs are
+ * grouped by host: each host is crawled by one task at a time, with a pause
+ * between its requests, while a bounded pool crawls several hosts in
+ * parallel. A URL is probed with HEAD, and with GET if the server does not
+ * allow HEAD; any response under 400, after redirects, counts as reachable.
+ *
+ * One instance crawls at a time: a crawl takes the crawl lease first and
+ * extends it while it runs, and is skipped if another instance holds it. The
+ * scheduled crawl is also skipped when any instance completed one within the
+ * crawl interval.
+ *
+ * Not run under the inmemory profile, whose sponsors and events are not in
+ * MongoDB.
+ */
+@Service
+@Profile("!inmemory")
+public class LinkHealthService {
+
+  private static final Logger logger = LoggerFactory.getLogger(LinkHealthService.class);
+
+  static final String CRAWL_LEASE = "link-crawl";
+
+  private final LinkCheckRepository linkCheckRepository;
+  private final LeaseRepository leaseRepository;
+  private final int threads;
+  private final long perHostDelayMillis;
+  private final Duration timeout;
+  private final int brokenAfterFailures;
+  private final Duration crawlInterval;
+  private final Duration leaseDuration;
+  private final HttpClient httpClient;
+  // this instance, as the holder of the crawl lease
+  private final String leaseHolder = UUID.randomUUID().toString();
+
+  private volatile boolean running;
+  private volatile boolean stopping;
+  private volatile Instant startedAt;
+  private volatile Instant finishedAt;
+  private final AtomicInteger checked = new AtomicInteger();
+  private volatile String lastError;
+
+  public LinkHealthService(LinkCheckRepository linkCheckRepository, LeaseRepository leaseRepository,
+      @Value("${cssa.links.threads}") int threads,
+      @Value("${cssa.links.per-host-delay-millis}") long perHostDelayMillis,
+      @Value("${cssa.links.timeout-millis}") long timeoutMillis,
+      @Value("${cssa.links.broken-after-failures}") int brokenAfterFailures,
+      @Value("${cssa.links.crawl-interval-millis}") long crawlIntervalMillis,
+      @Value("${cssa.links.lease-millis}") long leaseMillis) {
+    this.linkCheckRepository = linkCheckRepository;
+    this.leaseRepository = leaseRepository;
+    this.threads = threads;
+    this.perHostDelayMillis = perHostDelayMillis;
+    this.timeout = Duration.ofMillis(timeoutMillis);
+    this.brokenAfterFailures = brokenAfterFailures;
+    this.crawlInterval = Duration.ofMillis(crawlIntervalMillis);
+    this.leaseDuration = Duration.ofMillis(leaseMillis);
+    this.httpClient = HttpClient.newBuilder()
+        .connectTimeout(timeout)
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .build();
+  }
+
+  @Scheduled(initialDelayString = "${cssa.links.crawl-interval-millis}",
+      fixedDelayString = "${cssa.links.crawl-interval-millis}")
+  public void scheduledCrawl() {
+    try {
+      if (!isDue(Instant.now())) {
+        logger.debug("Links were crawled within the last {}, skipped", crawlInterval);
+        return;
+      }
+    } catch (DataAccessException e) {
+      logger.error("Could not read when links were last crawled, retrying on the next schedule", e);
+      return;
+    }
+    start();
+  }
+
+  /**
+   * @return true unless an instance completed a crawl within the crawl interval
+   */
+  boolean isDue(Instant now) {
+    Instant completedAt = leaseRepository.findLease(CRAWL_LEASE).map(Lease::getCompletedAt).orElse(null);
+    return completedAt == null || !completedAt.isAfter(now.minus(crawlInterval));
+  }
+
+  /**
+   * Starts a crawl of every stored URL on a background thread.
+   *
+   * @return false if a crawl is already running
+   */
+  public synchronized boolean start() {
+    if (running) {
+      return false;
+    }
+    running = true;
+    stopping = false;
+    Thread thread = new Thread(this::crawlLogged, "link-crawler");
+    thread.setDaemon(true);
+    thread.start();
+    return true;
+  }
+
+  @PreDestroy
+  public void stop() {
+    stopping = true;
+  }
+
+  private void crawlLogged() {
+    try {
+      crawl();
+    } catch (DataAccessException | InterruptedException e) {
+      lastError = e.getMessage();
+      logger.error("Link crawl failed after {} links", checked.get(), e);
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+    } finally {
+      running = false;
+    }
+  }
+
+  /**
+   * Probes every stored URL and records the results, replacing those of the
+   * previous crawl, unless another instance is crawling.
+   *
+   * @return the results, one per URL, none if another instance is crawling
+   */
+  public List<LinkCheck> crawl() throws InterruptedException {
+    if (!renewLease()) {
+      logger.info("Another instance is crawling the links, skipped");
+      return List.of();
+    }
+    boolean completed = false;
+    try {
+      List<LinkCheck> checks = crawlLeased();
+      completed = checks != null && !stopping;
+      return checks == null ? List.of() : checks;
+    } finally {
+      try {
+        leaseRepository.release(CRAWL_LEASE, leaseHolder, Instant.now(), completed);
+      } catch (DataAccessException e) {
+        logger.warn("Could not release the link crawl lease, it expires by itself", e);
+      }
+    }
+  }
+
+  private boolean renewLease() {
+    Instant now = Instant.now();
+    return leaseRepository.tryAcquire(CRAWL_LEASE, leaseHolder, now, now.plus(leaseDuration));
+  }
+
+  /**
+   * @return the results, null if the lease was lost
+   */
+  private List<LinkCheck> crawlLeased() throws InterruptedException {
+    startedAt = Instant.now();
+    finishedAt = null;
+    checked.set(0);
+    lastError = null;
+    Map<String, Set<String>> urls = linkCheckRepository.findLinkedUrls();
+    Map<String, LinkCheck> previous = new HashMap<>();
+    for (LinkCheck check : linkCheckRepository.findAllLinkChecks()) {
+      previous.put(check.getUrl(), check);
+    }
+
+    Map<String, List<String>> byHost = new LinkedHashMap<>();
+    for (String url : urls.keySet()) {
+      byHost.computeIfAbsent(hostOf(url), host -> new ArrayList<>()).add(url);
+    }
+    logger.info("Crawling {} links on {} hosts", urls.size(), byHost.size());
+
+    ConcurrentLinkedQueue<LinkCheck> results = new ConcurrentLinkedQueue<>();
+    AtomicBoolean leaseLost = new AtomicBoolean();
+    AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "link-crawler-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      List<Future<?>> hosts = new ArrayList<>();
+      for (List<String> hostUrls : byHost.values()) {
+        hosts.add(pool.submit(() -> {
+          for (int i = 0; i < hostUrls.size() && !stopping && !leaseLost.get(); i++) {
+            if (i > 0) {
+              try {
+                Thread.sleep(perHostDelayMillis);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+              }
+            }
+            String url = hostUrls.get(i);
+            results.add(probe(url, List.copyOf(urls.get(url)), previous.get(url)));
+            checked.incrementAndGet();
+          }
+        }));
+      }
+      pool.shutdown();
+      while (!pool.awaitTermination(leaseDuration.toMillis() / 3, TimeUnit.MILLISECONDS)) {
+        if (!renewLease()) {
+          leaseLost.set(true);
+        }
+      }
+      for (Future<?> host : hosts) {
+        try {
+          host.get();
+        } catch (ExecutionException e) {
+          logger.warn("Crawling a host failed", e.getCause());
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    if (stopping) {
+      logger.info("Link crawl stopped after {} links, results not saved", results.size());
+      return List.copyOf(results);
+    }
+    // the results of an instance that took over would be overwritten otherwise
+    if (leaseLost.get() || !renewLease()) {
+      lastError = "Another instance took over the crawl";
+      logger.warn("Link crawl lease lost after {} links, results not saved", results.size());
+      return null;
+    }
+    List<LinkCheck> checks = List.copyOf(results);
+    linkCheckRepository.replaceLinkChecks(checks);
+    finishedAt = Instant.now();
+    long broken = checks.stream().filter(check -> check.getConsecutiveFailures() >= brokenAfterFailures).count();
+    logger.info("Crawled {} links in {} s, {} broken", checks.size(),
+        Duration.between(startedAt, finishedAt).toSeconds(), broken);
+    return checks;
+  }
+
+  LinkCheck probe(String url, List<String> sources, LinkCheck previous) {
+    Instant now = Instant.now();
+    int status = 0;
+    String error = null;
+    try {
+      URI uri = URI.create(url.startsWith("http://") || url.startsWith("https://") ? url : "https://" + url);
+      status = send(uri, "HEAD");
+      if (status == 405 || status == 501) {
+        status = send(uri, "GET");
+      }
+      if (status >= 400) {
+        error = "HTTP " + status;
+      }
+    } catch (IllegalArgumentException e) {
+      error = "Invalid URL";
+    } catch (IOException e) {
+      error = e.getClass().getSimpleName() + (e.getMessage() == null ? "" : ": " + e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      error = "Interrupted";
+    }
+    boolean ok = error == null;
+    int failures = ok ? 0 : (previous == null ? 0 : previous.getConsecutiveFailures()) + 1;
+    Instant lastOkAt = ok ? now : previous == null ? null : previous.getLastOkAt();
+    return new LinkCheck(url, sources, ok, status, error, now, lastOkAt, failures);
+  }
+
+  private int send(URI uri, String method) throws IOException, InterruptedException {
+    HttpRequest request = HttpRequest.newBuilder(uri)
+        .timeout(timeout)
+        .method(method, HttpRequest.BodyPublishers.noBody())
+        .build();
+    return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+  }
+
+  static String hostOf(String url) {
+    try {
+      URI uri = URI.create(url.startsWith("http://") || url.startsWith("https://") ? url : "https://" + url);
+      return uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+    } catch (IllegalArgumentException e) {
+      return "";
+    }
+  }
+
+  /**
+   * @return the links that failed brokenAfterFailures crawls in a row, with
+   *         the crawl status
+   */
+  public Map<String, Object> getBrokenLinksReport() {
+    Map<String, Object> report = new HashMap<>();
+    report.put("running", running);
+    report.put("checked", checked.get());
+    report.put("startedAt", startedAt == null ? null : startedAt.toString());
+    report.put("finishedAt", finishedAt == null ? null : finishedAt.toString());
+    report.put("lastError", lastError);
+    report.put("brokenAfterFailures", brokenAfterFailures);
+    report.put("broken", linkCheckRepository.findFailingLinks(brokenAfterFailures));
+    return report;
+  }
+}
@@ -0,0 +1,238 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import ca.mcgillcssa.cssabackend.repository.MemberLayout;
+import ca.mcgillcssa.cssabackend.repository.MemberMigrationStore;
+import ca.mcgillcssa.cssabackend.repository.RepositoryOverloadedException;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Rewrites member documents still in the legacy layout in the compact one, in
+ * batches in id order with a pause between them, on a background thread. Reads
+ * accept both layouts, so the application keeps serving members throughout.
+ * Before that, members stored under a school email that is not normalized are
+ * moved to the normalized one, which is what lookups and registration use; a
+ * member whose normalized email is already taken is left for an administrator.
+ * When the database sheds the migration's calls, it backs off and retries the
+ * batch. Members written between their read and their rewrite are read again
+ * and retried at the end of the pass, a few times at most.
+ *
+ * Only MongoDB holds legacy documents, so this does not run under the inmemory
+ * profile.
+ */
+@Service
+@Profile("!inmemory")
+public class MemberMigrationService {
+
+  private static final Logger logger = LoggerFactory.getLogger(MemberMigrationService.class);
+  private static final int OVERLOAD_BACKOFF_FACTOR = 10;
+  private static final int RETRY_ATTEMPTS = 3;
+
+  private final MemberMigrationStore migrationStore;
+  private final boolean runOnStartup;
+  private final int batchSize;
+  private final long pauseMillis;
+
+  private volatile boolean running;
+  private volatile boolean stopping;
+  private volatile long scanned;
+  private volatile long normalized;
+  private volatile long rewritten;
+  private volatile long skipped;
+  private volatile Instant startedAt;
+  private volatile Instant finishedAt;
+  private volatile String lastError;
+
+  public MemberMigrationService(MemberMigrationStore migrationStore,
+      @Value("${cssa.members.migration.run-on-startup}") boolean runOnStartup,
+      @Value("${cssa.members.migration.batch-size}") int batchSize,
+      @Value("${cssa.members.migration.pause-millis}") long pauseMillis) {
+    this.migrationStore = migrationStore;
+    this.runOnStartup = runOnStartup;
+    this.batchSize = batchSize;
+    this.pauseMillis = pauseMillis;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void startOnStartup() {
+    if (runOnStartup) {
+      start();
+    }
+  }
+
+  /**
+   * Starts a pass over the legacy documents.
+   *
+   * @return false if a pass is already running
+   */
+  public synchronized boolean start() {
+    if (running) {
+      return false;
+    }
+    running = true;
+    stopping = false;
+    scanned = 0;
+    normalized = 0;
+    rewritten = 0;
+    skipped = 0;
+    startedAt = Instant.now();
+    finishedAt = null;
+    lastError = null;
+    Thread thread = new Thread(this::migrate, "member-migration");
+    thread.setDaemon(true);
+    thread.start();
+    return true;
+  }
+
+  @PreDestroy
+  public void stop() {
+    stopping = true;
+  }
+
+  private void migrate() {
+    logger.info("Migrating members to the compact layout, {} per batch", batchSize);
+    try {
+      normalizeSchoolEmails();
+      rewriteLegacyMembers();
+      long remaining = migrationStore.countLegacyMembers();
+      logger.info("Member migration {}: {} scanned, {} normalized, {} rewritten, {} skipped, "
+          + "{} left in the legacy layout", stopping ? "stopped" : "finished", scanned, normalized, rewritten,
+          skipped, remaining);
+    } catch (DataAccessException e) {
+      lastError = e.getMessage();
+      logger.error("Member migration failed after {} documents, start it again to resume", scanned, e);
+    } finally {
+      finishedAt = Instant.now();
+      running = false;
+    }
+  }
+
+  private void normalizeSchoolEmails() {
+    String afterId = null;
+    while (!stopping) {
+      List<Document> batch;
+      try {
+        batch = migrationStore.findUnnormalizedMembers(afterId, batchSize);
+      } catch (RepositoryOverloadedException e) {
+        pause(pauseMillis * OVERLOAD_BACKOFF_FACTOR);
+        continue;
+      }
+      if (batch.isEmpty()) {
+        return;
+      }
+      for (Document document : convertible(batch)) {
+        try {
+          if (migrationStore.moveToNormalizedId(document)) {
+            normalized++;
+          }
+        } catch (DuplicateKeyException e) {
+          skipped++;
+          logger.warn("Leaving member {} under its school email, the normalized one is already taken",
+              document.get(MemberLayout.ID));
+        }
+      }
+      scanned += batch.size();
+      afterId = batch.get(batch.size() - 1).getString(MemberLayout.ID);
+      pause(pauseMillis);
+    }
+  }
+
+  private void rewriteLegacyMembers() {
+    Set<String> changed = new HashSet<>();
+    String afterId = null;
+    while (!stopping) {
+      List<Document> batch;
+      List<Document> convertible;
+      int count;
+      try {
+        batch = migrationStore.findLegacyMembers(afterId, batchSize);
+        if (batch.isEmpty()) {
+          break;
+        }
+        convertible = convertible(batch);
+        count = migrationStore.rewriteLegacyMembers(convertible);
+      } catch (RepositoryOverloadedException e) {
+        pause(pauseMillis * OVERLOAD_BACKOFF_FACTOR);
+        continue;
+      }
+      scanned += batch.size();
+      rewritten += count;
+      if (count < convertible.size()) {
+        // the batch's members still in the legacy layout are found again below
+        convertible.forEach(document -> changed.add(document.getString(MemberLayout.ID)));
+      }
+      afterId = batch.get(batch.size() - 1).getString(MemberLayout.ID);
+      pause(pauseMillis);
+    }
+    retryChanged(changed);
+  }
+
+  private void retryChanged(Set<String> changed) {
+    for (int attempt = 0; attempt < RETRY_ATTEMPTS && !changed.isEmpty() && !stopping; attempt++) {
+      try {
+        List<Document> legacy = convertible(migrationStore.findLegacyMembers(changed));
+        rewritten += migrationStore.rewriteLegacyMembers(legacy);
+        changed.clear();
+        legacy.forEach(document -> changed.add(document.getString(MemberLayout.ID)));
+      } catch (RepositoryOverloadedException e) {
+        pause(pauseMillis * OVERLOAD_BACKOFF_FACTOR);
+        continue;
+      }
+      pause(pauseMillis);
+    }
+  }
+
+  private List<Document> convertible(List<Document> batch) {
+    List<Document> convertible = new ArrayList<>(batch.size());
+    for (Document document : batch) {
+      try {
+        MemberLayout.fromDocument(document);
+        convertible.add(document);
+      } catch (IllegalArgumentException | ClassCastException e) {
+        skipped++;
+        logger.warn("Leaving member {} as it is: {}", document.get(MemberLayout.ID), e.getMessage());
+      }
+    }
+    return convertible;
+  }
+
+  private void pause(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      stopping = true;
+    }
+  }
+
+  public Map<String, Object> getStatus() {
+    Map<String, Object> status = new HashMap<>();
+    status.put("running", running);
+    status.put("scanned", scanned);
+    status.put("normalized", normalized);
+    status.put("rewritten", rewritten);
+    status.put("skipped", skipped);
+    status.put("startedAt", startedAt == null ? null : startedAt.toString());
+    status.put("finishedAt", finishedAt == null ? null : finishedAt.toString());
+    status.put("lastError", lastError);
+    return status;
+  }
+}
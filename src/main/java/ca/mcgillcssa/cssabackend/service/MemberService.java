@@ -1,23 +1,59 @@
 package ca.mcgillcssa.cssabackend.service;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import ca.mcgillcssa.cssabackend.dto.MemberSummaryDTO;
+import ca.mcgillcssa.cssabackend.event.CollectionChangedEvent;
+import ca.mcgillcssa.cssabackend.event.MemberChangedEvent;
+import ca.mcgillcssa.cssabackend.event.MemberChangedEvent.ChangeType;
 import ca.mcgillcssa.cssabackend.model.Member;
+import ca.mcgillcssa.cssabackend.repository.MemberLayout;
 import ca.mcgillcssa.cssabackend.repository.MemberRepository;
+import ca.mcgillcssa.cssabackend.util.BoundedTtlCache;
 import ca.mcgillcssa.cssabackend.util.EmailAddressChecker;
+import ca.mcgillcssa.cssabackend.util.SingleFlight;
 
 @Service
 public class MemberService {
 
-  private final MemberRepository memberRepository;
+  public static final int MAX_BATCH_LOOKUP = 1000;
+  // keeps each $in query, and the documents it returns, small
+  private static final int BATCH_LOOKUP_CHUNK_SIZE = 200;
 
-  public MemberService(MemberRepository memberRepository) {
+  private final MemberRepository memberRepository;
+  private final MemberWriteBatcher memberWriteBatcher;
+  private final ApplicationEventPublisher eventPublisher;
+  private final BoundedTtlCache<String, Member> byPersonalEmail;
+  private final BoundedTtlCache<String, Member> bySchoolEmail;
+  private final SingleFlight<String, Optional<Member>> personalEmailLookups = new SingleFlight<>();
+  private final SingleFlight<String, Optional<Member>> schoolEmailLookups = new SingleFlight<>();
+
+  public MemberService(MemberRepository memberRepository, MemberWriteBatcher memberWriteBatcher,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${cssa.members.cache.max-entries}") int cacheMaxEntries,
+      @Value("${cssa.members.cache.ttl-seconds}") long cacheTtlSeconds,
+      @Value("${cssa.members.cache.negative-ttl-seconds}") long cacheNegativeTtlSeconds) {
     this.memberRepository = memberRepository;
+    this.memberWriteBatcher = memberWriteBatcher;
+    this.eventPublisher = eventPublisher;
+    Duration ttl = Duration.ofSeconds(cacheTtlSeconds);
+    Duration negativeTtl = Duration.ofSeconds(cacheNegativeTtlSeconds);
+    this.byPersonalEmail = new BoundedTtlCache<>(cacheMaxEntries, ttl, negativeTtl);
+    this.bySchoolEmail = new BoundedTtlCache<>(cacheMaxEntries, ttl, negativeTtl);
   }
 
   public Member createMember(String name, String pseudo, String personalEmail, String schoolEmail, String wechatId,
@@ -29,15 +65,18 @@ public class MemberService {
       throw new IllegalArgumentException(
           "Missing information: name, personal email, mcgill email, birthday, department and position are required.");
     }
+    // stored as check-in and batch lookups compare it
+    schoolEmail = EmailAddressChecker.normalize(schoolEmail);
 
-    if (findByPersonalEmail(personalEmail).isPresent()) {
+    // duplicate checks go to the database, a cached miss may be stale
+    if (memberRepository.findByPersonalEmail(personalEmail).isPresent()) {
       throw new IllegalArgumentException("A member with the personal email " +
           personalEmail + " already exists.");
     }
 
-    if (findBySchoolEmail(personalEmail).isPresent()) {
+    if (memberRepository.findBySchoolEmail(schoolEmail).isPresent()) {
       throw new IllegalArgumentException("A member with the school email " +
-          personalEmail + " already exists.");
+          schoolEmail + " already exists.");
     }
 
     if (!EmailAddressChecker.isValidPersonalEmail(personalEmail)) {
@@ -80,15 +119,61 @@ public class MemberService {
     Member newMember = new Member(name, pseudo, personalEmail, schoolEmail, wechatId, caPhoneNum, cnPhoneNum, birthday,
         department, position, clothSize);
 
-    return memberRepository.createMember(newMember);
+    Member saved;
+    try {
+      saved = memberWriteBatcher.write(newMember);
+    } catch (DuplicateKeyException e) {
+      // lost a race with a concurrent registration for the same school email
+      throw new IllegalArgumentException("A member with the school email " +
+          schoolEmail + " already exists.");
+    }
+    byPersonalEmail.invalidate(personalEmail);
+    bySchoolEmail.invalidate(schoolEmail);
+    eventPublisher.publishEvent(new MemberChangedEvent(ChangeType.CREATED, saved));
+    return saved;
   }
 
   public Optional<Member> findByPersonalEmail(String personalEmail) {
-    return memberRepository.findByPersonalEmail(personalEmail);
+    return byPersonalEmail.get(personalEmail,
+        key -> personalEmailLookups.execute(key, () -> memberRepository.findByPersonalEmail(key)));
+  }
+
+  public Optional<Member> findBySchoolEmail(String schoolEmail) {
+    return bySchoolEmail.get(EmailAddressChecker.normalize(schoolEmail),
+        key -> schoolEmailLookups.execute(key, () -> memberRepository.findBySchoolEmail(key)));
   }
 
-  public Optional<Member> findBySchoolEmail(String personalEmail) {
-    return memberRepository.findBySchoolEmail(personalEmail);
+  /**
+   * Looks up many members by school email at once, reading only the fields of
+   * MemberSummaryDTO. Bypasses the lookup cache, which holds whole members.
+   *
+   * @param schoolEmails the school emails to look up, duplicates are ignored
+   * @return the members found, keyed by the school email they were asked by
+   * @throws IllegalArgumentException if no emails or more than MAX_BATCH_LOOKUP
+   *                                  are given
+   */
+  public Map<String, Member> findBySchoolEmails(Collection<String> schoolEmails) {
+    if (schoolEmails == null || schoolEmails.isEmpty()) {
+      throw new IllegalArgumentException("Please provide at least one school email.");
+    }
+    LinkedHashSet<String> emails = new LinkedHashSet<>(schoolEmails);
+    emails.remove(null);
+    if (emails.size() > MAX_BATCH_LOOKUP) {
+      throw new IllegalArgumentException("At most " + MAX_BATCH_LOOKUP + " school emails can be looked up at once.");
+    }
+    Map<String, Member> byEmail = new HashMap<>();
+    for (Member member : memberRepository.findBySchoolEmails(emails, BATCH_LOOKUP_CHUNK_SIZE,
+        MemberSummaryDTO.FIELDS)) {
+      byEmail.put(EmailAddressChecker.normalize(member.getSchoolEmail()), member);
+    }
+    Map<String, Member> found = new HashMap<>();
+    for (String email : emails) {
+      Member member = byEmail.get(EmailAddressChecker.normalize(email));
+      if (member != null) {
+        found.put(email, member);
+      }
+    }
+    return found;
   }
 
   public List<Member> findByBirthdayMonth(int birthMonth) {
@@ -96,10 +181,51 @@ public class MemberService {
   }
 
   public boolean deleteByPersonalEmail(String personalEmail) {
-    return memberRepository.deleteByPersonalEmail(personalEmail);
+    Optional<Member> deleted = memberRepository.deleteByPersonalEmail(personalEmail);
+    byPersonalEmail.invalidate(personalEmail);
+    deleted.ifPresent(this::memberDeleted);
+    return deleted.isPresent();
   }
 
   public boolean deleteBySchoolEmail(String schoolEmail) {
-    return memberRepository.deleteBySchoolEmail(schoolEmail);
+    schoolEmail = EmailAddressChecker.normalize(schoolEmail);
+    Optional<Member> deleted = memberRepository.deleteBySchoolEmail(schoolEmail);
+    bySchoolEmail.invalidate(schoolEmail);
+    deleted.ifPresent(this::memberDeleted);
+    return deleted.isPresent();
+  }
+
+  private void memberDeleted(Member member) {
+    byPersonalEmail.invalidate(member.getPersonalEmail());
+    bySchoolEmail.invalidate(member.getSchoolEmail());
+    eventPublisher.publishEvent(new MemberChangedEvent(ChangeType.DELETED, member));
+  }
+
+  /**
+   * Drops cached lookups of members changed by any instance. A change without
+   * the member's document, such as a delete, clears every personal email
+   * lookup, since the personal email of the member is not known.
+   */
+  @EventListener(condition = "#event.collection == 'members'")
+  public void onMembersChanged(CollectionChangedEvent event) {
+    if (event.getDocumentId() == null) {
+      byPersonalEmail.invalidateAll();
+      bySchoolEmail.invalidateAll();
+      return;
+    }
+    bySchoolEmail.invalidate(event.getDocumentId());
+    String personalEmail = event.getDocument() == null ? null : MemberLayout.personalEmailOf(event.getDocument());
+    if (personalEmail != null) {
+      byPersonalEmail.invalidate(personalEmail);
+    } else {
+      byPersonalEmail.invalidateAll();
+    }
+  }
+
+  public Map<String, Object> getLookupCacheStats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("personalEmail", byPersonalEmail.getStats());
+    stats.put("schoolEmail", bySchoolEmail.getStats());
+    return stats;
   }
-}
\ No newline at end of file
+}
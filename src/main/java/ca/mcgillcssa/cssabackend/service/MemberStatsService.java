@@ -0,0 +1,244 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import ca.mcgillcssa.cssabackend.event.CollectionChangedEvent;
+import ca.mcgillcssa.cssabackend.event.MemberChangedEvent;
+import ca.mcgillcssa.cssabackend.model.Member;
+import ca.mcgillcssa.cssabackend.repository.MemberRepository;
+
+/**
+ * Keeps member counts by department, position and cloth size in memory. The
+ * counters are adjusted from MemberChangedEvents as members register or leave,
+ * and periodically replaced by a fresh $facet aggregation to correct any drift,
+ * e.g. from documents edited directly in the database.
+ *
+ * Members written by other instances arrive as CollectionChangedEvents, which
+ * do not say what a deleted member was counted under, so they are recounted
+ * shortly after instead. The echoes of this instance's own writes, recognized
+ * by their document id, are skipped.
+ */
+@Service
+public class MemberStatsService {
+
+  private static final Logger logger = LoggerFactory.getLogger(MemberStatsService.class);
+  // longer than a change takes to come back through the change stream
+  private static final long OWN_WRITE_TTL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  private static class Counts {
+    private final EnumMap<Member.Department, Long> byDepartment = new EnumMap<>(Member.Department.class);
+    private final EnumMap<Member.Position, Long> byPosition = new EnumMap<>(Member.Position.class);
+    private final EnumMap<Member.ClothSize, Long> byClothSize = new EnumMap<>(Member.ClothSize.class);
+
+    void apply(MemberChangedEvent event) {
+      long delta = event.getChangeType() == MemberChangedEvent.ChangeType.CREATED ? 1 : -1;
+      Member member = event.getMember();
+      add(byDepartment, member.getDepartment(), delta);
+      add(byPosition, member.getPosition(), delta);
+      add(byClothSize, member.getClothSize(), delta);
+    }
+
+    long total() {
+      return byDepartment.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private static <E extends Enum<E>> void add(EnumMap<E, Long> counts, E key, long delta) {
+      if (key != null) {
+        counts.merge(key, delta, Long::sum);
+      }
+    }
+  }
+
+  private final MemberRepository memberRepository;
+
+  // guards counts and the journal of changes made while reconciling
+  private final Object lock = new Object();
+  private final Object reconcileLock = new Object();
+  private Counts counts;
+  private List<MemberChangedEvent> journal;
+  private Instant reconciledAt;
+  private long lastDrift;
+  // school email -> System.nanoTime() of the write, for members written by this instance
+  private final Map<String, Long> ownWrites = new ConcurrentHashMap<>();
+  private volatile boolean stale;
+
+  public MemberStatsService(MemberRepository memberRepository) {
+    this.memberRepository = memberRepository;
+  }
+
+  // run by StartupTasks once the application is ready
+  public void loadOnStartup() {
+    try {
+      reconcile();
+    } catch (DataAccessException e) {
+      logger.error("Could not count members, retrying on the next reconciliation", e);
+    }
+  }
+
+  @Scheduled(initialDelayString = "${cssa.members.stats.reconcile-interval-millis}",
+      fixedDelayString = "${cssa.members.stats.reconcile-interval-millis}")
+  public void scheduledReconcile() {
+    loadOnStartup();
+  }
+
+  /**
+   * Recounts all members in the database and replaces the in-memory counters.
+   * Member changes journaled while the aggregation runs are replayed onto the
+   * new counts, except those written before the aggregation started, which it
+   * has already counted. A change written while the aggregation runs may be
+   * counted twice, until the next reconciliation.
+   */
+  public void reconcile() {
+    synchronized (reconcileLock) {
+      synchronized (lock) {
+        journal = new ArrayList<>();
+      }
+      long readPointNanos = System.nanoTime();
+      Map<String, Map<String, Long>> aggregated;
+      try {
+        aggregated = memberRepository.countByDepartmentPositionAndClothSize();
+      } catch (RuntimeException e) {
+        synchronized (lock) {
+          journal = null;
+        }
+        throw e;
+      }
+
+      Counts recounted = new Counts();
+      copy(aggregated.get("department"), recounted.byDepartment, Member.Department.class);
+      copy(aggregated.get("position"), recounted.byPosition, Member.Position.class);
+      copy(aggregated.get("clothSize"), recounted.byClothSize, Member.ClothSize.class);
+
+      synchronized (lock) {
+        for (MemberChangedEvent event : journal) {
+          if (event.getWrittenAtNanos() - readPointNanos >= 0) {
+            recounted.apply(event);
+          }
+        }
+        if (counts != null) {
+          lastDrift = drift(counts.byDepartment, recounted.byDepartment)
+              + drift(counts.byPosition, recounted.byPosition)
+              + drift(counts.byClothSize, recounted.byClothSize);
+          if (lastDrift > 0) {
+            logger.warn("Member statistics were off by {}, corrected from the database", lastDrift);
+          }
+        }
+        counts = recounted;
+        reconciledAt = Instant.now();
+        journal = null;
+      }
+    }
+  }
+
+  /**
+   * Recounts the members if another instance changed any since the last check.
+   */
+  @Scheduled(fixedDelayString = "${cssa.members.stats.remote-change-check-millis}")
+  public void reconcileIfStale() {
+    long now = System.nanoTime();
+    ownWrites.values().removeIf(writtenAt -> now - writtenAt > OWN_WRITE_TTL_NANOS);
+    if (!stale) {
+      return;
+    }
+    // changes made while recounting mark the counts stale again
+    stale = false;
+    try {
+      reconcile();
+    } catch (DataAccessException e) {
+      stale = true;
+      logger.error("Could not recount members changed by other instances, retrying on the next check", e);
+    }
+  }
+
+  @EventListener(condition = "#event.collection == 'members'")
+  public void onMembersChanged(CollectionChangedEvent event) {
+    if (event.getDocumentId() != null && ownWrites.remove(event.getDocumentId()) != null) {
+      return;
+    }
+    stale = true;
+  }
+
+  @EventListener
+  public void onMemberChanged(MemberChangedEvent event) {
+    ownWrites.put(event.getMember().getSchoolEmail(), event.getWrittenAtNanos());
+    synchronized (lock) {
+      if (counts != null) {
+        counts.apply(event);
+      }
+      if (journal != null) {
+        journal.add(event);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of members per department, position and cloth size, from
+   * memory only.
+   *
+   * @return the counts, with zero for values no member has
+   * @throws IllegalStateException if the members have not been counted yet
+   */
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new HashMap<>();
+    synchronized (lock) {
+      if (counts == null) {
+        throw new IllegalStateException("Member statistics are still loading, please retry shortly");
+      }
+      stats.put("total", counts.total());
+      stats.put("department", withZeros(counts.byDepartment, Member.Department.class));
+      stats.put("position", withZeros(counts.byPosition, Member.Position.class));
+      stats.put("clothSize", withZeros(counts.byClothSize, Member.ClothSize.class));
+      stats.put("reconciledAt", reconciledAt.toString());
+      stats.put("lastDrift", lastDrift);
+    }
+    return stats;
+  }
+
+  private static <E extends Enum<E>> void copy(Map<String, Long> source, EnumMap<E, Long> target, Class<E> type) {
+    if (source == null) {
+      return;
+    }
+    for (Map.Entry<String, Long> entry : source.entrySet()) {
+      try {
+        target.put(Enum.valueOf(type, entry.getKey()), entry.getValue());
+      } catch (IllegalArgumentException e) {
+        logger.warn("Ignoring {} members with unknown {} {}", entry.getValue(), type.getSimpleName(), entry.getKey());
+      }
+    }
+  }
+
+  private static <E extends Enum<E>> long drift(EnumMap<E, Long> before, EnumMap<E, Long> after) {
+    long drift = 0;
+    for (E key : after.keySet()) {
+      drift += Math.abs(after.get(key) - before.getOrDefault(key, 0L));
+    }
+    for (E key : before.keySet()) {
+      if (!after.containsKey(key)) {
+        drift += Math.abs(before.get(key));
+      }
+    }
+    return drift;
+  }
+
+  private static <E extends Enum<E>> Map<E, Long> withZeros(EnumMap<E, Long> counts, Class<E> type) {
+    EnumMap<E, Long> result = new EnumMap<>(type);
+    for (E key : type.getEnumConstants()) {
+      result.put(key, counts.getOrDefault(key, 0L));
+    }
+    return result;
+  }
+}
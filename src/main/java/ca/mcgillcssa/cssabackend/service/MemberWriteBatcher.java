@@ -0,0 +1,196 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+
+import ca.mcgillcssa.cssabackend.model.Member;
+import ca.mcgillcssa.cssabackend.repository.MemberRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Writes new members either one at a time or, in group-commit mode, through a
+ * bounded queue drained by a single writer thread. The writer sends a batch as
+ * soon as it is full or the oldest registration in it has waited for the
+ * configured delay. Callers block until their own batch is acknowledged, so a
+ * registration that returns is as durable as a direct write. Both modes insert,
+ * so an existing member is rejected the same way whichever is configured.
+ */
+@Component
+public class MemberWriteBatcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(MemberWriteBatcher.class);
+
+  private static class PendingWrite {
+    private final Member member;
+    private final CompletableFuture<Member> result = new CompletableFuture<>();
+
+    PendingWrite(Member member) {
+      this.member = member;
+    }
+  }
+
+  private final MemberRepository memberRepository;
+  private final boolean enabled;
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final long enqueueTimeoutMillis;
+  private final BlockingQueue<PendingWrite> queue;
+  private volatile boolean running;
+  private Thread writer;
+
+  public MemberWriteBatcher(MemberRepository memberRepository,
+      @Value("${cssa.members.group-commit.enabled}") boolean enabled,
+      @Value("${cssa.members.group-commit.queue-capacity}") int queueCapacity,
+      @Value("${cssa.members.group-commit.max-batch-size}") int maxBatchSize,
+      @Value("${cssa.members.group-commit.max-delay-millis}") long maxDelayMillis,
+      @Value("${cssa.members.group-commit.enqueue-timeout-millis}") long enqueueTimeoutMillis) {
+    this.memberRepository = memberRepository;
+    this.enabled = enabled;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+    this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    writer = new Thread(this::drain, "member-group-commit");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    if (writer != null) {
+      writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+    PendingWrite pending;
+    while ((pending = queue.poll()) != null) {
+      pending.result.completeExceptionally(new DataAccessResourceFailureException("Server is shutting down"));
+    }
+  }
+
+  /**
+   * Persists a new member and returns once the write is acknowledged.
+   *
+   * @param member the member to insert
+   * @return the saved member
+   * @throws org.springframework.dao.DuplicateKeyException if the member already
+   *                                                       exists
+   * @throws DataAccessException                           if the write failed
+   */
+  public Member write(Member member) {
+    if (!enabled) {
+      DataAccessException failure = memberRepository.insertMembers(List.of(member)).get(0);
+      if (failure != null) {
+        throw failure;
+      }
+      return member;
+    }
+
+    PendingWrite pending = new PendingWrite(member);
+    try {
+      if (!running || !queue.offer(pending, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        throw new DataAccessResourceFailureException("Registration queue is full, please retry");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DataAccessResourceFailureException("Interrupted while queueing registration", e);
+    }
+
+    try {
+      return pending.result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private void drain() {
+    List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+    while ((running || !queue.isEmpty()) && !Thread.currentThread().isInterrupted()) {
+      try {
+        PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxBatchSize) {
+          // take whatever is already queued before waiting for more
+          if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+            continue;
+          }
+          long remaining = deadline - System.nanoTime();
+          if (remaining <= 0) {
+            break;
+          }
+          PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        flush(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        running = false;
+      } catch (RuntimeException e) {
+        logger.error("Unexpected error in member group commit", e);
+      } finally {
+        for (PendingWrite pending : batch) {
+          pending.result.completeExceptionally(
+              new DataAccessResourceFailureException("Registration was not written"));
+        }
+        batch.clear();
+      }
+    }
+  }
+
+  private void flush(List<PendingWrite> batch) {
+    List<Member> members = new ArrayList<>(batch.size());
+    for (PendingWrite pending : batch) {
+      members.add(pending.member);
+    }
+
+    Map<Integer, DataAccessException> failures;
+    try {
+      failures = memberRepository.insertMembers(members);
+    } catch (DataAccessException e) {
+      for (PendingWrite pending : batch) {
+        pending.result.completeExceptionally(e);
+      }
+      return;
+    }
+
+    for (int i = 0; i < batch.size(); i++) {
+      DataAccessException failure = failures.get(i);
+      if (failure == null) {
+        batch.get(i).result.complete(members.get(i));
+      } else {
+        batch.get(i).result.completeExceptionally(failure);
+      }
+    }
+  }
+}
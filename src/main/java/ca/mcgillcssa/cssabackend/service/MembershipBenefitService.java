@@ -0,0 +1,71 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.util.List;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import ca.mcgillcssa.cssabackend.event.CollectionChangedEvent;
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
+import ca.mcgillcssa.cssabackend.model.MembershipBenefit;
+import ca.mcgillcssa.cssabackend.repository.MembershipBenefitRepository;
+import ca.mcgillcssa.cssabackend.util.VersionedCache;
+
+@Service
+public class MembershipBenefitService {
+  private final MembershipBenefitRepository membershipBenefitRepository;
+  private final StaleReadService staleReads;
+  private final VersionedCache<List<MembershipBenefit>> allBenefits = new VersionedCache<>();
+
+  public MembershipBenefitService(MembershipBenefitRepository membershipBenefitRepository,
+      StaleReadService staleReads) {
+    this.membershipBenefitRepository = membershipBenefitRepository;
+    this.staleReads = staleReads;
+  }
+
+  public MembershipBenefit saveBenefit(String merchantName, String merchantBackgroundImageUrl,
+      String merchantDiscount, String merchantLogoUrl, String merchantTypeStr) {
+    if (merchantName == null || merchantName.isBlank() || merchantDiscount == null || merchantTypeStr == null) {
+      throw new IllegalArgumentException("Missing information: merchant name, discount and type are required.");
+    }
+    MembershipBenefit.MerchantType merchantType;
+    try {
+      merchantType = MembershipBenefit.MerchantType.valueOf(merchantTypeStr.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("No merchant type with name " + merchantTypeStr + ".");
+    }
+    return membershipBenefitRepository.saveBenefit(new MembershipBenefit(merchantName, merchantBackgroundImageUrl,
+        merchantDiscount, merchantLogoUrl, merchantType, 0));
+  }
+
+  /**
+   * @return the benefit catalogue, kept in memory until a benefit changes on
+   *         any instance, and served stale while the database is unavailable
+   */
+  public List<MembershipBenefit> findAllBenefits() {
+    return staleReads.read("benefits/all", () -> allBenefits.get(() -> {
+      long version = membershipBenefitRepository.findVersion();
+      return new VersionedCache.Entry<>(version, List.copyOf(membershipBenefitRepository.findAllBenefits()));
+    }));
+  }
+
+  public VersionedCache<List<MembershipBenefit>> getAllBenefitsCache() {
+    return allBenefits;
+  }
+
+  @EventListener(condition = "#event.topic == 'benefits'")
+  public void onBenefitChanged(EntityChangedEvent event) {
+    allBenefits.invalidate();
+    staleReads.invalidate(EntityChangedEvent.BENEFITS);
+  }
+
+  @EventListener(condition = "#event.collection == 'benefits'")
+  public void onBenefitsChanged(CollectionChangedEvent event) {
+    allBenefits.invalidate();
+    staleReads.invalidate(EntityChangedEvent.BENEFITS);
+  }
+
+  public boolean deleteBenefit(String merchantName) {
+    return membershipBenefitRepository.deleteBenefitByMerchantName(merchantName);
+  }
+}
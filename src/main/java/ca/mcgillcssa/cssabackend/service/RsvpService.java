@@ -0,0 +1,216 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import ca.mcgillcssa.cssabackend.event.CollectionChangedEvent;
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
+import ca.mcgillcssa.cssabackend.model.CSSAEvent;
+import ca.mcgillcssa.cssabackend.model.Rsvp;
+import ca.mcgillcssa.cssabackend.repository.CSSAEventRepository;
+import ca.mcgillcssa.cssabackend.repository.RsvpRepository;
+import ca.mcgillcssa.cssabackend.util.EmailAddressChecker;
+
+/**
+ * Admits RSVPs up to an event's capacity. Each event has an in-process gate, a
+ * lock-free counter that turns requests away once this instance has handed out
+ * every seat it knows about. Requests that pass the gate take their seat with a
+ * conditional $inc in Mongo, which stays the source of truth across instances.
+ *
+ * Seats given back on other instances are not seen by the gate, so a full gate
+ * is read again from Mongo once the event has changed, or once it is older
+ * than the recheck interval, before a request is turned away.
+ */
+@Service
+public class RsvpService {
+
+  public enum RsvpResult {
+    CONFIRMED,
+    ALREADY_REGISTERED,
+    FULL
+  }
+
+  // how long a full gate is trusted when the event has not changed
+  private static final Duration RECHECK_INTERVAL = Duration.ofSeconds(1);
+
+  private static class AdmissionGate {
+    private final int capacity;
+    private final AtomicInteger taken;
+    private final long loadedAtNanos;
+    private volatile boolean stale;
+
+    AdmissionGate(int capacity, int taken, long loadedAtNanos) {
+      this.capacity = capacity;
+      this.taken = new AtomicInteger(taken);
+      this.loadedAtNanos = loadedAtNanos;
+    }
+
+    boolean tryAcquire() {
+      while (true) {
+        int current = taken.get();
+        if (current >= capacity) {
+          return false;
+        }
+        if (taken.compareAndSet(current, current + 1)) {
+          return true;
+        }
+      }
+    }
+
+    void release() {
+      taken.decrementAndGet();
+    }
+  }
+
+  private final CSSAEventRepository cssaEventRepository;
+  private final RsvpRepository rsvpRepository;
+  private final LongSupplier nanoClock;
+  private final ConcurrentHashMap<String, AdmissionGate> gates = new ConcurrentHashMap<>();
+
+  @Autowired
+  public RsvpService(CSSAEventRepository cssaEventRepository, RsvpRepository rsvpRepository) {
+    this(cssaEventRepository, rsvpRepository, System::nanoTime);
+  }
+
+  RsvpService(CSSAEventRepository cssaEventRepository, RsvpRepository rsvpRepository, LongSupplier nanoClock) {
+    this.cssaEventRepository = cssaEventRepository;
+    this.rsvpRepository = rsvpRepository;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Reserves a seat at an event for a member.
+   *
+   * @param eventId     the id of the event
+   * @param schoolEmail the McGill email of the member
+   * @return whether the seat was confirmed, already held, or the event is full
+   * @throws IllegalArgumentException if the email is invalid, the event does not
+   *                                  exist or does not take RSVPs
+   */
+  public RsvpResult rsvp(String eventId, String schoolEmail) {
+    if (schoolEmail == null) {
+      throw new IllegalArgumentException("A McGill email is required");
+    }
+    // one RSVP per member however the address is spelled
+    schoolEmail = EmailAddressChecker.normalize(schoolEmail);
+    if (!EmailAddressChecker.isValidSchoolEmail(schoolEmail)) {
+      throw new IllegalArgumentException(schoolEmail + " is not a valid McGill email");
+    }
+    AdmissionGate gate = gateFor(eventId);
+    if (!gate.tryAcquire()) {
+      if (!gate.stale && nanoClock.getAsLong() - gate.loadedAtNanos < RECHECK_INTERVAL.toNanos()) {
+        return RsvpResult.FULL;
+      }
+      // seats may have been given back elsewhere, count them again
+      gates.remove(eventId, gate);
+      gate = gateFor(eventId);
+      if (!gate.tryAcquire()) {
+        return RsvpResult.FULL;
+      }
+    }
+
+    boolean admitted = false;
+    String rsvpId = eventId + ":" + schoolEmail;
+    try {
+      try {
+        rsvpRepository.createRsvp(new Rsvp(rsvpId, eventId, schoolEmail, Instant.now()));
+      } catch (DuplicateKeyException e) {
+        return RsvpResult.ALREADY_REGISTERED;
+      }
+
+      if (!cssaEventRepository.incrementRsvpCount(eventId, gate.capacity)) {
+        // other instances took the remaining seats, or the capacity changed
+        rsvpRepository.deleteRsvp(rsvpId);
+        gates.remove(eventId, gate);
+        return RsvpResult.FULL;
+      }
+      admitted = true;
+      return RsvpResult.CONFIRMED;
+    } finally {
+      if (!admitted) {
+        gate.release();
+      }
+    }
+  }
+
+  /**
+   * Gives up a member's seat at an event.
+   *
+   * @param eventId     the id of the event
+   * @param schoolEmail the McGill email of the member
+   * @return true if the member had a seat
+   */
+  public boolean cancelRsvp(String eventId, String schoolEmail) {
+    if (schoolEmail == null
+        || !rsvpRepository.deleteRsvp(eventId + ":" + EmailAddressChecker.normalize(schoolEmail))) {
+      return false;
+    }
+    cssaEventRepository.decrementRsvpCount(eventId);
+    AdmissionGate gate = gates.get(eventId);
+    if (gate != null) {
+      gate.release();
+    }
+    return true;
+  }
+
+  @EventListener(condition = "#event.topic == 'events'")
+  public void onEventChanged(EntityChangedEvent event) {
+    eventChanged(event.getEntityId());
+  }
+
+  @EventListener(condition = "#event.collection == 'events'")
+  public void onEventsChanged(CollectionChangedEvent event) {
+    eventChanged(event.getDocumentId());
+  }
+
+  // the next request turned away by the gate reads the event again
+  private void eventChanged(String eventId) {
+    if (eventId == null) {
+      gates.values().forEach(gate -> gate.stale = true);
+      return;
+    }
+    AdmissionGate gate = gates.get(eventId);
+    if (gate != null) {
+      gate.stale = true;
+    }
+  }
+
+  public Map<String, Object> getRsvpSummary(String eventId) {
+    CSSAEvent event = cssaEventRepository.findEventById(eventId)
+        .orElseThrow(() -> new IllegalArgumentException("No event with id " + eventId));
+    Map<String, Object> summary = new HashMap<>();
+    summary.put("capacity", event.getCapacity());
+    summary.put("rsvpCount", event.getRsvpCount());
+    summary.put("seatsLeft", Math.max(0, event.getCapacity() - event.getRsvpCount()));
+    return summary;
+  }
+
+  private AdmissionGate gateFor(String eventId) {
+    AdmissionGate gate = gates.get(eventId);
+    if (gate != null) {
+      return gate;
+    }
+    Optional<CSSAEvent> event = cssaEventRepository.findEventById(eventId);
+    if (event.isEmpty()) {
+      throw new IllegalArgumentException("No event with id " + eventId);
+    }
+    if (event.get().getCapacity() <= 0) {
+      throw new IllegalArgumentException("Event " + eventId + " does not take RSVPs");
+    }
+    AdmissionGate loaded = new AdmissionGate(event.get().getCapacity(), event.get().getRsvpCount(),
+        nanoClock.getAsLong());
+    AdmissionGate existing = gates.putIfAbsent(eventId, loaded);
+    return existing != null ? existing : loaded;
+  }
+}
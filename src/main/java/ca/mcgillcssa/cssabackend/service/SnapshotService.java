@@ -0,0 +1,378 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.InsertManyOptions;
+
+import ca.mcgillcssa.cssabackend.repository.ChangeLogRepository;
+
+/**
+ * Exports collections to a directory and restores them from it, for backups
+ * and to refresh staging. Each collection is written as gzipped NDJSON chunks
+ * of MongoDB Extended JSON, which keeps dates, longs and ObjectIds as they
+ * are, next to a manifest.json listing the chunks and their document counts.
+ * The manifest is written last, so a directory without one is not a complete
+ * snapshot.
+ *
+ * Collections are read with one cursor each while a pool of one thread per
+ * core encodes and compresses the chunks; on restore the same pool parses the
+ * chunks and inserts them in unordered batches. Readers wait while two chunks
+ * per thread are pending, so memory use does not grow with the collections.
+ *
+ * Documents go straight through the driver, not through the repositories, so
+ * they are copied exactly and the load shedder does not apply. The export is
+ * not a point-in-time copy: writes made while it runs may or may not be in it.
+ *
+ * The operational collections, the state of the running instances rather than
+ * data, are left out unless asked for: copying the outbox or the resume tokens
+ * into staging would replay webhooks or resume change streams from another
+ * database. Restoring without the counters moves the change sequence past the
+ * restored documents instead.
+ */
+@Service
+@Profile("!inmemory")
+public class SnapshotService {
+
+  private static final Logger logger = LoggerFactory.getLogger(SnapshotService.class);
+
+  public static final String MANIFEST = "manifest.json";
+  static final String FORMAT = "ndjson.gz, MongoDB Extended JSON";
+  private static final JsonWriterSettings EXTENDED_JSON = JsonWriterSettings.builder()
+      .outputMode(JsonMode.EXTENDED).build();
+  private static final int READ_BATCH_SIZE = 1000;
+  private static final int BUFFER_SIZE = 1 << 16;
+  public static final Set<String> OPERATIONAL_COLLECTIONS = Set.of("outbox", "resume_tokens", "counters",
+      "tombstones", "link-checks", "leases");
+  private static final String CHANGE_SEQ = "changeSeq";
+
+  private final MongoTemplate mongoTemplate;
+  private final ChangeLogRepository changeLog;
+  private final ObjectMapper objectMapper;
+  private final int threads;
+  private final int chunkDocuments;
+  private final int insertBatchSize;
+
+  public SnapshotService(MongoTemplate mongoTemplate, ChangeLogRepository changeLog, ObjectMapper objectMapper,
+      @Value("${cssa.snapshot.threads}") int threads,
+      @Value("${cssa.snapshot.chunk-documents}") int chunkDocuments,
+      @Value("${cssa.snapshot.insert-batch-size}") int insertBatchSize) {
+    this.mongoTemplate = mongoTemplate;
+    this.changeLog = changeLog;
+    this.objectMapper = objectMapper;
+    this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.chunkDocuments = chunkDocuments;
+    this.insertBatchSize = insertBatchSize;
+  }
+
+  /**
+   * Exports collections into a directory, which is created if needed.
+   *
+   * @param collections        the collections to export, all of them if empty
+   * @param includeOperational true to export the operational collections too
+   * @return the manifest written
+   * @throws IllegalArgumentException if an operational collection is asked for
+   *                                  without includeOperational
+   */
+  public Map<String, Object> export(Path directory, Collection<String> collections, boolean includeOperational)
+      throws IOException {
+    checkNotOperational(collections, includeOperational);
+    List<String> names = new ArrayList<>(collections);
+    if (names.isEmpty()) {
+      for (String name : mongoTemplate.getCollectionNames()) {
+        if (!name.startsWith("system.") && (includeOperational || !OPERATIONAL_COLLECTIONS.contains(name))) {
+          names.add(name);
+        }
+      }
+      names.sort(null);
+    }
+    Files.createDirectories(directory);
+    long start = System.nanoTime();
+
+    ExecutorService readers = Executors.newFixedThreadPool(Math.max(1, Math.min(names.size(), threads)),
+        threadFactory("snapshot-reader"));
+    ExecutorService writers = Executors.newFixedThreadPool(threads, threadFactory("snapshot-writer"));
+    Semaphore chunksInMemory = new Semaphore(threads * 2);
+    List<Map<String, Object>> exported = new ArrayList<>();
+    try {
+      List<Future<List<Future<Map<String, Object>>>>> readTasks = new ArrayList<>();
+      for (String name : names) {
+        readTasks.add(readers.submit(() -> exportCollection(name, directory, writers, chunksInMemory)));
+      }
+      for (int i = 0; i < names.size(); i++) {
+        List<Map<String, Object>> chunks = new ArrayList<>();
+        long documents = 0;
+        for (Future<Map<String, Object>> chunk : await(readTasks.get(i))) {
+          Map<String, Object> written = await(chunk);
+          documents += (Integer) written.get("documents");
+          chunks.add(written);
+        }
+        Map<String, Object> collection = new LinkedHashMap<>();
+        collection.put("name", names.get(i));
+        collection.put("documents", documents);
+        collection.put("chunks", chunks);
+        exported.add(collection);
+      }
+    } finally {
+      readers.shutdownNow();
+      writers.shutdownNow();
+    }
+
+    Map<String, Object> manifest = new LinkedHashMap<>();
+    manifest.put("format", FORMAT);
+    manifest.put("database", mongoTemplate.getDb().getName());
+    manifest.put("createdAt", Instant.now().toString());
+    manifest.put("collections", exported);
+    objectMapper.writerWithDefaultPrettyPrinter().writeValue(directory.resolve(MANIFEST).toFile(), manifest);
+    logger.info("Exported {} collections to {} in {} ms", names.size(), directory,
+        (System.nanoTime() - start) / 1_000_000);
+    return manifest;
+  }
+
+  private List<Future<Map<String, Object>>> exportCollection(String name, Path directory, ExecutorService writers,
+      Semaphore chunksInMemory) throws IOException, InterruptedException {
+    Files.createDirectories(directory.resolve(name));
+    List<Future<Map<String, Object>>> chunks = new ArrayList<>();
+    try (MongoCursor<Document> cursor = mongoTemplate.getCollection(name).find().batchSize(READ_BATCH_SIZE)
+        .cursor()) {
+      List<Document> chunk = new ArrayList<>();
+      while (cursor.hasNext()) {
+        chunk.add(cursor.next());
+        if (chunk.size() == chunkDocuments) {
+          chunks.add(submitChunk(directory, name, chunks.size(), chunk, writers, chunksInMemory));
+          chunk = new ArrayList<>();
+        }
+      }
+      if (!chunk.isEmpty()) {
+        chunks.add(submitChunk(directory, name, chunks.size(), chunk, writers, chunksInMemory));
+      }
+    }
+    return chunks;
+  }
+
+  private Future<Map<String, Object>> submitChunk(Path directory, String collection, int index,
+      List<Document> documents, ExecutorService writers, Semaphore chunksInMemory) throws InterruptedException {
+    chunksInMemory.acquire();
+    String file = collection + "/" + String.format("%05d.ndjson.gz", index);
+    try {
+      return writers.submit(() -> {
+        try {
+          return writeChunk(directory.resolve(file), file, documents);
+        } finally {
+          chunksInMemory.release();
+        }
+      });
+    } catch (RuntimeException e) {
+      chunksInMemory.release();
+      throw e;
+    }
+  }
+
+  private Map<String, Object> writeChunk(Path path, String file, List<Document> documents) throws IOException {
+    try (Writer out = new BufferedWriter(new OutputStreamWriter(
+        new GZIPOutputStream(Files.newOutputStream(path), BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+      for (Document document : documents) {
+        out.write(document.toJson(EXTENDED_JSON));
+        out.write('\n');
+      }
+    }
+    Map<String, Object> chunk = new LinkedHashMap<>();
+    chunk.put("file", file);
+    chunk.put("documents", documents.size());
+    chunk.put("bytes", Files.size(path));
+    return chunk;
+  }
+
+  /**
+   * Restores collections from a snapshot directory.
+   *
+   * @param collections        the collections to restore, all those of the
+   *                           snapshot if empty
+   * @param replace            true to delete the documents already in the
+   *                           collections first, their indexes are kept
+   * @param includeOperational true to restore the operational collections of
+   *                           the snapshot too
+   * @return the number of documents restored per collection
+   * @throws IllegalArgumentException if an operational collection is asked for
+   *                                  without includeOperational
+   * @throws IllegalStateException    if a collection is not empty and replace is
+   *                                  false, or if the documents restored do not
+   *                                  match the manifest
+   */
+  public Map<String, Long> restore(Path directory, Collection<String> collections, boolean replace,
+      boolean includeOperational) throws IOException {
+    checkNotOperational(collections, includeOperational);
+    JsonNode manifest = objectMapper.readTree(directory.resolve(MANIFEST).toFile());
+    List<JsonNode> selected = new ArrayList<>();
+    for (JsonNode collection : manifest.get("collections")) {
+      String name = collection.get("name").asText();
+      if (collections.isEmpty() ? includeOperational || !OPERATIONAL_COLLECTIONS.contains(name)
+          : collections.contains(name)) {
+        selected.add(collection);
+      }
+    }
+    for (JsonNode collection : selected) {
+      MongoCollection<Document> target = mongoTemplate.getCollection(collection.get("name").asText());
+      if (replace) {
+        target.deleteMany(new Document());
+      } else if (target.countDocuments(new Document(), new CountOptions().limit(1)) > 0) {
+        throw new IllegalStateException("Collection " + collection.get("name").asText()
+            + " is not empty, restore with replace to overwrite it");
+      }
+    }
+    long start = System.nanoTime();
+
+    Map<String, AtomicLong> restored = new LinkedHashMap<>();
+    AtomicLong highestChangeSeq = new AtomicLong();
+    ExecutorService inserters = Executors.newFixedThreadPool(threads, threadFactory("snapshot-restore"));
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (JsonNode collection : selected) {
+        String name = collection.get("name").asText();
+        MongoCollection<Document> target = mongoTemplate.getCollection(name);
+        AtomicLong count = restored.computeIfAbsent(name, key -> new AtomicLong());
+        for (JsonNode chunk : collection.get("chunks")) {
+          Path file = directory.resolve(chunk.get("file").asText());
+          tasks.add(inserters.submit((Callable<Void>) () -> {
+            restoreChunk(file, target, count, highestChangeSeq);
+            return null;
+          }));
+        }
+      }
+      for (Future<?> task : tasks) {
+        await(task);
+      }
+    } finally {
+      inserters.shutdownNow();
+    }
+
+    Map<String, Long> counts = new LinkedHashMap<>();
+    for (JsonNode collection : selected) {
+      String name = collection.get("name").asText();
+      long count = restored.get(name).get();
+      if (count != collection.get("documents").asLong()) {
+        throw new IllegalStateException("Restored " + count + " documents into " + name + ", the manifest lists "
+            + collection.get("documents").asLong());
+      }
+      counts.put(name, count);
+    }
+    // warm-cache snapshots taken before the restore no longer match
+    for (String name : counts.keySet()) {
+      changeLog.bumpVersion(name);
+    }
+    // the counters of the snapshot are only there if they were restored as well
+    changeLog.advanceSequence(highestChangeSeq.get());
+    logger.info("Restored {} collections from {} in {} ms", counts.size(), directory,
+        (System.nanoTime() - start) / 1_000_000);
+    return counts;
+  }
+
+  private void restoreChunk(Path file, MongoCollection<Document> target, AtomicLong restored,
+      AtomicLong highestChangeSeq) throws IOException {
+    try (BufferedReader in = new BufferedReader(new InputStreamReader(
+        new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+      List<Document> batch = new ArrayList<>(insertBatchSize);
+      String line;
+      while ((line = in.readLine()) != null) {
+        if (line.isEmpty()) {
+          continue;
+        }
+        Document document = Document.parse(line);
+        if (document.get(CHANGE_SEQ) instanceof Number changeSeq) {
+          highestChangeSeq.accumulateAndGet(changeSeq.longValue(), Math::max);
+        }
+        batch.add(document);
+        if (batch.size() == insertBatchSize) {
+          insert(target, batch, restored);
+          batch = new ArrayList<>(insertBatchSize);
+        }
+      }
+      if (!batch.isEmpty()) {
+        insert(target, batch, restored);
+      }
+    }
+  }
+
+  private static void checkNotOperational(Collection<String> collections, boolean includeOperational) {
+    if (includeOperational) {
+      return;
+    }
+    for (String name : collections) {
+      if (OPERATIONAL_COLLECTIONS.contains(name)) {
+        throw new IllegalArgumentException("Collection " + name + " holds operational state, include the "
+            + "operational collections to copy it");
+      }
+    }
+  }
+
+  private void insert(MongoCollection<Document> target, List<Document> batch, AtomicLong restored) {
+    target.insertMany(batch, new InsertManyOptions().ordered(false));
+    restored.addAndGet(batch.size());
+  }
+
+  private static <T> T await(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static ThreadFactory threadFactory(String name) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
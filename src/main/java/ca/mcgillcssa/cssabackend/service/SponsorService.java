@@ -4,22 +4,31 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import ca.mcgillcssa.cssabackend.event.CollectionChangedEvent;
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
 import ca.mcgillcssa.cssabackend.model.Sponsor;
 import ca.mcgillcssa.cssabackend.model.Sponsor.CoopDuration;
 import ca.mcgillcssa.cssabackend.model.Sponsor.SponsorClass;
 import ca.mcgillcssa.cssabackend.repository.SponsorRepository;
 
+import ca.mcgillcssa.cssabackend.util.SingleFlight;
 import ca.mcgillcssa.cssabackend.util.UrlChecker;
+import ca.mcgillcssa.cssabackend.util.VersionedCache;
 
 @Service
 public class SponsorService {
 
     private final SponsorRepository sponsorRepository;
+    private final SingleFlight<String, Optional<Sponsor>> sponsorLookups = new SingleFlight<>();
+    private final VersionedCache<List<Sponsor>> allSponsors = new VersionedCache<>();
+    private final StaleReadService staleReads;
 
-    public SponsorService(SponsorRepository sponsorRepository) {
+    public SponsorService(SponsorRepository sponsorRepository, StaleReadService staleReads) {
         this.sponsorRepository = sponsorRepository;
+        this.staleReads = staleReads;
     }
 
     /**
@@ -101,12 +110,13 @@ public class SponsorService {
         }
 
         Sponsor sponsor = new Sponsor(sponsorName, coopDurationEnum, sponsorImageUrl, sponsorWebsiteUrl,
-                sponsorClassEnum);
+                sponsorClassEnum, 0);
         return sponsorRepository.createSponsor(sponsor);
     }
 
     /**
-     * Finds a sponsor by its name.
+     * Finds a sponsor by its name. Concurrent lookups of the same name share a
+     * single database query.
      * 
      * @Author Zihan Zhang
      * @param sponsorName the name of the sponsor
@@ -117,17 +127,41 @@ public class SponsorService {
         if (sponsorName == null || sponsorName.isEmpty()) {
             throw new IllegalArgumentException("Sponsor name cannot be null or empty");
         }
-        return sponsorRepository.findSponsorByName(sponsorName);
+        return sponsorLookups.execute(sponsorName, () -> sponsorRepository.findSponsorByName(sponsorName));
     }
 
     /**
-     * Finds all sponsors.
+     * Finds all sponsors. The list is kept in memory until a sponsor changes on
+     * any instance, and served stale while the database is unavailable.
      * 
      * @Author Zihan Zhang
      * @return the list of sponsors
      */
     public List<Sponsor> findAllSponsors() {
-        return sponsorRepository.findAllSponsors();
+        return staleReads.read("sponsors/all", () -> allSponsors.get(() -> {
+            long version = sponsorRepository.findVersion();
+            return new VersionedCache.Entry<>(version, List.copyOf(sponsorRepository.findAllSponsors()));
+        }));
+    }
+
+    /**
+     * The cached list of all sponsors, saved in and restored from the warm-cache
+     * snapshot.
+     */
+    public VersionedCache<List<Sponsor>> getAllSponsorsCache() {
+        return allSponsors;
+    }
+
+    @EventListener(condition = "#event.topic == 'sponsors'")
+    public void onSponsorChanged(EntityChangedEvent event) {
+        allSponsors.invalidate();
+        staleReads.invalidate(EntityChangedEvent.SPONSORS);
+    }
+
+    @EventListener(condition = "#event.collection == 'sponsors'")
+    public void onSponsorsChanged(CollectionChangedEvent event) {
+        allSponsors.invalidate();
+        staleReads.invalidate(EntityChangedEvent.SPONSORS);
     }
 
     /**
@@ -143,7 +177,8 @@ public class SponsorService {
         if (!sponsorClass.equals("PLATINUM") && !sponsorClass.equals("GOLD") && !sponsorClass.equals("SILVER")) {
             throw new IllegalArgumentException("Sponsor class is not valid");
         }
-        return sponsorRepository.findSponsorsByClass(sponsorClass);
+        return staleReads.read("sponsors/class/" + sponsorClass,
+                () -> sponsorRepository.findSponsorsByClass(sponsorClass));
     }
 
     /**
@@ -159,7 +194,8 @@ public class SponsorService {
         if (!coopDuration.equals("QUARTER_YEAR") && !coopDuration.equals("FULL_YEAR")) {
             throw new IllegalArgumentException("Coop duration is not valid");
         }
-        return sponsorRepository.findSponsorsByCoopDuration(coopDuration);
+        return staleReads.read("sponsors/duration/" + coopDuration,
+                () -> sponsorRepository.findSponsorsByCoopDuration(coopDuration));
     }
 
     /**
@@ -0,0 +1,176 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import ca.mcgillcssa.cssabackend.util.SingleFlight;
+import ca.mcgillcssa.cssabackend.util.StaleResponse;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Serves the public reads (sponsors, benefits, upcoming events) with
+ * stale-while-revalidate. A result is served from memory while fresh; once it
+ * is older, it is still served, marked stale, while a fresh one is read in the
+ * background. When the database cannot be read, because the repository
+ * circuit breaker is open or the read failed, the last result read is served
+ * instead of an error.
+ *
+ * Results are keyed "topic/..." and invalidated per topic when the data
+ * changes. An invalidated result is read again before it is served, and only
+ * served stale if that read fails. Keys must come from a small fixed set,
+ * since results are never evicted.
+ */
+@Service
+public class StaleReadService {
+
+  private static final Logger logger = LoggerFactory.getLogger(StaleReadService.class);
+  private static final int QUEUE_CAPACITY = 100;
+
+  private static final class Entry {
+    private final Object value;
+    private final long loadedAt;
+    private final boolean invalidated;
+
+    Entry(Object value, long loadedAt, boolean invalidated) {
+      this.value = value;
+      this.loadedAt = loadedAt;
+      this.invalidated = invalidated;
+    }
+  }
+
+  private final long freshNanos;
+  private final LongSupplier nanoClock;
+  private final ThreadPoolExecutor executor;
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+  private final SingleFlight<String, Object> loads = new SingleFlight<>();
+  private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+  // bumped by every invalidation, so that a read started before one is not taken as fresh
+  private final AtomicLong invalidations = new AtomicLong();
+  private final AtomicLong servedRevalidating = new AtomicLong();
+  private final AtomicLong servedUnavailable = new AtomicLong();
+
+  @Autowired
+  public StaleReadService(@Value("${cssa.stale-reads.fresh-seconds}") long freshSeconds,
+      @Value("${cssa.stale-reads.threads}") int threads) {
+    this(freshSeconds, threads, System::nanoTime);
+  }
+
+  StaleReadService(long freshSeconds, int threads, LongSupplier nanoClock) {
+    this.freshNanos = TimeUnit.SECONDS.toNanos(freshSeconds);
+    this.nanoClock = nanoClock;
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+          Thread thread = new Thread(runnable, "stale-reads-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * Reads a result, from memory when possible.
+   *
+   * @param key    the topic of the data, a slash, and what identifies the read
+   * @param loader reads the result from the database
+   * @throws DataAccessException if the database cannot be read and there is no
+   *                             earlier result to serve
+   */
+  @SuppressWarnings("unchecked")
+  public <V> V read(String key, Supplier<V> loader) {
+    Entry entry = entries.get(key);
+    if (entry != null && !entry.invalidated) {
+      long age = nanoClock.getAsLong() - entry.loadedAt;
+      if (age < freshNanos) {
+        return (V) entry.value;
+      }
+      revalidate(key, loader);
+      servedRevalidating.incrementAndGet();
+      StaleResponse.mark(TimeUnit.NANOSECONDS.toSeconds(age), StaleResponse.REVALIDATING);
+      return (V) entry.value;
+    }
+    try {
+      return (V) loads.execute(key, () -> load(key, loader));
+    } catch (DataAccessException e) {
+      if (entry == null) {
+        throw e;
+      }
+      logger.debug("Serving the last {} read, the database could not be read: {}", key, e.getMessage());
+      servedUnavailable.incrementAndGet();
+      StaleResponse.mark(TimeUnit.NANOSECONDS.toSeconds(nanoClock.getAsLong() - entry.loadedAt),
+          StaleResponse.UNAVAILABLE);
+      return (V) entry.value;
+    }
+  }
+
+  private Object load(String key, Supplier<?> loader) {
+    long invalidationsBefore = invalidations.get();
+    long startedAt = nanoClock.getAsLong();
+    Object value = loader.get();
+    // kept as the last result even if invalidated meanwhile, but read again next time
+    entries.put(key, new Entry(value, startedAt, invalidations.get() != invalidationsBefore));
+    return value;
+  }
+
+  private void revalidate(String key, Supplier<?> loader) {
+    if (!revalidating.add(key)) {
+      return;
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          loads.execute(key, () -> load(key, loader));
+        } catch (RuntimeException e) {
+          logger.debug("Could not revalidate {}: {}", key, e.getMessage());
+        } finally {
+          revalidating.remove(key);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      revalidating.remove(key);
+    }
+  }
+
+  /**
+   * Has the results of a topic read again before they are next served.
+   */
+  public void invalidate(String topic) {
+    invalidations.incrementAndGet();
+    String prefix = topic + "/";
+    for (String key : entries.keySet()) {
+      if (key.startsWith(prefix)) {
+        entries.computeIfPresent(key, (k, entry) -> new Entry(entry.value, entry.loadedAt, true));
+      }
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("entries", entries.size());
+    stats.put("revalidating", revalidating.size());
+    stats.put("servedRevalidating", servedRevalidating.get());
+    stats.put("servedUnavailable", servedUnavailable.get());
+    return stats;
+  }
+}
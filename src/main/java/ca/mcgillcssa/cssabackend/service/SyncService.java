@@ -0,0 +1,179 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
+import ca.mcgillcssa.cssabackend.model.CSSAEvent;
+import ca.mcgillcssa.cssabackend.model.MembershipBenefit;
+import ca.mcgillcssa.cssabackend.model.Sponsor;
+import ca.mcgillcssa.cssabackend.model.Tombstone;
+import ca.mcgillcssa.cssabackend.repository.CSSAEventRepository;
+import ca.mcgillcssa.cssabackend.repository.ChangeLogRepository;
+import ca.mcgillcssa.cssabackend.repository.MembershipBenefitRepository;
+import ca.mcgillcssa.cssabackend.repository.SponsorRepository;
+
+/**
+ * Lets clients fetch only the sponsors, events and benefits written since their
+ * last sync. Every write stamps the document with a change sequence, shared by
+ * the three collections, and every delete leaves a tombstone. A client keeps
+ * the "nextSince" of the last response and sends it back as "since".
+ */
+@Service
+public class SyncService {
+
+  private static final Logger logger = LoggerFactory.getLogger(SyncService.class);
+
+  private final SponsorRepository sponsorRepository;
+  private final CSSAEventRepository cssaEventRepository;
+  private final MembershipBenefitRepository membershipBenefitRepository;
+  private final ChangeLogRepository changeLog;
+  private final int maxPageSize;
+  private final Duration tombstoneRetention;
+
+  public SyncService(SponsorRepository sponsorRepository, CSSAEventRepository cssaEventRepository,
+      MembershipBenefitRepository membershipBenefitRepository, ChangeLogRepository changeLog,
+      @Value("${cssa.sync.max-page-size}") int maxPageSize,
+      @Value("${cssa.sync.tombstone-retention-days}") long tombstoneRetentionDays) {
+    this.sponsorRepository = sponsorRepository;
+    this.cssaEventRepository = cssaEventRepository;
+    this.membershipBenefitRepository = membershipBenefitRepository;
+    this.changeLog = changeLog;
+    this.maxPageSize = maxPageSize;
+    this.tombstoneRetention = Duration.ofDays(tombstoneRetentionDays);
+  }
+
+  /**
+   * Stamps the documents written before this feature, so that a first sync
+   * (since 0) returns them. Run by StartupTasks once the application is
+   * ready.
+   */
+  public void assignMissingSequences() {
+    try {
+      long stamped = changeLog.assignMissingSequences(Sponsor.class)
+          + changeLog.assignMissingSequences(CSSAEvent.class)
+          + changeLog.assignMissingSequences(MembershipBenefit.class);
+      if (stamped > 0) {
+        logger.info("Assigned change sequences to {} existing documents", stamped);
+      }
+    } catch (DataAccessException e) {
+      logger.error("Could not assign change sequences to existing documents", e);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${cssa.sync.tombstone-purge-interval-millis}")
+  public void purgeTombstones() {
+    try {
+      long purged = changeLog.purgeDeletionsBefore(Date.from(Instant.now().minus(tombstoneRetention)));
+      if (purged > 0) {
+        logger.info("Purged {} tombstones older than {}", purged, tombstoneRetention);
+      }
+    } catch (DataAccessException e) {
+      logger.error("Could not purge tombstones", e);
+    }
+  }
+
+  /**
+   * Returns the changes after a sequence, oldest first. Upserts and deletes
+   * both carry their changeSeq; a client applies them in that order.
+   *
+   * @param since the "nextSince" of the previous sync, 0 for a full sync
+   * @param limit the maximum number of changes per collection
+   * @return the "sponsors", "events" and "benefits" written and the ids
+   *         "deleted" per topic, "nextSince" and "hasMore" if the client should
+   *         ask again right away. "resetRequired" is set instead if tombstones
+   *         the client needs were purged: it must drop its copy and sync since 0
+   * @throws IllegalArgumentException if since or limit is out of range
+   */
+  public Map<String, Object> getChangesSince(long since, int limit) {
+    if (since < 0) {
+      throw new IllegalArgumentException("since must not be negative");
+    }
+    if (limit < 1 || limit > maxPageSize) {
+      throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+    }
+    Map<String, Object> changes = new HashMap<>();
+    if (since > 0 && since < changeLog.getPurgedThrough()) {
+      changes.put("resetRequired", true);
+      return changes;
+    }
+
+    // stop below writes still in progress, they could get a lower sequence than
+    // writes already visible
+    long until = changeLog.safeWatermark();
+    List<Sponsor> sponsors = sponsorRepository.findSponsorsChangedSince(since, until, limit);
+    List<CSSAEvent> events = cssaEventRepository.findEventsChangedSince(since, until, limit);
+    List<MembershipBenefit> benefits = membershipBenefitRepository.findBenefitsChangedSince(since, until, limit);
+    List<Tombstone> tombstones = changeLog.findDeletionsSince(since, until, limit);
+
+    // a full page may have more after it, so nothing past its last change is
+    // returned from the other collections either
+    boolean hasMore = sponsors.size() == limit || events.size() == limit || benefits.size() == limit
+        || tombstones.size() == limit;
+    long cutoff = Math.min(until, lastOfFullPage(sponsors, limit, Sponsor::getChangeSeq));
+    cutoff = Math.min(cutoff, lastOfFullPage(events, limit, CSSAEvent::getChangeSeq));
+    cutoff = Math.min(cutoff, lastOfFullPage(benefits, limit, MembershipBenefit::getChangeSeq));
+    cutoff = Math.min(cutoff, lastOfFullPage(tombstones, limit, Tombstone::getChangeSeq));
+
+    long nextSince = since;
+    List<Sponsor> changedSponsors = upTo(sponsors, cutoff, Sponsor::getChangeSeq);
+    List<CSSAEvent> changedEvents = upTo(events, cutoff, CSSAEvent::getChangeSeq);
+    List<MembershipBenefit> changedBenefits = upTo(benefits, cutoff, MembershipBenefit::getChangeSeq);
+    Map<String, List<Map<String, Object>>> deleted = new HashMap<>();
+    deleted.put(EntityChangedEvent.SPONSORS, new ArrayList<>());
+    deleted.put(EntityChangedEvent.EVENTS, new ArrayList<>());
+    deleted.put(EntityChangedEvent.BENEFITS, new ArrayList<>());
+    for (Tombstone tombstone : upTo(tombstones, cutoff, Tombstone::getChangeSeq)) {
+      Map<String, Object> deletion = new HashMap<>();
+      deletion.put("id", tombstone.getEntityId());
+      deletion.put("changeSeq", tombstone.getChangeSeq());
+      deleted.computeIfAbsent(tombstone.getTopic(), topic -> new ArrayList<>()).add(deletion);
+      nextSince = Math.max(nextSince, tombstone.getChangeSeq());
+    }
+    for (Sponsor sponsor : changedSponsors) {
+      nextSince = Math.max(nextSince, sponsor.getChangeSeq());
+    }
+    for (CSSAEvent event : changedEvents) {
+      nextSince = Math.max(nextSince, event.getChangeSeq());
+    }
+    for (MembershipBenefit benefit : changedBenefits) {
+      nextSince = Math.max(nextSince, benefit.getChangeSeq());
+    }
+
+    changes.put(EntityChangedEvent.SPONSORS, changedSponsors);
+    changes.put(EntityChangedEvent.EVENTS, changedEvents);
+    changes.put(EntityChangedEvent.BENEFITS, changedBenefits);
+    changes.put("deleted", deleted);
+    changes.put("nextSince", nextSince);
+    changes.put("hasMore", hasMore);
+    changes.put("resetRequired", false);
+    return changes;
+  }
+
+  private static <T> long lastOfFullPage(List<T> page, int limit, ToLongFunction<T> changeSeq) {
+    return page.size() == limit ? changeSeq.applyAsLong(page.get(page.size() - 1)) : Long.MAX_VALUE;
+  }
+
+  private static <T> List<T> upTo(List<T> page, long cutoff, ToLongFunction<T> changeSeq) {
+    List<T> kept = new ArrayList<>();
+    for (T item : page) {
+      if (changeSeq.applyAsLong(item) <= cutoff) {
+        kept.add(item);
+      }
+    }
+    return kept;
+  }
+}
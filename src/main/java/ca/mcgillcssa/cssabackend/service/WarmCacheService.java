@@ -0,0 +1,227 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Service;
+
+import ca.mcgillcssa.cssabackend.model.MembershipBenefit;
+import ca.mcgillcssa.cssabackend.model.Sponsor;
+import ca.mcgillcssa.cssabackend.repository.ChangeLogRepository;
+import ca.mcgillcssa.cssabackend.repository.MemberRepository;
+import ca.mcgillcssa.cssabackend.repository.MembershipBenefitRepository;
+import ca.mcgillcssa.cssabackend.repository.SponsorRepository;
+import ca.mcgillcssa.cssabackend.util.VersionedCache;
+import ca.mcgillcssa.cssabackend.util.WarmCacheFile;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Saves the sponsor list, the benefit catalogue and the member emails used at
+ * check-in to a local file on shutdown, and restores them on startup, so a new
+ * deploy does not send its first requests to the database with empty caches.
+ *
+ * Each section is saved with the version counter read before its data was.
+ * On startup the counters are read again, and only the sections whose version
+ * is unchanged are served; the others are loaded from the database as usual.
+ * Sponsors and benefits are saved in their stored form, so they are read back
+ * with the same mapping as from Mongo.
+ */
+@Service
+@Profile("!inmemory")
+public class WarmCacheService {
+
+  private static final Logger logger = LoggerFactory.getLogger(WarmCacheService.class);
+  private static final JsonWriterSettings EXTENDED_JSON = JsonWriterSettings.builder()
+      .outputMode(JsonMode.EXTENDED).build();
+
+  private final SponsorService sponsorService;
+  private final MembershipBenefitService membershipBenefitService;
+  private final CheckInService checkInService;
+  private final ChangeLogRepository changeLog;
+  private final MongoConverter converter;
+  private final boolean enabled;
+  private final Path file;
+  private final Duration maxAge;
+
+  public WarmCacheService(SponsorService sponsorService, MembershipBenefitService membershipBenefitService,
+      CheckInService checkInService, ChangeLogRepository changeLog, MongoTemplate mongoTemplate,
+      @Value("${cssa.warm-cache.enabled}") boolean enabled,
+      @Value("${cssa.warm-cache.file}") String file,
+      @Value("${cssa.warm-cache.max-age-minutes}") long maxAgeMinutes) {
+    this.sponsorService = sponsorService;
+    this.membershipBenefitService = membershipBenefitService;
+    this.checkInService = checkInService;
+    this.changeLog = changeLog;
+    this.converter = mongoTemplate.getConverter();
+    this.enabled = enabled;
+    this.file = Path.of(file);
+    this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+  }
+
+  // before ApplicationReadyEvent, when check-in loads the member emails otherwise
+  @EventListener(ApplicationStartedEvent.class)
+  public void restoreOnStartup() {
+    if (enabled) {
+      restore();
+    }
+  }
+
+  @PreDestroy
+  public void saveOnShutdown() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      save();
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Could not write the warm-cache snapshot {}", file, e);
+    }
+  }
+
+  /**
+   * Writes what is cached now. Sections not cached are left out.
+   *
+   * @return the number of records saved per section
+   */
+  public Map<String, Integer> save() throws IOException {
+    Map<String, WarmCacheFile.Section> sections = new LinkedHashMap<>();
+    VersionedCache.Entry<List<Sponsor>> sponsors = sponsorService.getAllSponsorsCache().getEntry();
+    if (sponsors != null) {
+      sections.put(SponsorRepository.VERSION, encode(sponsors));
+    }
+    VersionedCache.Entry<List<MembershipBenefit>> benefits = membershipBenefitService.getAllBenefitsCache()
+        .getEntry();
+    if (benefits != null) {
+      sections.put(MembershipBenefitRepository.VERSION, encode(benefits));
+    }
+    VersionedCache.Entry<Set<String>> members = checkInService.getMembership();
+    if (members != null) {
+      sections.put(MemberRepository.VERSION,
+          new WarmCacheFile.Section(members.getVersion(), new ArrayList<>(members.getValue())));
+    }
+
+    Map<String, Integer> saved = new LinkedHashMap<>();
+    sections.forEach((name, section) -> saved.put(name, section.getRecords().size()));
+    if (sections.isEmpty()) {
+      logger.info("Nothing cached, the warm-cache snapshot is left as it is");
+      return saved;
+    }
+    WarmCacheFile.write(file, sections);
+    logger.info("Wrote the warm-cache snapshot {}: {}", file, saved);
+    return saved;
+  }
+
+  /**
+   * Serves the sections of the snapshot whose version still matches the
+   * database. A missing, unreadable or too old snapshot is ignored, and so is
+   * the whole snapshot if the versions cannot be read.
+   *
+   * @return the names of the sections restored
+   */
+  public List<String> restore() {
+    if (!Files.exists(file)) {
+      return List.of();
+    }
+    long start = System.nanoTime();
+    WarmCacheFile snapshot;
+    try {
+      snapshot = WarmCacheFile.read(file);
+    } catch (IOException e) {
+      logger.warn("Ignoring the warm-cache snapshot: {}", e.getMessage());
+      return List.of();
+    }
+    Duration age = Duration.ofMillis(System.currentTimeMillis() - snapshot.getWrittenAt());
+    if (age.compareTo(maxAge) > 0) {
+      logger.info("Ignoring the warm-cache snapshot written {} minutes ago", age.toMinutes());
+      return List.of();
+    }
+
+    // read before the versions, so that a change in between is noticed
+    long sponsorGeneration = sponsorService.getAllSponsorsCache().getGeneration();
+    long benefitGeneration = membershipBenefitService.getAllBenefitsCache().getGeneration();
+    long memberChanges = checkInService.getChangeCount();
+    Map<String, Long> versions;
+    try {
+      versions = changeLog.findVersions(snapshot.getSections().keySet());
+    } catch (DataAccessException e) {
+      logger.warn("Could not validate the warm-cache snapshot, loading from the database instead", e);
+      return List.of();
+    }
+
+    List<String> restored = new ArrayList<>();
+    for (Map.Entry<String, WarmCacheFile.Section> entry : snapshot.getSections().entrySet()) {
+      String name = entry.getKey();
+      WarmCacheFile.Section section = entry.getValue();
+      long version = versions.getOrDefault(name, 0L);
+      if (section.getVersion() != version) {
+        logger.info("Warm-cache section {} is stale, version {} against {} in the database", name,
+            section.getVersion(), version);
+        continue;
+      }
+      boolean warmed;
+      try {
+        if (name.equals(SponsorRepository.VERSION)) {
+          warmed = sponsorService.getAllSponsorsCache()
+              .warm(new VersionedCache.Entry<>(version, decode(section.getRecords(), Sponsor.class)),
+                  sponsorGeneration);
+        } else if (name.equals(MembershipBenefitRepository.VERSION)) {
+          warmed = membershipBenefitService.getAllBenefitsCache()
+              .warm(new VersionedCache.Entry<>(version, decode(section.getRecords(), MembershipBenefit.class)),
+                  benefitGeneration);
+        } else if (name.equals(MemberRepository.VERSION)) {
+          warmed = checkInService.warmMembership(version, section.getRecords(), memberChanges);
+        } else {
+          warmed = false;
+        }
+      } catch (RuntimeException e) {
+        // e.g. a field the model no longer has
+        logger.warn("Could not read warm-cache section {}", name, e);
+        continue;
+      }
+      if (warmed) {
+        restored.add(name);
+      }
+    }
+    logger.info("Restored {} from the warm-cache snapshot in {} ms", restored,
+        (System.nanoTime() - start) / 1_000_000);
+    return restored;
+  }
+
+  private WarmCacheFile.Section encode(VersionedCache.Entry<? extends Collection<?>> entry) {
+    List<String> records = new ArrayList<>(entry.getValue().size());
+    for (Object entity : entry.getValue()) {
+      Document document = new Document();
+      converter.write(entity, document);
+      records.add(document.toJson(EXTENDED_JSON));
+    }
+    return new WarmCacheFile.Section(entry.getVersion(), records);
+  }
+
+  private <T> List<T> decode(List<String> records, Class<T> type) {
+    List<T> entities = new ArrayList<>(records.size());
+    for (String record : records) {
+      entities.add(converter.read(type, Document.parse(record)));
+    }
+    return List.copyOf(entities);
+  }
+}
@@ -0,0 +1,110 @@
+package ca.mcgillcssa.cssabackend.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A concurrency limit that adapts to latency with additive increase and
+ * multiplicative decrease (AIMD), as TCP does with its congestion window.
+ * While calls finish under the latency threshold and the limit is in use, it
+ * grows by about one per limit's worth of calls. A call slower than the
+ * threshold, or one that timed out, cuts it by the backoff ratio, at most once
+ * per threshold so that one slow burst does not collapse it.
+ *
+ * Calls over the limit are refused right away rather than queued, so that
+ * when the backend slows down callers fail fast instead of piling up.
+ */
+public class AdaptiveConcurrencyLimit {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final long latencyThresholdNanos;
+  private final double backoffRatio;
+  private final LongSupplier nanoClock;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong shed = new AtomicLong();
+  private volatile double limit;
+  private long lastDecreaseAt;
+
+  public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos,
+      double backoffRatio) {
+    this(initialLimit, minLimit, maxLimit, latencyThresholdNanos, backoffRatio, System::nanoTime);
+  }
+
+  AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos,
+      double backoffRatio, LongSupplier nanoClock) {
+    if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit || backoffRatio <= 0
+        || backoffRatio >= 1) {
+      throw new IllegalArgumentException("Invalid concurrency limit settings");
+    }
+    this.limit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.latencyThresholdNanos = latencyThresholdNanos;
+    this.backoffRatio = backoffRatio;
+    this.nanoClock = nanoClock;
+    this.lastDecreaseAt = nanoClock.getAsLong() - latencyThresholdNanos;
+  }
+
+  /**
+   * Takes a slot if the limit allows it. Every successful call must be matched
+   * by a call to {@link #release(long, boolean)}.
+   *
+   * @return the number of calls in flight before this one, or -1 if refused
+   */
+  public int tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= (int) limit) {
+        shed.incrementAndGet();
+        return -1;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return current;
+      }
+    }
+  }
+
+  /**
+   * Gives back a slot and adjusts the limit.
+   *
+   * @param latencyNanos how long the call took
+   * @param overloaded   true if the call failed in a way that points to an
+   *                     overloaded backend, such as a timeout
+   */
+  public void release(long latencyNanos, boolean overloaded) {
+    int before = inFlight.getAndDecrement();
+    synchronized (this) {
+      if (overloaded || latencyNanos > latencyThresholdNanos) {
+        long now = nanoClock.getAsLong();
+        if (now - lastDecreaseAt >= latencyThresholdNanos) {
+          lastDecreaseAt = now;
+          limit = Math.max(minLimit, limit * backoffRatio);
+        }
+      } else if (before * 2 >= (int) limit) {
+        // only grow a limit that is being used, an idle one proves nothing
+        limit = Math.min(maxLimit, limit + 1 / limit);
+      }
+    }
+  }
+
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("limit", getLimit());
+    stats.put("inFlight", getInFlight());
+    stats.put("shed", shed.get());
+    return stats;
+  }
+}
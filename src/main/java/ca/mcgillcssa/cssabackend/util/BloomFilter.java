@@ -0,0 +1,79 @@
+package ca.mcgillcssa.cssabackend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe Bloom filter over strings. It answers "definitely absent" or
+ * "possibly present"; elements cannot be removed, so holders rebuild it to
+ * forget deleted entries.
+ */
+public class BloomFilter {
+
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  /**
+   * @param expectedInsertions       the number of elements the filter is sized
+   *                                 for
+   * @param falsePositiveProbability the target false positive rate at that size
+   */
+  public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+    long n = Math.max(1, expectedInsertions);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+    this.bitCount = Math.max(64, (m + 63) / 64 * 64);
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    this.bits = new AtomicLongArray((int) (bitCount / 64));
+  }
+
+  public void put(String value) {
+    long hash = hash(value);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashCount; i++) {
+      long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+      int word = (int) (index >>> 6);
+      long mask = 1L << index;
+      long current;
+      do {
+        current = bits.get(word);
+        if ((current & mask) != 0) {
+          break;
+        }
+      } while (!bits.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  public boolean mightContain(String value) {
+    long hash = hash(value);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashCount; i++) {
+      long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+      if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public long bitSize() {
+    return bitCount;
+  }
+
+  // 64-bit FNV-1a followed by a murmur3 finalizer to spread the bits
+  private static long hash(String value) {
+    long h = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      h ^= b;
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
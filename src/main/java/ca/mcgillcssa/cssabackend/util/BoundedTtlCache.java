@@ -0,0 +1,124 @@
+package ca.mcgillcssa.cssabackend.util;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * A size-bounded, least-recently-used cache whose entries expire after a fixed
+ * time. Lookups that find nothing are cached as well, with their own (usually
+ * shorter) time to live, so repeated misses do not reach the database either.
+ */
+public class BoundedTtlCache<K, V> {
+
+  private static class Entry<V> {
+    private final Optional<V> value;
+    private final long expiresAt;
+
+    Entry(Optional<V> value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private final int maxEntries;
+  private final long ttlNanos;
+  private final long negativeTtlNanos;
+  private final LongSupplier nanoClock;
+  private final LinkedHashMap<K, Entry<V>> entries;
+  // bumped by every invalidation so that a load racing with a write is not cached
+  private long generation;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong negativeHits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  public BoundedTtlCache(int maxEntries, Duration ttl, Duration negativeTtl) {
+    this(maxEntries, ttl, negativeTtl, System::nanoTime);
+  }
+
+  BoundedTtlCache(int maxEntries, Duration ttl, Duration negativeTtl, LongSupplier nanoClock) {
+    this.maxEntries = maxEntries;
+    this.nanoClock = nanoClock;
+    this.ttlNanos = ttl.toNanos();
+    this.negativeTtlNanos = negativeTtl.toNanos();
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+        if (size() > BoundedTtlCache.this.maxEntries) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached value for the key, calling the loader on a miss or after
+   * the entry has expired. The loader runs outside the cache lock.
+   *
+   * @param key    the key to look up
+   * @param loader loads the value from the backing store
+   * @return the cached or freshly loaded value, empty if it does not exist
+   */
+  public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+    long loadGeneration;
+    synchronized (this) {
+      Entry<V> entry = entries.get(key);
+      if (entry != null && entry.expiresAt - nanoClock.getAsLong() > 0) {
+        (entry.value.isPresent() ? hits : negativeHits).incrementAndGet();
+        return entry.value;
+      }
+      if (entry != null) {
+        entries.remove(key);
+      }
+      loadGeneration = generation;
+    }
+    misses.incrementAndGet();
+
+    Optional<V> value = loader.apply(key);
+    long ttl = value.isPresent() ? ttlNanos : negativeTtlNanos;
+    synchronized (this) {
+      if (generation == loadGeneration && ttl > 0) {
+        entries.put(key, new Entry<>(value, nanoClock.getAsLong() + ttl));
+      }
+    }
+    return value;
+  }
+
+  public synchronized void invalidate(K key) {
+    generation++;
+    entries.remove(key);
+  }
+
+  public synchronized void invalidateAll() {
+    generation++;
+    entries.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public Map<String, Object> getStats() {
+    long hitCount = hits.get();
+    long negativeHitCount = negativeHits.get();
+    long missCount = misses.get();
+    long requests = hitCount + negativeHitCount + missCount;
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("size", size());
+    stats.put("hits", hitCount);
+    stats.put("negativeHits", negativeHitCount);
+    stats.put("misses", missCount);
+    stats.put("evictions", evictions.get());
+    stats.put("hitRate", requests == 0 ? 0.0 : (double) (hitCount + negativeHitCount) / requests);
+    return stats;
+  }
+}
@@ -0,0 +1,128 @@
+package ca.mcgillcssa.cssabackend.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calling a backend that keeps failing. After a number of consecutive
+ * failures the breaker opens and refuses every call for a while, so that
+ * callers fail at once instead of each waiting on a dead connection. Then a
+ * single trial call is let through: the breaker closes if it succeeds and
+ * opens again if it fails.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openNanos;
+  private final LongSupplier nanoClock;
+
+  private final AtomicLong rejected = new AtomicLong();
+  private volatile State state = State.CLOSED;
+  private volatile int consecutiveFailures;
+  // guarded by this
+  private long openedAt;
+  private boolean trialInFlight;
+  private long timesOpened;
+
+  public CircuitBreaker(int failureThreshold, long openNanos) {
+    this(failureThreshold, openNanos, System::nanoTime);
+  }
+
+  CircuitBreaker(int failureThreshold, long openNanos, LongSupplier nanoClock) {
+    if (failureThreshold < 1 || openNanos < 0) {
+      throw new IllegalArgumentException("Invalid circuit breaker settings");
+    }
+    this.failureThreshold = failureThreshold;
+    this.openNanos = openNanos;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Asks to make a call. Every permitted call must be followed by
+   * {@link #onSuccess()}, {@link #onFailure()} or {@link #cancel()}.
+   *
+   * @return false if the breaker is open, or half open with its trial call
+   *         already made
+   */
+  public boolean tryAcquire() {
+    if (state == State.CLOSED) {
+      return true;
+    }
+    synchronized (this) {
+      if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openNanos) {
+        state = State.HALF_OPEN;
+      }
+      if (state == State.CLOSED || (state == State.HALF_OPEN && !trialInFlight)) {
+        trialInFlight = state == State.HALF_OPEN;
+        return true;
+      }
+    }
+    rejected.incrementAndGet();
+    return false;
+  }
+
+  /**
+   * Records a call that reached the backend, whatever it answered.
+   */
+  public void onSuccess() {
+    if (state == State.CLOSED && consecutiveFailures == 0) {
+      return;
+    }
+    synchronized (this) {
+      consecutiveFailures = 0;
+      if (state == State.HALF_OPEN) {
+        state = State.CLOSED;
+        trialInFlight = false;
+      }
+    }
+  }
+
+  /**
+   * Records a call that could not reach the backend or timed out.
+   */
+  public synchronized void onFailure() {
+    if (state == State.HALF_OPEN) {
+      open();
+    } else if (state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+      open();
+    }
+  }
+
+  /**
+   * Gives back a permitted call that was not made after all.
+   */
+  public synchronized void cancel() {
+    if (state == State.HALF_OPEN) {
+      trialInFlight = false;
+    }
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAt = nanoClock.getAsLong();
+    trialInFlight = false;
+    consecutiveFailures = 0;
+    timesOpened++;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  public synchronized Map<String, Object> getStats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("state", state.name());
+    stats.put("consecutiveFailures", consecutiveFailures);
+    stats.put("timesOpened", timesOpened);
+    stats.put("rejected", rejected.get());
+    return stats;
+  }
+}
@@ -0,0 +1,121 @@
+package ca.mcgillcssa.cssabackend.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A directory of immutable files bounded by total size. Files are evicted in
+ * least-recently-used order once the budget is exceeded. The access order is
+ * rebuilt from file modification times when the cache is reopened.
+ */
+public class DiskLruCache {
+
+  private final Path directory;
+  private final long maxBytes;
+  private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+  private long totalBytes;
+
+  public DiskLruCache(Path directory, long maxBytes) throws IOException {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    Files.createDirectories(directory);
+    load();
+  }
+
+  private void load() throws IOException {
+    List<Path> files;
+    try (Stream<Path> stream = Files.list(directory)) {
+      files = stream.filter(Files::isRegularFile)
+          .filter(p -> !p.getFileName().toString().endsWith(".tmp"))
+          .sorted(Comparator.comparingLong(DiskLruCache::lastModified))
+          .collect(Collectors.toList());
+    }
+    synchronized (this) {
+      for (Path file : files) {
+        long size = Files.size(file);
+        entries.put(file.getFileName().toString(), size);
+        totalBytes += size;
+      }
+      evict();
+    }
+  }
+
+  private static long lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path).toMillis();
+    } catch (IOException e) {
+      return 0L;
+    }
+  }
+
+  /**
+   * Looks up a file and marks it as recently used.
+   *
+   * @param key the file name
+   * @return the path of the file, or null if it is not cached
+   */
+  public synchronized Path get(String key) {
+    if (entries.get(key) == null) {
+      return null;
+    }
+    Path path = directory.resolve(key);
+    if (!Files.exists(path)) {
+      totalBytes -= entries.remove(key);
+      return null;
+    }
+    return path;
+  }
+
+  /**
+   * Stores a file under the given key, replacing any previous content, and
+   * evicts older entries if the cache grows past its budget.
+   *
+   * @param key  the file name
+   * @param data the file content
+   * @return the path of the stored file
+   * @throws IOException if the file cannot be written
+   */
+  public Path put(String key, byte[] data) throws IOException {
+    Path target = directory.resolve(key);
+    Path tmp = Files.createTempFile(directory, key, ".tmp");
+    Files.write(tmp, data);
+    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    synchronized (this) {
+      Long previous = entries.put(key, (long) data.length);
+      if (previous != null) {
+        totalBytes -= previous;
+      }
+      totalBytes += data.length;
+      evict();
+    }
+    return target;
+  }
+
+  public synchronized long getTotalBytes() {
+    return totalBytes;
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+    // always keep the most recent entry, even if it alone exceeds the budget
+    while (totalBytes > maxBytes && entries.size() > 1 && it.hasNext()) {
+      Map.Entry<String, Long> eldest = it.next();
+      try {
+        Files.deleteIfExists(directory.resolve(eldest.getKey()));
+      } catch (IOException e) {
+        // the file is dropped from the index either way; it is overwritten if fetched again
+      }
+      totalBytes -= eldest.getValue();
+      it.remove();
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package ca.mcgillcssa.cssabackend.util;
 
+import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -19,4 +20,12 @@ public class EmailAddressChecker {
     Matcher matcher = SCHOOL_EMAIL_PATTERN.matcher(email);
     return matcher.matches();
   }
+
+  /**
+   * @return the email trimmed and in lower case, the form school emails are
+   *         stored and compared in
+   */
+  public static String normalize(String email) {
+    return email.trim().toLowerCase(Locale.ROOT);
+  }
 }
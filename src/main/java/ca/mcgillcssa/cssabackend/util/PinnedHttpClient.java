@@ -0,0 +1,297 @@
+package ca.mcgillcssa.cssabackend.util;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Sends HTTP/1.1 GET requests to an address the caller resolved and checked.
+ * Clients that connect by host name resolve it again, and a DNS answer changed
+ * in between (rebinding) would send the request to an address never checked.
+ * The request still names the host in its Host header, and over https in SNI,
+ * and the server certificate is verified against the host name.
+ *
+ * Only what an image fetch needs is supported: one request per connection,
+ * bodies delimited by length, chunks or the end of the connection, and no
+ * redirects, which the caller follows and checks itself.
+ */
+public class PinnedHttpClient {
+
+  private static final int MAX_HEADER_BYTES = 64 * 1024;
+
+  private final int connectTimeoutMillis;
+  private final int readTimeoutMillis;
+  private final SSLSocketFactory sslSocketFactory;
+
+  public PinnedHttpClient(Duration connectTimeout, Duration readTimeout) {
+    this(connectTimeout, readTimeout, (SSLSocketFactory) SSLSocketFactory.getDefault());
+  }
+
+  public PinnedHttpClient(Duration connectTimeout, Duration readTimeout, SSLSocketFactory sslSocketFactory) {
+    this.connectTimeoutMillis = (int) connectTimeout.toMillis();
+    this.readTimeoutMillis = (int) readTimeout.toMillis();
+    this.sslSocketFactory = sslSocketFactory;
+  }
+
+  public static class Response implements Closeable {
+    private final URI uri;
+    private final int statusCode;
+    private final Map<String, String> headers;
+    private final InputStream body;
+
+    Response(URI uri, int statusCode, Map<String, String> headers, InputStream body) {
+      this.uri = uri;
+      this.statusCode = statusCode;
+      this.headers = headers;
+      this.body = body;
+    }
+
+    public URI uri() {
+      return uri;
+    }
+
+    public int statusCode() {
+      return statusCode;
+    }
+
+    /**
+     * @return the first value of a header, by case-insensitive name
+     */
+    public Optional<String> header(String name) {
+      return Optional.ofNullable(headers.get(name.toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * @return the body, closing it closes the connection
+     */
+    public InputStream body() {
+      return body;
+    }
+
+    @Override
+    public void close() throws IOException {
+      body.close();
+    }
+  }
+
+  /**
+   * Sends a GET request for a url to one of its host's addresses.
+   *
+   * @param uri     an absolute http or https url
+   * @param address the address to connect to, in place of resolving the host
+   * @return the response, whose body is read from the open connection
+   * @throws IOException if the connection, TLS handshake or response fails
+   */
+  public Response get(URI uri, InetAddress address) throws IOException {
+    boolean https = "https".equalsIgnoreCase(uri.getScheme());
+    int defaultPort = https ? 443 : 80;
+    int port = uri.getPort() == -1 ? defaultPort : uri.getPort();
+    Socket socket = new Socket();
+    try {
+      socket.connect(new InetSocketAddress(address, port), connectTimeoutMillis);
+      socket.setSoTimeout(readTimeoutMillis);
+      if (https) {
+        socket = handshake(socket, uri.getHost(), port);
+      }
+      String target = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+      if (uri.getRawQuery() != null) {
+        target += "?" + uri.getRawQuery();
+      }
+      String host = uri.getHost() + (port == defaultPort ? "" : ":" + port);
+      OutputStream out = socket.getOutputStream();
+      out.write(("GET " + target + " HTTP/1.1\r\n"
+          + "Host: " + host + "\r\n"
+          + "Accept: */*\r\n"
+          + "Accept-Encoding: identity\r\n"
+          + "Connection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+      out.flush();
+
+      InputStream in = new BufferedInputStream(socket.getInputStream());
+      int[] headerBudget = { MAX_HEADER_BYTES };
+      int statusCode;
+      Map<String, String> headers;
+      do {
+        // interim responses carry no body, the final one follows them
+        statusCode = statusCode(readLine(in, headerBudget));
+        headers = readHeaders(in, headerBudget);
+      } while (statusCode >= 100 && statusCode < 200);
+      return new Response(uri, statusCode, headers, body(in, headers, socket));
+    } catch (IOException | RuntimeException e) {
+      socket.close();
+      throw e;
+    }
+  }
+
+  private Socket handshake(Socket socket, String host, int port) throws IOException {
+    // given the host name, the socket sends it in SNI
+    SSLSocket ssl = (SSLSocket) sslSocketFactory.createSocket(socket, host, port, true);
+    SSLParameters parameters = ssl.getSSLParameters();
+    // the certificate must match the host name, not the address connected to
+    parameters.setEndpointIdentificationAlgorithm("HTTPS");
+    ssl.setSSLParameters(parameters);
+    ssl.startHandshake();
+    return ssl;
+  }
+
+  private static int statusCode(String statusLine) throws IOException {
+    String[] parts = statusLine.split(" ", 3);
+    if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+      throw new IOException("Malformed status line: " + statusLine);
+    }
+    try {
+      return Integer.parseInt(parts[1]);
+    } catch (NumberFormatException e) {
+      throw new IOException("Malformed status line: " + statusLine, e);
+    }
+  }
+
+  private static Map<String, String> readHeaders(InputStream in, int[] budget) throws IOException {
+    Map<String, String> headers = new HashMap<>();
+    for (String line = readLine(in, budget); !line.isEmpty(); line = readLine(in, budget)) {
+      int colon = line.indexOf(':');
+      if (colon <= 0) {
+        throw new IOException("Malformed header: " + line);
+      }
+      headers.putIfAbsent(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+    }
+    return headers;
+  }
+
+  /**
+   * Reads a line ending in CRLF or LF, without it, counting its bytes against
+   * the budget of the response head.
+   */
+  private static String readLine(InputStream in, int[] budget) throws IOException {
+    StringBuilder line = new StringBuilder();
+    for (int b = in.read(); b != '\n'; b = in.read()) {
+      if (b == -1) {
+        throw new EOFException("Connection closed in the response head");
+      }
+      if (--budget[0] < 0) {
+        throw new IOException("Response head is larger than " + MAX_HEADER_BYTES + " bytes");
+      }
+      line.append((char) b);
+    }
+    int end = line.length();
+    return end > 0 && line.charAt(end - 1) == '\r' ? line.substring(0, end - 1) : line.toString();
+  }
+
+  private static InputStream body(InputStream in, Map<String, String> headers, Socket socket) throws IOException {
+    InputStream body;
+    String transferEncoding = headers.get("transfer-encoding");
+    String contentLength = headers.get("content-length");
+    if (transferEncoding != null && transferEncoding.toLowerCase(Locale.ROOT).contains("chunked")) {
+      body = new ChunkedInputStream(in);
+    } else if (contentLength != null) {
+      try {
+        body = new LengthInputStream(in, Long.parseLong(contentLength));
+      } catch (NumberFormatException e) {
+        throw new IOException("Malformed content length: " + contentLength, e);
+      }
+    } else {
+      // the server closes the connection after the body
+      body = in;
+    }
+    return new FilterInputStream(body) {
+      @Override
+      public void close() throws IOException {
+        socket.close();
+      }
+    };
+  }
+
+  private static class LengthInputStream extends FilterInputStream {
+    private long remaining;
+
+    LengthInputStream(InputStream in, long length) {
+      super(in);
+      this.remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      if (remaining == 0) {
+        return -1;
+      }
+      int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+      if (read == -1) {
+        throw new EOFException("Connection closed " + remaining + " bytes before the end of the body");
+      }
+      remaining -= read;
+      return read;
+    }
+  }
+
+  private static class ChunkedInputStream extends FilterInputStream {
+    private long remaining;
+    private boolean started;
+    private boolean finished;
+
+    ChunkedInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      if (finished) {
+        return -1;
+      }
+      if (remaining == 0) {
+        int[] budget = { MAX_HEADER_BYTES };
+        if (started) {
+          // the CRLF closing the previous chunk
+          readLine(in, budget);
+        }
+        started = true;
+        String size = readLine(in, budget);
+        int extension = size.indexOf(';');
+        try {
+          remaining = Long.parseLong((extension < 0 ? size : size.substring(0, extension)).trim(), 16);
+        } catch (NumberFormatException e) {
+          throw new IOException("Malformed chunk size: " + size, e);
+        }
+        if (remaining == 0) {
+          finished = true;
+          readHeaders(in, budget);
+          return -1;
+        }
+      }
+      int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+      if (read == -1) {
+        throw new EOFException("Connection closed in the middle of a chunk");
+      }
+      remaining -= read;
+      return read;
+    }
+  }
+}
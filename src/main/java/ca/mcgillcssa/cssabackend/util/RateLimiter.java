@@ -0,0 +1,113 @@
+package ca.mcgillcssa.cssabackend.util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets, one per key, holding up to capacity tokens and refilled at
+ * capacity tokens per period.
+ *
+ * Each bucket is a single AtomicLong: the time at which it will be full again
+ * (the generic cell rate algorithm, which behaves exactly like a token
+ * bucket). Taking a token is one compare-and-set, so the hot path takes no
+ * lock. A bucket whose full time has passed holds no information, which makes
+ * it the expiry rule: once the map grows past its bound, full buckets are
+ * swept, then others that still have a token if that is not enough. Throttled
+ * buckets are never evicted, as that would hand their client a fresh burst;
+ * the map can then stay over its bound, by at most the keys throttled within
+ * one period.
+ */
+public class RateLimiter {
+
+  private final long capacity;
+  private final long nanosPerToken;
+  private final int maxKeys;
+  private final LongSupplier nanoClock;
+  private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+  private final AtomicBoolean sweeping = new AtomicBoolean();
+  private final AtomicLong evictions = new AtomicLong();
+
+  public RateLimiter(long capacity, Duration period, int maxKeys) {
+    this(capacity, period, maxKeys, System::nanoTime);
+  }
+
+  RateLimiter(long capacity, Duration period, int maxKeys, LongSupplier nanoClock) {
+    if (capacity < 1 || period.isNegative() || period.isZero()) {
+      throw new IllegalArgumentException("A rate limit needs a positive capacity and period");
+    }
+    this.capacity = capacity;
+    this.nanosPerToken = Math.max(1, period.toNanos() / capacity);
+    this.maxKeys = maxKeys;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Takes a token from the bucket of a key.
+   *
+   * @param key the client the request comes from
+   * @return 0 if a token was taken, otherwise how many nanoseconds until one is
+   *         available
+   */
+  public long tryAcquire(String key) {
+    AtomicLong fullAt = buckets.get(key);
+    if (fullAt == null) {
+      if (buckets.size() >= maxKeys) {
+        sweep();
+      }
+      fullAt = buckets.computeIfAbsent(key, k -> new AtomicLong(nanoClock.getAsLong()));
+    }
+    while (true) {
+      long now = nanoClock.getAsLong();
+      long current = fullAt.get();
+      long base = current - now > 0 ? current : now;
+      long next = base + nanosPerToken;
+      // a full bucket is "full at now", each token taken pushes that back
+      long wait = next - now - capacity * nanosPerToken;
+      if (wait > 0) {
+        return wait;
+      }
+      if (fullAt.compareAndSet(current, next)) {
+        return 0;
+      }
+    }
+  }
+
+  public int size() {
+    return buckets.size();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  private void sweep() {
+    // one sweeper at a time, the others go on while the map is briefly over its bound
+    if (!sweeping.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      long now = nanoClock.getAsLong();
+      buckets.values().removeIf(fullAt -> fullAt.get() - now <= 0);
+      int target = maxKeys - maxKeys / 10;
+      Iterator<AtomicLong> iterator = buckets.values().iterator();
+      while (buckets.size() > target && iterator.hasNext()) {
+        if (!isThrottled(iterator.next(), now)) {
+          iterator.remove();
+          evictions.incrementAndGet();
+        }
+      }
+    } finally {
+      sweeping.set(false);
+    }
+  }
+
+  private boolean isThrottled(AtomicLong fullAt, long now) {
+    // less than one token left, see tryAcquire
+    return fullAt.get() - now > (capacity - 1) * nanosPerToken;
+  }
+}
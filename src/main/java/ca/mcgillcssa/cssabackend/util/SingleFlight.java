@@ -0,0 +1,46 @@
+package ca.mcgillcssa.cssabackend.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Merges concurrent calls for the same key into one. The first caller runs the
+ * loader; callers arriving while it is in flight wait for and share its result.
+ * Nothing is kept once the call completes, so this is not a cache.
+ */
+public class SingleFlight<K, V> {
+
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  public V execute(K key, Supplier<V> loader) {
+    CompletableFuture<V> future = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+    if (existing != null) {
+      try {
+        return existing.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+
+    try {
+      V value = loader.get();
+      future.complete(value);
+      return value;
+    } catch (RuntimeException | Error e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, future);
+    }
+  }
+
+  public int inFlightCount() {
+    return inFlight.size();
+  }
+}
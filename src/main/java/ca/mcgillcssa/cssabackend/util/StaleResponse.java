@@ -0,0 +1,57 @@
+package ca.mcgillcssa.cssabackend.util;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Notes on the current request that some of its response was served from
+ * memory rather than read from the database, so that StaleResponseAdvice can
+ * say so in the response headers. Outside of a request this does nothing.
+ */
+public final class StaleResponse {
+
+  public static final String ATTRIBUTE = StaleResponse.class.getName();
+
+  /** The value was served while a fresh one is read in the background. */
+  public static final String REVALIDATING = "revalidating";
+  /** The database could not be read, the last value read is served instead. */
+  public static final String UNAVAILABLE = "unavailable";
+
+  private final long ageSeconds;
+  private final String reason;
+
+  private StaleResponse(long ageSeconds, String reason) {
+    this.ageSeconds = ageSeconds;
+    this.reason = reason;
+  }
+
+  public long getAgeSeconds() {
+    return ageSeconds;
+  }
+
+  public String getReason() {
+    return reason;
+  }
+
+  /**
+   * Marks the current request as served stale. When several parts of a
+   * response are stale, the oldest is reported.
+   */
+  public static void mark(long ageSeconds, String reason) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes == null) {
+      return;
+    }
+    try {
+      // homepage sections mark the request from several threads
+      synchronized (attributes) {
+        Object current = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (!(current instanceof StaleResponse) || ((StaleResponse) current).ageSeconds < ageSeconds) {
+          attributes.setAttribute(ATTRIBUTE, new StaleResponse(ageSeconds, reason), RequestAttributes.SCOPE_REQUEST);
+        }
+      }
+    } catch (IllegalStateException e) {
+      // the request already completed, e.g. a homepage section that timed out
+    }
+  }
+}
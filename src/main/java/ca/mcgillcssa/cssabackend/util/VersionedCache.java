@@ -0,0 +1,102 @@
+package ca.mcgillcssa.cssabackend.util;
+
+import java.util.function.Supplier;
+
+/**
+ * Caches a single value loaded from the database, such as a whole collection,
+ * together with the version counter read just before it. The version lets the
+ * value be saved in a warm-cache snapshot and checked against the database on
+ * the next start.
+ *
+ * Concurrent loads are merged into one. A load that started before an
+ * invalidation does not install its result, since it may have read the data
+ * the invalidation is about.
+ */
+public class VersionedCache<T> {
+
+  public static final class Entry<T> {
+    private final long version;
+    private final T value;
+
+    public Entry(long version, T value) {
+      this.version = version;
+      this.value = value;
+    }
+
+    public long getVersion() {
+      return version;
+    }
+
+    public T getValue() {
+      return value;
+    }
+  }
+
+  private final SingleFlight<String, Entry<T>> loads = new SingleFlight<>();
+  private volatile Entry<T> entry;
+  // counts invalidations, guarded by this
+  private long generation;
+
+  /**
+   * @param loader reads the version, then the value
+   * @return the cached value, loaded first if needed
+   */
+  public T get(Supplier<Entry<T>> loader) {
+    Entry<T> current = entry;
+    if (current != null) {
+      return current.getValue();
+    }
+    return loads.execute("load", () -> load(loader)).getValue();
+  }
+
+  private Entry<T> load(Supplier<Entry<T>> loader) {
+    long started;
+    synchronized (this) {
+      if (entry != null) {
+        return entry;
+      }
+      started = generation;
+    }
+    Entry<T> loaded = loader.get();
+    synchronized (this) {
+      if (generation == started) {
+        entry = loaded;
+      }
+    }
+    return loaded;
+  }
+
+  public synchronized void invalidate() {
+    generation++;
+    entry = null;
+  }
+
+  /**
+   * @return the cached value and its version, null if not loaded
+   */
+  public Entry<T> getEntry() {
+    return entry;
+  }
+
+  /**
+   * Read before validating a value to {@link #warm}, so that an invalidation
+   * in between is noticed.
+   */
+  public synchronized long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Installs a value restored from elsewhere, unless a value was loaded or the
+   * cache invalidated since the generation was read.
+   *
+   * @return true if the value was installed
+   */
+  public synchronized boolean warm(Entry<T> warmed, long expectedGeneration) {
+    if (entry != null || generation != expectedGeneration) {
+      return false;
+    }
+    entry = warmed;
+    return true;
+  }
+}
@@ -0,0 +1,160 @@
+package ca.mcgillcssa.cssabackend.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A local file of named sections, each a list of UTF-8 records with the
+ * version counter they were read at:
+ *
+ * <pre>
+ * "CSSAWARM" format:int writtenAt:long sections:int
+ *   (nameLength:short name version:long records:int (length:int bytes)*)*
+ * </pre>
+ *
+ * The file is written to a temporary file that then replaces the old one, so a
+ * reader sees the old file or the new one, never half of one. It is read
+ * through a memory mapping, which leaves the paging in to the OS instead of
+ * copying the whole file through a stream.
+ */
+public final class WarmCacheFile {
+
+  private static final byte[] MAGIC = "CSSAWARM".getBytes(StandardCharsets.US_ASCII);
+  public static final int FORMAT = 1;
+
+  public static final class Section {
+    private final long version;
+    private final List<String> records;
+
+    public Section(long version, List<String> records) {
+      this.version = version;
+      this.records = records;
+    }
+
+    public long getVersion() {
+      return version;
+    }
+
+    public List<String> getRecords() {
+      return records;
+    }
+  }
+
+  private final long writtenAt;
+  private final Map<String, Section> sections;
+
+  private WarmCacheFile(long writtenAt, Map<String, Section> sections) {
+    this.writtenAt = writtenAt;
+    this.sections = sections;
+  }
+
+  /**
+   * @return when the file was written, in epoch milliseconds
+   */
+  public long getWrittenAt() {
+    return writtenAt;
+  }
+
+  public Map<String, Section> getSections() {
+    return sections;
+  }
+
+  public static void write(Path file, Map<String, Section> sections) throws IOException {
+    Path directory = file.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    Path tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        out.write(MAGIC);
+        out.writeInt(FORMAT);
+        out.writeLong(System.currentTimeMillis());
+        out.writeInt(sections.size());
+        for (Map.Entry<String, Section> section : sections.entrySet()) {
+          byte[] name = section.getKey().getBytes(StandardCharsets.UTF_8);
+          out.writeShort(name.length);
+          out.write(name);
+          out.writeLong(section.getValue().getVersion());
+          Collection<String> records = section.getValue().getRecords();
+          out.writeInt(records.size());
+          for (String record : records) {
+            byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+          }
+        }
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * @throws IOException if the file cannot be read, or is not a warm-cache file
+   *                     of this format
+   */
+  public static WarmCacheFile read(Path file) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      // the mapping stays valid after the channel is closed
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    try {
+      byte[] magic = new byte[MAGIC.length];
+      buffer.get(magic);
+      if (!Arrays.equals(magic, MAGIC)) {
+        throw new IOException(file + " is not a warm-cache file");
+      }
+      int format = buffer.getInt();
+      if (format != FORMAT) {
+        throw new IOException(file + " has format " + format + ", expected " + FORMAT);
+      }
+      long writtenAt = buffer.getLong();
+      int count = buffer.getInt();
+      Map<String, Section> sections = new LinkedHashMap<>();
+      for (int i = 0; i < count; i++) {
+        String name = readString(buffer, buffer.getShort() & 0xFFFF);
+        long version = buffer.getLong();
+        int records = buffer.getInt();
+        if (records < 0 || records > buffer.remaining() / Integer.BYTES) {
+          throw new IOException(file + " is corrupt, section " + name + " claims " + records + " records");
+        }
+        List<String> values = new ArrayList<>(records);
+        for (int j = 0; j < records; j++) {
+          values.add(readString(buffer, buffer.getInt()));
+        }
+        sections.put(name, new Section(version, values));
+      }
+      if (buffer.hasRemaining()) {
+        throw new IOException(file + " is corrupt, " + buffer.remaining() + " bytes after the last section");
+      }
+      return new WarmCacheFile(writtenAt, sections);
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      throw new IOException(file + " is truncated or corrupt", e);
+    }
+  }
+
+  private static String readString(ByteBuffer buffer, int length) {
+    ByteBuffer bytes = buffer.slice();
+    // throws IllegalArgumentException past the end, like a negative length
+    bytes.limit(length);
+    buffer.position(buffer.position() + length);
+    return StandardCharsets.UTF_8.decode(bytes).toString();
+  }
+}
@@ -2,8 +2,10 @@ package ca.mcgillcssa.cssabackend;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
 @SpringBootTest
+@ActiveProfiles("inmemory")
 class CssaBackendApplicationTests {
 
 	@Test
@@ -0,0 +1,161 @@
+package ca.mcgillcssa.cssabackend.benchmark;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Drives one route from a fixed number of threads for a fixed time, each
+ * thread sending its next request as soon as the previous one is answered,
+ * and measures the throughput and latency of the requests answered after a
+ * warm-up.
+ */
+final class LoadRun {
+
+  /** Builds the next request of a route. */
+  interface RequestFactory {
+    HttpRequest next(SplittableRandom random) throws Exception;
+  }
+
+  private LoadRun() {
+  }
+
+  static Map<String, Object> run(HttpClient client, RequestFactory requests, int concurrency, Duration warmup,
+      Duration measured, long seed) throws InterruptedException {
+    long measureFrom = System.nanoTime() + warmup.toNanos();
+    long measureUntil = measureFrom + measured.toNanos();
+    Worker[] workers = new Worker[concurrency];
+    CountDownLatch done = new CountDownLatch(concurrency);
+    for (int i = 0; i < concurrency; i++) {
+      workers[i] = new Worker(client, requests, new SplittableRandom(seed + i), measureFrom, measureUntil, done);
+      Thread thread = new Thread(workers[i], "load-" + i);
+      thread.setDaemon(true);
+      thread.start();
+    }
+    done.await();
+
+    long count = 0;
+    long errors = 0;
+    Map<String, Long> statuses = new TreeMap<>();
+    List<String> errorSamples = new ArrayList<>();
+    for (Worker worker : workers) {
+      count += worker.count;
+      errors += worker.errors;
+      worker.statuses.forEach((status, n) -> statuses.merge(Integer.toString(status), n, Long::sum));
+      if (worker.lastError != null && errorSamples.size() < 3) {
+        errorSamples.add(worker.lastError);
+      }
+    }
+    long[] latencies = new long[(int) count];
+    int offset = 0;
+    for (Worker worker : workers) {
+      System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+      offset += worker.count;
+    }
+    Arrays.sort(latencies);
+
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("concurrency", concurrency);
+    result.put("requests", count);
+    result.put("errors", errors);
+    result.put("throughputPerSecond", round(count / (measured.toNanos() / 1e9)));
+    result.put("p50Millis", round(percentile(latencies, 0.50) / 1e6));
+    result.put("p99Millis", round(percentile(latencies, 0.99) / 1e6));
+    result.put("maxMillis", round(count == 0 ? 0 : latencies[latencies.length - 1] / 1e6));
+    result.put("statuses", statuses);
+    if (!errorSamples.isEmpty()) {
+      result.put("errorSamples", errorSamples);
+    }
+    return result;
+  }
+
+  static long percentile(long[] sorted, double quantile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)];
+  }
+
+  private static double round(double value) {
+    return Math.round(value * 1000) / 1000.0;
+  }
+
+  private static final class Worker implements Runnable {
+    private final HttpClient client;
+    private final RequestFactory requests;
+    private final SplittableRandom random;
+    private final long measureFrom;
+    private final long measureUntil;
+    private final CountDownLatch done;
+
+    // read by run once done is counted down
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+    private final Map<Integer, Long> statuses = new TreeMap<>();
+    private String lastError;
+
+    Worker(HttpClient client, RequestFactory requests, SplittableRandom random, long measureFrom,
+        long measureUntil, CountDownLatch done) {
+      this.client = client;
+      this.requests = requests;
+      this.random = random;
+      this.measureFrom = measureFrom;
+      this.measureUntil = measureUntil;
+      this.done = done;
+    }
+
+    @Override
+    public void run() {
+      try {
+        long now = System.nanoTime();
+        while (now < measureUntil) {
+          int status;
+          long startedAt;
+          try {
+            HttpRequest request = requests.next(random);
+            startedAt = System.nanoTime();
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+          } catch (IOException e) {
+            startedAt = now;
+            status = 0;
+            lastError = e.toString();
+          }
+          now = System.nanoTime();
+          // only requests sent and answered within the measured window count
+          if (startedAt >= measureFrom && now <= measureUntil) {
+            record(now - startedAt, status);
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Exception e) {
+        lastError = e.toString();
+      } finally {
+        done.countDown();
+      }
+    }
+
+    private void record(long latency, int status) {
+      if (count == latencies.length) {
+        latencies = Arrays.copyOf(latencies, count * 2);
+      }
+      latencies[count++] = latency;
+      statuses.merge(status, 1L, Long::sum);
+      // 0 when the request failed without a response
+      if (status == 0 || status >= 500) {
+        errors++;
+      }
+    }
+  }
+}
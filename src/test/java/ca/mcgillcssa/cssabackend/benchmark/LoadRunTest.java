@@ -0,0 +1,75 @@
+package ca.mcgillcssa.cssabackend.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+class LoadRunTest {
+
+  private HttpServer server;
+  private ExecutorService serverThreads;
+
+  @BeforeEach
+  void startServer() throws IOException {
+    serverThreads = Executors.newFixedThreadPool(4);
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(serverThreads);
+    server.createContext("/", exchange -> {
+      exchange.sendResponseHeaders(exchange.getRequestURI().getPath().equals("/fail") ? 500 : 200, -1);
+      exchange.close();
+    });
+    server.start();
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.stop(0);
+    serverThreads.shutdownNow();
+  }
+
+  @Test
+  void countsRequestsAndErrors() throws InterruptedException {
+    String base = "http://127.0.0.1:" + server.getAddress().getPort();
+    HttpClient client = HttpClient.newHttpClient();
+
+    Map<String, Object> result = LoadRun.run(client,
+        random -> HttpRequest.newBuilder(URI.create(base + (random.nextInt(4) == 0 ? "/fail" : "/ok"))).build(),
+        4, Duration.ofMillis(100), Duration.ofMillis(500), 1);
+
+    long requests = (Long) result.get("requests");
+    long errors = (Long) result.get("errors");
+    @SuppressWarnings("unchecked")
+    Map<String, Long> statuses = (Map<String, Long>) result.get("statuses");
+    assertTrue(requests > 0);
+    // status 0 counts requests that failed without a response, e.g. a reset connection
+    assertEquals(errors, statuses.getOrDefault("500", 0L) + statuses.getOrDefault("0", 0L));
+    assertEquals(requests, statuses.getOrDefault("200", 0L) + errors);
+    assertTrue((Double) result.get("p50Millis") <= (Double) result.get("p99Millis"));
+  }
+
+  @Test
+  void percentilesOfSortedLatencies() {
+    long[] latencies = new long[100];
+    for (int i = 0; i < latencies.length; i++) {
+      latencies[i] = i + 1;
+    }
+    assertEquals(50, LoadRun.percentile(latencies, 0.50));
+    assertEquals(99, LoadRun.percentile(latencies, 0.99));
+    assertEquals(0, LoadRun.percentile(new long[0], 0.99));
+  }
+}
@@ -0,0 +1,191 @@
+package ca.mcgillcssa.cssabackend.benchmark;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+import ca.mcgillcssa.cssabackend.model.CSSAEvent;
+import ca.mcgillcssa.cssabackend.model.Member;
+import ca.mcgillcssa.cssabackend.model.MembershipBenefit;
+import ca.mcgillcssa.cssabackend.model.Sponsor;
+
+/**
+ * Generates realistic members, sponsors, events and benefits, with the mix of
+ * Chinese and English text the real data has. The nth record of a kind only
+ * depends on the seed and n, so any slice of a dataset can be generated on
+ * its own, in any order, and the same seed always gives the same data. Emails
+ * and names embed n, so they are unique within a kind.
+ */
+public final class SyntheticData {
+
+  // hanzi and pinyin, the pinyin is used for emails and English names
+  private static final String[][] SURNAMES = {
+      { "王", "Wang" }, { "李", "Li" }, { "张", "Zhang" }, { "刘", "Liu" }, { "陈", "Chen" }, { "杨", "Yang" },
+      { "黄", "Huang" }, { "赵", "Zhao" }, { "吴", "Wu" }, { "周", "Zhou" }, { "徐", "Xu" }, { "孙", "Sun" },
+      { "马", "Ma" }, { "朱", "Zhu" }, { "胡", "Hu" }, { "郭", "Guo" }, { "何", "He" }, { "林", "Lin" },
+      { "高", "Gao" }, { "罗", "Luo" }, { "郑", "Zheng" }, { "梁", "Liang" }, { "谢", "Xie" }, { "欧阳", "Ouyang" } };
+  private static final String[][] GIVEN_NAME_CHARACTERS = {
+      { "伟", "wei" }, { "芳", "fang" }, { "娜", "na" }, { "敏", "min" }, { "静", "jing" }, { "丽", "li" },
+      { "强", "qiang" }, { "磊", "lei" }, { "洋", "yang" }, { "艳", "yan" }, { "勇", "yong" }, { "军", "jun" },
+      { "杰", "jie" }, { "涛", "tao" }, { "明", "ming" }, { "超", "chao" }, { "霞", "xia" }, { "平", "ping" },
+      { "欣", "xin" }, { "怡", "yi" }, { "晨", "chen" }, { "宇", "yu" }, { "浩", "hao" }, { "子", "zi" },
+      { "涵", "han" }, { "轩", "xuan" }, { "萱", "xuan" }, { "博", "bo" }, { "雨", "yu" }, { "思", "si" } };
+  private static final String[] ENGLISH_NAMES = {
+      "Emily", "Kevin", "Jason", "Cindy", "Eric", "Grace", "Andy", "Vivian", "Tony", "Lily", "Jack", "Crystal",
+      "Leo", "Amy", "Ryan", "Sophia", "Daniel", "Iris", "Oscar", "Yvonne" };
+  private static final String[] PERSONAL_EMAIL_DOMAINS = {
+      "gmail.com", "qq.com", "163.com", "outlook.com", "hotmail.com", "126.com", "icloud.com" };
+  private static final String[] CA_AREA_CODES = { "514", "438", "263", "450" };
+
+  private static final String[] MERCHANT_PREFIXES = {
+      "蜀香", "茶颜", "小龙坎", "Maison", "Golden", "大龙燚", "CoCo", "Le Petit", "海底捞", "Chez", "喜茶", "Royal" };
+  private static final String[] MERCHANT_SUFFIXES = {
+      "Hot Pot 火锅", "Bubble Tea 奶茶", "Immigration 移民咨询", "Realty 地产", "Education 教育", "BBQ 烧烤",
+      "Bakery 烘焙", "Nails 美甲", "Hair Studio 美发", "Noodle House 面馆", "Dumplings 饺子馆", "Travel 旅行社" };
+  private static final String[] DISCOUNTS = {
+      "九折 10% off", "八五折 15% off", "满50减5 $5 off orders over $50", "免费饮品一杯 Free drink with any meal",
+      "会员八折 20% off for members", "第二杯半价 Second drink half price" };
+
+  private static final String[] EVENT_NAMES = {
+      "迎新晚会 Welcome Gala", "中秋游园会 Mid-Autumn Festival Fair", "春节联欢晚会 Spring Festival Gala",
+      "职业发展讲座 Career Workshop", "篮球友谊赛 Basketball Friendly", "火锅之夜 Hot Pot Night",
+      "卡拉OK大赛 Karaoke Contest", "Mont-Tremblant 滑雪之旅 Ski Trip", "简历工作坊 Resume Clinic",
+      "桌游之夜 Board Game Night", "期末复习会 Finals Study Session", "毕业舞会 Graduation Ball" };
+  private static final String[] EVENT_LOCATIONS = {
+      "Shatner University Centre 学生中心", "Bell Centre", "Leacock Building 132", "Bronfman Building 151",
+      "New Residence Hall 新宿舍", "Parc Jean-Drapeau", "McLennan Library 图书馆", "Currie Gymnasium 体育馆" };
+  private static final String[] DESCRIPTION_SENTENCES = {
+      "欢迎所有McGill同学参加！", "Join us for an evening of food, games and music.",
+      "活动当天请携带学生卡和会员卡。", "Free snacks and drinks will be provided while supplies last.",
+      "名额有限，先到先得。", "Members get priority registration and a discount at the door.",
+      "本次活动由我们的白金赞助商大力支持。", "Please RSVP on our website before the deadline.",
+      "现场还有抽奖环节，奖品丰富。", "Dress code: smart casual. 着装要求：商务休闲。",
+      "如有任何问题，请联系我们的微信公众号。", "Photos taken at the event may be posted on our social media." };
+
+  private final long seed;
+  private final String linkBaseUrl;
+  private final LocalDate today;
+
+  /**
+   * @param seed        the seed of the whole dataset
+   * @param linkBaseUrl where the generated image and website URLs point, e.g.
+   *                    a local HTTP stub
+   * @param today       the date events are scheduled around
+   */
+  public SyntheticData(long seed, String linkBaseUrl, LocalDate today) {
+    this.seed = seed;
+    this.linkBaseUrl = linkBaseUrl;
+    this.today = today;
+  }
+
+  private SplittableRandom random(int kind, long index) {
+    return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + kind * 0xBF58476D1CE4E5B9L + index);
+  }
+
+  private static <T> T pick(SplittableRandom random, T[] values) {
+    return values[random.nextInt(values.length)];
+  }
+
+  private static String digits(SplittableRandom random, int count) {
+    StringBuilder digits = new StringBuilder(count);
+    for (int i = 0; i < count; i++) {
+      digits.append((char) ('0' + random.nextInt(10)));
+    }
+    return digits.toString();
+  }
+
+  public Member member(long index) {
+    SplittableRandom random = random(1, index);
+    String[] surname = pick(random, SURNAMES);
+    String[] first = pick(random, GIVEN_NAME_CHARACTERS);
+    String[] second = random.nextInt(3) == 0 ? new String[] { "", "" } : pick(random, GIVEN_NAME_CHARACTERS);
+    String chineseName = surname[0] + first[0] + second[0];
+    String givenPinyin = first[1] + second[1];
+    String englishName = pick(random, ENGLISH_NAMES);
+
+    String name;
+    String pseudo;
+    switch (random.nextInt(4)) {
+      case 0:
+        name = chineseName;
+        pseudo = "小" + first[0];
+        break;
+      case 1:
+        name = englishName + " " + surname[1];
+        pseudo = englishName;
+        break;
+      case 2:
+        name = englishName + " " + chineseName;
+        pseudo = "";
+        break;
+      default:
+        name = capitalize(givenPinyin) + " " + surname[1];
+        pseudo = englishName + "_" + digits(random, 2);
+    }
+    String localPart = givenPinyin + "." + surname[1].toLowerCase();
+
+    int dayOfYear = 1 + random.nextInt(366);
+    Member.Position position = random.nextInt(20) == 0 ? pick(random, Member.Position.values())
+        : Member.Position.EXECUTIVE;
+    return new Member(name, pseudo,
+        localPart + index + "@" + pick(random, PERSONAL_EMAIL_DOMAINS),
+        localPart + index + "@mail.mcgill.ca",
+        random.nextBoolean() ? "wxid_" + Long.toString(random.nextLong() >>> 24, 36) : givenPinyin + digits(random, 4),
+        random.nextInt(5) == 0 ? "" : pick(random, CA_AREA_CODES) + digits(random, 7),
+        random.nextInt(5) < 2 ? "" : "13" + digits(random, 9),
+        // registrations only keep the month and day, in 2000
+        LocalDate.ofYearDay(2000, dayOfYear),
+        pick(random, Member.Department.values()), position, pick(random, Member.ClothSize.values()));
+  }
+
+  public String schoolEmail(long index) {
+    return member(index).getSchoolEmail();
+  }
+
+  public Sponsor sponsor(long index) {
+    SplittableRandom random = random(2, index);
+    return new Sponsor(pick(random, MERCHANT_PREFIXES) + " " + pick(random, MERCHANT_SUFFIXES) + " " + (index + 1),
+        random.nextInt(3) == 0 ? Sponsor.CoopDuration.QUARTER_YEAR : Sponsor.CoopDuration.FULL_YEAR,
+        linkBaseUrl + "/images/sponsor-" + index + ".png", linkBaseUrl + "/sponsors/" + index,
+        pick(random, Sponsor.SponsorClass.values()), 0);
+  }
+
+  public String sponsorName(long index) {
+    return sponsor(index).getSponsorName();
+  }
+
+  /**
+   * @return an event with the id "event-" + index, a quarter of them without
+   *         RSVPs, starting within half a year of today
+   */
+  public CSSAEvent event(long index) {
+    SplittableRandom random = random(3, index);
+    LocalDate start = today.plusDays(random.nextInt(-180, 181));
+    StringBuilder description = new StringBuilder();
+    for (int sentences = 2 + random.nextInt(10); sentences > 0; sentences--) {
+      description.append(pick(random, DESCRIPTION_SENTENCES)).append(' ');
+    }
+    CSSAEvent event = new CSSAEvent(start.getYear() + " " + pick(random, EVENT_NAMES), start,
+        start.plusDays(random.nextInt(4) == 0 ? 1 + random.nextInt(3) : 0), pick(random, EVENT_LOCATIONS),
+        linkBaseUrl + "/images/event-" + index + ".png", description.toString().trim(),
+        linkBaseUrl + "/events/" + index);
+    event.setId(eventId(index));
+    event.setCapacity(random.nextInt(4) == 0 ? 0 : 50 + random.nextInt(451));
+    return event;
+  }
+
+  public String eventId(long index) {
+    return "event-" + index;
+  }
+
+  public MembershipBenefit benefit(long index) {
+    SplittableRandom random = random(4, index);
+    return new MembershipBenefit(pick(random, MERCHANT_PREFIXES) + pick(random, MERCHANT_SUFFIXES) + " " + (index + 1),
+        linkBaseUrl + "/images/benefit-" + index + "-background.png", pick(random, DISCOUNTS),
+        linkBaseUrl + "/images/benefit-" + index + "-logo.png", pick(random, MembershipBenefit.MerchantType.values()),
+        0);
+  }
+
+  private static String capitalize(String word) {
+    return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+  }
+}
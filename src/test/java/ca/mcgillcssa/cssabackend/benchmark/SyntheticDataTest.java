@@ -0,0 +1,64 @@
+package ca.mcgillcssa.cssabackend.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import ca.mcgillcssa.cssabackend.model.Member;
+import ca.mcgillcssa.cssabackend.util.EmailAddressChecker;
+
+class SyntheticDataTest {
+
+  private static final LocalDate TODAY = LocalDate.of(2026, 9, 1);
+
+  private final SyntheticData data = new SyntheticData(42, "http://127.0.0.1:8081", TODAY);
+
+  @Test
+  void sameSeedGivesSameData() {
+    SyntheticData again = new SyntheticData(42, "http://127.0.0.1:8081", TODAY);
+
+    // generated out of order, each record only depends on its index
+    assertEquals(data.member(99_999), again.member(99_999));
+    assertEquals(data.member(3), again.member(3));
+    assertEquals(data.sponsor(7), again.sponsor(7));
+    assertEquals(data.event(12), again.event(12));
+    assertEquals(data.benefit(5), again.benefit(5));
+    assertNotEquals(data.member(3), new SyntheticData(43, "http://127.0.0.1:8081", TODAY).member(3));
+  }
+
+  @Test
+  void membersAreValidAndUnique() {
+    Set<String> schoolEmails = new HashSet<>();
+    Set<String> personalEmails = new HashSet<>();
+    int chineseNames = 0;
+    for (int i = 0; i < 10_000; i++) {
+      Member member = data.member(i);
+      assertTrue(EmailAddressChecker.isValidSchoolEmail(member.getSchoolEmail()), member.getSchoolEmail());
+      assertTrue(EmailAddressChecker.isValidPersonalEmail(member.getPersonalEmail()), member.getPersonalEmail());
+      assertTrue(schoolEmails.add(member.getSchoolEmail()));
+      assertTrue(personalEmails.add(member.getPersonalEmail()));
+      assertEquals(2000, member.getBirthday().getYear());
+      if (member.getName().codePoints().anyMatch(c -> Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN)) {
+        chineseNames++;
+      }
+    }
+    // Chinese, English and mixed names
+    assertTrue(chineseNames > 3_000 && chineseNames < 7_000, chineseNames + " Chinese names");
+  }
+
+  @Test
+  void eventsAreScheduledAroundToday() {
+    for (int i = 0; i < 500; i++) {
+      LocalDate start = data.event(i).getEventStartDate();
+      assertTrue(!start.isBefore(TODAY.minusDays(180)) && !start.isAfter(TODAY.plusDays(180)));
+      assertEquals("event-" + i, data.event(i).getId());
+    }
+    assertTrue(data.sponsor(0).getSponsorImageUrl().startsWith("http://127.0.0.1:8081/"));
+  }
+}
@@ -0,0 +1,109 @@
+package ca.mcgillcssa.cssabackend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import ca.mcgillcssa.cssabackend.dto.MemberDTO;
+import ca.mcgillcssa.cssabackend.dto.SponsorDTO;
+import ca.mcgillcssa.cssabackend.model.Member;
+import ca.mcgillcssa.cssabackend.model.Sponsor;
+
+/**
+ * Compares the size and the serialize and deserialize time of typical sponsor
+ * and member list responses in JSON and the binary formats of
+ * BinaryFormatConfig. Run with ./gradlew benchmark.
+ */
+@Tag("benchmark")
+class BinaryFormatBenchmarkTest {
+
+  private static final int WARMUP_ITERATIONS = 2000;
+  private static final int MEASURED_ITERATIONS = 5000;
+
+  @Test
+  void sponsorListResponse() throws Exception {
+    List<SponsorDTO> sponsors = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      sponsors.add(new SponsorDTO(new Sponsor("Sponsor " + i, Sponsor.CoopDuration.values()[i % 2],
+          "https://images.mcgillcssa.ca/sponsors/" + i + ".png", "https://sponsor" + i + ".ca",
+          Sponsor.SponsorClass.values()[i % Sponsor.SponsorClass.values().length], 0)));
+    }
+    Map<String, Object> response = new HashMap<>();
+    response.put("message", "Sponsors found");
+    response.put("sponsors", sponsors);
+    compareFormats("sponsors (40)", response);
+  }
+
+  @Test
+  void memberListResponse() throws Exception {
+    List<MemberDTO> members = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      members.add(new MemberDTO(new Member("成员 " + i, "member" + i, "member" + i + "@gmail.com",
+          "member." + i + "@mail.mcgill.ca", "wx_member" + i, "5145550" + (100 + i), "1380013" + (1000 + i),
+          LocalDate.of(2000, i % 12 + 1, i % 28 + 1), Member.Department.values()[i % Member.Department.values().length],
+          Member.Position.values()[i % Member.Position.values().length],
+          Member.ClothSize.values()[i % Member.ClothSize.values().length])));
+    }
+    Map<String, Object> response = new HashMap<>();
+    response.put("message", "Members found with birthday in MAY");
+    response.put("member", members);
+    compareFormats("members (200)", response);
+  }
+
+  private void compareFormats(String payload, Map<String, Object> response) throws Exception {
+    Map<String, JsonFactory> factories = new LinkedHashMap<>();
+    factories.put("JSON", new JsonFactory());
+    factories.put("CBOR", new CBORFactory());
+    factories.put("Smile", new SmileFactory());
+    factories.put("MessagePack", new MessagePackFactory());
+
+    ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+    Map<?, ?> expected = json.convertValue(response, Map.class);
+    int jsonSize = json.writeValueAsBytes(response).length;
+
+    System.out.printf("%n%s%n%-12s %10s %8s %14s %14s%n", payload, "format", "bytes", "vs JSON",
+        "serialize us", "deserialize us");
+    for (Map.Entry<String, JsonFactory> format : factories.entrySet()) {
+      // built like the converters in BinaryFormatConfig
+      ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().factory(format.getValue()).build();
+      byte[] bytes = mapper.writeValueAsBytes(response);
+      assertEquals(expected, mapper.readValue(bytes, Map.class), format.getKey() + " does not round-trip");
+      if (!format.getKey().equals("JSON")) {
+        assertTrue(bytes.length < jsonSize, format.getKey() + " is not smaller than JSON");
+      }
+
+      for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+        mapper.readValue(mapper.writeValueAsBytes(response), Map.class);
+      }
+      long start = System.nanoTime();
+      for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+        bytes = mapper.writeValueAsBytes(response);
+      }
+      long serializeNanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+      start = System.nanoTime();
+      for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+        mapper.readValue(bytes, Map.class);
+      }
+      long deserializeNanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+
+      System.out.printf("%-12s %10d %7.0f%% %14.1f %14.1f%n", format.getKey(), bytes.length,
+          100.0 * bytes.length / jsonSize, serializeNanos / 1000.0, deserializeNanos / 1000.0);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package ca.mcgillcssa.cssabackend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * Negotiates the response format of a stand-in controller through the MVC
+ * converters Spring Boot sets up, extended by BinaryFormatConfig.
+ */
+@WebMvcTest(controllers = BinaryFormatConfigTest.FormatsController.class)
+class BinaryFormatConfigTest {
+
+  @RestController
+  static class FormatsController {
+    @GetMapping("/formats/")
+    public Map<String, Object> get() {
+      Map<String, Object> response = new HashMap<>();
+      response.put("message", "Sponsors found");
+      response.put("count", 3);
+      return response;
+    }
+
+    @PostMapping("/formats/")
+    public Map<String, Object> echo(@RequestBody Map<String, Object> body) {
+      return body;
+    }
+  }
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Test
+  void answersJsonWhenAnyTypeIsAccepted() throws Exception {
+    mockMvc.perform(get("/formats/").accept(MediaType.ALL))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.message").value("Sponsors found"));
+
+    mockMvc.perform(get("/formats/"))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+  }
+
+  @Test
+  void answersMessagePackWhenAsked() throws Exception {
+    byte[] body = mockMvc.perform(get("/formats/").accept(BinaryFormatConfig.APPLICATION_MSGPACK))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(BinaryFormatConfig.APPLICATION_MSGPACK))
+        .andReturn().getResponse().getContentAsByteArray();
+
+    Map<?, ?> decoded = new ObjectMapper(new MessagePackFactory()).readValue(body, Map.class);
+    assertEquals("Sponsors found", decoded.get("message"));
+    assertEquals(3, decoded.get("count"));
+  }
+
+  @Test
+  void readsBinaryRequestBodies() throws Exception {
+    byte[] body = new ObjectMapper(new CBORFactory()).writeValueAsBytes(Map.of("message", "hello"));
+
+    mockMvc.perform(post("/formats/").contentType(MediaType.APPLICATION_CBOR).content(body)
+        .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.message").value("hello"));
+  }
+}
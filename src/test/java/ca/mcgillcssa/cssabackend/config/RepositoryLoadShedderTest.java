@@ -0,0 +1,276 @@
+package ca.mcgillcssa.cssabackend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import ca.mcgillcssa.cssabackend.model.Sponsor;
+import ca.mcgillcssa.cssabackend.repository.ChangeLogRepository;
+import ca.mcgillcssa.cssabackend.repository.MongoChangeLogRepository;
+import ca.mcgillcssa.cssabackend.repository.MongoSponsorRepository;
+import ca.mcgillcssa.cssabackend.repository.RepositoryOverloadedException;
+import ca.mcgillcssa.cssabackend.repository.RepositoryUnavailableException;
+import ca.mcgillcssa.cssabackend.repository.SponsorRepository;
+
+/**
+ * Runs the sponsor repository, behind the load shedder, on a MongoTemplate
+ * stand-in that answers after an injected latency instead of talking to a
+ * server.
+ */
+class RepositoryLoadShedderTest {
+
+  private static final int READ_LIMIT = 8;
+  private static final int WRITE_LIMIT = 4;
+  private static final int BREAKER_FAILURES = 5;
+
+  // never connected to, the stand-in answers every call itself
+  private final MongoClient client = MongoClients.create("mongodb://127.0.0.1:1");
+  private final AtomicLong readLatencyMillis = new AtomicLong();
+  private final AtomicLong writeLatencyMillis = new AtomicLong();
+  private final AtomicInteger concurrentCalls = new AtomicInteger();
+  private final AtomicInteger maxConcurrentCalls = new AtomicInteger();
+  private final ExecutorService clients = Executors.newFixedThreadPool(64);
+  private final AtomicInteger readCalls = new AtomicInteger();
+  private volatile boolean readsFail;
+  // when set, writes wait for it
+  private volatile CountDownLatch writeGate;
+  private final AtomicInteger writesWaiting = new AtomicInteger();
+
+  private final MongoTemplate standIn = new MongoTemplate(client, "test") {
+    @Override
+    public <T> List<T> findAll(Class<T> entityClass) {
+      readCalls.incrementAndGet();
+      if (readsFail) {
+        throw new DataAccessResourceFailureException("Connection refused");
+      }
+      answerAfter(readLatencyMillis.get());
+      return new ArrayList<>();
+    }
+
+    @Override
+    public <T> T save(T objectToSave) {
+      CountDownLatch gate = writeGate;
+      if (gate != null) {
+        writesWaiting.incrementAndGet();
+        try {
+          gate.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      answerAfter(writeLatencyMillis.get());
+      return objectToSave;
+    }
+  };
+
+  private final ChangeLogRepository changeLog = new MongoChangeLogRepository(standIn) {
+    @Override
+    public <T> T withSequence(LongFunction<T> write) {
+      return write.apply(1);
+    }
+
+    @Override
+    public void clearDeletion(String topic, String entityId) {
+    }
+
+    @Override
+    public void bumpVersion(String collection) {
+    }
+  };
+
+  private final RepositoryLoadShedder shedder = shedder(10_000);
+  private final SponsorRepository repository = proxy(shedder);
+
+  private static RepositoryLoadShedder shedder(long breakerOpenMillis) {
+    return new RepositoryLoadShedder(READ_LIMIT, 2, 64, 100, WRITE_LIMIT, 1, 32, 100, 0.5, BREAKER_FAILURES,
+        breakerOpenMillis);
+  }
+
+  private SponsorRepository proxy(RepositoryLoadShedder shedder) {
+    AspectJProxyFactory factory = new AspectJProxyFactory(new MongoSponsorRepository(standIn, event -> {
+    }, changeLog));
+    factory.setProxyTargetClass(true);
+    factory.addAspect(shedder);
+    return factory.getProxy();
+  }
+
+  private static Sponsor sponsor() {
+    return new Sponsor("Sponsor", Sponsor.CoopDuration.FULL_YEAR, "https://img", "https://site",
+        Sponsor.SponsorClass.GOLD, 0);
+  }
+
+  private void answerAfter(long millis) {
+    int now = concurrentCalls.incrementAndGet();
+    maxConcurrentCalls.accumulateAndGet(now, Math::max);
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      concurrentCalls.decrementAndGet();
+    }
+  }
+
+  @AfterEach
+  void stop() {
+    clients.shutdownNow();
+    client.close();
+  }
+
+  @SuppressWarnings("unchecked")
+  private int limit(String kind) {
+    return (Integer) ((Map<String, Object>) shedder.getStats().get(kind)).get("limit");
+  }
+
+  @SuppressWarnings("unchecked")
+  private static String breakerState(RepositoryLoadShedder shedder) {
+    return (String) ((Map<String, Object>) shedder.getStats().get("breaker")).get("state");
+  }
+
+  private void failReads(SponsorRepository repository) {
+    readsFail = true;
+    for (int i = 0; i < BREAKER_FAILURES; i++) {
+      assertThrows(DataAccessResourceFailureException.class, repository::findAllSponsors);
+    }
+  }
+
+  /**
+   * Runs calls from many clients at once.
+   *
+   * @return how long each shed call took to fail, in milliseconds
+   */
+  private List<Long> burst(int calls, Callable<?> call) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Long>> results = new ArrayList<>();
+    for (int i = 0; i < calls; i++) {
+      results.add(clients.submit(() -> {
+        start.await();
+        long begin = System.nanoTime();
+        try {
+          call.call();
+          return -1L;
+        } catch (RepositoryOverloadedException e) {
+          return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        }
+      }));
+    }
+    start.countDown();
+    List<Long> shedMillis = new ArrayList<>();
+    for (Future<Long> result : results) {
+      long millis = result.get(30, TimeUnit.SECONDS);
+      if (millis >= 0) {
+        shedMillis.add(millis);
+      }
+    }
+    return shedMillis;
+  }
+
+  @Test
+  void fastDatabaseShedsNothing() throws Exception {
+    readLatencyMillis.set(1);
+
+    for (int round = 0; round < 5; round++) {
+      assertEquals(List.of(), burst(READ_LIMIT, repository::findAllSponsors));
+    }
+    assertTrue(limit("reads") >= READ_LIMIT);
+  }
+
+  @Test
+  void slowDatabaseShedsExcessCallsQuicklyAndShrinksTheLimit() throws Exception {
+    readLatencyMillis.set(300);
+
+    List<Long> shed = burst(64, repository::findAllSponsors);
+
+    assertEquals(64 - READ_LIMIT, shed.size());
+    assertTrue(maxConcurrentCalls.get() <= READ_LIMIT, "max concurrency " + maxConcurrentCalls.get());
+    for (long millis : shed) {
+      assertTrue(millis < 100, "shedding took " + millis + " ms");
+    }
+    assertTrue(limit("reads") < READ_LIMIT, "limit " + limit("reads"));
+  }
+
+  @Test
+  void slowWritesDoNotStarveReads() throws Exception {
+    writeLatencyMillis.set(500);
+    readLatencyMillis.set(1);
+    Sponsor sponsor = sponsor();
+
+    ExecutorService writer = Executors.newSingleThreadExecutor();
+    try {
+      Future<List<Long>> shedWrites = writer.submit(() -> burst(16, () -> repository.createSponsor(sponsor)));
+      Thread.sleep(100);
+      List<Long> shedReads = burst(READ_LIMIT, repository::findAllSponsors);
+
+      assertEquals(List.of(), shedReads);
+      assertEquals(16 - WRITE_LIMIT, shedWrites.get(30, TimeUnit.SECONDS).size());
+    } finally {
+      writer.shutdownNow();
+    }
+  }
+
+  @Test
+  void repeatedConnectionFailuresOpenTheBreaker() {
+    failReads(repository);
+    assertEquals("OPEN", breakerState(shedder));
+
+    int calls = readCalls.get();
+    assertThrows(RepositoryUnavailableException.class, repository::findAllSponsors);
+    // writes go through the same breaker
+    assertThrows(RepositoryUnavailableException.class, () -> repository.createSponsor(sponsor()));
+    assertEquals(calls, readCalls.get());
+  }
+
+  @Test
+  void aHalfOpenTrialShedByTheLimitIsGivenBack() throws Exception {
+    RepositoryLoadShedder quickRetry = shedder(50);
+    SponsorRepository repository = proxy(quickRetry);
+    CountDownLatch gate = new CountDownLatch(1);
+    writeGate = gate;
+    List<Future<Sponsor>> writes = new ArrayList<>();
+    for (int i = 0; i < WRITE_LIMIT; i++) {
+      writes.add(clients.submit(() -> repository.createSponsor(sponsor())));
+    }
+    long deadline = System.currentTimeMillis() + 5000;
+    while (writesWaiting.get() < WRITE_LIMIT) {
+      assertTrue(System.currentTimeMillis() < deadline, "timed out");
+      Thread.sleep(5);
+    }
+
+    failReads(repository);
+    Thread.sleep(100);
+    // the trial call is a write, shed by the full write limit
+    assertEquals(RepositoryOverloadedException.class,
+        assertThrows(RepositoryOverloadedException.class, () -> repository.createSponsor(sponsor())).getClass());
+    readsFail = false;
+    // so the next call can be the trial, instead of waiting on one never made
+    repository.findAllSponsors();
+    assertEquals("CLOSED", breakerState(quickRetry));
+
+    gate.countDown();
+    for (Future<Sponsor> write : writes) {
+      write.get(5, TimeUnit.SECONDS);
+    }
+  }
+}
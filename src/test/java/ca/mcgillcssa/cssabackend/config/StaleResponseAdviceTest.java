@@ -0,0 +1,96 @@
+package ca.mcgillcssa.cssabackend.config;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import ca.mcgillcssa.cssabackend.repository.RepositoryUnavailableException;
+import ca.mcgillcssa.cssabackend.service.StaleReadService;
+import ca.mcgillcssa.cssabackend.util.StaleResponse;
+
+/**
+ * Serves a controller, through MockMvc and the advice, whose reads are marked
+ * stale directly or by the stale read service.
+ */
+class StaleResponseAdviceTest {
+
+  private final StaleReadService staleReads = new StaleReadService(30, 1);
+  private volatile boolean databaseDown;
+  private MockMvc mockMvc;
+
+  @RestController
+  class SponsorsController {
+    @GetMapping("/sponsors")
+    public Map<String, Object> sponsors() {
+      return Map.of("sponsors", staleReads.read("sponsors/all", () -> {
+        if (databaseDown) {
+          throw new RepositoryUnavailableException("Database unavailable");
+        }
+        return List.of("Acme");
+      }));
+    }
+
+    @GetMapping("/homepage")
+    public Map<String, Object> homepage() {
+      // two sections served stale, the oldest is reported
+      StaleResponse.mark(7, StaleResponse.UNAVAILABLE);
+      StaleResponse.mark(42, StaleResponse.REVALIDATING);
+      return Map.of("sections", List.of());
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    mockMvc = MockMvcBuilders.standaloneSetup(new SponsorsController())
+        .setControllerAdvice(new StaleResponseAdvice())
+        .build();
+  }
+
+  @AfterEach
+  void shutdown() {
+    staleReads.shutdown();
+  }
+
+  @Test
+  void freshResponsesHaveNoStaleHeaders() throws Exception {
+    mockMvc.perform(get("/sponsors"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.sponsors[0]").value("Acme"))
+        .andExpect(header().doesNotExist(HttpHeaders.AGE))
+        .andExpect(header().doesNotExist(StaleResponseAdvice.SERVED_STALE));
+  }
+
+  @Test
+  void theLastReadServedWhileTheDatabaseIsDownIsMarkedUnavailable() throws Exception {
+    mockMvc.perform(get("/sponsors")).andExpect(status().isOk());
+    staleReads.invalidate("sponsors");
+    databaseDown = true;
+
+    mockMvc.perform(get("/sponsors"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.sponsors[0]").value("Acme"))
+        .andExpect(header().string(HttpHeaders.AGE, "0"))
+        .andExpect(header().string(StaleResponseAdvice.SERVED_STALE, StaleResponse.UNAVAILABLE));
+  }
+
+  @Test
+  void reportsTheOldestStalePart() throws Exception {
+    mockMvc.perform(get("/homepage"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.AGE, "42"))
+        .andExpect(header().string(StaleResponseAdvice.SERVED_STALE, StaleResponse.REVALIDATING));
+  }
+}
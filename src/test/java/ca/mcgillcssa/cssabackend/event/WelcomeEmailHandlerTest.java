@@ -0,0 +1,95 @@
+package ca.mcgillcssa.cssabackend.event;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import ca.mcgillcssa.cssabackend.model.OutboxEvent;
+import ca.mcgillcssa.cssabackend.service.DomainEventBus;
+
+/**
+ * Sends welcome emails through a mail sender stand-in that records the
+ * messages, and fails those it is told to.
+ */
+class WelcomeEmailHandlerTest {
+
+  private final List<SimpleMailMessage> sent = new ArrayList<>();
+  // given the messages of a batch, returns the exception to throw or null
+  private Function<SimpleMailMessage[], MailSendException> failure = messages -> null;
+
+  private final JavaMailSenderImpl mailSender = new JavaMailSenderImpl() {
+    @Override
+    public void send(SimpleMailMessage... messages) {
+      MailSendException e = failure.apply(messages);
+      if (e != null) {
+        throw e;
+      }
+      sent.addAll(List.of(messages));
+    }
+  };
+
+  private static OutboxEvent registration(String id, String name, String personalEmail) {
+    Map<String, Object> payload = new HashMap<>();
+    payload.put("name", name);
+    payload.put("personalEmail", personalEmail);
+    return new OutboxEvent(id, DomainEventBus.MEMBER_REGISTERED, payload, Instant.now(), Instant.now(),
+        new ArrayList<>(List.of("welcome-email")), new ArrayList<>(), new HashMap<>(), null);
+  }
+
+  @Test
+  void emailsEachNewMemberInOneBatch() throws Exception {
+    WelcomeEmailHandler handler = new WelcomeEmailHandler(mailSender, "cssa@example.com");
+    assertTrue(handler.handles(DomainEventBus.MEMBER_REGISTERED));
+
+    handler.deliver(List.of(registration("1", "Ada", "ada@example.com"), registration("2", "Bo", "bo@example.com")));
+
+    assertEquals(2, sent.size());
+    SimpleMailMessage message = sent.get(0);
+    assertEquals("cssa@example.com", message.getFrom());
+    assertArrayEquals(new String[] { "ada@example.com" }, message.getTo());
+    assertTrue(message.getText().startsWith("Hi Ada,"));
+  }
+
+  @Test
+  void reportsOnlyTheMessagesThatFailed() {
+    failure = messages -> new MailSendException(
+        Map.<Object, Exception>of(messages[1], new RuntimeException("mailbox unavailable")));
+    WelcomeEmailHandler handler = new WelcomeEmailHandler(mailSender, "cssa@example.com");
+
+    PartialDeliveryException e = assertThrows(PartialDeliveryException.class, () -> handler.deliver(List.of(
+        registration("1", "Ada", "ada@example.com"), registration("2", "Bo", "bo@example.com"))));
+
+    assertEquals(Set.of("2"), e.getFailedEventIds());
+  }
+
+  @Test
+  void failsTheWholeBatchWhenNoMessageIsNamed() {
+    MailSendException refused = new MailSendException("Connection refused");
+    failure = messages -> refused;
+    WelcomeEmailHandler handler = new WelcomeEmailHandler(mailSender, "cssa@example.com");
+
+    assertSame(refused, assertThrows(MailSendException.class,
+        () -> handler.deliver(List.of(registration("1", "Ada", "ada@example.com")))));
+  }
+
+  @Test
+  void refusesAnEmptySender() {
+    assertThrows(IllegalArgumentException.class, () -> new WelcomeEmailHandler(mailSender, ""));
+    assertThrows(IllegalArgumentException.class, () -> new WelcomeEmailHandler(mailSender, " "));
+  }
+}
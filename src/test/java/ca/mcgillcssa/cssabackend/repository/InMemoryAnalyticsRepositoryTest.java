@@ -0,0 +1,37 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ca.mcgillcssa.cssabackend.model.AnalyticsCounter;
+import ca.mcgillcssa.cssabackend.model.AnalyticsCounter.EventType;
+
+class InMemoryAnalyticsRepositoryTest {
+
+  private static final long HOUR = 3_600_000;
+
+  private final InMemoryAnalyticsRepository repository = new InMemoryAnalyticsRepository();
+
+  private static AnalyticsCounter increment(EventType eventType, String targetId, long hour, long count) {
+    return new AnalyticsCounter(eventType + ":" + targetId + ":" + hour, eventType, targetId,
+        new Date(hour * HOUR), count);
+  }
+
+  @Test
+  void addsIncrementsToTheirHourlyCounters() {
+    repository.incrementCounters(List.of(increment(EventType.SPONSOR_CLICK, "Acme", 10, 2),
+        increment(EventType.SPONSOR_IMPRESSION, "Acme", 10, 5), increment(EventType.SPONSOR_CLICK, "Acme", 9, 1)));
+    repository.incrementCounters(List.of(increment(EventType.SPONSOR_CLICK, "Acme", 10, 3),
+        increment(EventType.SPONSOR_CLICK, "RBC", 10, 7)));
+
+    List<AnalyticsCounter> clicks = repository.findCounters(EventType.SPONSOR_CLICK, "Acme", new Date(10 * HOUR));
+    assertEquals(1, clicks.size());
+    assertEquals(5, clicks.get(0).getCount());
+    assertEquals(2, repository.findCounters(EventType.SPONSOR_CLICK, "Acme", new Date(0)).size());
+    assertEquals(5, repository.findCounters(EventType.SPONSOR_IMPRESSION, "Acme", new Date(0)).get(0).getCount());
+  }
+}
@@ -0,0 +1,99 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
+import ca.mcgillcssa.cssabackend.model.CSSAEvent;
+
+class InMemoryCSSAEventRepositoryTest {
+
+  private final List<Object> published = new ArrayList<>();
+  private final InMemoryCSSAEventRepository repository = new InMemoryCSSAEventRepository(event -> {
+    synchronized (published) {
+      published.add(event);
+    }
+  }, new InMemoryChangeLogRepository());
+
+  private CSSAEvent save(String name, LocalDate start, LocalDate end, int capacity) {
+    CSSAEvent event = new CSSAEvent(name, start, end, "Montreal", "", "", "");
+    event.setCapacity(capacity);
+    return repository.saveEvent(event);
+  }
+
+  @Test
+  void upcomingEventsAreOrderedByStartAndSkipEndedOnes() {
+    LocalDate today = LocalDate.of(2026, 10, 18);
+    save("Gala", today.plusDays(30), today.plusDays(30), 0);
+    save("Ended", today.minusDays(10), today.minusDays(1), 0);
+    save("Ongoing", today.minusDays(2), today.plusDays(2), 0);
+    save("Picnic", today.plusDays(5), today.plusDays(5), 0);
+
+    List<String> names = new ArrayList<>();
+    for (CSSAEvent event : repository.findUpcomingEvents(today, 2)) {
+      names.add(event.getEventName());
+    }
+    assertEquals(List.of("Ongoing", "Picnic"), names);
+  }
+
+  @Test
+  void changesAreListedOnceAtTheirLatestSequence() {
+    CSSAEvent gala = save("Gala", LocalDate.of(2026, 12, 5), LocalDate.of(2026, 12, 5), 10);
+    CSSAEvent picnic = save("Picnic", LocalDate.of(2026, 11, 1), LocalDate.of(2026, 11, 1), 10);
+    assertNotNull(gala.getId());
+    assertTrue(repository.incrementRsvpCount(gala.getId(), 10));
+
+    List<CSSAEvent> changed = repository.findEventsChangedSince(0, Long.MAX_VALUE, 10);
+    assertEquals(2, changed.size());
+    assertEquals(picnic.getId(), changed.get(0).getId());
+    assertEquals(gala.getId(), changed.get(1).getId());
+    assertEquals(1, changed.get(1).getRsvpCount());
+    assertEquals(List.of(gala.getId()),
+        repository.findEventsChangedSince(changed.get(0).getChangeSeq(), Long.MAX_VALUE, 10).stream()
+            .map(CSSAEvent::getId).toList());
+    assertEquals(3, published.size());
+    assertEquals(EntityChangedEvent.EVENTS, ((EntityChangedEvent) published.get(2)).getTopic());
+  }
+
+  @Test
+  void concurrentRsvpsNeverOversell() throws Exception {
+    String id = save("Gala", LocalDate.of(2026, 12, 5), LocalDate.of(2026, 12, 5), 150).getId();
+    AtomicInteger taken = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        tasks.add(pool.submit(() -> {
+          for (int j = 0; j < 100; j++) {
+            if (repository.incrementRsvpCount(id, 150)) {
+              taken.incrementAndGet();
+            }
+          }
+        }));
+      }
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertEquals(150, taken.get());
+    assertEquals(150, repository.findEventById(id).get().getRsvpCount());
+    assertFalse(repository.incrementRsvpCount(id, 150));
+    assertFalse(repository.incrementRsvpCount(id, 200), "the capacity changed since it was read");
+    assertTrue(repository.decrementRsvpCount(id));
+  }
+}
@@ -0,0 +1,100 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
+import ca.mcgillcssa.cssabackend.model.Tombstone;
+
+class InMemoryChangeLogRepositoryTest {
+
+  private final InMemoryChangeLogRepository changeLog = new InMemoryChangeLogRepository();
+
+  private long delete(String entityId) {
+    return changeLog.withSequence(seq -> changeLog.recordDeletion(EntityChangedEvent.SPONSORS, entityId, seq))
+        .getChangeSeq();
+  }
+
+  private List<String> deletedSince(long since, long until, int limit) {
+    return changeLog.findDeletionsSince(since, until, limit).stream().map(Tombstone::getEntityId).toList();
+  }
+
+  @Test
+  void theWatermarkStopsBelowTheLowestWriteInProgress() {
+    assertEquals(0, changeLog.safeWatermark());
+    long first = changeLog.withSequence(seq -> seq);
+    assertEquals(first, changeLog.safeWatermark());
+
+    long[] later = new long[1];
+    long outer = changeLog.withSequence(seq -> {
+      later[0] = changeLog.withSequence(next -> {
+        assertEquals(seq - 1, changeLog.safeWatermark());
+        return next;
+      });
+      // the later write finished, the earlier one has not
+      assertEquals(seq - 1, changeLog.safeWatermark());
+      return seq;
+    });
+
+    assertEquals(first + 1, outer);
+    assertEquals(outer + 1, later[0]);
+    assertEquals(later[0], changeLog.safeWatermark());
+  }
+
+  @Test
+  void deletionsAreListedInSequenceOrderWithinTheRange() {
+    long a = delete("a");
+    long b = delete("b");
+    long c = delete("c");
+    // deleted again, it moves to its new sequence
+    long a2 = delete("a");
+
+    assertEquals(List.of("b", "c", "a"), deletedSince(0, Long.MAX_VALUE, 10));
+    assertEquals(List.of("b", "c"), deletedSince(a, c, 10));
+    assertEquals(List.of("c", "a"), deletedSince(b, a2, 10));
+    assertEquals(List.of("b"), deletedSince(0, Long.MAX_VALUE, 1));
+
+    changeLog.clearDeletion(EntityChangedEvent.SPONSORS, "c");
+    assertEquals(List.of("b", "a"), deletedSince(0, Long.MAX_VALUE, 10));
+  }
+
+  @Test
+  void purgingRemovesOldTombstonesAndRemembersTheNewest() {
+    assertEquals(0, changeLog.getPurgedThrough());
+    delete("a");
+    long b = delete("b");
+
+    assertEquals(0, changeLog.purgeDeletionsBefore(new Date(0)));
+    assertEquals(0, changeLog.getPurgedThrough());
+    assertEquals(2, changeLog.purgeDeletionsBefore(new Date(System.currentTimeMillis() + 60_000)));
+    assertTrue(changeLog.findDeletionsSince(0, Long.MAX_VALUE, 10).isEmpty());
+    assertEquals(b, changeLog.getPurgedThrough());
+
+    long c = delete("c");
+    assertEquals(List.of("c"), deletedSince(0, Long.MAX_VALUE, 10));
+    assertEquals(b, changeLog.getPurgedThrough());
+    assertTrue(c > b);
+  }
+
+  @Test
+  void theSequenceOnlyMovesForward() {
+    changeLog.advanceSequence(100);
+    long next = changeLog.withSequence(seq -> seq);
+    assertEquals(101, next);
+    changeLog.advanceSequence(50);
+    next = changeLog.withSequence(seq -> seq);
+    assertEquals(102, next);
+    assertEquals(Map.of(ChangeLogRepository.CHANGES, 102L),
+        changeLog.findVersions(List.of(ChangeLogRepository.CHANGES, "members")));
+
+    changeLog.bumpVersion("members");
+    changeLog.bumpVersion("members");
+    assertEquals(2, changeLog.findVersion("members"));
+  }
+}
@@ -0,0 +1,34 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import ca.mcgillcssa.cssabackend.model.CheckIn;
+
+class InMemoryCheckInRepositoryTest {
+
+  private final InMemoryCheckInRepository repository = new InMemoryCheckInRepository();
+
+  private static CheckIn checkIn(String eventId, String schoolEmail, Instant at) {
+    return new CheckIn(eventId + ":" + schoolEmail, eventId, schoolEmail, at);
+  }
+
+  @Test
+  void keepsTheFirstCheckInOfAMemberPerEvent() {
+    Instant first = Instant.parse("2026-10-18T18:00:00Z");
+    repository.appendCheckIns(List.of(checkIn("gala", "li.hua@mail.mcgill.ca", first),
+        checkIn("gala", "wang.wei@mail.mcgill.ca", first), checkIn("picnic", "li.hua@mail.mcgill.ca", first)));
+    repository.appendCheckIns(List.of(checkIn("gala", "li.hua@mail.mcgill.ca", first.plusSeconds(60))));
+
+    assertEquals(2, repository.countByEventId("gala"));
+    assertEquals(Set.of("li.hua@mail.mcgill.ca", "wang.wei@mail.mcgill.ca"),
+        Set.copyOf(repository.findSchoolEmailsByEventId("gala")));
+    assertEquals(List.of("li.hua@mail.mcgill.ca"), repository.findSchoolEmailsByEventId("picnic"));
+    assertEquals(0, repository.countByEventId("unknown"));
+  }
+}
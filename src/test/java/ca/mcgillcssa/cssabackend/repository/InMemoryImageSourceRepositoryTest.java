@@ -0,0 +1,45 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+import ca.mcgillcssa.cssabackend.model.CSSAEvent;
+import ca.mcgillcssa.cssabackend.model.MembershipBenefit;
+import ca.mcgillcssa.cssabackend.model.Sponsor;
+
+class InMemoryImageSourceRepositoryTest {
+
+  private final InMemoryChangeLogRepository changeLog = new InMemoryChangeLogRepository();
+  private final InMemorySponsorRepository sponsors = new InMemorySponsorRepository(event -> {
+  }, changeLog);
+  private final InMemoryCSSAEventRepository events = new InMemoryCSSAEventRepository(event -> {
+  }, changeLog);
+  private final InMemoryMembershipBenefitRepository benefits = new InMemoryMembershipBenefitRepository(event -> {
+  }, changeLog);
+  private final InMemoryImageSourceRepository repository = new InMemoryImageSourceRepository(sponsors, events,
+      benefits);
+
+  @Test
+  void acceptsOnlyTheImagesStoredOnSponsorsEventsAndBenefits() {
+    sponsors.createSponsor(new Sponsor("Acme", Sponsor.CoopDuration.FULL_YEAR, "https://img/acme.png",
+        "https://acme.example", Sponsor.SponsorClass.GOLD, 0));
+    events.saveEvent(new CSSAEvent("Gala", LocalDate.of(2026, 12, 5), LocalDate.of(2026, 12, 5), "Montreal",
+        "https://img/gala.jpg", "", "https://link"));
+    benefits.saveBenefit(new MembershipBenefit("Tea House", "https://img/tea-background.jpg", "10%",
+        "https://img/tea-logo.png", MembershipBenefit.MerchantType.SWEETS, 0));
+
+    assertTrue(repository.isStoredImageUrl("https://img/acme.png"));
+    assertTrue(repository.isStoredImageUrl("https://img/gala.jpg"));
+    assertTrue(repository.isStoredImageUrl("https://img/tea-background.jpg"));
+    assertTrue(repository.isStoredImageUrl("https://img/tea-logo.png"));
+    assertFalse(repository.isStoredImageUrl("https://acme.example"));
+    assertFalse(repository.isStoredImageUrl("https://img/other.png"));
+
+    assertTrue(sponsors.deleteSponsorByName("Acme"));
+    assertFalse(repository.isStoredImageUrl("https://img/acme.png"));
+  }
+}
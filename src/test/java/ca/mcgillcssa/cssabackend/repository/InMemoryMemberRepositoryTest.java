@@ -0,0 +1,117 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+
+import ca.mcgillcssa.cssabackend.model.Member;
+
+class InMemoryMemberRepositoryTest {
+
+  private final ChangeLogRepository changeLog = new InMemoryChangeLogRepository();
+  private final InMemoryMemberRepository repository = new InMemoryMemberRepository(changeLog);
+
+  private static Member member(String id, String personalEmail, int month, Member.Department department) {
+    return new Member(id, id, personalEmail, id + "@mail.mcgill.ca", null, null, null,
+        LocalDate.of(2000, month, 1), department, Member.Position.EXECUTIVE, Member.ClothSize.M);
+  }
+
+  @Test
+  void indexesFollowUpdatesAndDeletes() {
+    repository.createMember(member("ada", "ada@example.com", 2, Member.Department.IT));
+    repository.createMember(member("ada", "ada@new.example.com", 3, Member.Department.MEDIA));
+
+    assertTrue(repository.findByPersonalEmail("ada@example.com").isEmpty());
+    assertEquals("ada@mail.mcgill.ca", repository.findByPersonalEmail("ada@new.example.com").get().getSchoolEmail());
+    assertTrue(repository.findByBirthdayMonth(2).isEmpty());
+    assertEquals(1, repository.findByBirthdayMonth(3).size());
+    assertEquals(Map.of("MEDIA", 1L), repository.countByDepartmentPositionAndClothSize().get("department"));
+
+    assertTrue(repository.deleteByPersonalEmail("ada@new.example.com").isPresent());
+    assertTrue(repository.findBySchoolEmail("ada@mail.mcgill.ca").isEmpty());
+    assertTrue(repository.findByBirthdayMonth(3).isEmpty());
+    assertEquals(Map.of(), repository.countByDepartmentPositionAndClothSize().get("department"));
+    assertEquals(3, repository.findVersion());
+  }
+
+  @Test
+  void storedMembersAreNotShared() {
+    Member member = member("ada", "ada@example.com", 2, Member.Department.IT);
+    repository.createMember(member);
+    member.setPersonalEmail("changed@example.com");
+    repository.findBySchoolEmail("ada@mail.mcgill.ca").get().setDepartment(Member.Department.OTHER);
+
+    Member stored = repository.findBySchoolEmail("ada@mail.mcgill.ca").get();
+    assertEquals("ada@example.com", stored.getPersonalEmail());
+    assertEquals(Member.Department.IT, stored.getDepartment());
+  }
+
+  @Test
+  void insertReportsDuplicatesAndKeepsTheRest() {
+    repository.createMember(member("ada", "ada@example.com", 2, Member.Department.IT));
+
+    Map<Integer, DataAccessException> failures = repository.insertMembers(List.of(
+        member("bob", "bob@example.com", 4, Member.Department.IT),
+        member("ada", "other@example.com", 5, Member.Department.IT),
+        member("bob", "bob@example.com", 4, Member.Department.IT)));
+
+    assertEquals(2, failures.size());
+    assertInstanceOf(DuplicateKeyException.class, failures.get(1));
+    assertInstanceOf(DuplicateKeyException.class, failures.get(2));
+    assertEquals("ada@example.com", repository.findBySchoolEmail("ada@mail.mcgill.ca").get().getPersonalEmail());
+    assertEquals(2, repository.findAllSchoolEmails().size());
+  }
+
+  @Test
+  void readersNeverSeeAMemberUnderAnotherPersonalEmail() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (int writer = 0; writer < 2; writer++) {
+        int offset = writer;
+        tasks.add(pool.submit(() -> {
+          for (int i = 0; i < 2000; i++) {
+            repository.createMember(member("ada", "ada" + (i % 2 + offset * 2) + "@example.com", 1 + i % 12,
+                Member.Department.IT));
+          }
+        }));
+      }
+      for (int reader = 0; reader < 2; reader++) {
+        tasks.add(pool.submit(() -> {
+          for (int i = 0; i < 20000; i++) {
+            String personalEmail = "ada" + (i % 4) + "@example.com";
+            repository.findByPersonalEmail(personalEmail)
+                .ifPresent(found -> assertEquals(personalEmail, found.getPersonalEmail()));
+          }
+        }));
+      }
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    Member last = repository.findBySchoolEmail("ada@mail.mcgill.ca").get();
+    assertTrue(repository.findByPersonalEmail(last.getPersonalEmail()).isPresent());
+    int indexed = 0;
+    for (int i = 0; i < 4; i++) {
+      indexed += repository.findByPersonalEmail("ada" + i + "@example.com").isPresent() ? 1 : 0;
+    }
+    assertEquals(1, indexed);
+    assertFalse(repository.findByBirthdayMonth(last.getBirthday().getMonthValue()).isEmpty());
+  }
+}
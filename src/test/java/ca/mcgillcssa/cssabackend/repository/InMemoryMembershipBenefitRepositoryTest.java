@@ -0,0 +1,94 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
+import ca.mcgillcssa.cssabackend.model.MembershipBenefit;
+import ca.mcgillcssa.cssabackend.model.Sponsor;
+import ca.mcgillcssa.cssabackend.model.Tombstone;
+
+class InMemoryMembershipBenefitRepositoryTest {
+
+  private final List<Object> published = new ArrayList<>();
+  private final InMemoryChangeLogRepository changeLog = new InMemoryChangeLogRepository();
+  private final InMemoryMembershipBenefitRepository repository = new InMemoryMembershipBenefitRepository(event -> {
+    synchronized (published) {
+      published.add(event);
+    }
+  }, changeLog);
+
+  private MembershipBenefit save(String merchantName, String discount) {
+    return repository.saveBenefit(new MembershipBenefit(merchantName, "https://background", discount,
+        "https://logo", MembershipBenefit.MerchantType.RESTAURANT, 0));
+  }
+
+  private static List<String> names(List<MembershipBenefit> benefits) {
+    return benefits.stream().map(MembershipBenefit::getMerchantName).toList();
+  }
+
+  @Test
+  void benefitsTakeTheirSequencesFromTheSharedChangeLog() {
+    InMemorySponsorRepository sponsors = new InMemorySponsorRepository(event -> {
+    }, changeLog);
+    long tea = save("Tea House", "10%").getChangeSeq();
+    long acme = sponsors.createSponsor(new Sponsor("Acme", Sponsor.CoopDuration.FULL_YEAR, "https://img",
+        "https://site", Sponsor.SponsorClass.GOLD, 0)).getChangeSeq();
+    long noodles = save("Noodles", "15%").getChangeSeq();
+
+    assertTrue(tea < acme && acme < noodles);
+    assertEquals(List.of("Noodles"), names(repository.findBenefitsChangedSince(acme, Long.MAX_VALUE, 10)));
+  }
+
+  @Test
+  void changesAreListedOnceAtTheirLatestSequenceWithinTheRange() {
+    long tea = save("Tea House", "10%").getChangeSeq();
+    long noodles = save("Noodles", "15%").getChangeSeq();
+    long resaved = save("Tea House", "20%").getChangeSeq();
+
+    List<MembershipBenefit> changed = repository.findBenefitsChangedSince(0, Long.MAX_VALUE, 10);
+    assertEquals(List.of("Noodles", "Tea House"), names(changed));
+    assertEquals(resaved, changed.get(1).getChangeSeq());
+    assertEquals("20%", changed.get(1).getMerchantDiscount());
+    // since is exclusive, until inclusive
+    assertEquals(List.of("Noodles"), names(repository.findBenefitsChangedSince(tea, noodles, 10)));
+    assertEquals(List.of("Noodles"), names(repository.findBenefitsChangedSince(0, Long.MAX_VALUE, 1)));
+    assertEquals(2, repository.findAllBenefits().size());
+    assertEquals(3, repository.findVersion());
+  }
+
+  @Test
+  void deletingLeavesATombstoneUntilTheBenefitIsSavedAgain() {
+    save("Tea House", "10%");
+    assertTrue(repository.deleteBenefitByMerchantName("Tea House"));
+    assertFalse(repository.deleteBenefitByMerchantName("Tea House"));
+    assertTrue(repository.findAllBenefits().isEmpty());
+    assertTrue(repository.findBenefitsChangedSince(0, Long.MAX_VALUE, 10).isEmpty());
+
+    List<Tombstone> deletions = changeLog.findDeletionsSince(0, Long.MAX_VALUE, 10);
+    assertEquals(1, deletions.size());
+    assertEquals(EntityChangedEvent.BENEFITS, deletions.get(0).getTopic());
+    assertEquals("Tea House", deletions.get(0).getEntityId());
+    assertEquals(EntityChangedEvent.ChangeType.DELETED, ((EntityChangedEvent) published.get(1)).getChangeType());
+
+    save("Tea House", "10%");
+    assertTrue(changeLog.findDeletionsSince(0, Long.MAX_VALUE, 10).isEmpty());
+  }
+
+  @Test
+  void storedBenefitsAreNotShared() {
+    MembershipBenefit benefit = save("Tea House", "10%");
+    benefit.setMerchantDiscount("90%");
+    repository.findAllBenefits().get(0).setMerchantLogoUrl("https://changed");
+
+    MembershipBenefit stored = repository.findAllBenefits().get(0);
+    assertEquals("10%", stored.getMerchantDiscount());
+    assertEquals("https://logo", stored.getMerchantLogoUrl());
+  }
+}
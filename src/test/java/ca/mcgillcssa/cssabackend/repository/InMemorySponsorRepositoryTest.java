@@ -0,0 +1,96 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
+import ca.mcgillcssa.cssabackend.model.Sponsor;
+import ca.mcgillcssa.cssabackend.model.Tombstone;
+
+class InMemorySponsorRepositoryTest {
+
+  private final List<Object> published = new ArrayList<>();
+  private final InMemoryChangeLogRepository changeLog = new InMemoryChangeLogRepository();
+  private final InMemorySponsorRepository repository = new InMemorySponsorRepository(event -> {
+    synchronized (published) {
+      published.add(event);
+    }
+  }, changeLog);
+
+  private Sponsor create(String name, Sponsor.SponsorClass sponsorClass) {
+    return repository.createSponsor(new Sponsor(name, Sponsor.CoopDuration.FULL_YEAR, "https://img",
+        "https://site", sponsorClass, 0));
+  }
+
+  private static List<String> names(List<Sponsor> sponsors) {
+    return sponsors.stream().map(Sponsor::getSponsorName).toList();
+  }
+
+  @Test
+  void indexesFollowUpdatesAndDeletes() {
+    create("Acme", Sponsor.SponsorClass.GOLD);
+    create("RBC", Sponsor.SponsorClass.GOLD);
+
+    assertTrue(repository.updateSponsor("Acme", "QUARTER_YEAR", null, "", "PLATINUM"));
+    assertEquals(List.of("RBC"), names(repository.findSponsorsByClass("GOLD")));
+    assertEquals(List.of("Acme"), names(repository.findSponsorsByClass("PLATINUM")));
+    assertEquals(List.of("Acme"), names(repository.findSponsorsByCoopDuration("QUARTER_YEAR")));
+    assertEquals("https://site", repository.findSponsorByName("Acme").get().getSponsorWebsiteUrl());
+
+    assertTrue(repository.deleteSponsorByName("Acme"));
+    assertFalse(repository.deleteSponsorByName("Acme"));
+    assertFalse(repository.updateSponsor("Acme", null, null, null, "GOLD"));
+    assertTrue(repository.findSponsorsByClass("PLATINUM").isEmpty());
+    assertTrue(repository.findSponsorsByCoopDuration("QUARTER_YEAR").isEmpty());
+    assertEquals(List.of("RBC"), names(repository.findAllSponsors()));
+    assertEquals(4, repository.findVersion());
+  }
+
+  @Test
+  void changesAreListedOnceAtTheirLatestSequenceWithinTheRange() {
+    long acme = create("Acme", Sponsor.SponsorClass.GOLD).getChangeSeq();
+    long rbc = create("RBC", Sponsor.SponsorClass.SILVER).getChangeSeq();
+    long desjardins = create("Desjardins", Sponsor.SponsorClass.GOLD).getChangeSeq();
+    assertTrue(repository.updateSponsor("Acme", null, "https://new-img", null, null));
+
+    List<Sponsor> changed = repository.findSponsorsChangedSince(0, Long.MAX_VALUE, 10);
+    assertEquals(List.of("RBC", "Desjardins", "Acme"), names(changed));
+    assertTrue(changed.get(2).getChangeSeq() > desjardins);
+    // since is exclusive, until inclusive
+    assertEquals(List.of("RBC", "Desjardins"), names(repository.findSponsorsChangedSince(acme, desjardins, 10)));
+    assertEquals(List.of("RBC"), names(repository.findSponsorsChangedSince(acme, rbc, 10)));
+    assertEquals(List.of("RBC"), names(repository.findSponsorsChangedSince(0, Long.MAX_VALUE, 1)));
+  }
+
+  @Test
+  void deletingLeavesATombstoneUntilTheSponsorIsCreatedAgain() {
+    create("Acme", Sponsor.SponsorClass.GOLD);
+    assertTrue(repository.deleteSponsorByName("Acme"));
+
+    List<Tombstone> deletions = changeLog.findDeletionsSince(0, Long.MAX_VALUE, 10);
+    assertEquals(1, deletions.size());
+    assertEquals(EntityChangedEvent.SPONSORS, deletions.get(0).getTopic());
+    assertEquals("Acme", deletions.get(0).getEntityId());
+    assertEquals(EntityChangedEvent.ChangeType.DELETED, ((EntityChangedEvent) published.get(1)).getChangeType());
+
+    create("Acme", Sponsor.SponsorClass.GOLD);
+    assertTrue(changeLog.findDeletionsSince(0, Long.MAX_VALUE, 10).isEmpty());
+  }
+
+  @Test
+  void storedSponsorsAreNotShared() {
+    Sponsor sponsor = create("Acme", Sponsor.SponsorClass.GOLD);
+    sponsor.setSponsorClass(Sponsor.SponsorClass.SILVER);
+    repository.findSponsorByName("Acme").get().setSponsorWebsiteUrl("https://changed");
+
+    Sponsor stored = repository.findSponsorByName("Acme").get();
+    assertEquals(Sponsor.SponsorClass.GOLD, stored.getSponsorClass());
+    assertEquals("https://site", stored.getSponsorWebsiteUrl());
+  }
+}
@@ -0,0 +1,77 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgillcssa.cssabackend.model.Member;
+
+class MemberLayoutTest {
+
+  private final Member member = new Member("Ada", "ada", "ada@example.com", "ada@mail.mcgill.ca", "adawx", null,
+      "+8610000000", LocalDate.of(2000, 2, 29), Member.Department.IT, Member.Position.DIRECTOR,
+      Member.ClothSize.XXL);
+
+  @Test
+  void compactDocumentRoundTrips() {
+    Document document = MemberLayout.toDocument(member);
+
+    assertTrue(MemberLayout.isCompact(document));
+    assertEquals("ada@mail.mcgill.ca", document.get("_id"));
+    assertEquals(229, document.get("b"));
+    assertEquals(Member.Department.IT.getCode(), document.get("d"));
+    assertFalse(document.containsKey("ca"), "null fields are not stored");
+    assertEquals(member, MemberLayout.fromDocument(document));
+  }
+
+  @Test
+  void readsLegacyDocuments() {
+    Document legacy = new Document("_id", "ada@mail.mcgill.ca")
+        .append("name", "Ada")
+        .append("pseudo", "ada")
+        .append("personalEmail", "ada@example.com")
+        .append("wechatId", "adawx")
+        .append("cnPhoneNum", "+8610000000")
+        .append("birthday", Date.from(LocalDate.of(2000, 2, 29).atStartOfDay(ZoneId.systemDefault()).toInstant()))
+        .append("department", "IT")
+        .append("position", "DIRECTOR")
+        .append("clothSize", "XXL")
+        .append("_class", "ca.mcgillcssa.cssabackend.model.Member");
+
+    assertFalse(MemberLayout.isCompact(legacy));
+    assertEquals(member, MemberLayout.fromDocument(legacy));
+    assertEquals("ada@example.com", MemberLayout.personalEmailOf(legacy));
+  }
+
+  @Test
+  void readsProjectionsOfEitherLayout() {
+    Document compact = new Document("_id", "ada@mail.mcgill.ca").append("n", "Ada").append("d", 7);
+    Document legacy = new Document("_id", "ada@mail.mcgill.ca").append("name", "Ada").append("department", "IT");
+
+    for (Document document : new Document[] { compact, legacy }) {
+      Member read = MemberLayout.fromDocument(document);
+      assertEquals("Ada", read.getName());
+      assertEquals(Member.Department.IT, read.getDepartment());
+      assertNull(read.getBirthday());
+      assertNull(read.getPosition());
+    }
+  }
+
+  @Test
+  void unknownValuesAreRejected() {
+    assertThrows(IllegalArgumentException.class,
+        () -> MemberLayout.fromDocument(new Document("_id", "x").append("department", "SPORTS")));
+    assertThrows(IllegalArgumentException.class,
+        () -> MemberLayout.fromDocument(new Document("_id", "x").append("p", 99)));
+    assertThrows(IllegalArgumentException.class, () -> MemberLayout.field("age"));
+  }
+}
@@ -0,0 +1,191 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import ca.mcgillcssa.cssabackend.model.Member;
+
+/**
+ * Rewrites legacy member documents while they are written, and reads members
+ * with both layouts in the collection, on the server whose URI is given in
+ * CSSA_TEST_MONGO_URI, when it is set.
+ */
+class MemberMigrationStoreTest {
+
+  private static final String MONGO_URI = System.getenv("CSSA_TEST_MONGO_URI");
+
+  private MongoClient client;
+  private MongoTemplate mongoTemplate;
+  private MemberMigrationStore store;
+
+  @BeforeEach
+  void connect() {
+    assumeTrue(MONGO_URI != null, "CSSA_TEST_MONGO_URI is not set");
+    client = MongoClients.create(MONGO_URI);
+    mongoTemplate = new MongoTemplate(client, "cssa-migration-" + System.nanoTime());
+    store = new MemberMigrationStore(mongoTemplate);
+  }
+
+  @AfterEach
+  void close() {
+    if (client != null) {
+      mongoTemplate.getDb().drop();
+      client.close();
+    }
+  }
+
+  /**
+   * A member as Spring Data wrote it before the compact layout, in IT or MEDIA,
+   * born in March or April.
+   */
+  static Document legacyMember(String schoolEmail, int i) {
+    LocalDate birthday = LocalDate.of(2000, 3 + i % 2, 1 + i % 28);
+    return new Document("_id", schoolEmail)
+        .append("name", "Student " + i)
+        .append("personalEmail", "student" + i + "@example.com")
+        .append("birthday", Date.from(birthday.atStartOfDay(ZoneId.systemDefault()).toInstant()))
+        .append("department", i % 2 == 0 ? "IT" : "MEDIA")
+        .append("position", "EXECUTIVE")
+        .append("clothSize", "M")
+        .append("_class", "ca.mcgillcssa.cssabackend.model.Member");
+  }
+
+  private void insertLegacyMembers(int count) {
+    for (int i = 0; i < count; i++) {
+      mongoTemplate.insert(legacyMember(String.format("student%03d@mail.mcgill.ca", i), i), MemberLayout.COLLECTION);
+    }
+  }
+
+  private Document stored(String id) {
+    return mongoTemplate.findById(id, Document.class, MemberLayout.COLLECTION);
+  }
+
+  @Test
+  void leavesDocumentsWrittenSinceTheirReadForALaterPass() {
+    insertLegacyMembers(5);
+    List<Document> batch = store.findLegacyMembers(null, 10);
+    assertEquals(5, batch.size());
+
+    // another instance renames a member between the read and the rewrite
+    mongoTemplate.updateFirst(new Query(Criteria.where("_id").is("student002@mail.mcgill.ca")),
+        new Update().set("name", "Renamed"), MemberLayout.COLLECTION);
+
+    assertEquals(4, store.rewriteLegacyMembers(batch));
+    assertFalse(MemberLayout.isCompact(stored("student002@mail.mcgill.ca")));
+    assertEquals("Renamed", stored("student002@mail.mcgill.ca").getString("name"));
+
+    List<Document> retry = store.findLegacyMembers(List.of("student001@mail.mcgill.ca", "student002@mail.mcgill.ca"));
+    assertEquals(1, retry.size());
+    assertEquals(1, store.rewriteLegacyMembers(retry));
+    assertEquals("Renamed", MemberLayout.fromDocument(stored("student002@mail.mcgill.ca")).getName());
+    assertEquals(0, store.countLegacyMembers());
+  }
+
+  @Test
+  void batchesVisitEveryLegacyDocumentOnce() {
+    insertLegacyMembers(23);
+    mongoTemplate.insert(MemberLayout.toDocument(MemberLayout.fromDocument(legacyMember("compact@mail.mcgill.ca", 0))),
+        MemberLayout.COLLECTION);
+
+    List<String> visited = new ArrayList<>();
+    String afterId = null;
+    List<Document> batch;
+    while (!(batch = store.findLegacyMembers(afterId, 5)).isEmpty()) {
+      batch.forEach(document -> visited.add(document.getString("_id")));
+      // resumed from the last id, as after a restart
+      afterId = batch.get(batch.size() - 1).getString("_id");
+    }
+
+    assertEquals(23, visited.size());
+    assertEquals(23, visited.stream().distinct().count());
+    assertFalse(visited.contains("compact@mail.mcgill.ca"));
+    assertEquals(23, store.countLegacyMembers());
+  }
+
+  @Test
+  void readsAndCountsMembersInEitherLayout() {
+    insertLegacyMembers(10);
+    // half of them migrated
+    store.rewriteLegacyMembers(store.findLegacyMembers(null, 5));
+    assertEquals(5, store.countLegacyMembers());
+    MongoMemberRepository members = new MongoMemberRepository(mongoTemplate, null);
+
+    for (int i = 0; i < 10; i++) {
+      String schoolEmail = String.format("student%03d@mail.mcgill.ca", i);
+      Member member = members.findBySchoolEmail(schoolEmail).get();
+      assertEquals(MemberLayout.fromDocument(legacyMember(schoolEmail, i)), member);
+      assertEquals(schoolEmail, members.findByPersonalEmail("student" + i + "@example.com").get().getSchoolEmail());
+    }
+    assertEquals(5, members.findByBirthdayMonth(3).size());
+    assertEquals(5, members.findByBirthdayMonth(4).size());
+
+    Map<String, Map<String, Long>> counts = members.countByDepartmentPositionAndClothSize();
+    assertEquals(Map.of("IT", 5L, "MEDIA", 5L), counts.get("department"));
+    assertEquals(Map.of("EXECUTIVE", 10L), counts.get("position"));
+    assertEquals(Map.of("M", 10L), counts.get("clothSize"));
+  }
+
+  @Test
+  void movesMembersToTheirNormalizedSchoolEmail() {
+    mongoTemplate.insert(legacyMember("Li.Hua@mail.mcgill.ca", 1).append(MemberLayout.REGISTRATION_EVENT, "e1"),
+        MemberLayout.COLLECTION);
+    mongoTemplate.insert(legacyMember("Wang.Wei@mail.mcgill.ca", 2), MemberLayout.COLLECTION);
+    mongoTemplate.insert(legacyMember("wang.wei@mail.mcgill.ca", 3), MemberLayout.COLLECTION);
+    mongoTemplate.insert(legacyMember("zhang.san@mail.mcgill.ca", 4), MemberLayout.COLLECTION);
+
+    List<Document> unnormalized = store.findUnnormalizedMembers(null, 10);
+    assertEquals(List.of("Li.Hua@mail.mcgill.ca", "Wang.Wei@mail.mcgill.ca"),
+        unnormalized.stream().map(document -> document.getString("_id")).toList());
+    assertEquals(List.of("Wang.Wei@mail.mcgill.ca"), store.findUnnormalizedMembers("Li.Hua@mail.mcgill.ca", 10)
+        .stream().map(document -> document.getString("_id")).toList());
+
+    assertTrue(store.moveToNormalizedId(unnormalized.get(0)));
+    Document moved = stored("li.hua@mail.mcgill.ca");
+    assertTrue(MemberLayout.isCompact(moved));
+    assertEquals("e1", moved.getString(MemberLayout.REGISTRATION_EVENT));
+    assertEquals("Student 1", MemberLayout.fromDocument(moved).getName());
+    assertNull(stored("Li.Hua@mail.mcgill.ca"));
+
+    // the normalized email belongs to another member
+    assertThrows(DuplicateKeyException.class, () -> store.moveToNormalizedId(unnormalized.get(1)));
+    assertEquals("Student 2", stored("Wang.Wei@mail.mcgill.ca").getString("name"));
+    assertEquals("Student 3", stored("wang.wei@mail.mcgill.ca").getString("name"));
+    assertEquals(1, store.countUnnormalizedMembers());
+  }
+
+  @Test
+  void keepsAMemberWrittenBeforeItsMove() {
+    mongoTemplate.insert(legacyMember("Li.Hua@mail.mcgill.ca", 1), MemberLayout.COLLECTION);
+    Document read = store.findUnnormalizedMembers(null, 10).get(0);
+    mongoTemplate.updateFirst(new Query(Criteria.where("_id").is("Li.Hua@mail.mcgill.ca")),
+        new Update().set("name", "Renamed"), MemberLayout.COLLECTION);
+
+    assertFalse(store.moveToNormalizedId(read));
+    assertEquals("Renamed", stored("Li.Hua@mail.mcgill.ca").getString("name"));
+    assertNull(stored("li.hua@mail.mcgill.ca"));
+  }
+}
@@ -0,0 +1,86 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+/**
+ * Reads watermarks off counter documents, then interleaves the writes of two
+ * repositories, as two instances would, on the server whose URI is given in
+ * CSSA_TEST_MONGO_URI, when it is set.
+ */
+class MongoChangeLogRepositoryTest {
+
+  private static final String MONGO_URI = System.getenv("CSSA_TEST_MONGO_URI");
+
+  private final List<MongoClient> clients = new ArrayList<>();
+  private final List<MongoTemplate> databases = new ArrayList<>();
+
+  @AfterEach
+  void close() {
+    databases.forEach(database -> database.getDb().drop());
+    clients.forEach(MongoClient::close);
+  }
+
+  private static Document pending(long seq, long at) {
+    return new Document("seq", seq).append("at", new Date(at));
+  }
+
+  @Test
+  void watermarkStopsBelowTheLowestPendingSequence() {
+    Date abandonedBefore = new Date(1000);
+
+    assertEquals(0, MongoChangeLogRepository.watermark(null, abandonedBefore));
+    assertEquals(7, MongoChangeLogRepository.watermark(new Document("value", 7L), abandonedBefore));
+    assertEquals(7, MongoChangeLogRepository.watermark(new Document("value", 7L)
+        .append(MongoChangeLogRepository.PENDING, List.of()), abandonedBefore));
+    assertEquals(4, MongoChangeLogRepository.watermark(new Document("value", 7L)
+        .append(MongoChangeLogRepository.PENDING, List.of(pending(7, 2000), pending(5, 2000))), abandonedBefore));
+    // the instance writing 5 stopped long ago
+    assertEquals(6, MongoChangeLogRepository.watermark(new Document("value", 7L)
+        .append(MongoChangeLogRepository.PENDING, List.of(pending(7, 2000), pending(5, 10))), abandonedBefore));
+  }
+
+  @Test
+  void writesInProgressOnAnotherInstanceHoldTheWatermark() {
+    assumeTrue(MONGO_URI != null, "CSSA_TEST_MONGO_URI is not set");
+    MongoClient client = MongoClients.create(MONGO_URI);
+    clients.add(client);
+    MongoTemplate mongoTemplate = new MongoTemplate(client, "cssa-changelog-" + System.nanoTime());
+    databases.add(mongoTemplate);
+    MongoChangeLogRepository a = new MongoChangeLogRepository(mongoTemplate);
+    MongoChangeLogRepository b = new MongoChangeLogRepository(mongoTemplate);
+
+    assertEquals(0, a.safeWatermark());
+    long first = a.withSequence(seq -> seq);
+    assertEquals(first, b.safeWatermark());
+
+    long[] seqB = new long[1];
+    long seqA = a.withSequence(seq -> {
+      // b commits a later sequence while a is still writing
+      seqB[0] = b.withSequence(next -> {
+        assertEquals(seq - 1, a.safeWatermark());
+        assertEquals(seq - 1, b.safeWatermark());
+        return next;
+      });
+      assertEquals(seq - 1, a.safeWatermark());
+      assertEquals(seq - 1, b.safeWatermark());
+      return seq;
+    });
+
+    assertEquals(seqA + 1, seqB[0]);
+    assertEquals(seqB[0], a.safeWatermark());
+    assertEquals(seqB[0], b.safeWatermark());
+  }
+}
@@ -0,0 +1,113 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import ca.mcgillcssa.cssabackend.model.Member;
+
+/**
+ * Runs the batch lookup on a MongoTemplate stand-in that answers $in queries on
+ * the document id from a map, and records each query.
+ */
+class MongoMemberRepositoryTest {
+
+  // never connected to, the stand-in answers every call itself
+  private final MongoClient client = MongoClients.create("mongodb://127.0.0.1:1");
+  private final Map<String, Document> stored = new ConcurrentHashMap<>();
+  private final List<Collection<?>> queries = new ArrayList<>();
+
+  private final MongoTemplate standIn = new MongoTemplate(client, "test") {
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> find(Query query, Class<T> entityClass, String collectionName) {
+      Collection<?> ids = (Collection<?>) ((Document) query.getQueryObject().get("_id")).get("$in");
+      queries.add(new ArrayList<>(ids));
+      List<T> found = new ArrayList<>();
+      for (Object id : ids) {
+        Document document = stored.get(id);
+        if (document != null) {
+          found.add((T) document);
+        }
+      }
+      return found;
+    }
+  };
+
+  private final MongoMemberRepository repository = new MongoMemberRepository(standIn, null);
+
+  @AfterEach
+  void close() {
+    client.close();
+  }
+
+  private void store(String schoolEmail) {
+    Member member = new Member("Li Hua", "", schoolEmail.replace("@mail.mcgill.ca", "@gmail.com"), schoolEmail, "",
+        "", "", LocalDate.of(2000, 5, 1), Member.Department.IT, Member.Position.EXECUTIVE, Member.ClothSize.M);
+    stored.put(schoolEmail, MemberLayout.toDocument(member));
+  }
+
+  private static Set<String> schoolEmails(List<Member> members) {
+    Set<String> emails = new HashSet<>();
+    for (Member member : members) {
+      emails.add(member.getSchoolEmail());
+    }
+    return emails;
+  }
+
+  @Test
+  void normalizesTheEmailsLookedUp() {
+    store("li.hua@mail.mcgill.ca");
+    // registered before school emails were normalized
+    store("Wang.Wei@mail.mcgill.ca");
+
+    List<Member> found = repository.findBySchoolEmails(
+        List.of(" Li.Hua@Mail.McGill.ca ", "li.hua@mail.mcgill.ca", "Wang.Wei@mail.mcgill.ca",
+            "zhang.san@mail.mcgill.ca"),
+        200, "name");
+
+    assertEquals(Set.of("li.hua@mail.mcgill.ca", "Wang.Wei@mail.mcgill.ca"), schoolEmails(found));
+    assertEquals(1, queries.size());
+    assertEquals(Set.of("li.hua@mail.mcgill.ca", "Li.Hua@Mail.McGill.ca", "wang.wei@mail.mcgill.ca",
+        "Wang.Wei@mail.mcgill.ca", "zhang.san@mail.mcgill.ca"), new HashSet<>(queries.get(0)));
+  }
+
+  @Test
+  void queriesInChunks() {
+    List<String> emails = new ArrayList<>();
+    for (int i = 0; i < 450; i++) {
+      String email = "student" + i + "@mail.mcgill.ca";
+      emails.add(email);
+      if (i % 3 == 0) {
+        store(email);
+      }
+    }
+
+    List<Member> found = repository.findBySchoolEmails(emails, 200, "name");
+
+    assertEquals(150, found.size());
+    assertEquals(3, queries.size());
+    assertEquals(List.of(200, 200, 50), queries.stream().map(Collection::size).toList());
+    Set<Object> queried = new HashSet<>();
+    queries.forEach(queried::addAll);
+    assertEquals(450, queried.size());
+    assertTrue(queried.containsAll(emails));
+  }
+}
@@ -0,0 +1,120 @@
+package ca.mcgillcssa.cssabackend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import ca.mcgillcssa.cssabackend.model.OutboxEvent;
+
+/**
+ * Checks the findAndModify calls that claim outbox events on a MongoTemplate
+ * stand-in, then claims events on the server whose URI is given in
+ * CSSA_TEST_MONGO_URI, when it is set.
+ */
+class OutboxRepositoryTest {
+
+  private static final String MONGO_URI = System.getenv("CSSA_TEST_MONGO_URI");
+
+  private final List<MongoClient> clients = new ArrayList<>();
+  private final List<MongoTemplate> databases = new ArrayList<>();
+
+  @AfterEach
+  void close() {
+    databases.forEach(database -> database.getDb().drop());
+    clients.forEach(MongoClient::close);
+  }
+
+  private static OutboxEvent event(String id, Instant nextAttemptAt, String... pendingHandlers) {
+    return new OutboxEvent(id, "MEMBER_REGISTERED", new HashMap<>(), nextAttemptAt, nextAttemptAt,
+        new ArrayList<>(List.of(pendingHandlers)), new ArrayList<>(), new HashMap<>(), null);
+  }
+
+  @Test
+  void claimsDueEventsOneFindAndModifyAtATime() {
+    Instant now = Instant.parse("2026-10-18T12:00:00Z");
+    Instant leaseUntil = now.plusSeconds(60);
+    Deque<OutboxEvent> due = new ArrayDeque<>(List.of(event("a", now), event("b", now), event("c", now)));
+    List<Query> queries = new ArrayList<>();
+    List<Document> updates = new ArrayList<>();
+    List<Boolean> returnNew = new ArrayList<>();
+
+    // never connected to, the stand-in answers every call itself
+    MongoClient client = MongoClients.create("mongodb://127.0.0.1:1");
+    clients.add(client);
+    MongoTemplate standIn = new MongoTemplate(client, "test") {
+      @Override
+      @SuppressWarnings("unchecked")
+      public <T> T findAndModify(Query query, UpdateDefinition update, FindAndModifyOptions options,
+          Class<T> entityClass) {
+        queries.add(query);
+        updates.add(update.getUpdateObject());
+        returnNew.add(options.isReturnNew());
+        return (T) due.poll();
+      }
+    };
+    OutboxRepository repository = new OutboxRepository(standIn);
+
+    assertEquals(List.of("a", "b"), repository.claimDueEvents(now, leaseUntil, 2).stream()
+        .map(OutboxEvent::getId).toList());
+    assertEquals(2, queries.size());
+
+    Query query = queries.get(0);
+    assertEquals(new Document("pendingHandlers.0", new Document("$exists", true))
+        .append("nextAttemptAt", new Document("$lte", now)), query.getQueryObject());
+    assertEquals(new Document("nextAttemptAt", 1), query.getSortObject());
+    assertEquals(new Document("$set", new Document("nextAttemptAt", leaseUntil)), updates.get(0));
+    assertTrue(returnNew.get(0));
+
+    // stops as soon as nothing is due
+    assertEquals(1, repository.claimDueEvents(now, leaseUntil, 10).size());
+    assertEquals(4, queries.size());
+  }
+
+  @Test
+  void claimsOnlyDueEventsWithPendingHandlers() {
+    assumeTrue(MONGO_URI != null, "CSSA_TEST_MONGO_URI is not set");
+    MongoClient client = MongoClients.create(MONGO_URI);
+    clients.add(client);
+    MongoTemplate mongoTemplate = new MongoTemplate(client, "cssa-outbox-" + System.nanoTime());
+    databases.add(mongoTemplate);
+    OutboxRepository repository = new OutboxRepository(mongoTemplate);
+
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    repository.insertEvent(event("later", now.minusSeconds(10), "welcome-email"));
+    repository.insertEvent(event("earlier", now.minusSeconds(20), "welcome-email", "wechat-roster"));
+    repository.insertEvent(event("leased", now.plusSeconds(30), "welcome-email"));
+    repository.insertEvent(event("delivered", now.minusSeconds(30)));
+
+    Instant leaseUntil = now.plusSeconds(60);
+    List<OutboxEvent> claimed = repository.claimDueEvents(now, leaseUntil, 10);
+
+    assertEquals(List.of("earlier", "later"), claimed.stream().map(OutboxEvent::getId).toList());
+    assertEquals(leaseUntil, claimed.get(0).getNextAttemptAt());
+    // leased now, so no other instance claims them
+    assertTrue(repository.claimDueEvents(now, leaseUntil, 10).isEmpty());
+
+    repository.markDelivered(List.of("earlier", "later"), "welcome-email");
+    repository.markFailed("leased", "welcome-email", "IOException: refused");
+    assertEquals(2, repository.deleteDelivered());
+    assertEquals(1, repository.countPending());
+  }
+}
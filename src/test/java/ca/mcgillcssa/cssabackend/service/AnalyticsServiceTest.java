@@ -0,0 +1,146 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import ca.mcgillcssa.cssabackend.model.AnalyticsCounter;
+import ca.mcgillcssa.cssabackend.model.AnalyticsCounter.EventType;
+import ca.mcgillcssa.cssabackend.repository.AnalyticsRepository;
+
+/**
+ * Records into the in-memory counters and checks what each flush writes, with
+ * the analytics collection faked by the list of bulk writes.
+ */
+class AnalyticsServiceTest {
+
+  private final List<List<AnalyticsCounter>> writes = new ArrayList<>();
+  private volatile boolean failWrites;
+
+  private final AnalyticsRepository repository = new AnalyticsRepository() {
+    @Override
+    public void incrementCounters(List<AnalyticsCounter> increments) {
+      if (failWrites) {
+        throw new DataAccessResourceFailureException("down");
+      }
+      writes.add(List.copyOf(increments));
+    }
+
+    @Override
+    public List<AnalyticsCounter> findCounters(EventType eventType, String targetId, Date since) {
+      List<AnalyticsCounter> found = new ArrayList<>();
+      for (List<AnalyticsCounter> write : writes) {
+        for (AnalyticsCounter counter : write) {
+          if (counter.getEventType() == eventType && counter.getTargetId().equals(targetId)
+              && !counter.getHour().before(since)) {
+            found.add(counter);
+          }
+        }
+      }
+      return found;
+    }
+  };
+
+  private final AnalyticsService service = new AnalyticsService(repository, 100);
+
+  private static long total(List<AnalyticsCounter> write, EventType eventType, String targetId) {
+    long total = 0;
+    for (AnalyticsCounter counter : write) {
+      if (counter.getEventType() == eventType && counter.getTargetId().equals(targetId)) {
+        total += counter.getCount();
+      }
+    }
+    return total;
+  }
+
+  @Test
+  void aggregatesConcurrentRecordsIntoOneIncrementPerCounter() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> recorders = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        recorders.add(executor.submit(() -> {
+          for (int i = 0; i < 1000; i++) {
+            service.record("SPONSOR_CLICK", "Desjardins", 1);
+            service.record("SPONSOR_IMPRESSION", "Desjardins", 3);
+          }
+        }));
+      }
+      for (Future<?> recorder : recorders) {
+        recorder.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    service.flush();
+    assertEquals(1, writes.size());
+    List<AnalyticsCounter> write = writes.get(0);
+    // one counter per type, two if the records straddled the hour
+    assertTrue(write.size() == 2 || write.size() == 4, write.toString());
+    assertEquals(8000, total(write, EventType.SPONSOR_CLICK, "Desjardins"));
+    assertEquals(24000, total(write, EventType.SPONSOR_IMPRESSION, "Desjardins"));
+    for (AnalyticsCounter counter : write) {
+      assertTrue(counter.getId().startsWith(counter.getEventType() + "|Desjardins|"), counter.getId());
+    }
+
+    // the counts were reset, so nothing is written again
+    service.flush();
+    assertEquals(1, writes.size());
+    service.record("SPONSOR_CLICK", "Desjardins", 2);
+    service.flush();
+    assertEquals(2, total(writes.get(1), EventType.SPONSOR_CLICK, "Desjardins"));
+  }
+
+  @Test
+  void keepsCountsThatCouldNotBeWritten() {
+    service.record("BENEFIT_REDEMPTION", "Tea Shop", 5);
+    failWrites = true;
+    service.flush();
+    service.record("BENEFIT_REDEMPTION", "Tea Shop", 1);
+    assertEquals(6L, service.getHourlyCounts("BENEFIT_REDEMPTION", "Tea Shop", 2).values().stream()
+        .mapToLong(Long::longValue).sum());
+
+    failWrites = false;
+    service.flush();
+    assertEquals(1, writes.size());
+    assertEquals(6, total(writes.get(0), EventType.BENEFIT_REDEMPTION, "Tea Shop"));
+  }
+
+  @Test
+  void hourlyCountsIncludeFlushedAndPendingCounts() {
+    service.record("SPONSOR_CLICK", "Desjardins", 4);
+    service.flush();
+    service.record("SPONSOR_CLICK", "Desjardins", 1);
+    service.record("SPONSOR_CLICK", "RBC", 7);
+
+    Map<String, Long> counts = service.getHourlyCounts("SPONSOR_CLICK", "Desjardins", 2);
+    assertEquals(5L, counts.values().stream().mapToLong(Long::longValue).sum());
+  }
+
+  @Test
+  void rejectsInvalidRecordsAndTooManyPendingCounters() {
+    assertThrows(IllegalArgumentException.class, () -> service.record("SPONSOR_VISIT", "RBC", 1));
+    assertThrows(IllegalArgumentException.class, () -> service.record("SPONSOR_CLICK", "", 1));
+    assertThrows(IllegalArgumentException.class, () -> service.record("SPONSOR_CLICK", "RBC", 0));
+    assertThrows(IllegalArgumentException.class, () -> service.record("SPONSOR_CLICK", "RBC", 1001));
+
+    for (int i = 0; i < 100; i++) {
+      service.record("SPONSOR_CLICK", "sponsor" + i, 1);
+    }
+    assertThrows(IllegalStateException.class, () -> service.record("SPONSOR_CLICK", "sponsor100", 1));
+    // existing counters still count
+    service.record("SPONSOR_CLICK", "sponsor0", 1);
+  }
+}
@@ -0,0 +1,214 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent.ChangeType;
+
+/**
+ * Subscribes emitters that record what is sent to them, and can be made to
+ * block or fail, outside of a servlet container.
+ */
+class ChangeNotificationServiceTest {
+
+  private final AtomicLong nanos = new AtomicLong(1);
+  private final List<RecordingEmitter> emitters = new ArrayList<>();
+  private final List<ChangeNotificationService> services = new ArrayList<>();
+
+  @AfterEach
+  void shutdown() {
+    emitters.forEach(emitter -> emitter.unblock.countDown());
+    services.forEach(ChangeNotificationService::shutdown);
+  }
+
+  private static final class RecordingEmitter extends SseEmitter {
+    private final List<String> sent = new ArrayList<>();
+    private final List<Object> data = new ArrayList<>();
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    private volatile boolean blocking;
+    private volatile boolean failing;
+    private volatile Throwable completedWith;
+
+    @Override
+    public void send(SseEventBuilder event) throws IOException {
+      if (failing) {
+        throw new IOException("Broken pipe");
+      }
+      if (blocking) {
+        try {
+          unblock.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      StringBuilder text = new StringBuilder();
+      for (ResponseBodyEmitter.DataWithMediaType part : event.build()) {
+        if (part.getData() instanceof String) {
+          text.append(part.getData());
+        } else {
+          synchronized (data) {
+            data.add(part.getData());
+          }
+        }
+      }
+      synchronized (sent) {
+        sent.add(text.toString());
+      }
+    }
+
+    @Override
+    public void completeWithError(Throwable error) {
+      completedWith = error;
+    }
+
+    List<String> sent() {
+      synchronized (sent) {
+        return new ArrayList<>(sent);
+      }
+    }
+
+    long count(String prefix) {
+      return sent().stream().filter(text -> text.startsWith(prefix)).count();
+    }
+  }
+
+  private ChangeNotificationService service(int maxSubscribers, int queueCapacity) {
+    ChangeNotificationService service = new ChangeNotificationService(() -> {
+      RecordingEmitter emitter = new RecordingEmitter();
+      emitters.add(emitter);
+      return emitter;
+    }, maxSubscribers, 2, queueCapacity, 1000, nanos::get);
+    services.add(service);
+    return service;
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.currentTimeMillis() < deadline, "timed out");
+      Thread.sleep(5);
+    }
+  }
+
+  private static int subscribers(ChangeNotificationService service) {
+    return (Integer) service.getStats().get("subscribers");
+  }
+
+  @Test
+  void subscribingSendsReadyAndIsBounded() throws Exception {
+    ChangeNotificationService service = service(2, 16);
+
+    RecordingEmitter emitter = (RecordingEmitter) service.subscribe(Set.of(EntityChangedEvent.SPONSORS));
+    await(() -> emitter.count("event:ready") == 1);
+
+    assertThrows(IllegalArgumentException.class, () -> service.subscribe(Set.of("members")));
+    assertThrows(IllegalArgumentException.class, () -> service.subscribe(Set.of()));
+    service.subscribe(Set.of(EntityChangedEvent.EVENTS));
+    assertThrows(IllegalStateException.class, () -> service.subscribe(Set.of(EntityChangedEvent.EVENTS)));
+    assertEquals(2, subscribers(service));
+  }
+
+  @Test
+  void dispatchSendsTheLatestChangesOfEachTopicToItsSubscribers() throws Exception {
+    ChangeNotificationService service = service(10, 16);
+    RecordingEmitter sponsors = (RecordingEmitter) service.subscribe(Set.of(EntityChangedEvent.SPONSORS));
+    RecordingEmitter events = (RecordingEmitter) service.subscribe(Set.of(EntityChangedEvent.EVENTS));
+
+    service.onEntityChanged(new EntityChangedEvent(EntityChangedEvent.SPONSORS, "Acme", ChangeType.CREATED));
+    service.onEntityChanged(new EntityChangedEvent(EntityChangedEvent.SPONSORS, "Acme", ChangeType.DELETED));
+    service.dispatch();
+    await(() -> sponsors.count("id:1\nevent:sponsors") == 1);
+
+    Map<?, ?> message = (Map<?, ?>) sponsors.data.get(sponsors.data.size() - 1);
+    assertEquals(List.of(Map.of("id", "Acme", "changeType", "DELETED")), message.get("changes"));
+    // nothing new, nothing sent
+    service.dispatch();
+    Thread.sleep(50);
+    assertEquals(2, sponsors.sent().size());
+    assertEquals(0, events.count("id:"));
+  }
+
+  @Test
+  void heartbeatReachesEachSubscriberOnce() throws Exception {
+    ChangeNotificationService service = service(10, 16);
+    RecordingEmitter both = (RecordingEmitter) service.subscribe(
+        Set.of(EntityChangedEvent.SPONSORS, EntityChangedEvent.EVENTS));
+    RecordingEmitter benefits = (RecordingEmitter) service.subscribe(Set.of(EntityChangedEvent.BENEFITS));
+
+    service.heartbeat();
+    await(() -> both.count(":heartbeat") == 1 && benefits.count(":heartbeat") == 1);
+    Thread.sleep(50);
+    assertEquals(1, both.count(":heartbeat"));
+  }
+
+  @Test
+  void deadEmittersAreRemoved() throws Exception {
+    ChangeNotificationService service = service(10, 16);
+    RecordingEmitter dead = (RecordingEmitter) service.subscribe(Set.of(EntityChangedEvent.SPONSORS));
+    RecordingEmitter alive = (RecordingEmitter) service.subscribe(Set.of(EntityChangedEvent.SPONSORS));
+    await(() -> alive.count("event:ready") == 1);
+
+    dead.failing = true;
+    service.heartbeat();
+    await(() -> subscribers(service) == 1);
+
+    assertTrue(dead.completedWith instanceof IOException);
+    assertEquals(Map.of(EntityChangedEvent.SPONSORS, 1, EntityChangedEvent.EVENTS, 0, EntityChangedEvent.BENEFITS, 0),
+        service.getStats().get("byTopic"));
+  }
+
+  @Test
+  void aSlowSubscriberIsDroppedWithoutHoldingUpTheOthers() throws Exception {
+    ChangeNotificationService service = service(10, 4);
+    RecordingEmitter slow = (RecordingEmitter) service.subscribe(Set.of(EntityChangedEvent.SPONSORS));
+    await(() -> slow.count("event:ready") == 1);
+    slow.blocking = true;
+    RecordingEmitter fast = (RecordingEmitter) service.subscribe(Set.of(EntityChangedEvent.SPONSORS));
+
+    for (int i = 1; i <= 10; i++) {
+      service.onEntityChanged(new EntityChangedEvent(EntityChangedEvent.SPONSORS, "s" + i, ChangeType.UPDATED));
+      service.dispatch();
+      String id = "id:" + i + "\n";
+      await(() -> fast.count(id) == 1);
+    }
+
+    // one send blocked, four queued, the next one overflows
+    assertEquals(1, subscribers(service));
+    assertTrue(slow.completedWith instanceof IOException);
+    assertEquals(1L, service.getStats().get("dropped"));
+  }
+
+  @Test
+  void aSendBlockedPastTheTimeoutIsDroppedOnHeartbeat() throws Exception {
+    ChangeNotificationService service = service(10, 16);
+    RecordingEmitter stuck = (RecordingEmitter) service.subscribe(Set.of(EntityChangedEvent.EVENTS));
+    await(() -> stuck.count("event:ready") == 1);
+    stuck.blocking = true;
+
+    service.heartbeat();
+    Thread.sleep(50);
+    service.heartbeat();
+    assertEquals(1, subscribers(service));
+
+    nanos.addAndGet(2_000_000_000L);
+    service.heartbeat();
+    assertEquals(0, subscribers(service));
+    assertTrue(stuck.completedWith instanceof IOException);
+  }
+}
@@ -0,0 +1,260 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import ca.mcgillcssa.cssabackend.event.CollectionChangedEvent;
+import ca.mcgillcssa.cssabackend.event.MemberChangedEvent;
+import ca.mcgillcssa.cssabackend.model.CSSAEvent;
+import ca.mcgillcssa.cssabackend.model.CheckIn;
+import ca.mcgillcssa.cssabackend.model.Member;
+import ca.mcgillcssa.cssabackend.repository.CheckInRepository;
+import ca.mcgillcssa.cssabackend.repository.InMemoryCSSAEventRepository;
+import ca.mcgillcssa.cssabackend.repository.InMemoryChangeLogRepository;
+import ca.mcgillcssa.cssabackend.repository.InMemoryMemberRepository;
+import ca.mcgillcssa.cssabackend.repository.MemberLayout;
+import ca.mcgillcssa.cssabackend.service.CheckInService.CheckInResult;
+
+/**
+ * Runs check-ins against in-memory members and events, with the checkins
+ * collection faked by a list, and a fake clock for expiry.
+ */
+class CheckInServiceTest {
+
+  private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+
+  private final AtomicLong now = new AtomicLong(1_000_000_000L);
+  private final InMemoryChangeLogRepository changeLog = new InMemoryChangeLogRepository();
+  private final InMemoryMemberRepository members = new InMemoryMemberRepository(changeLog);
+  private final InMemoryCSSAEventRepository events = new InMemoryCSSAEventRepository(event -> {
+  }, changeLog);
+
+  // the checkins collection
+  private final List<CheckIn> stored = new ArrayList<>();
+  private final AtomicInteger attendeeLoads = new AtomicInteger();
+  private volatile boolean failWrites;
+
+  private final CheckInRepository checkIns = new CheckInRepository() {
+    @Override
+    public void appendCheckIns(List<CheckIn> batch) {
+      if (failWrites) {
+        throw new DataAccessResourceFailureException("down");
+      }
+      synchronized (stored) {
+        for (CheckIn checkIn : batch) {
+          if (stored.stream().noneMatch(s -> s.getId().equals(checkIn.getId()))) {
+            stored.add(checkIn);
+          }
+        }
+      }
+    }
+
+    @Override
+    public List<String> findSchoolEmailsByEventId(String eventId) {
+      attendeeLoads.incrementAndGet();
+      synchronized (stored) {
+        return stored.stream().filter(s -> s.getEventId().equals(eventId)).map(CheckIn::getSchoolEmail).toList();
+      }
+    }
+
+    @Override
+    public long countByEventId(String eventId) {
+      synchronized (stored) {
+        return stored.stream().filter(s -> s.getEventId().equals(eventId)).count();
+      }
+    }
+  };
+
+  private CheckInService service(int maxEvents) {
+    return new CheckInService(members, checkIns, events, 100, 10, maxEvents, Duration.ofHours(12), now::get);
+  }
+
+  private Member member(String schoolEmail) {
+    Member member = new Member("Li Hua", "", schoolEmail.replace("@mail.", "@"), schoolEmail, "", "", "", null,
+        null, null, null);
+    members.createMember(member);
+    return member;
+  }
+
+  private String event(String name, LocalDate start, LocalDate end) {
+    return events.saveEvent(new CSSAEvent(name, start, end, "Montreal", "", "", "")).getId();
+  }
+
+  @Test
+  void checksInMembersOnceAndRejectsOthers() {
+    member("li.hua@mail.mcgill.ca");
+    String gala = event("Gala", TODAY, TODAY);
+    String picnic = event("Picnic", TODAY, TODAY);
+    CheckInService service = service(10);
+    assertThrows(IllegalStateException.class, () -> service.checkIn(gala, "li.hua@mail.mcgill.ca"));
+    service.reload();
+
+    assertEquals(CheckInResult.CHECKED_IN, service.checkIn(gala, " Li.Hua@mail.McGill.ca "));
+    assertEquals(CheckInResult.ALREADY_CHECKED_IN, service.checkIn(gala, "li.hua@mail.mcgill.ca"));
+    assertEquals(CheckInResult.CHECKED_IN, service.checkIn(picnic, "li.hua@mail.mcgill.ca"));
+    assertEquals(CheckInResult.NOT_A_MEMBER, service.checkIn(gala, "wang.wei@mail.mcgill.ca"));
+
+    service.flush();
+    assertEquals(2, stored.size());
+    assertEquals(gala + ":li.hua@mail.mcgill.ca", stored.get(0).getId());
+  }
+
+  @Test
+  void refusesEventsThatDoNotExist() {
+    member("li.hua@mail.mcgill.ca");
+    CheckInService service = service(10);
+    service.reload();
+
+    assertThrows(IllegalArgumentException.class, () -> service.checkIn("no-such-event", "li.hua@mail.mcgill.ca"));
+    assertEquals(0, service.getStats().get("eventsHeld"));
+    assertEquals(0, attendeeLoads.get());
+    service.flush();
+    assertEquals(0, stored.size());
+  }
+
+  @Test
+  void loadsTheAttendeesOfAnEventOnceForConcurrentFirstScans() throws Exception {
+    String gala = event("Gala", TODAY, TODAY);
+    List<String> students = new ArrayList<>();
+    for (int i = 0; i < 16; i++) {
+      students.add(member("student" + i + "@mail.mcgill.ca").getSchoolEmail());
+    }
+    CheckInService service = service(10);
+    service.reload();
+
+    ExecutorService scanners = Executors.newFixedThreadPool(students.size());
+    try {
+      List<Future<CheckInResult>> results = new ArrayList<>();
+      for (String student : students) {
+        results.add(scanners.submit(() -> service.checkIn(gala, student)));
+      }
+      for (Future<CheckInResult> result : results) {
+        assertEquals(CheckInResult.CHECKED_IN, result.get(10, TimeUnit.SECONDS));
+      }
+    } finally {
+      scanners.shutdownNow();
+    }
+    // scans arriving during the load wait for it, later ones find the attendees held
+    assertEquals(1, attendeeLoads.get());
+  }
+
+  @Test
+  void followsMemberChanges() {
+    CheckInService service = service(10);
+    service.reload();
+    Member member = member("li.hua@mail.mcgill.ca");
+    assertFalse(service.isMember("li.hua@mail.mcgill.ca"));
+
+    service.onMemberChanged(new MemberChangedEvent(MemberChangedEvent.ChangeType.CREATED, member));
+    assertTrue(service.isMember("li.hua@mail.mcgill.ca"));
+    service.onMemberChanged(new MemberChangedEvent(MemberChangedEvent.ChangeType.DELETED, member));
+    assertFalse(service.isMember("li.hua@mail.mcgill.ca"));
+  }
+
+  @Test
+  void followsMembersRegisteredOnOtherInstances() {
+    CheckInService service = service(10);
+    service.reload();
+    Member member = member("li.hua@mail.mcgill.ca");
+
+    service.onMembersChanged(new CollectionChangedEvent("members", "li.hua@mail.mcgill.ca",
+        MemberLayout.toDocument(member)));
+    assertTrue(service.isMember("li.hua@mail.mcgill.ca"));
+    service.onMembersChanged(new CollectionChangedEvent("members", "li.hua@mail.mcgill.ca", null));
+    assertFalse(service.isMember("li.hua@mail.mcgill.ca"));
+
+    // a change that names no member reloads them all
+    service.onMembersChanged(new CollectionChangedEvent("members", null, null));
+    assertTrue(service.isMember("li.hua@mail.mcgill.ca"));
+  }
+
+  @Test
+  void remembersCheckInsOfOpenEventsAcrossRestarts() {
+    member("li.hua@mail.mcgill.ca");
+    String open = event("Gala", TODAY.minusDays(1), TODAY.plusDays(1));
+    event("Picnic", TODAY.plusDays(7), TODAY.plusDays(7));
+    event("Ended", TODAY.minusDays(7), TODAY.minusDays(6));
+    CheckInService before = service(10);
+    before.reload();
+    before.checkIn(open, "li.hua@mail.mcgill.ca");
+    before.flush();
+
+    CheckInService after = service(10);
+    after.reload();
+    assertEquals(1, after.loadOpenEvents(TODAY));
+    int loads = attendeeLoads.get();
+    assertEquals(CheckInResult.ALREADY_CHECKED_IN, after.checkIn(open, "li.hua@mail.mcgill.ca"));
+    assertEquals(loads, attendeeLoads.get());
+  }
+
+  @Test
+  void dropsIdleEventsAndReloadsThemOnTheNextCheckIn() {
+    member("li.hua@mail.mcgill.ca");
+    String gala = event("Gala", TODAY, TODAY);
+    CheckInService service = service(10);
+    service.reload();
+    service.checkIn(gala, "li.hua@mail.mcgill.ca");
+    service.flush();
+    assertEquals(1, service.getStats().get("eventsHeld"));
+
+    now.addAndGet(Duration.ofHours(13).toNanos());
+    service.flush();
+    assertEquals(0, service.getStats().get("eventsHeld"));
+
+    assertEquals(CheckInResult.ALREADY_CHECKED_IN, service.checkIn(gala, "li.hua@mail.mcgill.ca"));
+  }
+
+  @Test
+  void holdsAtMostTheMaximumNumberOfEvents() {
+    member("li.hua@mail.mcgill.ca");
+    List<String> eventIds = List.of(event("A", TODAY, TODAY), event("B", TODAY, TODAY), event("C", TODAY, TODAY));
+    CheckInService service = service(2);
+    service.reload();
+    for (String eventId : eventIds) {
+      service.checkIn(eventId, "li.hua@mail.mcgill.ca");
+      now.addAndGet(1000);
+    }
+    service.flush();
+    assertEquals(2, service.getStats().get("eventsHeld"));
+
+    // the least recently used event was dropped and is read back from the store
+    int loads = attendeeLoads.get();
+    assertEquals(CheckInResult.ALREADY_CHECKED_IN, service.checkIn(eventIds.get(0), "li.hua@mail.mcgill.ca"));
+    assertEquals(loads + 1, attendeeLoads.get());
+  }
+
+  @Test
+  void keepsCheckInsQueuedWhileTheStoreIsDown() {
+    member("li.hua@mail.mcgill.ca");
+    String gala = event("Gala", TODAY, TODAY);
+    CheckInService service = service(10);
+    service.reload();
+    service.checkIn(gala, "li.hua@mail.mcgill.ca");
+
+    failWrites = true;
+    service.flush();
+    assertEquals(0, stored.size());
+    assertEquals(1, service.getStats().get("pendingCheckIns"));
+
+    failWrites = false;
+    service.flush();
+    assertEquals(1, stored.size());
+    assertEquals(0, service.getStats().get("pendingCheckIns"));
+  }
+}
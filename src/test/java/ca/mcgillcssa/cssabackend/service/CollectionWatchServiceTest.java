@@ -0,0 +1,216 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+
+import ca.mcgillcssa.cssabackend.event.CollectionChangedEvent;
+import ca.mcgillcssa.cssabackend.repository.ChangeLogRepository;
+import ca.mcgillcssa.cssabackend.repository.ChangeStreamRepository;
+import ca.mcgillcssa.cssabackend.repository.MemberRepository;
+import ca.mcgillcssa.cssabackend.repository.MongoChangeLogRepository;
+
+/**
+ * Follows changes on a local single-node replica set, e.g. one started with
+ * "mongod --replSet rs0" and "rs.initiate()", whose URI is given in
+ * CSSA_TEST_MONGO_URI. The tests that need it are skipped without it. The
+ * fallback to version polling runs without a server.
+ */
+class CollectionWatchServiceTest {
+
+  private static final String MONGO_URI = System.getenv("CSSA_TEST_MONGO_URI");
+  private static final String INSTANCE_ID = "test-instance";
+
+  private final BlockingQueue<CollectionChangedEvent> published = new LinkedBlockingQueue<>();
+  private MongoClient client;
+  private MongoTemplate mongoTemplate;
+  private CollectionWatchService watcher;
+
+  private MongoTemplate connect() {
+    assumeTrue(MONGO_URI != null, "CSSA_TEST_MONGO_URI is not set");
+    client = MongoClients.create(MONGO_URI);
+    mongoTemplate = new MongoTemplate(client, "cssa-watch-test-" + System.nanoTime());
+    return mongoTemplate;
+  }
+
+  private CollectionWatchService watcher(ChangeStreamRepository changeStreams, ChangeLogRepository changeLog) {
+    return new CollectionWatchService(changeStreams, changeLog, event -> {
+      if (event instanceof CollectionChangedEvent) {
+        published.add((CollectionChangedEvent) event);
+      }
+    }, INSTANCE_ID, 200, 0, 50);
+  }
+
+  @AfterEach
+  void stop() throws InterruptedException {
+    if (watcher != null) {
+      watcher.stop();
+    }
+    if (mongoTemplate != null) {
+      mongoTemplate.getDb().drop();
+    }
+    if (client != null) {
+      client.close();
+    }
+  }
+
+  /**
+   * @return the next event for a collection, skipping the others
+   */
+  private CollectionChangedEvent next(String collection) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (System.nanoTime() < deadline) {
+      CollectionChangedEvent event = published.poll(100, TimeUnit.MILLISECONDS);
+      if (event != null && collection.equals(event.getCollection())) {
+        return event;
+      }
+    }
+    return null;
+  }
+
+  private Set<String> drainCollections() {
+    Set<String> collections = new HashSet<>();
+    CollectionChangedEvent event;
+    while ((event = published.poll()) != null) {
+      assertNull(event.getDocumentId());
+      collections.add(event.getCollection());
+    }
+    return collections;
+  }
+
+  private void awaitStreaming() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!watcher.isStreaming() && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+    assertTrue(watcher.isStreaming(), "change stream did not open, is the server a replica set?");
+    // the stream starts at the first getMore, give it one round
+    Thread.sleep(300);
+  }
+
+  @Test
+  void publishesWritesWithTheirDocument() throws Exception {
+    MongoTemplate template = connect();
+    watcher = watcher(new ChangeStreamRepository(template), new MongoChangeLogRepository(template));
+    watcher.start();
+    awaitStreaming();
+
+    template.insert(new Document("_id", "ada@mail.mcgill.ca").append("personalEmail", "ada@example.com"), "members");
+    CollectionChangedEvent inserted = next("members");
+    assertNotNull(inserted);
+    assertEquals("ada@mail.mcgill.ca", inserted.getDocumentId());
+    assertEquals("ada@example.com", inserted.getDocument().getString("personalEmail"));
+
+    template.getCollection("members").deleteOne(new Document("_id", "ada@mail.mcgill.ca"));
+    CollectionChangedEvent deleted = next("members");
+    assertNotNull(deleted);
+    assertEquals("ada@mail.mcgill.ca", deleted.getDocumentId());
+    assertNull(deleted.getDocument());
+
+    // not followed
+    template.insert(new Document("_id", "x"), "rsvps");
+    template.insert(new Document("_id", "gala"), "events");
+    assertEquals("gala", next("events").getDocumentId());
+    assertTrue(published.stream().noneMatch(event -> "rsvps".equals(event.getCollection())));
+  }
+
+  @Test
+  void resumesAfterRestartWithoutMissingChanges() throws Exception {
+    MongoTemplate template = connect();
+    ChangeStreamRepository changeStreams = new ChangeStreamRepository(template);
+    watcher = watcher(changeStreams, new MongoChangeLogRepository(template));
+    watcher.start();
+    awaitStreaming();
+    template.insert(new Document("_id", "first"), "sponsors");
+    assertEquals("first", next("sponsors").getDocumentId());
+
+    watcher.stop();
+    assertTrue(changeStreams.findResumeToken(INSTANCE_ID).isPresent());
+    // made while no instance was listening
+    template.insert(new Document("_id", "second"), "sponsors");
+
+    watcher = watcher(changeStreams, new MongoChangeLogRepository(template));
+    watcher.start();
+    assertEquals("second", next("sponsors").getDocumentId());
+  }
+
+  @Test
+  void pollsVersionsWhileChangeStreamsAreUnavailable() throws Exception {
+    ChangeStreamRepository standalone = new ChangeStreamRepository(null) {
+      @Override
+      public MongoChangeStreamCursor<ChangeStreamDocument<Document>> openChangeStream(List<String> collections,
+          BsonDocument resumeAfter, long maxAwaitMillis) {
+        throw new MongoCommandException(new BsonDocument("ok", new BsonInt32(0))
+            .append("code", new BsonInt32(40573))
+            .append("errmsg", new BsonString("The $changeStream stage is only supported on replica sets")),
+            new ServerAddress());
+      }
+
+      @Override
+      public Optional<BsonDocument> findResumeToken(String instanceId) {
+        return Optional.empty();
+      }
+    };
+    Map<String, Long> versions = new HashMap<>();
+    ChangeLogRepository changeLog = new MongoChangeLogRepository(null) {
+      @Override
+      public Map<String, Long> findVersions(Collection<String> names) {
+        return new HashMap<>(versions);
+      }
+    };
+    watcher = watcher(standalone, changeLog);
+    watcher.start();
+    Thread.sleep(100);
+    assertFalse(watcher.isStreaming());
+
+    watcher.pollVersions();
+    assertTrue(published.isEmpty(), "the first poll only takes a baseline");
+
+    versions.put(MemberRepository.VERSION, 1L);
+    watcher.pollVersions();
+    CollectionChangedEvent members = published.poll();
+    assertEquals("members", members.getCollection());
+    assertNull(members.getDocumentId());
+    assertTrue(published.isEmpty());
+
+    versions.put(ChangeLogRepository.CHANGES, 7L);
+    watcher.pollVersions();
+    assertEquals(Set.of("sponsors", "events", "benefits"), drainCollections());
+
+    // sequences are taken before the write lands, so they are invalidated once more
+    watcher.pollVersions();
+    assertEquals(Set.of("sponsors", "events", "benefits"), drainCollections());
+
+    watcher.pollVersions();
+    assertTrue(published.isEmpty());
+  }
+}
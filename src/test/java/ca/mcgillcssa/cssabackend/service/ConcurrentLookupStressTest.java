@@ -0,0 +1,157 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import ca.mcgillcssa.cssabackend.model.Member;
+import ca.mcgillcssa.cssabackend.model.Sponsor;
+import ca.mcgillcssa.cssabackend.repository.InMemoryChangeLogRepository;
+import ca.mcgillcssa.cssabackend.repository.InMemoryMemberRepository;
+import ca.mcgillcssa.cssabackend.repository.InMemorySponsorRepository;
+import ca.mcgillcssa.cssabackend.repository.MemberRepository;
+import ca.mcgillcssa.cssabackend.repository.SponsorRepository;
+import ca.mcgillcssa.cssabackend.util.SingleFlight;
+
+/**
+ * Fires bursts of identical lookups at the services and counts how many reach
+ * the in-memory repositories. A lookup that reaches them is held until every
+ * other caller of its key waits on it, so no caller arrives after it returned
+ * and the count does not depend on timing.
+ */
+class ConcurrentLookupStressTest {
+
+  private static final int CLIENTS_PER_KEY = 200;
+  private static final long MAX_WAIT_MILLIS = 10_000;
+
+  private final Map<String, AtomicInteger> queries = new ConcurrentHashMap<>();
+  private final Map<String, Set<Thread>> callers = new ConcurrentHashMap<>();
+
+  /**
+   * Waits until every other caller of the key is parked on the call in flight.
+   * Gives up after a while, as it never happens if calls are not merged, and
+   * leaves the assertions on the query count to fail.
+   */
+  private void slowQuery(String key) {
+    queries.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+    long deadline = System.currentTimeMillis() + MAX_WAIT_MILLIS;
+    while (!allOthersWaitOnTheCallInFlight(key) && System.currentTimeMillis() < deadline) {
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private boolean allOthersWaitOnTheCallInFlight(String key) {
+    Set<Thread> threads = callers.getOrDefault(key, Set.of());
+    if (threads.size() < CLIENTS_PER_KEY) {
+      return false;
+    }
+    for (Thread thread : threads) {
+      if (thread != Thread.currentThread() && !(thread.getState() == Thread.State.WAITING
+          && Arrays.stream(thread.getStackTrace())
+              .anyMatch(frame -> frame.getClassName().equals(SingleFlight.class.getName())))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Test
+  void sponsorBurstQueriesOncePerName() throws Exception {
+    SponsorRepository repository = new InMemorySponsorRepository(event -> {
+    }, new InMemoryChangeLogRepository()) {
+      @Override
+      public Optional<Sponsor> findSponsorByName(String sponsorName) {
+        slowQuery(sponsorName);
+        return super.findSponsorByName(sponsorName);
+      }
+    };
+    for (String name : List.of("Desjardins", "RBC", "Air Canada")) {
+      repository.createSponsor(new Sponsor(name, Sponsor.CoopDuration.FULL_YEAR, "https://img", "https://site",
+          Sponsor.SponsorClass.GOLD, 0));
+    }
+    SponsorService service = new SponsorService(repository, new StaleReadService(30, 1));
+
+    List<String> results = burst(List.of("Desjardins", "RBC", "Air Canada"),
+        name -> service.findSponsorByName(name).get().getSponsorName());
+
+    assertEquals(3 * CLIENTS_PER_KEY, results.size());
+    assertEquals(1, queries.get("Desjardins").get());
+    assertEquals(1, queries.get("RBC").get());
+    assertEquals(1, queries.get("Air Canada").get());
+  }
+
+  @Test
+  void memberBurstQueriesOncePerEmail() throws Exception {
+    MemberRepository repository = new InMemoryMemberRepository(new InMemoryChangeLogRepository()) {
+      @Override
+      public Optional<Member> findBySchoolEmail(String schoolEmail) {
+        slowQuery(schoolEmail);
+        return super.findBySchoolEmail(schoolEmail);
+      }
+    };
+    repository.createMember(new Member("Li Hua", "", "li.hua@gmail.com", "li.hua@mail.mcgill.ca", "", "", "",
+        LocalDate.of(2000, 1, 1), Member.Department.IT, Member.Position.EXECUTIVE, Member.ClothSize.M));
+    MemberWriteBatcher batcher = new MemberWriteBatcher(repository, false, 1, 1, 0, 0);
+    // a zero TTL disables the lookup cache so only request coalescing is measured
+    ApplicationEventPublisher noEvents = event -> {
+    };
+    MemberService service = new MemberService(repository, batcher, noEvents, 100, 0, 0);
+
+    List<String> results = burst(List.of("li.hua@mail.mcgill.ca", "missing@mail.mcgill.ca"),
+        email -> service.findBySchoolEmail(email).map(Member::getName).orElse("none"));
+
+    assertEquals(2 * CLIENTS_PER_KEY, results.size());
+    assertTrue(results.contains("Li Hua"));
+    assertTrue(results.contains("none"));
+    assertEquals(1, queries.get("li.hua@mail.mcgill.ca").get());
+    assertEquals(1, queries.get("missing@mail.mcgill.ca").get());
+  }
+
+  private List<String> burst(List<String> keys, Function<String, String> lookup) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(keys.size() * CLIENTS_PER_KEY);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<String>> futures = new ArrayList<>();
+    try {
+      for (int i = 0; i < CLIENTS_PER_KEY; i++) {
+        for (String key : keys) {
+          futures.add(pool.submit(() -> {
+            start.await();
+            callers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread());
+            return lookup.apply(key);
+          }));
+        }
+      }
+      start.countDown();
+      List<String> results = new ArrayList<>();
+      for (Future<String> future : futures) {
+        results.add(future.get(10, TimeUnit.SECONDS));
+      }
+      return results;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import ca.mcgillcssa.cssabackend.event.MemberChangedEvent;
+import ca.mcgillcssa.cssabackend.event.WebhookEventHandler;
+import ca.mcgillcssa.cssabackend.model.Member;
+import ca.mcgillcssa.cssabackend.model.OutboxEvent;
+import ca.mcgillcssa.cssabackend.repository.InMemoryChangeLogRepository;
+import ca.mcgillcssa.cssabackend.repository.InMemoryMemberRepository;
+import ca.mcgillcssa.cssabackend.repository.OutboxRepository;
+
+/**
+ * Publishes member registrations through the bus to a webhook served by a local
+ * HTTP stand-in, with an in-memory outbox and member store.
+ */
+class DomainEventBusTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Map<String, OutboxEvent> outbox = new ConcurrentHashMap<>();
+  private final Set<String> received = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicInteger failuresLeft = new AtomicInteger();
+  private HttpServer webhook;
+  private final List<DomainEventBus> buses = new ArrayList<>();
+  private final InMemoryMemberRepository members = new InMemoryMemberRepository(new InMemoryChangeLogRepository());
+
+  private final OutboxRepository outboxRepository = new OutboxRepository(null) {
+    @Override
+    public OutboxEvent insertEvent(OutboxEvent event) {
+      if (outbox.putIfAbsent(event.getId(), event) != null) {
+        throw new DuplicateKeyException("Duplicate outbox event " + event.getId());
+      }
+      return event;
+    }
+
+    @Override
+    public synchronized List<OutboxEvent> claimDueEvents(Instant now, Instant leaseUntil, int limit) {
+      List<OutboxEvent> claimed = new ArrayList<>();
+      outbox.values().stream()
+          .filter(event -> !event.getPendingHandlers().isEmpty() && !event.getNextAttemptAt().isAfter(now))
+          .sorted(Comparator.comparing(OutboxEvent::getNextAttemptAt))
+          .limit(limit)
+          .forEach(event -> {
+            event.setNextAttemptAt(leaseUntil);
+            claimed.add(event);
+          });
+      return claimed;
+    }
+
+    @Override
+    public synchronized void markDelivered(Collection<String> ids, String handler) {
+      ids.forEach(id -> outbox.get(id).getPendingHandlers().remove(handler));
+    }
+
+    @Override
+    public synchronized void scheduleRetry(String id, String handler, Instant nextAttemptAt, String error) {
+      OutboxEvent event = outbox.get(id);
+      event.getAttempts().merge(handler, 1, Integer::sum);
+      event.setNextAttemptAt(nextAttemptAt);
+      event.setLastError(error);
+    }
+
+    @Override
+    public synchronized void markFailed(String id, String handler, String error) {
+      OutboxEvent event = outbox.get(id);
+      event.getPendingHandlers().remove(handler);
+      event.getFailedHandlers().add(handler);
+    }
+
+    @Override
+    public synchronized long deleteDelivered() {
+      int before = outbox.size();
+      outbox.values().removeIf(event -> event.getPendingHandlers().isEmpty() && event.getFailedHandlers().isEmpty());
+      return before - outbox.size();
+    }
+  };
+
+  @BeforeEach
+  void startWebhook() throws IOException {
+    webhook = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    webhook.createContext("/roster", exchange -> {
+      requests.incrementAndGet();
+      List<?> events;
+      try (InputStream body = exchange.getRequestBody()) {
+        events = objectMapper.readValue(body, List.class);
+      }
+      if (failuresLeft.getAndDecrement() > 0) {
+        exchange.sendResponseHeaders(500, -1);
+      } else {
+        for (Object event : events) {
+          received.add((String) ((Map<?, ?>) event).get("id"));
+        }
+        exchange.sendResponseHeaders(204, -1);
+      }
+      exchange.close();
+    });
+    webhook.start();
+  }
+
+  @AfterEach
+  void stop() throws InterruptedException {
+    for (DomainEventBus bus : buses) {
+      bus.stop();
+    }
+    webhook.stop(0);
+  }
+
+  private DomainEventBus bus(int queueCapacity, int workers, long leaseMillis) {
+    WebhookEventHandler roster = new WebhookEventHandler("wechat-roster",
+        "http://127.0.0.1:" + webhook.getAddress().getPort() + "/roster", Set.of(DomainEventBus.MEMBER_REGISTERED),
+        objectMapper);
+    DomainEventBus bus = new DomainEventBus(outboxRepository, members, List.of(roster), queueCapacity, workers, 50,
+        10, leaseMillis, 10, 5);
+    bus.start();
+    buses.add(bus);
+    return bus;
+  }
+
+  private static Map<String, Object> registration(int i) {
+    Map<String, Object> payload = new HashMap<>();
+    payload.put("schoolEmail", "student" + i + "@mail.mcgill.ca");
+    return payload;
+  }
+
+  private static Member member(int i) {
+    return new Member("Student " + i, null, "student" + i + "@example.com", "student" + i + "@mail.mcgill.ca", null,
+        null, null, LocalDate.of(2000, 1, 1), Member.Department.IT, Member.Position.EXECUTIVE, Member.ClothSize.M);
+  }
+
+  private static void await(BooleanSupplier condition, Runnable poll) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.currentTimeMillis() < deadline, "timed out");
+      poll.run();
+      Thread.sleep(20);
+    }
+  }
+
+  @Test
+  void deliversRegistrationsInBatches() throws Exception {
+    DomainEventBus bus = bus(1000, 2, 60000);
+
+    for (int i = 0; i < 200; i++) {
+      bus.publish(DomainEventBus.MEMBER_REGISTERED, registration(i));
+    }
+    await(outbox::isEmpty, bus::pollOutbox);
+
+    assertEquals(200, received.size());
+    assertTrue(requests.get() < 200, "events were not batched: " + requests.get() + " requests");
+  }
+
+  @Test
+  void retriesFailedDeliveriesFromTheOutbox() throws Exception {
+    failuresLeft.set(2);
+    DomainEventBus bus = bus(1000, 1, 60000);
+
+    for (int i = 0; i < 5; i++) {
+      bus.publish(DomainEventBus.MEMBER_REGISTERED, registration(i));
+    }
+    await(outbox::isEmpty, bus::pollOutbox);
+
+    assertEquals(5, received.size());
+    assertTrue(requests.get() >= 3);
+  }
+
+  @Test
+  void eventsLeftBehindByAFullQueueSurviveARestart() throws Exception {
+    // no workers and room for one event: the other publishes time out
+    DomainEventBus stalled = bus(1, 0, 100);
+    for (int i = 0; i < 3; i++) {
+      stalled.publish(DomainEventBus.MEMBER_REGISTERED, registration(i));
+    }
+    stalled.stop();
+    assertEquals(3, outbox.size());
+
+    DomainEventBus restarted = bus(1000, 1, 100);
+    await(outbox::isEmpty, restarted::pollOutbox);
+
+    assertEquals(3, received.size());
+  }
+
+  @Test
+  void registrationsAreRelayedOffTheRequestThread() throws Exception {
+    DomainEventBus bus = bus(1000, 1, 60000);
+    Member member = member(1);
+    members.insertMembers(List.of(member));
+
+    bus.onMemberChanged(new MemberChangedEvent(MemberChangedEvent.ChangeType.CREATED, member));
+    await(() -> received.size() == 1, () -> {
+    });
+
+    assertTrue(members.findUnannouncedRegistrations(10).isEmpty());
+  }
+
+  @Test
+  void registrationsLeftByAFailedRelayAreRecordedOnce() throws Exception {
+    List<Member> registered = new ArrayList<>();
+    for (int i = 0; i < 120; i++) {
+      registered.add(member(i));
+    }
+    members.insertMembers(registered);
+    // another instance recorded one event, but stopped before clearing it from its member
+    String recorded = members.findUnannouncedRegistrations(1).keySet().iterator().next();
+    outboxRepository.insertEvent(new OutboxEvent(recorded, DomainEventBus.MEMBER_REGISTERED, registration(0),
+        Instant.now(), Instant.now(), new ArrayList<>(List.of("wechat-roster")), new ArrayList<>(), new HashMap<>(),
+        null));
+
+    DomainEventBus bus = bus(1000, 1, 60000);
+    bus.relayRegistrations();
+    assertEquals(120, outbox.size());
+    assertTrue(members.findUnannouncedRegistrations(10).isEmpty());
+
+    await(outbox::isEmpty, bus::pollOutbox);
+    assertEquals(120, received.size());
+  }
+}
@@ -0,0 +1,145 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgillcssa.cssabackend.dto.CSSAEventDTO;
+import ca.mcgillcssa.cssabackend.dto.MembershipBenefitDTO;
+import ca.mcgillcssa.cssabackend.dto.SponsorDTO;
+import ca.mcgillcssa.cssabackend.model.CSSAEvent;
+import ca.mcgillcssa.cssabackend.model.MembershipBenefit;
+import ca.mcgillcssa.cssabackend.model.Sponsor;
+import ca.mcgillcssa.cssabackend.service.HomepageService.SectionStatus;
+
+/**
+ * Builds the homepage from stand-in services whose latency and failures are
+ * set per test.
+ */
+class HomepageServiceTest {
+
+  private volatile long sponsorsMillis;
+  private volatile long eventsMillis;
+  private volatile RuntimeException benefitsFailure;
+  private HomepageService service;
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private final SponsorService sponsors = new SponsorService(null, null) {
+    @Override
+    public List<Sponsor> findAllSponsors() {
+      sleep(sponsorsMillis);
+      return List.of(new Sponsor("Desjardins", Sponsor.CoopDuration.values()[0], "https://desjardins.com/logo.png",
+          "https://desjardins.com", Sponsor.SponsorClass.values()[0], 7));
+    }
+  };
+
+  private final CSSAEventService events = new CSSAEventService(null, null) {
+    @Override
+    public List<CSSAEvent> findUpcomingEvents(int limit) {
+      sleep(eventsMillis);
+      CSSAEvent event = new CSSAEvent("Gala", LocalDate.of(2026, 12, 5), LocalDate.of(2026, 12, 5), "Montreal", "",
+          "", "");
+      event.setId("gala");
+      event.setCapacity(150);
+      event.setRsvpCount(42);
+      event.setChangeSeq(9);
+      return List.of(event);
+    }
+  };
+
+  private final MembershipBenefitService benefits = new MembershipBenefitService(null, null) {
+    @Override
+    public List<MembershipBenefit> findAllBenefits() {
+      if (benefitsFailure != null) {
+        throw benefitsFailure;
+      }
+      return List.of(new MembershipBenefit("Tea Shop", "", "10%", "", MembershipBenefit.MerchantType.SWEETS, 3));
+    }
+  };
+
+  private HomepageService service(int threads, int queueCapacity, long sponsorsTimeout, long eventsTimeout) {
+    shutdown();
+    service = new HomepageService(sponsors, events, benefits, threads, queueCapacity, sponsorsTimeout, eventsTimeout,
+        1000, 10);
+    return service;
+  }
+
+  @AfterEach
+  void shutdown() {
+    if (service != null) {
+      service.shutdown();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> sections(Map<String, Object> homepage) {
+    return (Map<String, Object>) homepage.get("sections");
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, SectionStatus> status(Map<String, Object> homepage) {
+    return (Map<String, SectionStatus>) homepage.get("status");
+  }
+
+  @Test
+  void returnsEverySectionAsDtos() {
+    Map<String, Object> homepage = service(4, 8, 1000, 1000).getHomepage();
+
+    assertEquals(Map.of("sponsors", SectionStatus.OK, "events", SectionStatus.OK, "benefits", SectionStatus.OK),
+        status(homepage));
+    Map<?, ?> sponsorsByClass = (Map<?, ?>) sections(homepage).get("sponsors");
+    SponsorDTO sponsor = (SponsorDTO) ((List<?>) sponsorsByClass.get(Sponsor.SponsorClass.values()[0])).get(0);
+    assertEquals("Desjardins", sponsor.getSponsorName());
+    CSSAEventDTO event = (CSSAEventDTO) ((List<?>) sections(homepage).get("events")).get(0);
+    assertEquals("Gala", event.getEventName());
+    assertEquals(150, event.getCapacity());
+    MembershipBenefitDTO benefit = (MembershipBenefitDTO) ((List<?>) sections(homepage).get("benefits")).get(0);
+    assertEquals("SWEETS", benefit.getMerchantType());
+  }
+
+  @Test
+  void timesOutEachSectionOnItsOwn() {
+    sponsorsMillis = 300;
+    eventsMillis = 2000;
+    long start = System.nanoTime();
+    Map<String, Object> homepage = service(4, 8, 1000, 100).getHomepage();
+    long tookMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    // the sponsors outlast the events timeout but are within their own
+    assertEquals(SectionStatus.OK, status(homepage).get("sponsors"));
+    assertEquals(SectionStatus.TIMED_OUT, status(homepage).get("events"));
+    assertEquals(SectionStatus.OK, status(homepage).get("benefits"));
+    assertFalse(sections(homepage).containsKey("events"));
+    assertTrue(tookMillis < 1500, tookMillis + " ms");
+  }
+
+  @Test
+  void leavesOutFailedAndRejectedSections() {
+    benefitsFailure = new IllegalStateException("down");
+    Map<String, Object> homepage = service(4, 8, 1000, 1000).getHomepage();
+    assertEquals(SectionStatus.FAILED, status(homepage).get("benefits"));
+    assertEquals(2, sections(homepage).size());
+
+    // one thread busy with the sponsors and one queued section, the last is turned away
+    benefitsFailure = null;
+    sponsorsMillis = 200;
+    homepage = service(1, 1, 1000, 1000).getHomepage();
+    assertEquals(SectionStatus.REJECTED, status(homepage).get("benefits"));
+    assertEquals(SectionStatus.OK, status(homepage).get("events"));
+  }
+}
@@ -0,0 +1,262 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpServer;
+
+import ca.mcgillcssa.cssabackend.service.ImageProxyService.CachedImage;
+import ca.mcgillcssa.cssabackend.service.ImageProxyService.ThumbnailSize;
+
+class ImageProxyServiceTest {
+
+  @TempDir
+  Path cacheDir;
+
+  private HttpServer origin;
+  private final AtomicInteger originHits = new AtomicInteger();
+  private final List<String> hostHeaders = new CopyOnWriteArrayList<>();
+  private byte[] logo;
+
+  @BeforeEach
+  void startOrigin() throws IOException {
+    logo = png(1024, 768);
+    origin = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    origin.createContext("/logo.png", exchange -> {
+      originHits.incrementAndGet();
+      hostHeaders.add(exchange.getRequestHeaders().getFirst("Host"));
+      exchange.getResponseHeaders().add("Content-Type", "image/png");
+      exchange.sendResponseHeaders(200, logo.length);
+      try (OutputStream body = exchange.getResponseBody()) {
+        body.write(logo);
+      }
+    });
+    origin.createContext("/chunked.png", exchange -> {
+      exchange.getResponseHeaders().add("Content-Type", "image/png");
+      // a length of 0 makes the server send the body in chunks
+      exchange.sendResponseHeaders(200, 0);
+      try (OutputStream body = exchange.getResponseBody()) {
+        for (int offset = 0; offset < logo.length; offset += 1000) {
+          body.write(logo, offset, Math.min(1000, logo.length - offset));
+          body.flush();
+        }
+      }
+    });
+    origin.createContext("/moved.png", exchange -> {
+      exchange.getResponseHeaders().add("Location", "/logo.png");
+      exchange.sendResponseHeaders(302, -1);
+      exchange.close();
+    });
+    origin.createContext("/metadata.png", exchange -> {
+      exchange.getResponseHeaders().add("Location", "http://169.254.169.254/latest/meta-data/");
+      exchange.sendResponseHeaders(302, -1);
+      exchange.close();
+    });
+    origin.createContext("/logo.svg", exchange -> {
+      byte[] svg = "<svg xmlns=\"http://www.w3.org/2000/svg\"><script>alert(1)</script></svg>".getBytes();
+      exchange.getResponseHeaders().add("Content-Type", "image/svg+xml");
+      exchange.sendResponseHeaders(200, svg.length);
+      try (OutputStream body = exchange.getResponseBody()) {
+        body.write(svg);
+      }
+    });
+    origin.createContext("/page.html", exchange -> {
+      byte[] page = "<html></html>".getBytes();
+      exchange.getResponseHeaders().add("Content-Type", "text/html");
+      exchange.sendResponseHeaders(200, page.length);
+      try (OutputStream body = exchange.getResponseBody()) {
+        body.write(page);
+      }
+    });
+    origin.start();
+  }
+
+  @AfterEach
+  void stopOrigin() {
+    origin.stop(0);
+  }
+
+  private String url(String path) {
+    return "http://127.0.0.1:" + origin.getAddress().getPort() + path;
+  }
+
+  // the origin runs on loopback, every other non-public address is refused
+  private ImageProxyService service(long maxCacheBytes, Duration refTtl) throws IOException {
+    return new ImageProxyService(cacheDir.toString(), maxCacheBytes, 1 << 22, 1 << 22, refTtl, url -> true,
+        address -> address.isLoopbackAddress() || ImageProxyService.isPublicAddress(address));
+  }
+
+  @Test
+  void fetchesEachImageOnce() throws IOException {
+    ImageProxyService service = service(1 << 24, Duration.ofHours(1));
+
+    CachedImage original = service.getImage(url("/logo.png"), ThumbnailSize.ORIGINAL);
+    CachedImage small = service.getImage(url("/logo.png"), ThumbnailSize.SMALL);
+    service.getImage(url("/logo.png"), ThumbnailSize.SMALL);
+
+    assertEquals(1, originHits.get());
+    assertArrayEquals(logo, Files.readAllBytes(original.getPath()));
+    BufferedImage thumbnail = ImageIO.read(small.getPath().toFile());
+    assertEquals(128, thumbnail.getWidth());
+    assertEquals(96, thumbnail.getHeight());
+
+    // a restarted service finds the image through its persisted ref
+    ImageProxyService restarted = service(1 << 24, Duration.ofHours(1));
+    restarted.getImage(url("/logo.png"), ThumbnailSize.MEDIUM);
+    assertEquals(1, originHits.get());
+  }
+
+  @Test
+  void makesNoThumbnailOfImagesAboveThePixelCap() throws IOException {
+    ImageProxyService service = new ImageProxyService(cacheDir.toString(), 1 << 24, 1 << 22, 1024 * 767,
+        Duration.ofHours(1), url -> true, address -> true);
+
+    // the original is served as it is, only decoding it is refused
+    CachedImage original = service.getImage(url("/logo.png"), ThumbnailSize.ORIGINAL);
+    assertArrayEquals(logo, Files.readAllBytes(original.getPath()));
+    assertThrows(IllegalArgumentException.class, () -> service.getImage(url("/logo.png"), ThumbnailSize.SMALL));
+  }
+
+  @Test
+  void refetchesAfterEviction() throws IOException {
+    // budget fits the original but not the original plus a thumbnail
+    ImageProxyService service = service(logo.length + 16, Duration.ofHours(1));
+
+    service.getImage(url("/logo.png"), ThumbnailSize.ORIGINAL);
+    service.getImage(url("/logo.png"), ThumbnailSize.MEDIUM);
+    CachedImage original = service.getImage(url("/logo.png"), ThumbnailSize.ORIGINAL);
+
+    assertEquals(2, originHits.get());
+    assertArrayEquals(logo, Files.readAllBytes(original.getPath()));
+  }
+
+  @Test
+  void rejectsNonImages() throws IOException {
+    ImageProxyService service = service(1 << 24, Duration.ofHours(1));
+
+    assertThrows(IllegalArgumentException.class,
+        () -> service.getImage(url("/page.html"), ThumbnailSize.ORIGINAL));
+    // svg can carry scripts
+    assertThrows(IllegalArgumentException.class,
+        () -> service.getImage(url("/logo.svg"), ThumbnailSize.ORIGINAL));
+    assertThrows(IllegalArgumentException.class,
+        () -> service.getImage("file:///etc/passwd", ThumbnailSize.ORIGINAL));
+  }
+
+  @Test
+  void onlyFetchesStoredUrls() throws IOException {
+    ImageProxyService service = new ImageProxyService(cacheDir.toString(), 1 << 24, 1 << 22, 1 << 22,
+        Duration.ofHours(1), url -> url.endsWith("/logo.png"), address -> true);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> service.getImage(url("/logo.png?size=large"), ThumbnailSize.ORIGINAL));
+    assertEquals(0, originHits.get());
+    service.getImage(url("/logo.png"), ThumbnailSize.ORIGINAL);
+    assertEquals(1, originHits.get());
+  }
+
+  @Test
+  void checksTheAddressOfEveryRedirect() throws IOException {
+    ImageProxyService service = service(1 << 24, Duration.ofHours(1));
+
+    CachedImage moved = service.getImage(url("/moved.png"), ThumbnailSize.ORIGINAL);
+    assertArrayEquals(logo, Files.readAllBytes(moved.getPath()));
+    assertThrows(IllegalArgumentException.class,
+        () -> service.getImage(url("/metadata.png"), ThumbnailSize.ORIGINAL));
+
+    ImageProxyService strict = new ImageProxyService(cacheDir.resolve("strict").toString(), 1 << 24, 1 << 22,
+        1 << 22, Duration.ofHours(1), url -> true, ImageProxyService::isPublicAddress);
+    assertThrows(IllegalArgumentException.class,
+        () -> strict.getImage(url("/logo.png"), ThumbnailSize.ORIGINAL));
+    assertEquals(1, originHits.get());
+  }
+
+  @Test
+  void sendsTheRequestToTheAddressChecked() throws IOException {
+    int port = origin.getAddress().getPort();
+    AtomicInteger lookups = new AtomicInteger();
+    // the name only resolves here, so the origin is reached only through the address checked
+    ImageProxyService service = new ImageProxyService(cacheDir.toString(), 1 << 24, 1 << 22, 1 << 22,
+        Duration.ofHours(1), url -> true, address -> address.isLoopbackAddress(), host -> {
+          lookups.incrementAndGet();
+          return new InetAddress[] { InetAddress.getByName("127.0.0.1") };
+        });
+
+    CachedImage image = service.getImage("http://images.example:" + port + "/logo.png", ThumbnailSize.ORIGINAL);
+    assertArrayEquals(logo, Files.readAllBytes(image.getPath()));
+    assertEquals(1, lookups.get());
+    // resolved once, for the check, and still named in the request
+    assertEquals(List.of("images.example:" + port), hostHeaders);
+  }
+
+  @Test
+  void readsChunkedBodies() throws IOException {
+    ImageProxyService service = service(1 << 24, Duration.ofHours(1));
+
+    CachedImage image = service.getImage(url("/chunked.png"), ThumbnailSize.ORIGINAL);
+    assertArrayEquals(logo, Files.readAllBytes(image.getPath()));
+  }
+
+  @Test
+  void recognizesNonPublicAddresses() throws IOException {
+    for (String address : new String[] { "127.0.0.1", "10.1.2.3", "172.16.0.1", "192.168.1.1", "169.254.169.254",
+        "100.64.0.1", "0.0.0.0", "::1", "fe80::1", "fd00::1", "224.0.0.1" }) {
+      assertFalse(ImageProxyService.isPublicAddress(InetAddress.getByName(address)), address);
+    }
+    for (String address : new String[] { "8.8.8.8", "132.206.1.1", "100.128.0.1", "2001:4860:4860::8888" }) {
+      assertTrue(ImageProxyService.isPublicAddress(InetAddress.getByName(address)), address);
+    }
+  }
+
+  @Test
+  void refetchesOnceTheRefExpires() throws IOException {
+    ImageProxyService service = service(1 << 24, Duration.ZERO);
+
+    String before = service.getImage(url("/logo.png"), ThumbnailSize.ORIGINAL).getEtag();
+    logo = png(640, 480);
+    CachedImage after = service.getImage(url("/logo.png"), ThumbnailSize.ORIGINAL);
+    assertEquals(2, originHits.get());
+    assertNotEquals(before, after.getEtag());
+    assertArrayEquals(logo, Files.readAllBytes(after.getPath()));
+
+    // the last content is served while the origin is unreachable
+    origin.stop(0);
+    assertEquals(after.getEtag(), service.getImage(url("/logo.png"), ThumbnailSize.ORIGINAL).getEtag());
+  }
+
+  private static byte[] png(int width, int height) throws IOException {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        image.setRGB(x, y, 0xff000000 | (x * 31 + y * 17) & 0xffffff);
+      }
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageIO.write(image, "png", out);
+    return out.toByteArray();
+  }
+}
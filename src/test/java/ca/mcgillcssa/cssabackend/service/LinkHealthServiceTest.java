@@ -0,0 +1,272 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import ca.mcgillcssa.cssabackend.model.Lease;
+import ca.mcgillcssa.cssabackend.model.LinkCheck;
+import ca.mcgillcssa.cssabackend.repository.LeaseRepository;
+import ca.mcgillcssa.cssabackend.repository.LinkCheckRepository;
+
+class LinkHealthServiceTest {
+
+  private static final long DELAY_MILLIS = 100;
+  private static final long INTERVAL_MILLIS = 60_000;
+
+  private HttpServer origin;
+  private ExecutorService originThreads;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+  private final Map<String, Long> lastRequestAt = new ConcurrentHashMap<>();
+  private final List<Long> gapsMillis = new ArrayList<>();
+
+  @BeforeEach
+  void startOrigin() throws IOException {
+    origin = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    // several handler threads, so that concurrent probes would be seen
+    originThreads = Executors.newFixedThreadPool(4);
+    origin.setExecutor(originThreads);
+    origin.createContext("/", exchange -> {
+      int current = inFlight.incrementAndGet();
+      maxInFlight.accumulateAndGet(current, Math::max);
+      long now = System.nanoTime();
+      Long previous = lastRequestAt.put("origin", now);
+      if (previous != null) {
+        synchronized (gapsMillis) {
+          gapsMillis.add((now - previous) / 1_000_000);
+        }
+      }
+      String path = exchange.getRequestURI().getPath();
+      int status = 200;
+      if (path.equals("/missing")) {
+        status = 404;
+      } else if (path.equals("/no-head") && exchange.getRequestMethod().equals("HEAD")) {
+        status = 405;
+      }
+      exchange.sendResponseHeaders(status, -1);
+      exchange.close();
+      inFlight.decrementAndGet();
+    });
+    origin.start();
+  }
+
+  @AfterEach
+  void stopOrigin() {
+    origin.stop(0);
+    originThreads.shutdownNow();
+  }
+
+  private String url(String path) {
+    return "http://127.0.0.1:" + origin.getAddress().getPort() + path;
+  }
+
+  private static class FakeLinkCheckRepository extends LinkCheckRepository {
+    private final Map<String, Set<String>> urls = new LinkedHashMap<>();
+    private final Map<String, LinkCheck> saved = new HashMap<>();
+
+    FakeLinkCheckRepository() {
+      super(null);
+    }
+
+    @Override
+    public Map<String, Set<String>> findLinkedUrls() {
+      return urls;
+    }
+
+    @Override
+    public List<LinkCheck> findAllLinkChecks() {
+      return new ArrayList<>(saved.values());
+    }
+
+    @Override
+    public List<LinkCheck> findFailingLinks(int minConsecutiveFailures) {
+      List<LinkCheck> failing = new ArrayList<>();
+      for (LinkCheck check : saved.values()) {
+        if (check.getConsecutiveFailures() >= minConsecutiveFailures) {
+          failing.add(check);
+        }
+      }
+      return failing;
+    }
+
+    @Override
+    public void replaceLinkChecks(Collection<LinkCheck> checks) {
+      saved.clear();
+      for (LinkCheck check : checks) {
+        saved.put(check.getUrl(), check);
+      }
+    }
+  }
+
+  private static class FakeLeaseRepository extends LeaseRepository {
+    private final Map<String, Lease> leases = new HashMap<>();
+
+    FakeLeaseRepository() {
+      super(null);
+    }
+
+    @Override
+    public synchronized boolean tryAcquire(String name, String holder, Instant now, Instant until) {
+      Lease lease = leases.get(name);
+      if (lease == null) {
+        leases.put(name, new Lease(name, holder, until, null));
+        return true;
+      }
+      if (!holder.equals(lease.getHolder()) && lease.getExpiresAt().isAfter(now)) {
+        return false;
+      }
+      lease.setHolder(holder);
+      lease.setExpiresAt(until);
+      return true;
+    }
+
+    @Override
+    public synchronized void release(String name, String holder, Instant now, boolean completed) {
+      Lease lease = leases.get(name);
+      if (lease != null && holder.equals(lease.getHolder())) {
+        lease.setExpiresAt(now);
+        if (completed) {
+          lease.setCompletedAt(now);
+        }
+      }
+    }
+
+    @Override
+    public synchronized Optional<Lease> findLease(String name) {
+      return Optional.ofNullable(leases.get(name));
+    }
+  }
+
+  private static LinkHealthService service(LinkCheckRepository repository, LeaseRepository leases, int threads,
+      long perHostDelayMillis) {
+    return new LinkHealthService(repository, leases, threads, perHostDelayMillis, 2_000, 2, INTERVAL_MILLIS,
+        60_000);
+  }
+
+  @Test
+  void recordsReachableAndBrokenLinks() throws InterruptedException {
+    FakeLinkCheckRepository repository = new FakeLinkCheckRepository();
+    repository.urls.put(url("/ok"), Set.of("sponsors/1/sponsorWebsiteUrl"));
+    repository.urls.put(url("/missing"), Set.of("events/2/eventLinkUrl", "events/3/eventLinkUrl"));
+    repository.urls.put(url("/no-head"), Set.of("benefits/4/merchantLogoUrl"));
+    LinkHealthService service = service(repository, new FakeLeaseRepository(), 4, 0);
+
+    service.crawl();
+
+    assertEquals(3, repository.saved.size());
+    assertTrue(repository.saved.get(url("/ok")).isOk());
+    assertTrue(repository.saved.get(url("/no-head")).isOk());
+    assertEquals(200, repository.saved.get(url("/no-head")).getHttpStatus());
+    LinkCheck missing = repository.saved.get(url("/missing"));
+    assertFalse(missing.isOk());
+    assertEquals(404, missing.getHttpStatus());
+    assertEquals(1, missing.getConsecutiveFailures());
+    assertEquals(Set.of("events/2/eventLinkUrl", "events/3/eventLinkUrl"), Set.copyOf(missing.getSources()));
+    assertNull(missing.getLastOkAt());
+
+    // reported as broken only once it failed twice in a row
+    assertTrue(((List<?>) service.getBrokenLinksReport().get("broken")).isEmpty());
+    service.crawl();
+    assertEquals(2, repository.saved.get(url("/missing")).getConsecutiveFailures());
+    assertEquals(1, ((List<?>) service.getBrokenLinksReport().get("broken")).size());
+  }
+
+  @Test
+  void probesOneLinkAtATimePerHost() throws InterruptedException {
+    FakeLinkCheckRepository repository = new FakeLinkCheckRepository();
+    for (int i = 0; i < 5; i++) {
+      repository.urls.put(url("/page" + i), Set.of("sponsors/" + i + "/sponsorWebsiteUrl"));
+    }
+    LinkHealthService service = service(repository, new FakeLeaseRepository(), 8, DELAY_MILLIS);
+
+    service.crawl();
+
+    assertEquals(5, repository.saved.size());
+    assertEquals(1, maxInFlight.get());
+    assertEquals(4, gapsMillis.size());
+    for (long gap : gapsMillis) {
+      assertTrue(gap >= DELAY_MILLIS - 5, "requests " + gap + " ms apart");
+    }
+  }
+
+  @Test
+  void skipsTheCrawlWhileAnotherInstanceHoldsTheLease() throws InterruptedException {
+    FakeLinkCheckRepository repository = new FakeLinkCheckRepository();
+    repository.urls.put(url("/ok"), Set.of("sponsors/1/sponsorWebsiteUrl"));
+    FakeLeaseRepository leases = new FakeLeaseRepository();
+    Instant now = Instant.now();
+    leases.tryAcquire(LinkHealthService.CRAWL_LEASE, "other", now, now.plusSeconds(60));
+    LinkHealthService service = service(repository, leases, 4, 0);
+
+    assertTrue(service.crawl().isEmpty());
+    assertTrue(repository.saved.isEmpty());
+    assertEquals(0, lastRequestAt.size());
+
+    // the other instance went away without releasing it
+    leases.leases.get(LinkHealthService.CRAWL_LEASE).setExpiresAt(now);
+    assertEquals(1, service.crawl().size());
+    assertEquals(1, repository.saved.size());
+    Lease lease = leases.leases.get(LinkHealthService.CRAWL_LEASE);
+    assertFalse(lease.getExpiresAt().isAfter(Instant.now()));
+    assertNotNull(lease.getCompletedAt());
+  }
+
+  @Test
+  void isDueOnceNoInstanceCrawledWithinTheInterval() throws InterruptedException {
+    FakeLinkCheckRepository repository = new FakeLinkCheckRepository();
+    FakeLeaseRepository leases = new FakeLeaseRepository();
+    LinkHealthService service = service(repository, leases, 1, 0);
+    assertTrue(service.isDue(Instant.now()));
+
+    // a crawl by another instance counts as well
+    service(repository, leases, 1, 0).crawl();
+    Instant completedAt = leases.leases.get(LinkHealthService.CRAWL_LEASE).getCompletedAt();
+    assertFalse(service.isDue(completedAt.plusMillis(INTERVAL_MILLIS - 1)));
+    assertTrue(service.isDue(completedAt.plusMillis(INTERVAL_MILLIS)));
+  }
+
+  @Test
+  void keepsLastSuccessAcrossFailures() {
+    LinkHealthService service = service(new FakeLinkCheckRepository(), new FakeLeaseRepository(), 1, 0);
+    Instant lastOk = Instant.parse("2026-01-01T00:00:00Z");
+    LinkCheck previous = new LinkCheck(url("/missing"), List.of(), false, 404, "HTTP 404", lastOk, lastOk, 3);
+
+    LinkCheck failed = service.probe(url("/missing"), List.of(), previous);
+    assertEquals(4, failed.getConsecutiveFailures());
+    assertEquals(lastOk, failed.getLastOkAt());
+
+    LinkCheck recovered = service.probe(url("/ok"), List.of(), failed);
+    assertTrue(recovered.isOk());
+    assertEquals(0, recovered.getConsecutiveFailures());
+    assertEquals(recovered.getCheckedAt(), recovered.getLastOkAt());
+
+    LinkCheck invalid = service.probe("http://exa mple.com", List.of(), null);
+    assertFalse(invalid.isOk());
+    assertEquals(1, invalid.getConsecutiveFailures());
+  }
+}
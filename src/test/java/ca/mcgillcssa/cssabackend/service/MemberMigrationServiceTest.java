@@ -0,0 +1,183 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import ca.mcgillcssa.cssabackend.repository.MemberLayout;
+import ca.mcgillcssa.cssabackend.repository.MemberMigrationStore;
+
+/**
+ * Runs whole migration passes over legacy member documents, stopped, resumed and
+ * raced by writes from another instance, on the server whose URI is given in
+ * CSSA_TEST_MONGO_URI, when it is set.
+ */
+class MemberMigrationServiceTest {
+
+  private static final String MONGO_URI = System.getenv("CSSA_TEST_MONGO_URI");
+  private static final int MEMBERS = 95;
+  private static final int BATCH_SIZE = 10;
+
+  private MongoClient client;
+  private MongoTemplate mongoTemplate;
+  private final Map<String, AtomicInteger> rewrites = new ConcurrentHashMap<>();
+
+  @BeforeEach
+  void connect() {
+    assumeTrue(MONGO_URI != null, "CSSA_TEST_MONGO_URI is not set");
+    client = MongoClients.create(MONGO_URI);
+    mongoTemplate = new MongoTemplate(client, "cssa-migration-" + System.nanoTime());
+    for (int i = 0; i < MEMBERS; i++) {
+      LocalDate birthday = LocalDate.of(2000, 1 + i % 12, 1);
+      mongoTemplate.insert(new Document("_id", schoolEmail(i))
+          .append("name", "Student " + i)
+          .append("personalEmail", "student" + i + "@example.com")
+          .append("birthday", Date.from(birthday.atStartOfDay(ZoneId.systemDefault()).toInstant()))
+          .append("department", "IT")
+          .append("_class", "ca.mcgillcssa.cssabackend.model.Member"), MemberLayout.COLLECTION);
+    }
+  }
+
+  @AfterEach
+  void close() {
+    if (client != null) {
+      mongoTemplate.getDb().drop();
+      client.close();
+    }
+  }
+
+  private static String schoolEmail(int i) {
+    return String.format("student%03d@mail.mcgill.ca", i);
+  }
+
+  /**
+   * A store that counts the rewrites tried for each member, and hands each batch
+   * to a hook before rewriting it.
+   */
+  private MemberMigrationStore store(BatchHook hook) {
+    return new MemberMigrationStore(mongoTemplate) {
+      @Override
+      public int rewriteLegacyMembers(List<Document> legacy) {
+        legacy.forEach(document -> rewrites.computeIfAbsent(document.getString("_id"), id -> new AtomicInteger())
+            .incrementAndGet());
+        hook.beforeRewrite(legacy);
+        return super.rewriteLegacyMembers(legacy);
+      }
+    };
+  }
+
+  private interface BatchHook {
+    void beforeRewrite(List<Document> batch);
+  }
+
+  private static Map<String, Object> awaitFinished(MemberMigrationService service) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 30_000;
+    while (Boolean.TRUE.equals(service.getStatus().get("running"))) {
+      assertTrue(System.currentTimeMillis() < deadline, "the migration did not finish");
+      Thread.sleep(10);
+    }
+    return service.getStatus();
+  }
+
+  private long legacyCount() {
+    return mongoTemplate.count(new Query(Criteria.where(MemberLayout.VERSION_FIELD).exists(false)),
+        MemberLayout.COLLECTION);
+  }
+
+  @Test
+  void aStoppedPassResumesWithoutRewritingAnyMemberTwice() throws Exception {
+    AtomicInteger batches = new AtomicInteger();
+    MemberMigrationService[] first = new MemberMigrationService[1];
+    first[0] = new MemberMigrationService(store(batch -> {
+      if (batches.incrementAndGet() == 3) {
+        first[0].stop();
+      }
+    }), false, BATCH_SIZE, 0);
+
+    assertTrue(first[0].start());
+    Map<String, Object> stopped = awaitFinished(first[0]);
+    assertEquals(30L, stopped.get("rewritten"));
+    assertEquals(MEMBERS - 30, legacyCount());
+
+    MemberMigrationService second = new MemberMigrationService(store(batch -> {
+    }), false, BATCH_SIZE, 0);
+    assertTrue(second.start());
+    Map<String, Object> finished = awaitFinished(second);
+    assertEquals((long) MEMBERS - 30, finished.get("rewritten"));
+    assertEquals(0L, finished.get("skipped"));
+
+    assertEquals(0, legacyCount());
+    assertEquals(MEMBERS, rewrites.size());
+    for (int i = 0; i < MEMBERS; i++) {
+      assertEquals(1, rewrites.get(schoolEmail(i)).get(), schoolEmail(i));
+    }
+  }
+
+  @Test
+  void retriesMembersWrittenDuringThePass() throws Exception {
+    AtomicBoolean raced = new AtomicBoolean();
+    MemberMigrationService service = new MemberMigrationService(store(batch -> {
+      if (raced.compareAndSet(false, true)) {
+        // another instance renames a member of the first batch as it is rewritten
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(schoolEmail(4))),
+            new Update().set("name", "Renamed"), MemberLayout.COLLECTION);
+      }
+    }), false, BATCH_SIZE, 0);
+
+    assertTrue(service.start());
+    Map<String, Object> status = awaitFinished(service);
+
+    assertEquals((long) MEMBERS, status.get("scanned"));
+    assertEquals((long) MEMBERS, status.get("rewritten"));
+    assertEquals(0, legacyCount());
+    Document renamed = mongoTemplate.findById(schoolEmail(4), Document.class, MemberLayout.COLLECTION);
+    assertTrue(MemberLayout.isCompact(renamed));
+    assertEquals("Renamed", MemberLayout.fromDocument(renamed).getName());
+    assertEquals(2, rewrites.get(schoolEmail(4)).get());
+    assertEquals(1, rewrites.get(schoolEmail(5)).get());
+  }
+
+  @Test
+  void normalizesSchoolEmailsBeforeRewritingTheLayout() throws Exception {
+    mongoTemplate.insert(new Document("_id", "Li.Hua@mail.mcgill.ca").append("name", "Li Hua"),
+        MemberLayout.COLLECTION);
+    mongoTemplate.insert(new Document("_id", "Student000@mail.mcgill.ca").append("name", "Duplicate"),
+        MemberLayout.COLLECTION);
+    MemberMigrationService service = new MemberMigrationService(store(batch -> {
+    }), false, BATCH_SIZE, 0);
+
+    assertTrue(service.start());
+    Map<String, Object> status = awaitFinished(service);
+
+    assertEquals(1L, status.get("normalized"));
+    assertEquals(1L, status.get("skipped"));
+    assertEquals("Li Hua", MemberLayout.fromDocument(
+        mongoTemplate.findById("li.hua@mail.mcgill.ca", Document.class, MemberLayout.COLLECTION)).getName());
+    // left under its email for an administrator, the normalized one is another member's
+    assertEquals("Duplicate", MemberLayout.fromDocument(mongoTemplate.findById("Student000@mail.mcgill.ca",
+        Document.class, MemberLayout.COLLECTION)).getName());
+    assertEquals((long) MEMBERS + 1, status.get("rewritten"));
+    assertEquals(0, legacyCount());
+  }
+}
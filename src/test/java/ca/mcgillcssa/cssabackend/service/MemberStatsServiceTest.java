@@ -0,0 +1,162 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import ca.mcgillcssa.cssabackend.event.CollectionChangedEvent;
+import ca.mcgillcssa.cssabackend.event.MemberChangedEvent;
+import ca.mcgillcssa.cssabackend.event.MemberChangedEvent.ChangeType;
+import ca.mcgillcssa.cssabackend.model.Member;
+import ca.mcgillcssa.cssabackend.repository.InMemoryChangeLogRepository;
+import ca.mcgillcssa.cssabackend.repository.InMemoryMemberRepository;
+import ca.mcgillcssa.cssabackend.repository.MemberLayout;
+
+/**
+ * Counts in-memory members, with a hook that runs while the aggregation does to
+ * interleave writes with a reconciliation.
+ */
+class MemberStatsServiceTest {
+
+  private volatile Runnable duringAggregation = () -> {
+  };
+
+  private final InMemoryMemberRepository members = new InMemoryMemberRepository(new InMemoryChangeLogRepository()) {
+    @Override
+    public Map<String, Map<String, Long>> countByDepartmentPositionAndClothSize() {
+      Map<String, Map<String, Long>> counts = super.countByDepartmentPositionAndClothSize();
+      duringAggregation.run();
+      return counts;
+    }
+  };
+
+  private final MemberStatsService service = new MemberStatsService(members);
+
+  private static Member member(int i) {
+    return new Member("Student " + i, "", "student" + i + "@gmail.com", "student" + i + "@mail.mcgill.ca", "", "", "",
+        null, Member.Department.values()[i % Member.Department.values().length], Member.Position.EXECUTIVE,
+        Member.ClothSize.M);
+  }
+
+  private MemberChangedEvent register(int i) {
+    Member member = member(i);
+    members.createMember(member);
+    return new MemberChangedEvent(ChangeType.CREATED, member);
+  }
+
+  private MemberChangedEvent delete(int i) {
+    Member member = members.deleteBySchoolEmail(member(i).getSchoolEmail()).orElseThrow();
+    return new MemberChangedEvent(ChangeType.DELETED, member);
+  }
+
+  @SuppressWarnings("unchecked")
+  private long count(String field, Enum<?> value) {
+    return ((Map<Enum<?>, Long>) service.getStats().get(field)).get(value);
+  }
+
+  @Test
+  void countsFromTheDatabaseThenFromEvents() {
+    assertThrows(IllegalStateException.class, service::getStats);
+    register(0);
+    register(9);
+    service.reconcile();
+    assertEquals(2L, service.getStats().get("total"));
+    assertEquals(2L, count("clothSize", Member.ClothSize.M));
+
+    service.onMemberChanged(register(1));
+    service.onMemberChanged(delete(0));
+    assertEquals(2L, service.getStats().get("total"));
+    assertEquals(1L, count("department", Member.Department.ACADEMIC));
+    assertEquals(1L, count("department", Member.Department.COMMU));
+
+    service.reconcile();
+    assertEquals(0L, service.getStats().get("lastDrift"));
+  }
+
+  @Test
+  void recountsMembersChangedByOtherInstances() {
+    service.reconcile();
+    AtomicInteger aggregations = new AtomicInteger();
+    duringAggregation = aggregations::incrementAndGet;
+
+    // the echo of this instance's own write
+    MemberChangedEvent own = register(1);
+    service.onMemberChanged(own);
+    service.onMembersChanged(new CollectionChangedEvent("members", own.getMember().getSchoolEmail(),
+        MemberLayout.toDocument(own.getMember())));
+    service.reconcileIfStale();
+    assertEquals(0, aggregations.get());
+
+    // deleted by another instance, which does not say what the member was counted under
+    members.deleteBySchoolEmail(own.getMember().getSchoolEmail());
+    service.onMembersChanged(new CollectionChangedEvent("members", own.getMember().getSchoolEmail(), null));
+    register(2);
+    service.onMembersChanged(new CollectionChangedEvent("members", member(2).getSchoolEmail(), null));
+    service.reconcileIfStale();
+    service.reconcileIfStale();
+
+    assertEquals(1, aggregations.get());
+    assertEquals(1L, service.getStats().get("total"));
+    assertEquals(1L, count("department", Member.Department.values()[2]));
+  }
+
+  @Test
+  void doesNotReplayChangesTheAggregationAlreadyCounted() {
+    service.reconcile();
+    // written before the aggregation, but delivered while it runs
+    MemberChangedEvent late = register(0);
+    duringAggregation = () -> service.onMemberChanged(late);
+    service.reconcile();
+    assertEquals(1L, service.getStats().get("total"));
+
+    // written after the aggregation read the members, so only the event counts it
+    duringAggregation = () -> service.onMemberChanged(register(1));
+    service.reconcile();
+    assertEquals(2L, service.getStats().get("total"));
+
+    duringAggregation = () -> {
+    };
+    service.reconcile();
+    assertEquals(0L, service.getStats().get("lastDrift"));
+  }
+
+  @Test
+  void concurrentRegistrationsAndDeletionsKeepExactCounts() throws Exception {
+    service.reconcile();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> writers = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        int offset = t;
+        writers.add(executor.submit(() -> {
+          for (int i = offset; i < 4000; i += 8) {
+            service.onMemberChanged(register(i));
+            if (i % 3 == 0) {
+              service.onMemberChanged(delete(i));
+            }
+          }
+        }));
+      }
+      for (Future<?> writer : writers) {
+        writer.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    long expected = members.findAllSchoolEmails().size();
+    assertEquals(expected, service.getStats().get("total"));
+    service.reconcile();
+    assertEquals(0L, service.getStats().get("lastDrift"));
+    assertEquals(expected, service.getStats().get("total"));
+  }
+}
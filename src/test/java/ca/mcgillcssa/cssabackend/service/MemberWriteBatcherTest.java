@@ -0,0 +1,144 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+
+import ca.mcgillcssa.cssabackend.model.Member;
+import ca.mcgillcssa.cssabackend.repository.InMemoryChangeLogRepository;
+import ca.mcgillcssa.cssabackend.repository.InMemoryMemberRepository;
+
+class MemberWriteBatcherTest {
+
+  private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+  private volatile DataAccessException batchFailure;
+  private final InMemoryMemberRepository repository = new InMemoryMemberRepository(
+      new InMemoryChangeLogRepository()) {
+    @Override
+    public Map<Integer, DataAccessException> insertMembers(List<Member> batch) {
+      batchSizes.add(batch.size());
+      if (batchFailure != null) {
+        throw batchFailure;
+      }
+      return super.insertMembers(batch);
+    }
+  };
+  private final ExecutorService callers = Executors.newFixedThreadPool(8);
+  private MemberWriteBatcher batcher;
+
+  private MemberWriteBatcher start(boolean enabled, int maxBatchSize, long maxDelayMillis) {
+    batcher = new MemberWriteBatcher(repository, enabled, 1024, maxBatchSize, maxDelayMillis, 2000);
+    batcher.start();
+    return batcher;
+  }
+
+  @AfterEach
+  void stop() throws InterruptedException {
+    callers.shutdownNow();
+    if (batcher != null) {
+      batcher.stop();
+    }
+  }
+
+  private static Member member(String id) {
+    return new Member(id, id, id + "@example.com", id + "@mail.mcgill.ca", null, null, null,
+        LocalDate.of(2000, 1, 1), Member.Department.IT, Member.Position.EXECUTIVE, Member.ClothSize.M);
+  }
+
+  private List<Future<Member>> writeConcurrently(String... ids) {
+    List<Future<Member>> results = new ArrayList<>();
+    for (String id : ids) {
+      results.add(callers.submit(() -> batcher.write(member(id))));
+    }
+    return results;
+  }
+
+  private static Throwable failureOf(Future<Member> result) throws InterruptedException {
+    try {
+      result.get(10, TimeUnit.SECONDS);
+      throw new AssertionError("expected the write to fail");
+    } catch (ExecutionException e) {
+      return e.getCause();
+    } catch (TimeoutException e) {
+      throw new AssertionError("the write did not complete", e);
+    }
+  }
+
+  @Test
+  void directWritesRejectExistingMembersLikeBatches() {
+    start(false, 64, 5);
+
+    batcher.write(member("ada"));
+    assertThrows(DuplicateKeyException.class, () -> batcher.write(member("ada")));
+    assertEquals(List.of(1, 1), batchSizes);
+  }
+
+  @Test
+  void flushesAFullBatchWithoutWaitingForTheDelay() throws Exception {
+    start(true, 4, 60_000);
+
+    long startedAt = System.nanoTime();
+    for (Future<Member> result : writeConcurrently("a", "b", "c", "d")) {
+      result.get(10, TimeUnit.SECONDS);
+    }
+
+    assertTrue(System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(10));
+    assertEquals(List.of(4), batchSizes);
+    assertEquals(4, repository.findAllSchoolEmails().size());
+  }
+
+  @Test
+  void flushesAPartialBatchOnceTheOldestWriteHasWaited() {
+    start(true, 64, 50);
+
+    long startedAt = System.nanoTime();
+    batcher.write(member("ada"));
+
+    assertTrue(System.nanoTime() - startedAt >= TimeUnit.MILLISECONDS.toNanos(50));
+    assertEquals(List.of(1), batchSizes);
+  }
+
+  @Test
+  void reportsFailuresToTheirOwnCallerOnly() throws Exception {
+    start(true, 3, 60_000);
+    repository.insertMembers(List.of(member("ada")));
+    batchSizes.clear();
+
+    List<Future<Member>> results = writeConcurrently("bob", "ada", "carol");
+
+    assertEquals("bob@mail.mcgill.ca", results.get(0).get(10, TimeUnit.SECONDS).getSchoolEmail());
+    assertInstanceOf(DuplicateKeyException.class, failureOf(results.get(1)));
+    assertEquals("carol@mail.mcgill.ca", results.get(2).get(10, TimeUnit.SECONDS).getSchoolEmail());
+    assertEquals(List.of(3), batchSizes);
+  }
+
+  @Test
+  void failsTheWholeBatchWhenItCannotBeWritten() throws Exception {
+    start(true, 2, 60_000);
+    batchFailure = new DataAccessResourceFailureException("primary stepped down");
+
+    for (Future<Member> result : writeConcurrently("ada", "bob")) {
+      assertInstanceOf(DataAccessResourceFailureException.class, failureOf(result));
+    }
+    assertEquals(List.of(2), batchSizes);
+  }
+}
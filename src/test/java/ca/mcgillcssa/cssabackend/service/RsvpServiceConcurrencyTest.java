@@ -0,0 +1,202 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import ca.mcgillcssa.cssabackend.event.CollectionChangedEvent;
+import ca.mcgillcssa.cssabackend.model.CSSAEvent;
+import ca.mcgillcssa.cssabackend.model.Rsvp;
+import ca.mcgillcssa.cssabackend.repository.CSSAEventRepository;
+import ca.mcgillcssa.cssabackend.repository.InMemoryCSSAEventRepository;
+import ca.mcgillcssa.cssabackend.repository.InMemoryChangeLogRepository;
+import ca.mcgillcssa.cssabackend.repository.RsvpRepository;
+import ca.mcgillcssa.cssabackend.service.RsvpService.RsvpResult;
+
+/**
+ * Hammers a single event with concurrent RSVPs and cancellations, against the
+ * in-memory event repository and an RSVP store that behaves like Mongo's
+ * unique _id.
+ */
+class RsvpServiceConcurrencyTest {
+
+  private static final String EVENT_ID = "Gala20261205";
+  private static final int CAPACITY = 150;
+
+  private final Map<String, Rsvp> storedRsvps = new ConcurrentHashMap<>();
+
+  private final InMemoryChangeLogRepository changeLog = new InMemoryChangeLogRepository();
+
+  private final CSSAEventRepository events = new InMemoryCSSAEventRepository(event -> {
+  }, changeLog);
+
+  @BeforeEach
+  void saveEvent() {
+    CSSAEvent event = new CSSAEvent("Gala", LocalDate.of(2026, 12, 5), LocalDate.of(2026, 12, 5), "Montreal",
+        "", "", "");
+    event.setId(EVENT_ID);
+    event.setCapacity(CAPACITY);
+    events.saveEvent(event);
+  }
+
+  private int storedCount() {
+    return events.findEventById(EVENT_ID).get().getRsvpCount();
+  }
+
+  private final RsvpRepository rsvps = new RsvpRepository() {
+    @Override
+    public Rsvp createRsvp(Rsvp rsvp) {
+      if (storedRsvps.putIfAbsent(rsvp.getId(), rsvp) != null) {
+        throw new DuplicateKeyException(rsvp.getId());
+      }
+      return rsvp;
+    }
+
+    @Override
+    public boolean deleteRsvp(String id) {
+      return storedRsvps.remove(id) != null;
+    }
+  };
+
+  @Test
+  void neverOversellsUnderContention() throws Exception {
+    RsvpService service = new RsvpService(events, rsvps);
+    Map<RsvpResult, AtomicInteger> results = new ConcurrentHashMap<>();
+
+    // 600 students, each trying twice
+    runConcurrently(1200, i -> {
+      RsvpResult result = service.rsvp(EVENT_ID, "student" + (i % 600) + "@mail.mcgill.ca");
+      results.computeIfAbsent(result, r -> new AtomicInteger()).incrementAndGet();
+    });
+
+    assertEquals(CAPACITY, results.get(RsvpResult.CONFIRMED).get());
+    assertEquals(CAPACITY, storedCount());
+    assertEquals(CAPACITY, storedRsvps.size());
+  }
+
+  @Test
+  void cancelledSeatsAreResoldExactly() throws Exception {
+    RsvpService service = new RsvpService(events, rsvps);
+    for (int i = 0; i < CAPACITY; i++) {
+      assertEquals(RsvpResult.CONFIRMED, service.rsvp(EVENT_ID, "first" + i + "@mail.mcgill.ca"));
+    }
+    AtomicInteger confirmed = new AtomicInteger();
+
+    // half of the holders cancel while 400 others race for the freed seats
+    runConcurrently(CAPACITY / 2 + 400, i -> {
+      if (i < CAPACITY / 2) {
+        service.cancelRsvp(EVENT_ID, "first" + i + "@mail.mcgill.ca");
+      } else if (service.rsvp(EVENT_ID, "second" + i + "@mail.mcgill.ca") == RsvpResult.CONFIRMED) {
+        confirmed.incrementAndGet();
+      }
+    });
+    // anyone who lost to a cancellation still in flight can retry now
+    for (int i = 0; i < 400 && storedCount() < CAPACITY; i++) {
+      if (service.rsvp(EVENT_ID, "third" + i + "@mail.mcgill.ca") == RsvpResult.CONFIRMED) {
+        confirmed.incrementAndGet();
+      }
+    }
+
+    assertEquals(CAPACITY / 2, confirmed.get());
+    assertEquals(CAPACITY, storedCount());
+    assertEquals(CAPACITY, storedRsvps.size());
+  }
+
+  @Test
+  void seatsGivenBackOnAnotherInstanceAreResold() {
+    AtomicLong now = new AtomicLong();
+    RsvpService first = new RsvpService(events, rsvps, now::get);
+    RsvpService second = new RsvpService(events, rsvps, now::get);
+    for (int i = 0; i < CAPACITY; i++) {
+      assertEquals(RsvpResult.CONFIRMED, first.rsvp(EVENT_ID, "first" + i + "@mail.mcgill.ca"));
+    }
+    assertEquals(RsvpResult.FULL, first.rsvp(EVENT_ID, "late0@mail.mcgill.ca"));
+
+    // the first instance is told about the change by the change stream
+    assertTrue(second.cancelRsvp(EVENT_ID, "first0@mail.mcgill.ca"));
+    assertEquals(RsvpResult.FULL, first.rsvp(EVENT_ID, "late0@mail.mcgill.ca"));
+    first.onEventsChanged(new CollectionChangedEvent("events", EVENT_ID, null));
+    assertEquals(RsvpResult.CONFIRMED, first.rsvp(EVENT_ID, "late0@mail.mcgill.ca"));
+
+    // or reads the count again once its gate is older than the recheck interval
+    assertTrue(second.cancelRsvp(EVENT_ID, "first1@mail.mcgill.ca"));
+    assertEquals(RsvpResult.FULL, first.rsvp(EVENT_ID, "late1@mail.mcgill.ca"));
+    now.addAndGet(Duration.ofSeconds(2).toNanos());
+    assertEquals(RsvpResult.CONFIRMED, first.rsvp(EVENT_ID, "late1@mail.mcgill.ca"));
+    assertEquals(RsvpResult.FULL, first.rsvp(EVENT_ID, "late2@mail.mcgill.ca"));
+    assertEquals(CAPACITY, storedCount());
+  }
+
+  @Test
+  void aMemberHoldsOneSeatHoweverTheEmailIsSpelled() {
+    RsvpService service = new RsvpService(events, rsvps, System::nanoTime);
+    assertEquals(RsvpResult.CONFIRMED, service.rsvp(EVENT_ID, "John.Doe@mail.mcgill.ca"));
+    assertEquals(RsvpResult.ALREADY_REGISTERED, service.rsvp(EVENT_ID, " john.doe@MAIL.MCGILL.CA"));
+    assertEquals(1, storedCount());
+    assertTrue(service.cancelRsvp(EVENT_ID, "JOHN.DOE@mail.mcgill.ca"));
+    assertEquals(0, storedCount());
+  }
+
+  @Test
+  void onlyRsvpsThatChangeTheCountTakeAChangeSequence() {
+    RsvpService service = new RsvpService(events, rsvps, System::nanoTime);
+    long before = changeLog.safeWatermark();
+    for (int i = 0; i < CAPACITY; i++) {
+      assertEquals(RsvpResult.CONFIRMED, service.rsvp(EVENT_ID, "first" + i + "@mail.mcgill.ca"));
+    }
+    long full = changeLog.safeWatermark();
+    assertEquals(before + CAPACITY, full);
+    assertEquals(full, events.findEventById(EVENT_ID).get().getChangeSeq());
+
+    // refused at the gate, and by the conditional update behind it
+    for (int i = 0; i < 10; i++) {
+      assertEquals(RsvpResult.FULL, service.rsvp(EVENT_ID, "late" + i + "@mail.mcgill.ca"));
+      assertFalse(events.incrementRsvpCount(EVENT_ID, CAPACITY));
+    }
+    assertEquals(full, changeLog.safeWatermark());
+  }
+
+  private interface Task {
+    void run(int index);
+  }
+
+  private static void runConcurrently(int tasks, Task task) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(64);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int i = 0; i < tasks; i++) {
+        int index = i;
+        futures.add(pool.submit(() -> {
+          start.await();
+          task.run(index);
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.Sorts;
+
+import ca.mcgillcssa.cssabackend.repository.MongoChangeLogRepository;
+
+/**
+ * Exports a database and restores it into another one, on the server whose URI
+ * is given in CSSA_TEST_MONGO_URI. Skipped without it.
+ */
+class SnapshotServiceTest {
+
+  private static final String MONGO_URI = System.getenv("CSSA_TEST_MONGO_URI");
+  private static final int CHUNK_DOCUMENTS = 7;
+
+  @TempDir
+  Path directory;
+
+  private MongoClient client;
+  private MongoTemplate source;
+  private MongoTemplate target;
+
+  @BeforeEach
+  void connect() {
+    assumeTrue(MONGO_URI != null, "CSSA_TEST_MONGO_URI is not set");
+    client = MongoClients.create(MONGO_URI);
+    source = new MongoTemplate(client, "cssa-snapshot-source-" + System.nanoTime());
+    target = new MongoTemplate(client, "cssa-snapshot-target-" + System.nanoTime());
+  }
+
+  @AfterEach
+  void drop() {
+    if (client != null) {
+      source.getDb().drop();
+      target.getDb().drop();
+      client.close();
+    }
+  }
+
+  private SnapshotService snapshots(MongoTemplate mongoTemplate) {
+    return new SnapshotService(mongoTemplate, new MongoChangeLogRepository(mongoTemplate), new ObjectMapper(), 4,
+        CHUNK_DOCUMENTS, 5);
+  }
+
+  private void fill(String collection, int documents) {
+    List<Document> batch = new ArrayList<>();
+    for (int i = 0; i < documents; i++) {
+      batch.add(new Document("_id", collection + i)
+          .append("n", "Member " + i)
+          .append("b", 100 + i % 28)
+          .append("changeSeq", (long) Integer.MAX_VALUE + i)
+          .append("at", new Date(1_700_000_000_000L + i))
+          .append("ref", new ObjectId())
+          .append("tags", List.of("a", "b")));
+    }
+    source.getCollection(collection).insertMany(batch);
+  }
+
+  private List<Document> all(MongoTemplate mongoTemplate, String collection) {
+    return mongoTemplate.getCollection(collection).find().sort(Sorts.ascending("_id")).into(new ArrayList<>());
+  }
+
+  @Test
+  void restoresExactlyWhatWasExported() throws Exception {
+    fill("members", 50);
+    fill("sponsors", 3);
+    source.getCollection("events").insertOne(new Document("_id", "Gala20261205"));
+
+    Map<String, Object> manifest = snapshots(source).export(directory, List.of(), false);
+
+    assertTrue(Files.exists(directory.resolve(SnapshotService.MANIFEST)));
+    assertTrue(Files.exists(directory.resolve("members/00007.ndjson.gz")), "50 members in chunks of 7");
+    assertEquals(3, ((List<?>) manifest.get("collections")).size());
+
+    Map<String, Long> restored = snapshots(target).restore(directory, List.of(), false, false);
+
+    assertEquals(Map.of("members", 50L, "sponsors", 3L, "events", 1L), restored);
+    for (String collection : List.of("members", "sponsors", "events")) {
+      assertEquals(all(source, collection), all(target, collection));
+    }
+  }
+
+  @Test
+  void restoresOnlyTheCollectionsAsked() throws Exception {
+    fill("members", 10);
+    fill("sponsors", 10);
+    snapshots(source).export(directory, List.of(), false);
+
+    snapshots(target).restore(directory, List.of("sponsors"), false, false);
+
+    assertEquals(10, target.getCollection("sponsors").countDocuments());
+    assertEquals(0, target.getCollection("members").countDocuments());
+  }
+
+  @Test
+  void refusesToRestoreIntoACollectionWithDocumentsUnlessReplacing() throws Exception {
+    fill("members", 10);
+    snapshots(source).export(directory, List.of("members"), false);
+    target.getCollection("members").insertOne(new Document("_id", "stale"));
+
+    assertThrows(IllegalStateException.class, () -> snapshots(target).restore(directory, List.of(), false, false));
+
+    snapshots(target).restore(directory, List.of(), true, false);
+    assertEquals(all(source, "members"), all(target, "members"));
+  }
+
+  @Test
+  void leavesTheOperationalCollectionsOutUnlessAsked() throws Exception {
+    fill("sponsors", 3);
+    fill("outbox", 2);
+    source.getCollection("counters").insertOne(new Document("_id", "changes").append("value", 5L));
+
+    Map<String, Object> manifest = snapshots(source).export(directory, List.of(), false);
+    assertEquals(1, ((List<?>) manifest.get("collections")).size());
+    assertThrows(IllegalArgumentException.class,
+        () -> snapshots(source).export(directory, List.of("outbox"), false));
+
+    snapshots(target).restore(directory, List.of(), false, false);
+    assertEquals(0, target.getCollection("outbox").countDocuments());
+    // without the counters, the change sequence is moved past the restored sponsors
+    assertEquals((long) Integer.MAX_VALUE + 2, new MongoChangeLogRepository(target).safeWatermark());
+
+    manifest = snapshots(source).export(directory.resolve("all"), List.of(), true);
+    assertEquals(3, ((List<?>) manifest.get("collections")).size());
+  }
+}
@@ -0,0 +1,94 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgillcssa.cssabackend.repository.RepositoryUnavailableException;
+
+/**
+ * Serves reads with a fake clock and loaders that count their calls.
+ */
+class StaleReadServiceTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000_000L);
+  private final StaleReadService staleReads = new StaleReadService(30, 1, now::get);
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @AfterEach
+  void shutdown() {
+    staleReads.shutdown();
+  }
+
+  private String load() {
+    return "v" + loads.incrementAndGet();
+  }
+
+  private String unavailable() {
+    throw new RepositoryUnavailableException("Database unavailable");
+  }
+
+  private void advance(Duration duration) {
+    now.addAndGet(duration.toNanos());
+  }
+
+  @Test
+  void servesFreshResultsFromMemory() {
+    assertEquals("v1", staleReads.read("sponsors/all", this::load));
+    advance(Duration.ofSeconds(29));
+    assertEquals("v1", staleReads.read("sponsors/all", this::load));
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void servesStaleWhileRevalidatingInTheBackground() throws Exception {
+    staleReads.read("sponsors/all", this::load);
+    advance(Duration.ofSeconds(31));
+
+    CountDownLatch revalidated = new CountDownLatch(1);
+    assertEquals("v1", staleReads.read("sponsors/all", () -> {
+      String value = load();
+      revalidated.countDown();
+      return value;
+    }));
+    assertEquals(1L, staleReads.getStats().get("servedRevalidating"));
+    assertEquals(true, revalidated.await(5, TimeUnit.SECONDS));
+    for (int i = 0; i < 500 && !staleReads.getStats().get("revalidating").equals(0); i++) {
+      Thread.sleep(10);
+    }
+    assertEquals("v2", staleReads.read("sponsors/all", this::unavailable));
+    assertEquals(1L, staleReads.getStats().get("servedRevalidating"), "the new result is fresh");
+  }
+
+  @Test
+  void servesTheLastResultWhileTheDatabaseIsUnavailable() {
+    assertThrows(RepositoryUnavailableException.class, () -> staleReads.read("benefits/all", this::unavailable));
+
+    staleReads.read("benefits/all", this::load);
+    staleReads.invalidate("benefits");
+    assertEquals("v1", staleReads.read("benefits/all", this::unavailable));
+    assertEquals(1L, staleReads.getStats().get("servedUnavailable"));
+
+    assertEquals("v2", staleReads.read("benefits/all", this::load), "invalidated results are read again first");
+    assertEquals("v2", staleReads.read("benefits/all", this::load));
+  }
+
+  @Test
+  void invalidatesOnlyTheTopic() {
+    staleReads.read("sponsors/all", this::load);
+    staleReads.read("events/upcoming/5", this::load);
+
+    staleReads.invalidate("sponsors");
+
+    assertEquals("v3", staleReads.read("sponsors/all", this::load));
+    assertEquals("v2", staleReads.read("events/upcoming/5", this::load));
+  }
+}
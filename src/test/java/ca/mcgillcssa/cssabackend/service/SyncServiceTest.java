@@ -0,0 +1,138 @@
+package ca.mcgillcssa.cssabackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import ca.mcgillcssa.cssabackend.event.EntityChangedEvent;
+import ca.mcgillcssa.cssabackend.model.CSSAEvent;
+import ca.mcgillcssa.cssabackend.model.Sponsor;
+import ca.mcgillcssa.cssabackend.repository.InMemoryCSSAEventRepository;
+import ca.mcgillcssa.cssabackend.repository.InMemoryChangeLogRepository;
+import ca.mcgillcssa.cssabackend.repository.InMemoryMembershipBenefitRepository;
+import ca.mcgillcssa.cssabackend.repository.InMemorySponsorRepository;
+
+/**
+ * Pages through changes spread over the three collections and the tombstones,
+ * written to the in-memory repositories.
+ */
+class SyncServiceTest {
+
+  private final InMemoryChangeLogRepository changeLog = new InMemoryChangeLogRepository();
+  private final InMemorySponsorRepository sponsors = new InMemorySponsorRepository(event -> {
+  }, changeLog);
+  private final InMemoryCSSAEventRepository events = new InMemoryCSSAEventRepository(event -> {
+  }, changeLog);
+
+  private final SyncService syncService = new SyncService(sponsors, events,
+      new InMemoryMembershipBenefitRepository(event -> {
+      }, changeLog), changeLog, 100, 90);
+
+  private long sponsor(String name) {
+    return sponsors.createSponsor(new Sponsor(name, Sponsor.CoopDuration.FULL_YEAR, "https://img", "https://site",
+        Sponsor.SponsorClass.GOLD, 0)).getChangeSeq();
+  }
+
+  private long event(String name) {
+    return events.saveEvent(new CSSAEvent(name, LocalDate.of(2026, 12, 5), LocalDate.of(2026, 12, 5), "Montreal",
+        "https://img", "", "https://link")).getChangeSeq();
+  }
+
+  private long deletion(String topic, String id) {
+    return deletion(topic, id, () -> {
+    });
+  }
+
+  /**
+   * @param whileWriting run after the deletion took its sequence, before it is
+   *                     recorded
+   */
+  private long deletion(String topic, String id, Runnable whileWriting) {
+    return changeLog.withSequence(seq -> {
+      whileWriting.run();
+      return changeLog.recordDeletion(topic, id, seq);
+    }).getChangeSeq();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Set<Long> changeSeqs(Map<String, Object> changes) {
+    Set<Long> seqs = new HashSet<>();
+    ((List<Sponsor>) changes.get(EntityChangedEvent.SPONSORS)).forEach(sponsor -> seqs.add(sponsor.getChangeSeq()));
+    ((List<CSSAEvent>) changes.get(EntityChangedEvent.EVENTS)).forEach(event -> seqs.add(event.getChangeSeq()));
+    ((Map<String, List<Map<String, Object>>>) changes.get("deleted")).values()
+        .forEach(deletions -> deletions.forEach(deletion -> seqs.add((Long) deletion.get("changeSeq"))));
+    return seqs;
+  }
+
+  @Test
+  void pagesThroughEveryChangeExactlyOnce() {
+    // interleave the collections so that pages cut across them
+    for (int i = 1; i <= 30; i++) {
+      if (i % 3 == 0) {
+        sponsor("Sponsor " + i);
+      } else if (i % 3 == 1) {
+        event("Event " + i);
+      } else {
+        deletion(EntityChangedEvent.BENEFITS, "Merchant " + i);
+      }
+    }
+
+    Set<Long> seen = new HashSet<>();
+    long since = 0;
+    int pages = 0;
+    boolean hasMore = true;
+    while (hasMore) {
+      Map<String, Object> changes = syncService.getChangesSince(since, 4);
+      for (long seq : changeSeqs(changes)) {
+        assertTrue(seq > since);
+        assertTrue(seen.add(seq), "change " + seq + " was returned twice");
+      }
+      since = (Long) changes.get("nextSince");
+      hasMore = (Boolean) changes.get("hasMore");
+      assertTrue(++pages < 30, "paging did not end");
+    }
+
+    assertEquals(30, seen.size());
+    assertEquals(30, since);
+  }
+
+  @Test
+  void stopsBelowWritesInProgress() {
+    long early = sponsor("Early");
+    long[] late = new long[1];
+    // the deletion that took the next sequence has not finished when a later write lands
+    long deleted = deletion(EntityChangedEvent.EVENTS, "Cancelled", () -> {
+      late[0] = sponsor("Late");
+      Map<String, Object> changes = syncService.getChangesSince(0, 10);
+      assertEquals(Set.of(early), changeSeqs(changes));
+      assertEquals(early, changes.get("nextSince"));
+    });
+
+    Map<String, Object> changes = syncService.getChangesSince(early, 10);
+    assertEquals(Set.of(deleted, late[0]), changeSeqs(changes));
+  }
+
+  @Test
+  void asksForAResetOnceNeededTombstonesArePurged() {
+    for (int i = 1; i <= 10; i++) {
+      deletion(EntityChangedEvent.SPONSORS, "Sponsor " + i);
+    }
+    assertEquals(10, changeLog.purgeDeletionsBefore(new Date(System.currentTimeMillis() + 60_000)));
+    assertEquals(10, changeLog.getPurgedThrough());
+
+    assertTrue((Boolean) syncService.getChangesSince(5, 10).get("resetRequired"));
+    assertFalse((Boolean) syncService.getChangesSince(0, 10).get("resetRequired"));
+    assertFalse((Boolean) syncService.getChangesSince(10, 10).get("resetRequired"));
+    assertThrows(IllegalArgumentException.class, () -> syncService.getChangesSince(0, 101));
+  }
+}
@@ -0,0 +1,76 @@
+package ca.mcgillcssa.cssabackend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+  private static String email(int i) {
+    return "student" + i + "@mail.mcgill.ca";
+  }
+
+  @Test
+  void neverRejectsAnInsertedValue() {
+    BloomFilter filter = new BloomFilter(10000, 0.01);
+    // past the size it was built for, only the false positive rate suffers
+    for (int i = 0; i < 30000; i++) {
+      filter.put(email(i));
+    }
+    for (int i = 0; i < 30000; i++) {
+      assertTrue(filter.mightContain(email(i)), email(i));
+    }
+  }
+
+  @Test
+  void keepsConcurrentInsertsToTheSameWords() throws Exception {
+    BloomFilter filter = new BloomFilter(1000, 0.01);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> writers = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        int offset = t;
+        writers.add(executor.submit(() -> {
+          for (int i = offset; i < 8000; i += 8) {
+            filter.put(email(i));
+          }
+        }));
+      }
+      for (Future<?> writer : writers) {
+        writer.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    for (int i = 0; i < 8000; i++) {
+      assertTrue(filter.mightContain(email(i)), email(i));
+    }
+  }
+
+  @Test
+  void isSizedForTheTargetFalsePositiveRate() {
+    // m = -n ln p / (ln 2)^2, rounded up to whole 64-bit words
+    assertEquals(95872, new BloomFilter(10000, 0.01).bitSize());
+    assertEquals(64, new BloomFilter(1, 0.01).bitSize());
+    assertEquals(64, new BloomFilter(0, 0.01).bitSize());
+
+    BloomFilter filter = new BloomFilter(10000, 0.01);
+    for (int i = 0; i < 10000; i++) {
+      filter.put(email(i));
+    }
+    int falsePositives = 0;
+    for (int i = 10000; i < 110000; i++) {
+      if (filter.mightContain(email(i))) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 2000, falsePositives + " false positives in 100000");
+  }
+}
@@ -0,0 +1,94 @@
+package ca.mcgillcssa.cssabackend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives the cache with a fake clock and a loader that records its calls.
+ */
+class BoundedTtlCacheTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000_000L);
+  private final List<String> loads = new ArrayList<>();
+  private final Function<String, Optional<String>> loader = key -> {
+    loads.add(key);
+    return key.startsWith("missing") ? Optional.empty() : Optional.of(key.toUpperCase());
+  };
+
+  private BoundedTtlCache<String, String> cache(int maxEntries) {
+    return new BoundedTtlCache<>(maxEntries, Duration.ofSeconds(300), Duration.ofSeconds(30), now::get);
+  }
+
+  private void advance(Duration duration) {
+    now.addAndGet(duration.toNanos());
+  }
+
+  @Test
+  void entriesExpireAfterTheirTtl() {
+    BoundedTtlCache<String, String> cache = cache(10);
+
+    assertEquals(Optional.of("ADA"), cache.get("ada", loader));
+    assertEquals(Optional.empty(), cache.get("missing", loader));
+    advance(Duration.ofSeconds(29));
+    cache.get("ada", loader);
+    cache.get("missing", loader);
+    assertEquals(List.of("ada", "missing"), loads);
+
+    // misses have the shorter ttl
+    advance(Duration.ofSeconds(1));
+    cache.get("ada", loader);
+    cache.get("missing", loader);
+    assertEquals(List.of("ada", "missing", "missing"), loads);
+
+    advance(Duration.ofSeconds(270));
+    cache.get("ada", loader);
+    assertEquals(List.of("ada", "missing", "missing", "ada"), loads);
+    assertEquals(2L, cache.getStats().get("hits"));
+    assertEquals(1L, cache.getStats().get("negativeHits"));
+    assertEquals(4L, cache.getStats().get("misses"));
+  }
+
+  @Test
+  void evictsTheLeastRecentlyUsedEntryBeyondTheBound() {
+    BoundedTtlCache<String, String> cache = cache(3);
+    cache.get("a", loader);
+    cache.get("b", loader);
+    cache.get("c", loader);
+    // a becomes the most recently used, so b is the eldest
+    cache.get("a", loader);
+
+    cache.get("d", loader);
+    assertEquals(3, cache.size());
+    assertEquals(1L, cache.getStats().get("evictions"));
+    loads.clear();
+    cache.get("a", loader);
+    cache.get("c", loader);
+    cache.get("d", loader);
+    assertEquals(List.of(), loads);
+    cache.get("b", loader);
+    assertEquals(List.of("b"), loads);
+  }
+
+  @Test
+  void loadsRacingAnInvalidationAreNotCached() {
+    BoundedTtlCache<String, String> cache = cache(10);
+    cache.get("ada", key -> {
+      cache.invalidate(key);
+      return Optional.of("stale");
+    });
+
+    assertEquals(0, cache.size());
+    assertEquals(Optional.of("ADA"), cache.get("ada", loader));
+    cache.invalidateAll();
+    cache.get("ada", loader);
+    assertEquals(List.of("ada", "ada"), loads);
+  }
+}
@@ -0,0 +1,65 @@
+package ca.mcgillcssa.cssabackend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives the breaker with a fake clock.
+ */
+class CircuitBreakerTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000_000L);
+  private final CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofSeconds(10).toNanos(), now::get);
+
+  private void fail(int times) {
+    for (int i = 0; i < times; i++) {
+      assertTrue(breaker.tryAcquire());
+      breaker.onFailure();
+    }
+  }
+
+  @Test
+  void opensAfterConsecutiveFailuresOnly() {
+    fail(2);
+    assertTrue(breaker.tryAcquire());
+    breaker.onSuccess();
+    fail(2);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(), "a success resets the count");
+
+    fail(1);
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire());
+    assertEquals(1L, breaker.getStats().get("rejected"));
+  }
+
+  @Test
+  void letsOneTrialThroughAfterTheOpenPeriod() {
+    fail(3);
+    now.addAndGet(Duration.ofSeconds(9).toNanos());
+    assertFalse(breaker.tryAcquire());
+
+    now.addAndGet(Duration.ofSeconds(1).toNanos());
+    assertTrue(breaker.tryAcquire());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire(), "one trial at a time");
+
+    breaker.onFailure();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire(), "a failed trial opens the breaker for another period");
+
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+    assertTrue(breaker.tryAcquire());
+    breaker.cancel();
+    assertTrue(breaker.tryAcquire(), "a cancelled trial can be retried");
+    breaker.onSuccess();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertTrue(breaker.tryAcquire());
+    assertEquals(2L, breaker.getStats().get("timesOpened"));
+  }
+}
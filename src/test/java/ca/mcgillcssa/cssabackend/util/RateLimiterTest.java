@@ -0,0 +1,123 @@
+package ca.mcgillcssa.cssabackend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives the token buckets with a fake clock.
+ */
+class RateLimiterTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+  private void advance(Duration duration) {
+    now.addAndGet(duration.toNanos());
+  }
+
+  @Test
+  void allowsABurstThenRefillsAtTheConfiguredRate() {
+    RateLimiter limiter = new RateLimiter(5, Duration.ofSeconds(10), 100, now::get);
+
+    for (int i = 0; i < 5; i++) {
+      assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+    }
+    long wait = limiter.tryAcquire("10.0.0.1");
+    assertEquals(Duration.ofSeconds(2).toNanos(), wait);
+    // other clients have their own bucket
+    assertEquals(0, limiter.tryAcquire("10.0.0.2"));
+
+    advance(Duration.ofSeconds(2));
+    assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+    assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+
+    // a long pause refills to capacity, not beyond
+    advance(Duration.ofMinutes(5));
+    for (int i = 0; i < 5; i++) {
+      assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+    }
+    assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+  }
+
+  @Test
+  void neverGrantsMoreThanCapacityUnderContention() throws Exception {
+    RateLimiter limiter = new RateLimiter(50, Duration.ofHours(1), 100, now::get);
+    AtomicInteger granted = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(16);
+    for (int i = 0; i < 1000; i++) {
+      pool.execute(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        if (limiter.tryAcquire("10.0.0.1") == 0) {
+          granted.incrementAndGet();
+        }
+      });
+    }
+    start.countDown();
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+    assertEquals(50, granted.get());
+  }
+
+  @Test
+  void staysWithinItsBoundDroppingFullBucketsFirst() {
+    RateLimiter limiter = new RateLimiter(2, Duration.ofSeconds(10), 100, now::get);
+
+    limiter.tryAcquire("busy");
+    limiter.tryAcquire("busy");
+    advance(Duration.ofSeconds(1));
+    for (int i = 0; i < 1000; i++) {
+      limiter.tryAcquire("client-" + i);
+      advance(Duration.ofSeconds(10));
+    }
+
+    assertTrue(limiter.size() <= 100, "size " + limiter.size());
+    assertEquals(0, limiter.getEvictions());
+  }
+
+  @Test
+  void neverEvictsAThrottledBucket() {
+    RateLimiter limiter = new RateLimiter(2, Duration.ofSeconds(10), 10, now::get);
+
+    limiter.tryAcquire("throttled");
+    limiter.tryAcquire("throttled");
+    assertTrue(limiter.tryAcquire("throttled") > 0);
+    // clients that keep a token left, none of them full again before the sweep
+    for (int i = 0; i < 20; i++) {
+      limiter.tryAcquire("client-" + i);
+    }
+
+    assertTrue(limiter.size() <= 10, "size " + limiter.size());
+    assertTrue(limiter.getEvictions() > 0);
+    assertTrue(limiter.tryAcquire("throttled") > 0);
+  }
+
+  @Test
+  void goesOverItsBoundRatherThanEvictThrottledBuckets() {
+    RateLimiter limiter = new RateLimiter(1, Duration.ofSeconds(10), 10, now::get);
+
+    for (int i = 0; i < 20; i++) {
+      assertEquals(0, limiter.tryAcquire("client-" + i));
+    }
+
+    assertEquals(20, limiter.size());
+    assertEquals(0, limiter.getEvictions());
+    for (int i = 0; i < 20; i++) {
+      assertTrue(limiter.tryAcquire("client-" + i) > 0);
+    }
+  }
+}
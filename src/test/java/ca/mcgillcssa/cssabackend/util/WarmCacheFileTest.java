@@ -0,0 +1,81 @@
+package ca.mcgillcssa.cssabackend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WarmCacheFileTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void sectionsRoundTrip() throws IOException {
+    Path file = directory.resolve("warm-cache.bin");
+    Map<String, WarmCacheFile.Section> sections = new LinkedHashMap<>();
+    sections.put("sponsors", new WarmCacheFile.Section(42, List.of("{\"_id\": \"Café 北京\"}", "")));
+    sections.put("members", new WarmCacheFile.Section(0, List.of()));
+
+    long before = System.currentTimeMillis();
+    WarmCacheFile.write(file, sections);
+    WarmCacheFile read = WarmCacheFile.read(file);
+
+    assertTrue(read.getWrittenAt() >= before);
+    assertEquals(List.of("sponsors", "members"), List.copyOf(read.getSections().keySet()));
+    assertEquals(42, read.getSections().get("sponsors").getVersion());
+    assertEquals(sections.get("sponsors").getRecords(), read.getSections().get("sponsors").getRecords());
+    assertEquals(List.of(), read.getSections().get("members").getRecords());
+    try (var files = Files.list(directory)) {
+      assertEquals(1, files.count(), "the temporary file is gone");
+    }
+  }
+
+  @Test
+  void rejectsTruncatedAndForeignFiles() throws IOException {
+    Path file = directory.resolve("warm-cache.bin");
+    WarmCacheFile.write(file, Map.of("benefits", new WarmCacheFile.Section(7, List.of("a", "b", "c"))));
+    byte[] bytes = Files.readAllBytes(file);
+
+    for (int length : new int[] { 0, 5, bytes.length - 1 }) {
+      Path truncated = directory.resolve("truncated-" + length);
+      Files.write(truncated, Arrays.copyOf(bytes, length));
+      assertThrows(IOException.class, () -> WarmCacheFile.read(truncated), length + " bytes");
+    }
+    Path foreign = directory.resolve("foreign");
+    Files.writeString(foreign, "not a warm-cache file at all");
+    assertThrows(IOException.class, () -> WarmCacheFile.read(foreign));
+  }
+
+  @Test
+  void aLoadStartedBeforeAnInvalidationIsNotCached() {
+    VersionedCache<String> cache = new VersionedCache<>();
+
+    assertEquals("stale", cache.get(() -> {
+      cache.invalidate();
+      return new VersionedCache.Entry<>(1, "stale");
+    }));
+    assertNull(cache.getEntry());
+    assertEquals("fresh", cache.get(() -> new VersionedCache.Entry<>(2, "fresh")));
+    assertEquals(2, cache.getEntry().getVersion());
+
+    long generation = cache.getGeneration();
+    assertFalse(cache.warm(new VersionedCache.Entry<>(1, "warm"), generation), "already loaded");
+    cache.invalidate();
+    assertFalse(cache.warm(new VersionedCache.Entry<>(1, "warm"), generation), "invalidated since");
+    assertTrue(cache.warm(new VersionedCache.Entry<>(3, "warm"), cache.getGeneration()));
+    assertEquals("warm", cache.get(() -> new VersionedCache.Entry<>(4, "loaded")));
+  }
+}